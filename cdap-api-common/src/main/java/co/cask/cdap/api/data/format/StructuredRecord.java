@@ -30,10 +30,11 @@ import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Date;
 import java.util.EnumSet;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TimeZone;
@@ -41,23 +42,25 @@ import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
 /**
- * Instance of a record structured by a {@link Schema}. Fields are accessible by name.
+ * Instance of a record structured by a {@link Schema}. Fields are accessible by name, or by the position of the field
+ * in the {@link Schema#getFields() schema fields}.
  */
 @Beta
 public class StructuredRecord implements Serializable {
   private static final SimpleDateFormat DEFAULT_FORMAT = new SimpleDateFormat("YYYY-MM-DD'T'HH:mm:ss z");
   private final Schema schema;
-  private final Map<String, Object> fields;
+  // Field values, indexed by the field position in the schema
+  private final Object[] values;
 
-  private static final long serialVersionUID = -6547770456592865613L;
+  private static final long serialVersionUID = 4623713213512365849L;
 
   {
     DEFAULT_FORMAT.setTimeZone(TimeZone.getTimeZone("UTC"));
   }
 
-  private StructuredRecord(Schema schema, Map<String, Object> fields) {
+  private StructuredRecord(Schema schema, Object[] values) {
     this.schema = schema;
-    this.fields = fields;
+    this.values = values;
   }
 
   /**
@@ -79,7 +82,22 @@ public class StructuredRecord implements Serializable {
   @SuppressWarnings("unchecked")
   @Nullable
   public <T> T get(String fieldName) {
-    return (T) fields.get(fieldName);
+    int index = schema.getFieldIndex(fieldName);
+    return index < 0 ? null : (T) values[index];
+  }
+
+  /**
+   * Get the value of a field in the record by the position of the field in the schema.
+   *
+   * @param index 0-base position of the field in the list of fields returned by {@link Schema#getFields()}.
+   * @param <T> type of object of the field value.
+   * @return value of the field.
+   * @throws IndexOutOfBoundsException if there is no field at the given position.
+   */
+  @SuppressWarnings("unchecked")
+  @Nullable
+  public <T> T get(int index) {
+    return (T) values[index];
   }
 
   /**
@@ -92,7 +110,7 @@ public class StructuredRecord implements Serializable {
   @Nullable
   public LocalDate getDate(String fieldName) {
     LogicalType logicalType = validateAndGetLogicalType(schema.getField(fieldName), EnumSet.of(LogicalType.DATE));
-    Integer value = (Integer) fields.get(fieldName);
+    Integer value = get(fieldName);
     return (value == null || logicalType == null) ? null : LocalDate.ofEpochDay(value.longValue());
   }
 
@@ -109,7 +127,7 @@ public class StructuredRecord implements Serializable {
   public LocalTime getTime(String fieldName) {
     LogicalType logicalType = validateAndGetLogicalType(schema.getField(fieldName),
                                                         EnumSet.of(LogicalType.TIME_MILLIS, LogicalType.TIME_MICROS));
-    Object value = fields.get(fieldName);
+    Object value = get(fieldName);
     if (value == null || logicalType == null) {
       return null;
     }
@@ -152,7 +170,7 @@ public class StructuredRecord implements Serializable {
     LogicalType logicalType = validateAndGetLogicalType(schema.getField(fieldName),
                                                         EnumSet.of(LogicalType.TIMESTAMP_MILLIS,
                                                                    LogicalType.TIMESTAMP_MICROS));
-    Object value = fields.get(fieldName);
+    Object value = get(fieldName);
     if (value == null || logicalType == null) {
       return null;
     }
@@ -253,17 +271,44 @@ public class StructuredRecord implements Serializable {
     return new Builder(schema);
   }
 
+  /**
+   * Get a builder for creating a record derived from the given record. The builder starts with all the field values
+   * of the given record. The field values are only copied when the builder is first modified, hence deriving a record
+   * is cheap.
+   *
+   * @param record the record to derive from.
+   * @return builder for creating a record with the same schema as the given record.
+   */
+  public static Builder builder(StructuredRecord record) {
+    return new Builder(record.schema, record.values);
+  }
+
   /**
    * Builder for creating a {@link StructuredRecord}.
    * TODO: enforce schema correctness?
    */
   public static class Builder {
     private final Schema schema;
-    private Map<String, Object> fields;
+    private final List<Schema.Field> schemaFields;
+    private final BitSet fieldsSet;
+    private Object[] values;
+    // true if the values array is shared with a StructuredRecord, hence it must be copied before modification
+    private boolean shared;
 
     private Builder(Schema schema) {
       this.schema = schema;
-      this.fields = new HashMap<>();
+      this.schemaFields = schema.getFields();
+      this.fieldsSet = new BitSet(schemaFields.size());
+      this.values = new Object[schemaFields.size()];
+    }
+
+    private Builder(Schema schema, Object[] values) {
+      this.schema = schema;
+      this.schemaFields = schema.getFields();
+      this.fieldsSet = new BitSet(schemaFields.size());
+      this.fieldsSet.set(0, schemaFields.size());
+      this.values = values;
+      this.shared = true;
     }
 
     /**
@@ -276,8 +321,24 @@ public class StructuredRecord implements Serializable {
      *                                   value is given
      */
     public Builder set(String fieldName, @Nullable Object value) {
-      validateAndGetField(fieldName, value);
-      fields.put(fieldName, value);
+      int index = getIndex(fieldName);
+      validateAndGetField(index, value);
+      setValue(index, value);
+      return this;
+    }
+
+    /**
+     * Set the field at the given position in the schema to the given value.
+     *
+     * @param index 0-base position of the field in the list of fields returned by {@link Schema#getFields()}
+     * @param value value for the field
+     * @return this builder
+     * @throws IndexOutOfBoundsException if there is no field at the given position
+     * @throws UnexpectedFormatException if the field is not nullable but a null value is given
+     */
+    public Builder set(int index, @Nullable Object value) {
+      validateAndGetField(index, value);
+      setValue(index, value);
       return this;
     }
 
@@ -291,13 +352,14 @@ public class StructuredRecord implements Serializable {
      *                                   value is given or if the provided date is an invalid date
      */
     public Builder setDate(String fieldName, @Nullable LocalDate localDate) {
-      validateAndGetLogicalType(validateAndGetField(fieldName, localDate), EnumSet.of(LogicalType.DATE));
+      int index = getIndex(fieldName);
+      validateAndGetLogicalType(validateAndGetField(index, localDate), EnumSet.of(LogicalType.DATE));
       if (localDate == null) {
-        fields.put(fieldName, null);
+        setValue(index, null);
         return this;
       }
       try {
-        fields.put(fieldName, Math.toIntExact(localDate.toEpochDay()));
+        setValue(index, Math.toIntExact(localDate.toEpochDay()));
       } catch (ArithmeticException e) {
         // Highest integer is 2,147,483,647 which is Jan 1 2038.
         throw new UnexpectedFormatException(String.format("Field %s was set to a date that is too large." +
@@ -316,11 +378,12 @@ public class StructuredRecord implements Serializable {
      *                                   value is given
      */
     public Builder setTime(String fieldName, @Nullable LocalTime localTime) {
-      LogicalType logicalType = validateAndGetLogicalType(validateAndGetField(fieldName, localTime),
+      int index = getIndex(fieldName);
+      LogicalType logicalType = validateAndGetLogicalType(validateAndGetField(index, localTime),
                                                           EnumSet.of(LogicalType.TIME_MILLIS, LogicalType.TIME_MICROS));
 
       if (localTime == null) {
-        fields.put(fieldName, null);
+        setValue(index, null);
         return this;
       }
 
@@ -329,7 +392,7 @@ public class StructuredRecord implements Serializable {
       if (logicalType == LogicalType.TIME_MILLIS) {
         try {
           int millis = Math.toIntExact(TimeUnit.NANOSECONDS.toMillis(nanos));
-          fields.put(fieldName, millis);
+          setValue(index, millis);
         } catch (ArithmeticException e) {
           throw new UnexpectedFormatException(String.format("Field %s was set to a time that is too large.",
                                                             fieldName));
@@ -338,7 +401,7 @@ public class StructuredRecord implements Serializable {
       }
 
       long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
-      fields.put(fieldName, micros);
+      setValue(index, micros);
       return this;
     }
 
@@ -353,12 +416,13 @@ public class StructuredRecord implements Serializable {
      *                                   value is given or if the provided date is an invalid timestamp
      */
     public Builder setTimestamp(String fieldName, @Nullable ZonedDateTime zonedDateTime) {
-      LogicalType logicalType = validateAndGetLogicalType(validateAndGetField(fieldName, zonedDateTime),
+      int index = getIndex(fieldName);
+      LogicalType logicalType = validateAndGetLogicalType(validateAndGetField(index, zonedDateTime),
                                                           EnumSet.of(LogicalType.TIMESTAMP_MILLIS,
                                                                      LogicalType.TIMESTAMP_MICROS));
 
       if (zonedDateTime == null) {
-        fields.put(fieldName, null);
+        setValue(index, null);
         return this;
       }
 
@@ -367,13 +431,13 @@ public class StructuredRecord implements Serializable {
         if (logicalType == LogicalType.TIMESTAMP_MILLIS) {
           long millis = TimeUnit.SECONDS.toMillis(instant.getEpochSecond());
           long tsMillis = Math.addExact(millis, TimeUnit.NANOSECONDS.toMillis(instant.getNano()));
-          fields.put(fieldName, tsMillis);
+          setValue(index, tsMillis);
           return this;
         }
 
         long micros = TimeUnit.SECONDS.toMicros(instant.getEpochSecond());
         long tsMicros = Math.addExact(micros, TimeUnit.NANOSECONDS.toMicros(instant.getNano()));
-        fields.put(fieldName, tsMicros);
+        setValue(index, tsMicros);
         return this;
       } catch (ArithmeticException e) {
         throw new UnexpectedFormatException(String.format("Field %s was set to a timestamp that is too large.",
@@ -417,19 +481,20 @@ public class StructuredRecord implements Serializable {
     @Deprecated
     public Builder convertAndSet(String fieldName, @Nullable Date date,
                                  @Nullable DateFormat dateFormat) throws UnexpectedFormatException {
-      Schema.Field field = validateAndGetField(fieldName, date);
+      int index = getIndex(fieldName);
+      Schema.Field field = validateAndGetField(index, date);
       boolean isNullable = field.getSchema().isNullable();
       if (isNullable && date == null) {
-        fields.put(fieldName, null);
+        setValue(index, null);
         return this;
       }
 
       Schema.Type fieldType = isNullable ? field.getSchema().getNonNullable().getType() : field.getSchema().getType();
       if (fieldType == Schema.Type.LONG) {
-        fields.put(fieldName, date.getTime());
+        setValue(index, date.getTime());
       } else if (fieldType == Schema.Type.STRING) {
         DateFormat format = dateFormat == null ? DEFAULT_FORMAT : dateFormat;
-        fields.put(fieldName, format.format(date));
+        setValue(index, format.format(date));
       } else {
         throw new UnexpectedFormatException("Date must be either a long or a string, not a " + fieldType);
       }
@@ -447,8 +512,9 @@ public class StructuredRecord implements Serializable {
      *                                   value is given, or the string cannot be converted to the type for the field
      */
     public Builder convertAndSet(String fieldName, @Nullable String strVal) throws UnexpectedFormatException {
-      Schema.Field field = validateAndGetField(fieldName, strVal);
-      fields.put(fieldName, convertString(field.getSchema(), strVal));
+      int index = getIndex(fieldName);
+      Schema.Field field = validateAndGetField(index, strVal);
+      setValue(index, convertString(field.getSchema(), strVal));
       return this;
     }
 
@@ -459,20 +525,16 @@ public class StructuredRecord implements Serializable {
      * @throws UnexpectedFormatException if there is at least one non-nullable field without a value
      */
     public StructuredRecord build() throws UnexpectedFormatException {
-      // check that all non-nullable fields have a value.
-      for (Schema.Field field : schema.getFields()) {
-        String fieldName = field.getName();
-        if (!fields.containsKey(fieldName)) {
-          // if the field is not nullable and there is no value set for the field, this is invalid.
-          if (!field.getSchema().isNullable()) {
-            throw new UnexpectedFormatException("Field " + fieldName + " must contain a value.");
-          } else {
-            // otherwise, set the value for the field to null
-            fields.put(fieldName, null);
-          }
+      // check that all non-nullable fields have a value. Fields that are not set have null value.
+      for (int i = 0; i < schemaFields.size(); i++) {
+        // if the field is not nullable and there is no value set for the field, this is invalid.
+        if (!fieldsSet.get(i) && !schemaFields.get(i).getSchema().isNullable()) {
+          throw new UnexpectedFormatException("Field " + schemaFields.get(i).getName() + " must contain a value.");
         }
       }
-      return new StructuredRecord(schema, fields);
+      // The values array is shared with the record, so that further modifications to this builder need a copy.
+      shared = true;
+      return new StructuredRecord(schema, values);
     }
 
     private Object convertString(Schema schema, String strVal) throws UnexpectedFormatException {
@@ -514,11 +576,26 @@ public class StructuredRecord implements Serializable {
       }
     }
 
-    private Schema.Field validateAndGetField(String fieldName, Object val) {
-      Schema.Field field = schema.getField(fieldName);
-      if (field == null) {
+    private void setValue(int index, @Nullable Object value) {
+      if (shared) {
+        values = Arrays.copyOf(values, values.length);
+        shared = false;
+      }
+      values[index] = value;
+      fieldsSet.set(index);
+    }
+
+    private int getIndex(String fieldName) {
+      int index = schema.getFieldIndex(fieldName);
+      if (index < 0) {
         throw new UnexpectedFormatException("field " + fieldName + " is not in the schema.");
       }
+      return index;
+    }
+
+    private Schema.Field validateAndGetField(int index, @Nullable Object val) {
+      Schema.Field field = schemaFields.get(index);
+      String fieldName = field.getName();
       Schema fieldSchema = field.getSchema();
       if (val == null) {
         if (fieldSchema.getType() == Schema.Type.NULL) {
@@ -549,12 +626,12 @@ public class StructuredRecord implements Serializable {
 
     StructuredRecord that = (StructuredRecord) o;
 
-    return Objects.equals(schema, that.schema) && Objects.equals(fields, that.fields);
+    return Objects.equals(schema, that.schema) && Arrays.equals(values, that.values);
 
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(schema, fields);
+    return Objects.hash(schema, Arrays.hashCode(values));
   }
 }
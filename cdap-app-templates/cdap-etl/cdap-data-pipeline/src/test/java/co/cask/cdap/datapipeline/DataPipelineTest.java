@@ -66,11 +66,13 @@ import co.cask.cdap.etl.mock.batch.MockSink;
 import co.cask.cdap.etl.mock.batch.MockSource;
 import co.cask.cdap.etl.mock.batch.NodeStatesAction;
 import co.cask.cdap.etl.mock.batch.aggregator.FieldCountAggregator;
+import co.cask.cdap.etl.mock.batch.aggregator.FieldSumAggregator;
 import co.cask.cdap.etl.mock.batch.aggregator.GroupFilterAggregator;
 import co.cask.cdap.etl.mock.batch.aggregator.IdentityAggregator;
 import co.cask.cdap.etl.mock.batch.joiner.MockJoiner;
 import co.cask.cdap.etl.mock.condition.MockCondition;
 import co.cask.cdap.etl.mock.test.HydratorTestBase;
+import co.cask.cdap.etl.mock.transform.BatchIdentityTransform;
 import co.cask.cdap.etl.mock.transform.DropNullTransform;
 import co.cask.cdap.etl.mock.transform.FilterErrorTransform;
 import co.cask.cdap.etl.mock.transform.FlattenErrorTransform;
@@ -1853,6 +1855,142 @@ public class DataPipelineTest extends HydratorTestBase {
     testParallelAggregators(Engine.SPARK);
   }
 
+  @Test
+  public void testMapRedCombinableAggregator() throws Exception {
+    testCombinableAggregator(Engine.MAPREDUCE);
+  }
+
+  @Test
+  public void testSparkCombinableAggregator() throws Exception {
+    testCombinableAggregator(Engine.SPARK);
+  }
+
+  private void testCombinableAggregator(Engine engine) throws Exception {
+    String sourceName = "combineAggInput-" + engine.name();
+    String sinkName = "combineAggOutput-" + engine.name();
+    Schema inputSchema = Schema.recordOf(
+      "testRecord",
+      Schema.Field.of("user", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("item", Schema.of(Schema.Type.LONG))
+    );
+    /*
+       source --> agg --> sink
+     */
+    ETLBatchConfig etlConfig = ETLBatchConfig.builder()
+      .setEngine(engine)
+      .addStage(new ETLStage("source", MockSource.getPlugin(sourceName, inputSchema)))
+      .addStage(new ETLStage("agg", FieldSumAggregator.getPlugin("user", "item")))
+      .addStage(new ETLStage("sink", MockSink.getPlugin(sinkName)))
+      .addConnection("source", "agg")
+      .addConnection("agg", "sink")
+      .build();
+
+    AppRequest<ETLBatchConfig> appRequest = new AppRequest<>(APP_ARTIFACT, etlConfig);
+    ApplicationId appId = NamespaceId.DEFAULT.app("CombineAggApp-" + engine);
+    ApplicationManager appManager = deployApplication(appId, appRequest);
+
+    List<StructuredRecord> input = new ArrayList<>();
+    for (long i = 1; i <= 100; i++) {
+      String user = i % 2 == 0 ? "samuel" : "john";
+      input.add(StructuredRecord.builder(inputSchema).set("user", user).set("item", i).build());
+    }
+    DataSetManager<Table> inputManager = getDataset(NamespaceId.DEFAULT.dataset(sourceName));
+    MockSource.writeInput(inputManager, input);
+
+    WorkflowManager workflowManager = appManager.getWorkflowManager(SmartWorkflow.NAME);
+    workflowManager.start();
+    workflowManager.waitForRun(ProgramRunStatus.COMPLETED, 5, TimeUnit.MINUTES);
+
+    Schema outputSchema = Schema.recordOf(
+      "user.item.sum",
+      Schema.Field.of("user", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("item", Schema.of(Schema.Type.LONG))
+    );
+
+    // check output
+    DataSetManager<Table> sinkManager = getDataset(sinkName);
+    Set<StructuredRecord> expected = ImmutableSet.of(
+      StructuredRecord.builder(outputSchema).set("user", "samuel").set("item", 2550L).build(),
+      StructuredRecord.builder(outputSchema).set("user", "john").set("item", 2500L).build());
+    Set<StructuredRecord> actual = Sets.newHashSet(MockSink.readOutput(sinkManager));
+    Assert.assertEquals(expected, actual);
+
+    validateMetric(100, appId, "source.records.out");
+    validateMetric(100, appId, "agg.records.in");
+    validateMetric(2, appId, "agg.aggregator.groups");
+    validateMetric(2, appId, "agg.records.out");
+    validateMetric(2, appId, "sink.records.in");
+
+    // values are combined before the shuffle, so the aggregate method sees at most one value per group and partition
+    Map<String, String> tags = ImmutableMap.of(Constants.Metrics.Tag.NAMESPACE, appId.getNamespace(),
+                                               Constants.Metrics.Tag.APP, appId.getEntityName(),
+                                               Constants.Metrics.Tag.WORKFLOW, SmartWorkflow.NAME);
+    long aggregatedValues = getMetricsManager().getTotalMetric(tags, "user.agg.aggregated.values");
+    Assert.assertTrue(aggregatedValues >= 2);
+    Assert.assertTrue(aggregatedValues < 100);
+  }
+
+  @Test
+  public void testMapRedBatchTransformAfterAggregator() throws Exception {
+    testBatchTransformAfterAggregator(Engine.MAPREDUCE);
+  }
+
+  @Test
+  public void testSparkBatchTransformAfterAggregator() throws Exception {
+    testBatchTransformAfterAggregator(Engine.SPARK);
+  }
+
+  private void testBatchTransformAfterAggregator(Engine engine) throws Exception {
+    String sourceName = "batchTransformInput-" + engine.name();
+    String sinkName = "batchTransformOutput-" + engine.name();
+    Schema schema = Schema.recordOf(
+      "testRecord",
+      Schema.Field.of("user", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("item", Schema.of(Schema.Type.LONG))
+    );
+    /*
+       source --> agg --> transform --> sink
+     */
+    ETLBatchConfig etlConfig = ETLBatchConfig.builder()
+      .setEngine(engine)
+      .addStage(new ETLStage("source", MockSource.getPlugin(sourceName, schema)))
+      .addStage(new ETLStage("agg", IdentityAggregator.getPlugin()))
+      .addStage(new ETLStage("transform", BatchIdentityTransform.getPlugin()))
+      .addStage(new ETLStage("sink", MockSink.getPlugin(sinkName)))
+      .addConnection("source", "agg")
+      .addConnection("agg", "transform")
+      .addConnection("transform", "sink")
+      .build();
+
+    AppRequest<ETLBatchConfig> appRequest = new AppRequest<>(APP_ARTIFACT, etlConfig);
+    ApplicationId appId = NamespaceId.DEFAULT.app("BatchTransformApp-" + engine);
+    ApplicationManager appManager = deployApplication(appId, appRequest);
+
+    // more records than a batch, so that the transform gets full batches from the reducer and the rest on cleanup
+    Set<StructuredRecord> input = new HashSet<>();
+    for (long i = 0; i < 2500; i++) {
+      input.add(StructuredRecord.builder(schema).set("user", "user" + i % 7).set("item", i).build());
+    }
+    DataSetManager<Table> inputManager = getDataset(NamespaceId.DEFAULT.dataset(sourceName));
+    MockSource.writeInput(inputManager, input);
+
+    WorkflowManager workflowManager = appManager.getWorkflowManager(SmartWorkflow.NAME);
+    workflowManager.start();
+    workflowManager.waitForRun(ProgramRunStatus.COMPLETED, 5, TimeUnit.MINUTES);
+
+    // every record from the aggregator should reach the sink unchanged
+    DataSetManager<Table> sinkManager = getDataset(sinkName);
+    List<StructuredRecord> actual = MockSink.readOutput(sinkManager);
+    Assert.assertEquals(input.size(), actual.size());
+    Assert.assertEquals(input, new HashSet<>(actual));
+
+    validateMetric(2500, appId, "source.records.out");
+    validateMetric(2500, appId, "agg.records.out");
+    validateMetric(2500, appId, "transform.records.in");
+    validateMetric(2500, appId, "transform.records.out");
+    validateMetric(2500, appId, "sink.records.in");
+  }
+
   private void testSequentialAggregators(Engine engine) throws Exception {
     String sourceName = "linearAggInput-" + engine.name();
     String sinkName = "linearAggOutput-" + engine.name();
@@ -2198,7 +2336,17 @@ public class DataPipelineTest extends HydratorTestBase {
     testInnerJoinWithMultiOutput(Engine.SPARK);
   }
 
+  @Test
+  public void testInnerJoinBroadcastSpark() throws Exception {
+    // t1 is broadcast even though it is the first required input, so t2 is joined with the broadcast inputs
+    testInnerJoinWithMultiOutput(Engine.SPARK, "t1,t3");
+  }
+
   private void testInnerJoinWithMultiOutput(Engine engine) throws Exception {
+    testInnerJoinWithMultiOutput(engine, "");
+  }
+
+  private void testInnerJoinWithMultiOutput(Engine engine, String broadcastInputs) throws Exception {
     Schema inputSchema1 = Schema.recordOf(
       "customerRecord",
       Schema.Field.of("customer_id", Schema.of(Schema.Type.STRING)),
@@ -2220,14 +2368,15 @@ public class DataPipelineTest extends HydratorTestBase {
       Schema.Field.of("c_name", Schema.of(Schema.Type.STRING))
     );
 
-    String input1Name = "source1InnerJoinInput-" + engine;
-    String input2Name = "source2InnerJoinInput-" + engine;
-    String input3Name = "source3InnerJoinInput-" + engine;
-    String outputName = "innerJoinOutput-" + engine;
-    String outputName2 = "innerJoinOutput2-" + engine;
-    String joinerName = "innerJoiner-" + engine;
-    String sinkName = "innerJoinSink-" + engine;
-    String sinkName2 = "innerJoinSink-2" + engine;
+    String suffix = broadcastInputs.isEmpty() ? engine.name() : engine + "-broadcast";
+    String input1Name = "source1InnerJoinInput-" + suffix;
+    String input2Name = "source2InnerJoinInput-" + suffix;
+    String input3Name = "source3InnerJoinInput-" + suffix;
+    String outputName = "innerJoinOutput-" + suffix;
+    String outputName2 = "innerJoinOutput2-" + suffix;
+    String joinerName = "innerJoiner-" + suffix;
+    String sinkName = "innerJoinSink-" + suffix;
+    String sinkName2 = "innerJoinSink-2" + suffix;
     ETLBatchConfig etlConfig = ETLBatchConfig.builder()
       .addStage(new ETLStage("source1", MockSource.getPlugin(input1Name, inputSchema1)))
       .addStage(new ETLStage("source2", MockSource.getPlugin(input2Name, inputSchema2)))
@@ -2237,7 +2386,7 @@ public class DataPipelineTest extends HydratorTestBase {
       .addStage(new ETLStage("t3", IdentityTransform.getPlugin()))
       .addStage(new ETLStage(joinerName, MockJoiner.getPlugin("t1.customer_id=t2.cust_id=t3.c_id&" +
                                                                   "t1.customer_name=t2.cust_name=t3.c_name",
-                                                                "t1,t2,t3", "")))
+                                                                "t1,t2,t3", "", broadcastInputs)))
       .addStage(new ETLStage(sinkName, MockSink.getPlugin(outputName)))
       .addStage(new ETLStage(sinkName2, MockSink.getPlugin(outputName2)))
       .addConnection("source1", "t1")
@@ -2252,7 +2401,7 @@ public class DataPipelineTest extends HydratorTestBase {
       .build();
 
     AppRequest<ETLBatchConfig> appRequest = new AppRequest<>(APP_ARTIFACT, etlConfig);
-    ApplicationId appId = NamespaceId.DEFAULT.app("InnerJoinApp-" + engine);
+    ApplicationId appId = NamespaceId.DEFAULT.app("InnerJoinApp-" + suffix);
     ApplicationManager appManager = deployApplication(appId, appRequest);
 
     Schema outSchema = Schema.recordOf(
@@ -2331,7 +2480,16 @@ public class DataPipelineTest extends HydratorTestBase {
     testOuterJoin(Engine.SPARK);
   }
 
+  @Test
+  public void testOuterJoinBroadcastSpark() throws Exception {
+    testOuterJoin(Engine.SPARK, "t2,t3");
+  }
+
   private void testOuterJoin(Engine engine) throws Exception {
+    testOuterJoin(engine, "");
+  }
+
+  private void testOuterJoin(Engine engine, String broadcastInputs) throws Exception {
     Schema inputSchema1 = Schema.recordOf(
       "customerRecord",
       Schema.Field.of("customer_id", Schema.of(Schema.Type.STRING)),
@@ -2353,12 +2511,13 @@ public class DataPipelineTest extends HydratorTestBase {
       Schema.Field.of("c_name", Schema.of(Schema.Type.STRING))
     );
 
-    String input1Name = "source1OuterJoinInput-" + engine;
-    String input2Name = "source2OuterJoinInput-" + engine;
-    String input3Name = "source3OuterJoinInput-" + engine;
-    String outputName = "outerJoinOutput-" + engine;
-    String joinerName = "outerJoiner-" + engine;
-    String sinkName = "outerJoinSink-" + engine;
+    String suffix = broadcastInputs.isEmpty() ? engine.name() : engine + "-broadcast";
+    String input1Name = "source1OuterJoinInput-" + suffix;
+    String input2Name = "source2OuterJoinInput-" + suffix;
+    String input3Name = "source3OuterJoinInput-" + suffix;
+    String outputName = "outerJoinOutput-" + suffix;
+    String joinerName = "outerJoiner-" + suffix;
+    String sinkName = "outerJoinSink-" + suffix;
     ETLBatchConfig etlConfig = ETLBatchConfig.builder()
       .addStage(new ETLStage("source1", MockSource.getPlugin(input1Name, inputSchema1)))
       .addStage(new ETLStage("source2", MockSource.getPlugin(input2Name, inputSchema2)))
@@ -2367,7 +2526,8 @@ public class DataPipelineTest extends HydratorTestBase {
       .addStage(new ETLStage("t2", IdentityTransform.getPlugin()))
       .addStage(new ETLStage("t3", IdentityTransform.getPlugin()))
       .addStage(new ETLStage(joinerName, MockJoiner.getPlugin("t1.customer_id=t2.cust_id=t3.c_id&" +
-                                                                  "t1.customer_name=t2.cust_name=t3.c_name", "t1", "")))
+                                                                  "t1.customer_name=t2.cust_name=t3.c_name",
+                                                                "t1", "", broadcastInputs)))
       .addStage(new ETLStage(sinkName, MockSink.getPlugin(outputName)))
       .addConnection("source1", "t1")
       .addConnection("source2", "t2")
@@ -2380,7 +2540,7 @@ public class DataPipelineTest extends HydratorTestBase {
       .build();
 
     AppRequest<ETLBatchConfig> appRequest = new AppRequest<>(APP_ARTIFACT, etlConfig);
-    ApplicationId appId = NamespaceId.DEFAULT.app("OuterJoinApp-" + engine);
+    ApplicationId appId = NamespaceId.DEFAULT.app("OuterJoinApp-" + suffix);
     ApplicationManager appManager = deployApplication(appId, appRequest);
 
     Schema outSchema = Schema.recordOf(
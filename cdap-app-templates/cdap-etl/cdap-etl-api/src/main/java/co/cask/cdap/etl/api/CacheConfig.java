@@ -20,6 +20,19 @@ package co.cask.cdap.etl.api;
  * Cache configuration.
   */
 public final class CacheConfig {
+
+  /**
+   * Lookup argument for the cache expiry in seconds. When the arguments given to
+   * {@link LookupProvider#provide(String, java.util.Map)} contain this or {@link #MAX_SIZE_ARGUMENT},
+   * the provided {@link Lookup} caches the results of lookups.
+   */
+  public static final String EXPIRY_SECONDS_ARGUMENT = "lookup.cache.expiry.seconds";
+
+  /**
+   * Lookup argument for the maximum number of elements in the cache.
+   */
+  public static final String MAX_SIZE_ARGUMENT = "lookup.cache.max.size";
+
   private final long expirySeconds;
   private final int maxSize;
 
@@ -0,0 +1,47 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.api;
+
+import co.cask.cdap.api.annotation.Beta;
+
+/**
+ * An {@link Aggregator} whose group values can be combined into partial results before they are grouped.
+ * When an aggregator implements this interface, the pipeline combines values of the same group before sending
+ * them across the network, so that {@link #aggregate(Object, java.util.Iterator, Emitter)} may receive combined
+ * values instead of the original ones.
+ *
+ * Combining must be associative and commutative, and aggregating combined values must give the same result as
+ * aggregating the original values. For example, an aggregator that sums a field can combine two values into a
+ * value that contains the sum of that field.
+ *
+ * @param <GROUP_KEY> Type of group key
+ * @param <GROUP_VALUE> Type of values to group
+ * @param <OUT> Type of output object
+ */
+@Beta
+public interface CombinableAggregator<GROUP_KEY, GROUP_VALUE, OUT> extends Aggregator<GROUP_KEY, GROUP_VALUE, OUT> {
+
+  /**
+   * Combine two values of the same group into a single value.
+   *
+   * @param value1 the first value to combine
+   * @param value2 the second value to combine
+   * @return the combined value
+   * @throws Exception if there is some error combining the values
+   */
+  GROUP_VALUE combine(GROUP_VALUE value1, GROUP_VALUE value2) throws Exception;
+}
@@ -18,6 +18,7 @@ package co.cask.cdap.etl.api;
 
 import com.google.common.collect.ImmutableMap;
 
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -74,4 +75,20 @@ public class LookupTableConfig {
   public CacheConfig getCacheConfig() {
     return cacheConfig;
   }
+
+  /**
+   * @return the arguments to use for {@link LookupProvider#provide(String, Map)}, which are the dataset properties
+   *         together with the cache config if caching is enabled
+   */
+  public Map<String, String> getLookupArguments() {
+    Map<String, String> arguments = new HashMap<>();
+    if (datasetProperties != null) {
+      arguments.putAll(datasetProperties);
+    }
+    if (cacheEnabled && cacheConfig != null) {
+      arguments.put(CacheConfig.EXPIRY_SECONDS_ARGUMENT, String.valueOf(cacheConfig.getExpirySeconds()));
+      arguments.put(CacheConfig.MAX_SIZE_ARGUMENT, String.valueOf(cacheConfig.getMaxSize()));
+    }
+    return arguments;
+  }
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.api;
+
+import co.cask.cdap.api.annotation.Beta;
+
+import java.util.List;
+
+/**
+ * A {@link Transformation} that can also transform a batch of input objects at a time. When a {@link Transform}
+ * implements this interface, the pipeline sends it batches of records instead of one record at a time, and counts
+ * metrics once per batch. This removes per record overhead for simple stages such as projections and filters.
+ *
+ * Transforming a batch must give the same result as transforming each object in the batch in order.
+ * The single object {@link #transform(Object, Emitter)} method is still used by pipelines that do not send batches.
+ *
+ * A batch may contain objects that the previous stage emitted a while ago, so previous stages must not modify or
+ * reuse an object after emitting it. Pipelines only hold {@code StructuredRecord} inputs until a batch is full,
+ * since they are immutable. Other inputs, which may be reused, are sent in a batch as soon as they are received.
+ *
+ * @param <IN> Type of input object
+ * @param <OUT> Type of output object
+ */
+@Beta
+public interface RecordBatchTransformation<IN, OUT> extends Transformation<IN, OUT> {
+
+  /**
+   * Transform a batch of input objects and emit output using {@link Emitter}. The list is only valid until this
+   * method returns, since the pipeline reuses it for the next batch.
+   *
+   * @param input batch of input data to be transformed
+   * @param emitter {@link Emitter} to emit data to the next stage
+   * @throws Exception if there's an error during this method invocation
+   */
+  void transform(List<IN> input, Emitter<OUT> emitter) throws Exception;
+}
@@ -46,15 +46,25 @@ public abstract class PipeStage<T> implements Destroyable {
       // Another stage has already failed, just throw the exception as-is
       throw e;
     } catch (Exception e) {
-      Throwable rootCause = Throwables.getRootCause(e);
-      // Create StageFailureException to save the Stage information
-      throw new StageFailureException(
-        String.format("Failed to execute pipeline stage '%s' with the error: %s. Please review your pipeline " +
-                        "configuration and check the system logs for more details.", stageName, rootCause.getMessage()),
-        rootCause);
+      throw stageFailure(e);
     }
   }
 
+  /**
+   * Creates a {@link StageFailureException} that saves the stage information for an exception thrown by this stage.
+   *
+   * @param e the exception thrown by this stage
+   * @return the exception to throw
+   */
+  protected StageFailureException stageFailure(Exception e) {
+    Throwable rootCause = Throwables.getRootCause(e);
+    // Create StageFailureException to save the Stage information
+    return new StageFailureException(
+      String.format("Failed to execute pipeline stage '%s' with the error: %s. Please review your pipeline " +
+                      "configuration and check the system logs for more details.", stageName, rootCause.getMessage()),
+      rootCause);
+  }
+
   /**
    * Consume an input record, throwing an exception if there is a failure
    *
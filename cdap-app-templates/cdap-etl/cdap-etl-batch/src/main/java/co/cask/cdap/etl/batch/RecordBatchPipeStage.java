@@ -0,0 +1,99 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.batch;
+
+import co.cask.cdap.api.data.format.StructuredRecord;
+import co.cask.cdap.etl.api.Destroyable;
+import co.cask.cdap.etl.api.Emitter;
+import co.cask.cdap.etl.api.RecordBatchTransformation;
+import co.cask.cdap.etl.common.Destroyables;
+import co.cask.cdap.etl.common.RecordInfo;
+
+import java.io.Flushable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Processing stage for transforms that can transform batches of records. Unlike other pipe stages, input records
+ * are buffered until a batch is full, and are then sent to the underlying transformation together. The same
+ * buffer is reused for every batch. Any records left in the buffer are transformed when the stage is flushed.
+ *
+ * Only {@link StructuredRecord StructuredRecords} are kept in the buffer after {@link #consumeInput} returns,
+ * since they are immutable. Other objects may be reused by the previous stage, like Writables that are reused by
+ * Hadoop record readers and reducer value iterators, so the batch is transformed as soon as one is received.
+ *
+ * @param <T> type of input object
+ */
+public class RecordBatchPipeStage<T> extends PipeStage<RecordInfo<T>> implements Flushable {
+  private final RecordBatchTransformation<T, Object> transform;
+  private final Emitter<Object> emitter;
+  private final int batchSize;
+  private final List<T> batch;
+
+  public RecordBatchPipeStage(String stageName, RecordBatchTransformation<T, Object> transform,
+                              Emitter<Object> emitter, int batchSize) {
+    super(stageName);
+    this.transform = transform;
+    this.emitter = emitter;
+    this.batchSize = batchSize;
+    this.batch = new ArrayList<>(batchSize);
+  }
+
+  @Override
+  public void consumeInput(RecordInfo<T> input) throws Exception {
+    T value = input.getValue();
+    batch.add(value);
+    if (batch.size() >= batchSize || !(value instanceof StructuredRecord)) {
+      transformBatch();
+    }
+  }
+
+  /**
+   * Transforms the records that are still buffered.
+   *
+   * @throws StageFailureException if there was an exception transforming the records
+   */
+  @Override
+  public void flush() {
+    try {
+      transformBatch();
+    } catch (StageFailureException e) {
+      // Another stage has already failed, just throw the exception as-is
+      throw e;
+    } catch (Exception e) {
+      throw stageFailure(e);
+    }
+  }
+
+  private void transformBatch() throws Exception {
+    if (batch.isEmpty()) {
+      return;
+    }
+    try {
+      transform.transform(batch, emitter);
+    } finally {
+      batch.clear();
+    }
+  }
+
+  @Override
+  public void destroy() {
+    if (transform instanceof Destroyable) {
+      Destroyables.destroyQuietly((Destroyable) transform);
+    }
+  }
+}
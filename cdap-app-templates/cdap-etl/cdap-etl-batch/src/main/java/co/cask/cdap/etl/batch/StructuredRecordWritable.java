@@ -19,9 +19,13 @@ package co.cask.cdap.etl.batch;
 import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.api.data.format.StructuredRecord;
 import co.cask.cdap.api.data.schema.Schema;
-import co.cask.cdap.format.StructuredRecordStringConverter;
+import co.cask.cdap.common.io.BinaryDecoder;
+import co.cask.cdap.common.io.BinaryEncoder;
+import co.cask.cdap.format.io.StructuredRecordBinaryCodec;
 import org.apache.hadoop.io.WritableComparable;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
@@ -31,7 +35,8 @@ import java.util.TreeMap;
 
 /**
  * Wrapper around a {@link StructuredRecord} so that it can be used as the output key and/or value of a mapper.
- * This is not very performant and must be improved soon (CDAP-5347).
+ * The record is serialized as the schema string, followed by the record encoded with
+ * {@link StructuredRecordBinaryCodec}.
  */
 public class StructuredRecordWritable implements WritableComparable<StructuredRecordWritable> {
   // schema cache so that we do not parse schema string for each incoming record
@@ -62,9 +67,10 @@ public class StructuredRecordWritable implements WritableComparable<StructuredRe
     out.writeInt(schemaBytes.length);
     out.write(schemaBytes);
 
-    byte[] recordBytes = Bytes.toBytes(StructuredRecordStringConverter.toJsonString(record));
-    out.writeInt(recordBytes.length);
-    out.write(recordBytes);
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    StructuredRecordBinaryCodec.of(record.getSchema()).encode(record, new BinaryEncoder(os));
+    out.writeInt(os.size());
+    out.write(os.toByteArray());
   }
 
   @Override
@@ -85,8 +91,8 @@ public class StructuredRecordWritable implements WritableComparable<StructuredRe
     int recordLen = in.readInt();
     byte[] recordBytes = new byte[recordLen];
     in.readFully(recordBytes, 0, recordLen);
-    String recordStr = Bytes.toString(recordBytes);
-    this.record = StructuredRecordStringConverter.fromJsonString(recordStr, schema);
+    this.record = StructuredRecordBinaryCodec.of(schema)
+      .decode(new BinaryDecoder(new ByteArrayInputStream(recordBytes)));
   }
 
   @Override
@@ -471,6 +471,18 @@ public class ETLMapReduce extends AbstractMapReduce {
       }
     }
 
+    @Override
+    protected void cleanup(Mapper.Context context) throws IOException, InterruptedException {
+      // stages that buffer records, like aggregators that combine values in the mapper or transforms that get
+      // batches of records, need to write out the buffered records before the output is closed
+      try {
+        transformRunner.flush();
+      } catch (StageFailureException e) {
+        PIPELINE_LOG.error("{}", e.getMessage(), e.getCause());
+        Throwables.propagate(e.getCause());
+      }
+    }
+
     @Override
     public void destroy() {
       transformRunner.destroy();
@@ -509,6 +521,17 @@ public class ETLMapReduce extends AbstractMapReduce {
       }
     }
 
+    @Override
+    protected void cleanup(Context context) throws IOException, InterruptedException {
+      // transforms that get batches of records need to write out the buffered records before the output is closed
+      try {
+        transformRunner.flush();
+      } catch (StageFailureException e) {
+        PIPELINE_LOG.error("{}", e.getMessage(), e.getCause());
+        Throwables.propagate(e.getCause());
+      }
+    }
+
     @Override
     public void destroy() {
       transformRunner.destroy();
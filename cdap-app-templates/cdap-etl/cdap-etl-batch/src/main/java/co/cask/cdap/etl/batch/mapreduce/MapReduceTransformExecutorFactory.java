@@ -23,13 +23,16 @@ import co.cask.cdap.api.metrics.Metrics;
 import co.cask.cdap.api.preview.DataTracer;
 import co.cask.cdap.etl.api.Aggregator;
 import co.cask.cdap.etl.api.AlertPublisher;
+import co.cask.cdap.etl.api.CombinableAggregator;
 import co.cask.cdap.etl.api.Emitter;
 import co.cask.cdap.etl.api.ErrorTransform;
 import co.cask.cdap.etl.api.JoinElement;
 import co.cask.cdap.etl.api.Joiner;
+import co.cask.cdap.etl.api.RecordBatchTransformation;
 import co.cask.cdap.etl.api.SplitterTransform;
 import co.cask.cdap.etl.api.StageLifecycle;
 import co.cask.cdap.etl.api.StageMetrics;
+import co.cask.cdap.etl.api.Transform;
 import co.cask.cdap.etl.api.TransformContext;
 import co.cask.cdap.etl.api.Transformation;
 import co.cask.cdap.etl.api.batch.BatchAggregator;
@@ -44,6 +47,7 @@ import co.cask.cdap.etl.batch.PipeEmitter;
 import co.cask.cdap.etl.batch.PipeStage;
 import co.cask.cdap.etl.batch.PipeTransformExecutor;
 import co.cask.cdap.etl.batch.PipelinePluginInstantiator;
+import co.cask.cdap.etl.batch.RecordBatchPipeStage;
 import co.cask.cdap.etl.batch.UnwrapPipeStage;
 import co.cask.cdap.etl.batch.conversion.WritableConversion;
 import co.cask.cdap.etl.batch.conversion.WritableConversions;
@@ -59,6 +63,7 @@ import co.cask.cdap.etl.common.PipelineRuntime;
 import co.cask.cdap.etl.common.RecordInfo;
 import co.cask.cdap.etl.common.StageStatisticsCollector;
 import co.cask.cdap.etl.common.TrackedMultiOutputTransform;
+import co.cask.cdap.etl.common.TrackedRecordBatchTransform;
 import co.cask.cdap.etl.common.TrackedTransform;
 import co.cask.cdap.etl.common.TransformExecutor;
 import co.cask.cdap.etl.common.preview.LimitingTransform;
@@ -73,6 +78,8 @@ import org.apache.hadoop.mapreduce.JobContext;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 
+import java.io.Flushable;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -87,6 +94,8 @@ import javax.annotation.Nullable;
  * @param <T> the type of input for the created transform executors
  */
 public class MapReduceTransformExecutorFactory<T> {
+  // maximum number of groups a mapper keeps partial results for when combining aggregator values
+  private static final int MAX_COMBINED_GROUPS = 10000;
   private final String sourceStageName;
   private final MacroEvaluator macroEvaluator;
   private final PipelinePluginInstantiator pluginInstantiator;
@@ -97,6 +106,7 @@ public class MapReduceTransformExecutorFactory<T> {
   private final int numberOfRecordsPreview;
   private final BasicArguments arguments;
   private final boolean isPipelineContainsCondition;
+  private final List<Flushable> flushables;
   private boolean isMapPhase;
 
   public MapReduceTransformExecutorFactory(MapReduceTaskContext taskContext,
@@ -120,6 +130,19 @@ public class MapReduceTransformExecutorFactory<T> {
     this.isMapPhase = hadoopContext instanceof Mapper.Context;
     this.arguments = arguments;
     this.isPipelineContainsCondition = isPipelineContainsCondition;
+    this.flushables = new ArrayList<>();
+  }
+
+  /**
+   * Returns the stages in the created transform executors that buffer records, which must be flushed
+   * after all input has been processed and before the output of the task is closed. The stages are returned in
+   * topological order, so that records flushed by a stage are flushed by the stages after it as well.
+   */
+  public List<Flushable> getFlushables() {
+    // pipe stages are created in reverse topological order
+    List<Flushable> topologicalOrder = new ArrayList<>(flushables);
+    Collections.reverse(topologicalOrder);
+    return topologicalOrder;
   }
 
   private MapReduceRuntimeContext createRuntimeContext(StageSpec stageInfo) {
@@ -145,6 +168,23 @@ public class MapReduceTransformExecutorFactory<T> {
                                              collector);
   }
 
+  private <IN, OUT> TrackedRecordBatchTransform<IN, OUT> getRecordBatchTransform(StageSpec stageSpec)
+    throws Exception {
+    String stageName = stageSpec.getName();
+    DefaultMacroEvaluator macroEvaluator =
+      new DefaultMacroEvaluator(arguments, taskContext.getLogicalStartTime(), taskContext, taskContext.getNamespace());
+    Transform<IN, OUT> transform = pluginInstantiator.newPluginInstance(stageName, macroEvaluator);
+    TransformContext transformContext = createRuntimeContext(stageSpec);
+    transform.initialize(transformContext);
+
+    StageMetrics stageMetrics = new DefaultStageMetrics(metrics, stageName);
+    TaskAttemptContext taskAttemptContext = (TaskAttemptContext) taskContext.getHadoopContext();
+    StageStatisticsCollector collector = isPipelineContainsCondition
+      ? new MapReduceStageStatisticsCollector(stageName, taskAttemptContext) : new NoopStageStatisticsCollector();
+    return new TrackedRecordBatchTransform<>((RecordBatchTransformation<IN, OUT>) transform, stageMetrics,
+                                             taskContext.getDataTracer(stageName), collector);
+  }
+
   @SuppressWarnings("unchecked")
   private <IN, OUT> TrackedTransform<IN, OUT> getTransformation(StageSpec stageSpec) throws Exception {
 
@@ -160,7 +200,13 @@ public class MapReduceTransformExecutorFactory<T> {
       BatchAggregator<?, ?, ?> batchAggregator = pluginInstantiator.newPluginInstance(stageName, macroEvaluator);
       BatchRuntimeContext runtimeContext = createRuntimeContext(stageSpec);
       batchAggregator.initialize(runtimeContext);
-      if (isMapPhase) {
+      if (isMapPhase && batchAggregator instanceof CombinableAggregator) {
+        CombiningMapperAggregatorTransformation transformation =
+          new CombiningMapperAggregatorTransformation((CombinableAggregator) batchAggregator, mapOutputKeyClassName,
+                                                      mapOutputValClassName, MAX_COMBINED_GROUPS);
+        flushables.add(transformation);
+        return getTrackedEmitKeyStep(transformation, stageMetrics, taskContext.getDataTracer(stageName), collector);
+      } else if (isMapPhase) {
         return getTrackedEmitKeyStep(new MapperAggregatorTransformation(batchAggregator, mapOutputKeyClassName,
                                                                         mapOutputValClassName),
                                      stageMetrics, taskContext.getDataTracer(stageName), collector);
@@ -299,6 +345,13 @@ public class MapReduceTransformExecutorFactory<T> {
     if (SplitterTransform.PLUGIN_TYPE.equals(pluginType)) {
       // this is a SplitterTransform, needs to emit records to the right outputs based on port
       return new MultiOutputTransformPipeStage<>(stageName, getMultiOutputTransform(stageSpec), pipeEmitter);
+    } else if (Transform.PLUGIN_TYPE.equals(pluginType) &&
+      RecordBatchTransformation.class.isAssignableFrom(pluginInstantiator.loadPluginClass(stageName))) {
+      // this Transform can transform batches of records, so records are buffered and sent to it in batches
+      RecordBatchPipeStage<Object> pipeStage = new RecordBatchPipeStage<>(
+        stageName, this.<Object, Object>getRecordBatchTransform(stageSpec), pipeEmitter, Constants.RECORD_BATCH_SIZE);
+      flushables.add(pipeStage);
+      return pipeStage;
     } else {
       return new UnwrapPipeStage<>(stageName, getTransformation(stageSpec), pipeEmitter);
     }
@@ -470,6 +523,65 @@ public class MapReduceTransformExecutorFactory<T> {
     }
   }
 
+  /**
+   * A Transformation that uses an aggregator's groupBy method, and combines the values of each group before
+   * they are written out, so that each mapper writes one value per group instead of one value per input.
+   * Partial results are kept for a bounded number of groups. All partial results are written when that number is
+   * reached, and when the transformation is flushed at the end of the mapper.
+   *
+   * @param <GROUP_KEY> type of group key output by the aggregator
+   * @param <GROUP_VAL> type of group value used by the aggregator
+   * @param <OUT_KEY>   type of output key for mapreduce. Must implement WritableComparable
+   * @param <OUT_VAL>   type of output value for mapreduce. Must implement Writable
+   */
+  private static class CombiningMapperAggregatorTransformation<GROUP_KEY, GROUP_VAL, OUT_KEY extends Writable,
+    OUT_VAL extends Writable> implements Transformation<GROUP_VAL, KeyValue<OUT_KEY, OUT_VAL>>, Flushable {
+    private final CombinableAggregator<GROUP_KEY, GROUP_VAL, ?> aggregator;
+    private final NoErrorEmitter<GROUP_KEY> groupKeyEmitter;
+    private final WritableConversion<GROUP_KEY, OUT_KEY> keyConversion;
+    private final WritableConversion<GROUP_VAL, OUT_VAL> valConversion;
+    private final int maxGroups;
+    // keyed by the Writable of the group key, since group keys such as byte[] do not implement equals and hashCode
+    private final Map<OUT_KEY, GROUP_VAL> partials;
+    private Emitter<KeyValue<OUT_KEY, OUT_VAL>> emitter;
+
+    CombiningMapperAggregatorTransformation(CombinableAggregator<GROUP_KEY, GROUP_VAL, ?> aggregator,
+                                            String groupKeyClassName, String groupValClassName, int maxGroups) {
+      this.aggregator = aggregator;
+      this.groupKeyEmitter =
+        new NoErrorEmitter<>("Errors and Alerts cannot be emitted from the groupBy method of an aggregator");
+      WritableConversion<GROUP_KEY, OUT_KEY> keyConversion = WritableConversions.getConversion(groupKeyClassName);
+      WritableConversion<GROUP_VAL, OUT_VAL> valConversion = WritableConversions.getConversion(groupValClassName);
+      this.keyConversion = keyConversion == null ? new CastConversion<GROUP_KEY, OUT_KEY>() : keyConversion;
+      this.valConversion = valConversion == null ? new CastConversion<GROUP_VAL, OUT_VAL>() : valConversion;
+      this.maxGroups = maxGroups;
+      this.partials = new HashMap<>();
+    }
+
+    @Override
+    public void transform(GROUP_VAL input, Emitter<KeyValue<OUT_KEY, OUT_VAL>> emitter) throws Exception {
+      this.emitter = emitter;
+      groupKeyEmitter.reset();
+      aggregator.groupBy(input, groupKeyEmitter);
+      for (GROUP_KEY groupKey : groupKeyEmitter.getEntries()) {
+        OUT_KEY key = keyConversion.toWritable(groupKey);
+        GROUP_VAL partial = partials.get(key);
+        partials.put(key, partial == null ? input : aggregator.combine(partial, input));
+      }
+      if (partials.size() >= maxGroups) {
+        flush();
+      }
+    }
+
+    @Override
+    public void flush() {
+      for (Map.Entry<OUT_KEY, GROUP_VAL> entry : partials.entrySet()) {
+        emitter.emit(new KeyValue<>(entry.getKey(), valConversion.toWritable(entry.getValue())));
+      }
+      partials.clear();
+    }
+  }
+
   /**
    * A Transformation that uses an aggregator's aggregate method. Supports applying a function to the types
    * send as input to the aggregator. These functions are used when the aggregator takes group keys that are not
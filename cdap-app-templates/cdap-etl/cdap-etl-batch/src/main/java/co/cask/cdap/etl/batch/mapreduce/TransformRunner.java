@@ -43,7 +43,10 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.mapreduce.JobContext;
 import org.apache.hadoop.mapreduce.Mapper;
 
+import java.io.Flushable;
+import java.io.IOException;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -62,6 +65,7 @@ public class TransformRunner<KEY, VALUE> {
     .create();
   private final PipeTransformExecutor<KeyValue<KEY, VALUE>> transformExecutor;
   private final OutputWriter<Object, Object> outputWriter;
+  private final List<Flushable> flushables;
 
   public TransformRunner(MapReduceTaskContext<Object, Object> context,
                          Metrics metrics) throws Exception {
@@ -106,6 +110,7 @@ public class TransformRunner<KEY, VALUE> {
                                               sourceStage, phaseSpec.getNumOfRecordsPreview(),
                                               phaseSpec.pipelineContainsCondition());
     this.transformExecutor = transformExecutorFactory.create(phase, outputWriter);
+    this.flushables = transformExecutorFactory.getFlushables();
   }
 
   // this is needed because we need to write to the context differently depending on the number of outputs
@@ -142,6 +147,16 @@ public class TransformRunner<KEY, VALUE> {
     transformExecutor.runOneIteration(input);
   }
 
+  /**
+   * Writes out any output buffered by the transforms. This must be called after all input has been processed,
+   * while the output of the task can still be written to.
+   */
+  public void flush() throws IOException {
+    for (Flushable flushable : flushables) {
+      flushable.flush();
+    }
+  }
+
   public void destroy() {
     Destroyables.destroyQuietly(transformExecutor);
   }
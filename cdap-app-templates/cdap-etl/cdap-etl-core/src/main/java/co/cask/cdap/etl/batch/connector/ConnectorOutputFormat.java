@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.batch.connector;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.DefaultCodec;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.util.ReflectionUtils;
+
+import java.io.IOException;
+
+/**
+ * A {@link SequenceFileOutputFormat} used by connector datasets. The key and value classes of the sequence file
+ * are always {@link NullWritable} and {@link BytesWritable}, instead of the output key and value classes of the job,
+ * since a pipeline phase can write to connectors and other sinks at the same time.
+ */
+public class ConnectorOutputFormat extends SequenceFileOutputFormat<NullWritable, BytesWritable> {
+
+  @Override
+  public RecordWriter<NullWritable, BytesWritable> getRecordWriter(TaskAttemptContext context) throws IOException {
+    Configuration conf = context.getConfiguration();
+
+    SequenceFile.CompressionType compressionType = SequenceFile.CompressionType.NONE;
+    CompressionCodec codec = null;
+    if (getCompressOutput(context)) {
+      compressionType = getOutputCompressionType(context);
+      codec = ReflectionUtils.newInstance(getOutputCompressorClass(context, DefaultCodec.class), conf);
+    }
+
+    Path file = getDefaultWorkFile(context, "");
+    final SequenceFile.Writer writer = SequenceFile.createWriter(
+      conf, SequenceFile.Writer.file(file),
+      SequenceFile.Writer.keyClass(NullWritable.class), SequenceFile.Writer.valueClass(BytesWritable.class),
+      SequenceFile.Writer.compression(compressionType, codec), SequenceFile.Writer.progressable(context));
+
+    return new RecordWriter<NullWritable, BytesWritable>() {
+      @Override
+      public void write(NullWritable key, BytesWritable value) throws IOException {
+        writer.append(key, value);
+      }
+
+      @Override
+      public void close(TaskAttemptContext context) throws IOException {
+        writer.close();
+      }
+    };
+  }
+}
@@ -17,13 +17,22 @@
 package co.cask.cdap.etl.batch.connector;
 
 import co.cask.cdap.api.data.batch.Output;
+import co.cask.cdap.api.data.format.StructuredRecord;
+import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.api.dataset.lib.FileSetArguments;
+import co.cask.cdap.api.dataset.lib.KeyValue;
+import co.cask.cdap.common.io.BinaryEncoder;
+import co.cask.cdap.common.io.Encoder;
+import co.cask.cdap.etl.api.Emitter;
 import co.cask.cdap.etl.api.batch.BatchSink;
 import co.cask.cdap.etl.api.batch.BatchSinkContext;
 import co.cask.cdap.etl.common.Constants;
+import co.cask.cdap.format.io.StructuredRecordBinaryCodec;
+import org.apache.hadoop.io.BytesWritable;
 import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.io.Text;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -39,13 +48,22 @@ import java.util.Map;
  * This is because we don't want this to show up as a plugin that users can select and use, and also because
  * it uses features not exposed in the etl api (local workflow datasets).
  *
- * TODO: improve storage format. It is currently a json of the record but that is obviously not ideal
+ * Each record is stored as a {@link BytesWritable} in a sequence file, written with {@link BinaryEncoder}.
+ * Records are encoded with the {@link StructuredRecordBinaryCodec} of their schema, preceded by the id of the schema.
+ * Ids are assigned in order from {@code 0} to the distinct schemas written by a sink instance, which writes a single
+ * file. The first record with a schema defines the id, with the negative value {@code -(id + 1)} followed by the
+ * schema, so that each schema is only written once per file.
  *
  * @param <T> type of input object
  */
-public abstract class ConnectorSink<T> extends BatchSink<T, NullWritable, Text> {
+public abstract class ConnectorSink<T> extends BatchSink<T, NullWritable, BytesWritable> {
   private final String datasetName;
   private final String phaseName;
+  private final ByteArrayOutputStream os = new ByteArrayOutputStream();
+  private final Encoder encoder = new BinaryEncoder(os);
+  private final Map<Schema, Integer> schemaIds = new HashMap<>();
+  private Schema lastSchema;
+  private Integer lastSchemaId;
 
   protected ConnectorSink(String datasetName, String phaseName) {
     this.datasetName = datasetName;
@@ -58,4 +76,37 @@ public abstract class ConnectorSink<T> extends BatchSink<T, NullWritable, Text>
     FileSetArguments.setOutputPath(arguments, Constants.Connector.DATA_DIR + "/" + phaseName);
     context.addOutput(Output.ofDataset(datasetName, arguments));
   }
+
+  @Override
+  public void transform(T input, Emitter<KeyValue<NullWritable, BytesWritable>> emitter) throws Exception {
+    os.reset();
+    encode(input, encoder);
+    emitter.emit(new KeyValue<>(NullWritable.get(), new BytesWritable(os.toByteArray())));
+  }
+
+  /**
+   * Encodes the given input with the given {@link Encoder}.
+   */
+  protected abstract void encode(T input, Encoder encoder) throws IOException;
+
+  /**
+   * Encodes the schema id of the given record, followed by the record in binary format. The schema is written
+   * with the first record that has it.
+   */
+  protected void encodeRecord(StructuredRecord record, Encoder encoder) throws IOException {
+    Schema schema = record.getSchema();
+    // records going through a connector almost always share the same schema instance
+    Integer id = schema == lastSchema ? lastSchemaId : schemaIds.get(schema);
+    if (id == null) {
+      id = schemaIds.size();
+      schemaIds.put(schema, id);
+      encoder.writeInt(-id - 1);
+      encoder.writeString(schema.toString());
+    } else {
+      encoder.writeInt(id);
+    }
+    lastSchema = schema;
+    lastSchemaId = id;
+    StructuredRecordBinaryCodec.of(schema).encode(record, encoder);
+  }
 }
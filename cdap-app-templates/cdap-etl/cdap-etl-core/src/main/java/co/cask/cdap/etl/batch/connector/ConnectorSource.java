@@ -17,21 +17,33 @@
 package co.cask.cdap.etl.batch.connector;
 
 import co.cask.cdap.api.data.batch.Input;
+import co.cask.cdap.api.data.format.StructuredRecord;
+import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.api.dataset.lib.FileSet;
 import co.cask.cdap.api.dataset.lib.FileSetArguments;
 import co.cask.cdap.api.dataset.lib.FileSetProperties;
+import co.cask.cdap.api.dataset.lib.KeyValue;
 import co.cask.cdap.api.workflow.WorkflowConfigurer;
+import co.cask.cdap.common.io.BinaryDecoder;
+import co.cask.cdap.common.io.Decoder;
+import co.cask.cdap.etl.api.Emitter;
 import co.cask.cdap.etl.api.batch.BatchSource;
 import co.cask.cdap.etl.api.batch.BatchSourceContext;
 import co.cask.cdap.etl.common.Constants;
-import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.io.Text;
-import org.apache.hadoop.mapreduce.lib.input.CombineTextInputFormat;
+import co.cask.cdap.format.io.StructuredRecordBinaryCodec;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.SequenceFile;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
-import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 
 /**
  * Internal batch source used as a connector between pipeline phases.
@@ -45,15 +57,25 @@ import java.util.Map;
  * This is because we don't want this to show up as a plugin that users can select and use, and also because
  * it uses features not exposed in the etl api (local workflow datasets).
  *
+ * Data is stored in block compressed sequence files written by {@link ConnectorSink}. The files are not split,
+ * since records only refer to their schema by an id that is defined by a previous record in the same file.
+ *
  * @param <T> type of output object
  */
-public class ConnectorSource<T> extends BatchSource<LongWritable, Text, T> {
+public abstract class ConnectorSource<T> extends BatchSource<NullWritable, BytesWritable, T> {
   // you can't read from the basedir of a FileSet so adding an arbitrary directory where data will be stored/read.
   static final String DATA_DIR = "data";
   private final String datasetName;
+  // schemas of the file being read, indexed by id
+  private final List<Schema> fileSchemas = new ArrayList<>();
+  // schemas are defined once in each file, cache the parsed schema so that it is only parsed once
+  private final Map<String, Schema> schemas = new HashMap<>();
 
-  protected ConnectorSource(String datasetName) {
+  protected ConnectorSource(String datasetName, @Nullable Schema schema) {
     this.datasetName = datasetName;
+    if (schema != null) {
+      schemas.put(schema.toString(), schema);
+    }
   }
 
   // not the standard configurePipeline method. Need a workflowConfigurer to create a local dataset
@@ -61,9 +83,12 @@ public class ConnectorSource<T> extends BatchSource<LongWritable, Text, T> {
   public void configure(WorkflowConfigurer workflowConfigurer) {
     workflowConfigurer.createLocalDataset(datasetName, FileSet.class,
                                           FileSetProperties.builder()
-                                            .setInputFormat(CombineTextInputFormat.class)
+                                            .setInputFormat(ConnectorInputFormat.class)
                                             .setInputProperty(FileInputFormat.INPUT_DIR_RECURSIVE, "true")
-                                            .setOutputFormat(TextOutputFormat.class)
+                                            .setOutputFormat(ConnectorOutputFormat.class)
+                                            .setOutputProperty(FileOutputFormat.COMPRESS, "true")
+                                            .setOutputProperty(FileOutputFormat.COMPRESS_TYPE,
+                                                               SequenceFile.CompressionType.BLOCK.name())
                                             .build());
   }
 
@@ -74,4 +99,46 @@ public class ConnectorSource<T> extends BatchSource<LongWritable, Text, T> {
     context.setInput(Input.ofDataset(datasetName, arguments));
   }
 
+  @Override
+  public void transform(KeyValue<NullWritable, BytesWritable> input, Emitter<T> emitter) throws Exception {
+    BytesWritable value = input.getValue();
+    emitter.emit(decode(new BinaryDecoder(new ByteArrayInputStream(value.getBytes(), 0, value.getLength()))));
+  }
+
+  /**
+   * Decodes an output object with the given {@link Decoder}.
+   */
+  protected abstract T decode(Decoder decoder) throws IOException;
+
+  /**
+   * Decodes a record written by {@link ConnectorSink}, which is the schema id of the record followed by the record.
+   * The first record of each schema in a file also contains the schema.
+   */
+  protected StructuredRecord decodeRecord(Decoder decoder) throws IOException {
+    int id = decoder.readInt();
+    Schema schema;
+    if (id < 0) {
+      // Definition of the schema. Ids of each file start from 0, which replace the ids of the previous file.
+      id = -id - 1;
+      String schemaString = decoder.readString();
+      schema = schemas.get(schemaString);
+      if (schema == null) {
+        schema = Schema.parseJson(schemaString);
+        schemas.put(schemaString, schema);
+      }
+      if (id < fileSchemas.size()) {
+        fileSchemas.set(id, schema);
+      } else if (id == fileSchemas.size()) {
+        fileSchemas.add(schema);
+      } else {
+        throw new IOException("Schema id " + id + " is defined before schema id " + fileSchemas.size());
+      }
+    } else if (id < fileSchemas.size()) {
+      schema = fileSchemas.get(id);
+    } else {
+      throw new IOException("Schema id " + id + " is not defined");
+    }
+    return StructuredRecordBinaryCodec.of(schema).decode(decoder);
+  }
+
 }
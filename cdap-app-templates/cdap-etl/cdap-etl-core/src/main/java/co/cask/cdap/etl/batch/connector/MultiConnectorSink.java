@@ -17,13 +17,8 @@
 package co.cask.cdap.etl.batch.connector;
 
 import co.cask.cdap.api.data.format.StructuredRecord;
-import co.cask.cdap.api.data.schema.Schema;
-import co.cask.cdap.api.dataset.lib.KeyValue;
-import co.cask.cdap.etl.api.Emitter;
+import co.cask.cdap.common.io.Encoder;
 import co.cask.cdap.etl.common.RecordInfo;
-import co.cask.cdap.format.StructuredRecordStringConverter;
-import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.io.Text;
 
 import java.io.IOException;
 
@@ -39,21 +34,9 @@ public class MultiConnectorSink extends ConnectorSink<RecordInfo<StructuredRecor
   }
 
   @Override
-  public void transform(RecordInfo<StructuredRecord> input, Emitter<KeyValue<NullWritable, Text>> emitter)
-    throws Exception {
-    StructuredRecord modifiedRecord = modifyRecord(input);
-    emitter.emit(new KeyValue<>(NullWritable.get(),
-                                new Text(StructuredRecordStringConverter.toJsonString(modifiedRecord))));
-  }
-
-  private StructuredRecord modifyRecord(RecordInfo<StructuredRecord> input) throws IOException {
-    String stageName = input.getFromStage();
-    Schema inputSchema = input.getValue().getSchema();
-    return StructuredRecord.builder(MultiConnectorSource.RECORD_WITH_SCHEMA)
-      .set("stageName", stageName)
-      .set("type", input.getType().name())
-      .set("schema", inputSchema.toString())
-      .set("record", StructuredRecordStringConverter.toJsonString(input.getValue()))
-      .build();
+  protected void encode(RecordInfo<StructuredRecord> input, Encoder encoder) throws IOException {
+    encoder.writeString(input.getFromStage());
+    encoder.writeInt(input.getType().ordinal());
+    encodeRecord(input.getValue(), encoder);
   }
 }
@@ -18,50 +18,28 @@ package co.cask.cdap.etl.batch.connector;
 
 import co.cask.cdap.api.data.format.StructuredRecord;
 import co.cask.cdap.api.data.schema.Schema;
-import co.cask.cdap.api.dataset.lib.KeyValue;
-import co.cask.cdap.etl.api.Emitter;
+import co.cask.cdap.common.io.Decoder;
 import co.cask.cdap.etl.common.RecordInfo;
 import co.cask.cdap.etl.common.RecordType;
-import co.cask.cdap.format.StructuredRecordStringConverter;
-import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.io.Text;
 
+import java.io.IOException;
 import javax.annotation.Nullable;
 
 /**
  * Used to read data written by {@link MultiConnectorSink}.
  */
 public class MultiConnectorSource extends ConnectorSource<RecordInfo<StructuredRecord>> {
-  static final Schema RECORD_WITH_SCHEMA = Schema.recordOf(
-    "record",
-    Schema.Field.of("stageName", Schema.of(Schema.Type.STRING)),
-    Schema.Field.of("type", Schema.of(Schema.Type.STRING)),
-    Schema.Field.of("schema", Schema.of(Schema.Type.STRING)),
-    Schema.Field.of("record", Schema.of(Schema.Type.STRING)));
-  @Nullable
-  private final Schema schema;
+  private static final RecordType[] RECORD_TYPES = RecordType.values();
 
   public MultiConnectorSource(String datasetName, @Nullable Schema schema) {
-    super(datasetName);
-    this.schema = schema;
+    super(datasetName, schema);
   }
 
   @Override
-  public void transform(KeyValue<LongWritable, Text> input,
-                        Emitter<RecordInfo<StructuredRecord>> emitter) throws Exception {
-    StructuredRecord output;
-    String inputStr = input.getValue().toString();
-    StructuredRecord recordWithSchema =
-      StructuredRecordStringConverter.fromJsonString(inputStr, RECORD_WITH_SCHEMA);
-    String stageName = recordWithSchema.get("stageName");
-    if (schema == null) {
-      Schema outputSchema = Schema.parseJson((String) recordWithSchema.get("schema"));
-      output = StructuredRecordStringConverter.fromJsonString((String) recordWithSchema.get("record"), outputSchema);
-    } else {
-      output = StructuredRecordStringConverter.fromJsonString(inputStr, schema);
-    }
-    RecordType recordType = RecordType.valueOf((String) recordWithSchema.get("type"));
-    emitter.emit(RecordInfo.builder(output, stageName, recordType).build());
+  protected RecordInfo<StructuredRecord> decode(Decoder decoder) throws IOException {
+    String stageName = decoder.readString();
+    RecordType recordType = RECORD_TYPES[decoder.readInt()];
+    StructuredRecord output = decodeRecord(decoder);
+    return RecordInfo.builder(output, stageName, recordType).build();
   }
-
 }
@@ -17,12 +17,7 @@
 package co.cask.cdap.etl.batch.connector;
 
 import co.cask.cdap.api.data.format.StructuredRecord;
-import co.cask.cdap.api.data.schema.Schema;
-import co.cask.cdap.api.dataset.lib.KeyValue;
-import co.cask.cdap.etl.api.Emitter;
-import co.cask.cdap.format.StructuredRecordStringConverter;
-import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.io.Text;
+import co.cask.cdap.common.io.Encoder;
 
 import java.io.IOException;
 
@@ -37,18 +32,7 @@ public class SingleConnectorSink extends ConnectorSink<StructuredRecord> {
   }
 
   @Override
-  public void transform(StructuredRecord input, Emitter<KeyValue<NullWritable, Text>> emitter)
-    throws Exception {
-    StructuredRecord modifiedRecord = modifyRecord(input);
-    emitter.emit(new KeyValue<>(NullWritable.get(),
-                                new Text(StructuredRecordStringConverter.toJsonString(modifiedRecord))));
-  }
-
-  private StructuredRecord modifyRecord(StructuredRecord input) throws IOException {
-    Schema inputSchema = input.getSchema();
-    return StructuredRecord.builder(SingleConnectorSource.RECORD_WITH_SCHEMA)
-      .set("schema", inputSchema.toString())
-      .set("record", StructuredRecordStringConverter.toJsonString(input))
-      .build();
+  protected void encode(StructuredRecord input, Encoder encoder) throws IOException {
+    encodeRecord(input, encoder);
   }
 }
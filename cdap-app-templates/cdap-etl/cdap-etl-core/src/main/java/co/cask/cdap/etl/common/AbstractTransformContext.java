@@ -36,7 +36,7 @@ public abstract class AbstractTransformContext extends AbstractStageContext impl
 
   protected AbstractTransformContext(PipelineRuntime pipelineRuntime, StageSpec stageSpec, LookupProvider lookup) {
     super(pipelineRuntime, stageSpec);
-    this.lookup = lookup;
+    this.lookup = new CachingLookupProvider(lookup, getMetrics());
   }
 
   @Override
@@ -0,0 +1,171 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.common;
+
+import co.cask.cdap.etl.api.CacheConfig;
+import co.cask.cdap.etl.api.Lookup;
+import co.cask.cdap.etl.api.LookupProvider;
+import co.cask.cdap.etl.api.StageMetrics;
+import com.google.common.base.Optional;
+import com.google.common.base.Stopwatch;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link LookupProvider} that caches lookup results if the lookup arguments contain a {@link CacheConfig},
+ * as set by {@link co.cask.cdap.etl.api.LookupTableConfig#getLookupArguments()}. Otherwise the {@link Lookup} of
+ * the delegate provider is returned as is.
+ *
+ * Lookups of multiple keys only go to the delegate {@link Lookup} for the keys that are not cached, using a single
+ * batch lookup. Cache hits, misses and the time spent in the delegate {@link Lookup} are emitted as stage metrics.
+ */
+public class CachingLookupProvider implements LookupProvider {
+
+  // used if the cache config does not set a max size, so that the cache is always bounded
+  static final int DEFAULT_MAX_SIZE = 10000;
+
+  private final LookupProvider delegate;
+  private final StageMetrics stageMetrics;
+
+  public CachingLookupProvider(LookupProvider delegate, StageMetrics stageMetrics) {
+    this.delegate = delegate;
+    this.stageMetrics = stageMetrics;
+  }
+
+  @Override
+  public <T> Lookup<T> provide(String table, Map<String, String> arguments) {
+    CacheConfig cacheConfig = getCacheConfig(arguments);
+    if (cacheConfig == null) {
+      return delegate.provide(table, arguments);
+    }
+
+    // the cache arguments are not meant for the dataset
+    Map<String, String> datasetArguments = new HashMap<>(arguments);
+    datasetArguments.remove(CacheConfig.EXPIRY_SECONDS_ARGUMENT);
+    datasetArguments.remove(CacheConfig.MAX_SIZE_ARGUMENT);
+    return new CachingLookup<>(delegate.<T>provide(table, datasetArguments), cacheConfig, stageMetrics);
+  }
+
+  @Nullable
+  private static CacheConfig getCacheConfig(@Nullable Map<String, String> arguments) {
+    if (arguments == null) {
+      return null;
+    }
+    String expiry = arguments.get(CacheConfig.EXPIRY_SECONDS_ARGUMENT);
+    String maxSize = arguments.get(CacheConfig.MAX_SIZE_ARGUMENT);
+    if (expiry == null && maxSize == null) {
+      return null;
+    }
+    return new CacheConfig(expiry == null ? 0L : Long.parseLong(expiry),
+                           maxSize == null ? 0 : Integer.parseInt(maxSize));
+  }
+
+  /**
+   * A {@link Lookup} that caches the results of a delegate {@link Lookup}. Keys without a value are cached as well.
+   * Keys without a value are not included in the results of multi-key lookups.
+   *
+   * @param <T> the type of object that will be returned for a lookup
+   */
+  private static final class CachingLookup<T> implements Lookup<T> {
+
+    private final Lookup<T> delegate;
+    private final Cache<String, Optional<T>> cache;
+    private final StageMetrics stageMetrics;
+    private final Stopwatch stopwatch;
+
+    CachingLookup(Lookup<T> delegate, CacheConfig cacheConfig, StageMetrics stageMetrics) {
+      this.delegate = delegate;
+      this.stageMetrics = stageMetrics;
+      this.stopwatch = new Stopwatch();
+
+      CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+        .maximumSize(cacheConfig.getMaxSize() > 0 ? cacheConfig.getMaxSize() : DEFAULT_MAX_SIZE);
+      if (cacheConfig.getExpirySeconds() > 0) {
+        builder.expireAfterWrite(cacheConfig.getExpirySeconds(), TimeUnit.SECONDS);
+      }
+      this.cache = builder.build();
+    }
+
+    @Override
+    public T lookup(String key) {
+      Optional<T> value = cache.getIfPresent(key);
+      if (value != null) {
+        stageMetrics.count(Constants.Metrics.LOOKUP_HITS, 1);
+        return value.orNull();
+      }
+      stageMetrics.count(Constants.Metrics.LOOKUP_MISSES, 1);
+
+      stopwatch.reset().start();
+      value = Optional.fromNullable(delegate.lookup(key));
+      emitTime();
+      cache.put(key, value);
+      return value.orNull();
+    }
+
+    @Override
+    public Map<String, T> lookup(String... keys) {
+      return lookup(ImmutableSet.copyOf(keys));
+    }
+
+    @Override
+    public Map<String, T> lookup(Set<String> keys) {
+      Map<String, T> result = new HashMap<>();
+      Set<String> missing = new HashSet<>();
+      for (String key : keys) {
+        Optional<T> value = cache.getIfPresent(key);
+        if (value == null) {
+          missing.add(key);
+        } else if (value.isPresent()) {
+          result.put(key, value.get());
+        }
+      }
+      int hits = keys.size() - missing.size();
+      if (hits > 0) {
+        stageMetrics.count(Constants.Metrics.LOOKUP_HITS, hits);
+      }
+      if (missing.isEmpty()) {
+        return result;
+      }
+      stageMetrics.count(Constants.Metrics.LOOKUP_MISSES, missing.size());
+
+      stopwatch.reset().start();
+      Map<String, T> values = delegate.lookup(missing);
+      emitTime();
+      for (String key : missing) {
+        T value = values.get(key);
+        cache.put(key, Optional.fromNullable(value));
+        if (value != null) {
+          result.put(key, value);
+        }
+      }
+      return result;
+    }
+
+    private void emitTime() {
+      long micros = stopwatch.stop().elapsedTime(TimeUnit.MICROSECONDS);
+      stageMetrics.count(Constants.Metrics.LOOKUP_TIME, (int) Math.min(micros, Integer.MAX_VALUE));
+    }
+  }
+}
@@ -40,6 +40,8 @@ public final class Constants {
   );
   public static final String MDC_STAGE_KEY = "pipeline.stage";
   public static final String FIELD_OPERATION_KEY_IN_WORKFLOW_TOKEN = "field.operations";
+  // number of records sent at a time to transforms that implement RecordBatchTransformation
+  public static final int RECORD_BATCH_SIZE = 1000;
 
   private Constants() {
     throw new AssertionError("Suppress default constructor for noninstantiability");
@@ -82,6 +84,9 @@ public final class Constants {
     public static final String RECORDS_ALERT = "records.alert";
     public static final String AGG_GROUPS = "aggregator.groups";
     public static final String JOIN_KEYS = "joiner.keys";
+    public static final String LOOKUP_HITS = "lookup.cache.hits";
+    public static final String LOOKUP_MISSES = "lookup.cache.misses";
+    public static final String LOOKUP_TIME = "lookup.time.total";
   }
 
   /**
@@ -31,13 +31,28 @@ public class NoopStageStatisticsCollector implements StageStatisticsCollector, S
     // no-op
   }
 
+  @Override
+  public void incrementInputRecordCount(long count) {
+    // no-op
+  }
+
   @Override
   public void incrementOutputRecordCount() {
     // no-op
   }
 
+  @Override
+  public void incrementOutputRecordCount(long count) {
+    // no-op
+  }
+
   @Override
   public void incrementErrorRecordCount() {
     // no-op
   }
+
+  @Override
+  public void incrementErrorRecordCount(long count) {
+    // no-op
+  }
 }
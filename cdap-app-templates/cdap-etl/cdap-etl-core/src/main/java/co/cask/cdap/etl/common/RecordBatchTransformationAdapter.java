@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.common;
+
+import co.cask.cdap.etl.api.Destroyable;
+import co.cask.cdap.etl.api.Emitter;
+import co.cask.cdap.etl.api.RecordBatchTransformation;
+import co.cask.cdap.etl.api.Transformation;
+
+import java.util.List;
+
+/**
+ * Adapts a {@link Transformation} that transforms one object at a time to a {@link RecordBatchTransformation},
+ * by transforming each object in the batch in order.
+ *
+ * @param <IN> Type of input object
+ * @param <OUT> Type of output object
+ */
+public class RecordBatchTransformationAdapter<IN, OUT> implements RecordBatchTransformation<IN, OUT>, Destroyable {
+  private final Transformation<IN, OUT> transform;
+
+  public RecordBatchTransformationAdapter(Transformation<IN, OUT> transform) {
+    this.transform = transform;
+  }
+
+  /**
+   * Returns the given transformation if it already transforms batches, or an adapter for it otherwise.
+   */
+  @SuppressWarnings("unchecked")
+  public static <IN, OUT> RecordBatchTransformation<IN, OUT> of(Transformation<IN, OUT> transform) {
+    if (transform instanceof RecordBatchTransformation) {
+      return (RecordBatchTransformation<IN, OUT>) transform;
+    }
+    return new RecordBatchTransformationAdapter<>(transform);
+  }
+
+  @Override
+  public void transform(List<IN> input, Emitter<OUT> emitter) throws Exception {
+    for (IN record : input) {
+      transform.transform(record, emitter);
+    }
+  }
+
+  @Override
+  public void transform(IN input, Emitter<OUT> emitter) throws Exception {
+    transform.transform(input, emitter);
+  }
+
+  @Override
+  public void destroy() {
+    if (transform instanceof Destroyable) {
+      ((Destroyable) transform).destroy();
+    }
+  }
+}
@@ -25,13 +25,28 @@ public interface StageStatisticsCollector {
    */
   void incrementInputRecordCount();
 
+  /**
+   * Increment the input record count by the given number of records.
+   */
+  void incrementInputRecordCount(long count);
+
   /**
    * Increment the output record count.
    */
   void incrementOutputRecordCount();
 
+  /**
+   * Increment the output record count by the given number of records.
+   */
+  void incrementOutputRecordCount(long count);
+
   /**
    * Increment the error record count.
    */
   void incrementErrorRecordCount();
+
+  /**
+   * Increment the error record count by the given number of records.
+   */
+  void incrementErrorRecordCount(long count);
 }
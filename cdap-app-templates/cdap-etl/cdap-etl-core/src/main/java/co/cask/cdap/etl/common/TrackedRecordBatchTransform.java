@@ -0,0 +1,151 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.common;
+
+import co.cask.cdap.api.preview.DataTracer;
+import co.cask.cdap.etl.api.Destroyable;
+import co.cask.cdap.etl.api.Emitter;
+import co.cask.cdap.etl.api.InvalidEntry;
+import co.cask.cdap.etl.api.RecordBatchTransformation;
+import co.cask.cdap.etl.api.StageMetrics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link RecordBatchTransformation} that delegates transform operations while emitting metrics
+ * around how many records were input into the transform and output by it. Unlike {@link TrackedTransform},
+ * metrics are counted once for each batch instead of once for each record.
+ *
+ * @param <IN> Type of input object
+ * @param <OUT> Type of output object
+ */
+public class TrackedRecordBatchTransform<IN, OUT> implements RecordBatchTransformation<IN, OUT>, Destroyable {
+  private final RecordBatchTransformation<IN, OUT> transform;
+  private final StageMetrics metrics;
+  private final DataTracer dataTracer;
+  private final StageStatisticsCollector collector;
+  private final CountingEmitter<OUT> countingEmitter;
+
+  public TrackedRecordBatchTransform(RecordBatchTransformation<IN, OUT> transform, StageMetrics metrics,
+                                     DataTracer dataTracer, StageStatisticsCollector collector) {
+    this.transform = transform;
+    this.metrics = metrics;
+    this.dataTracer = dataTracer;
+    this.collector = collector;
+    this.countingEmitter = new CountingEmitter<>(dataTracer);
+  }
+
+  @Override
+  public void transform(List<IN> input, Emitter<OUT> emitter) throws Exception {
+    if (input.isEmpty()) {
+      return;
+    }
+    metrics.count(Constants.Metrics.RECORDS_IN, input.size());
+    collector.incrementInputRecordCount(input.size());
+    countingEmitter.reset(emitter);
+    try {
+      transform.transform(input, countingEmitter);
+    } finally {
+      countMetrics();
+    }
+  }
+
+  @Override
+  public void transform(IN input, Emitter<OUT> emitter) throws Exception {
+    metrics.count(Constants.Metrics.RECORDS_IN, 1);
+    collector.incrementInputRecordCount();
+    countingEmitter.reset(emitter);
+    try {
+      transform.transform(input, countingEmitter);
+    } finally {
+      countMetrics();
+    }
+  }
+
+  private void countMetrics() {
+    if (countingEmitter.outputCount > 0) {
+      metrics.count(Constants.Metrics.RECORDS_OUT, countingEmitter.outputCount);
+      collector.incrementOutputRecordCount(countingEmitter.outputCount);
+    }
+    if (countingEmitter.errorCount > 0) {
+      metrics.count(Constants.Metrics.RECORDS_ERROR, countingEmitter.errorCount);
+      collector.incrementErrorRecordCount(countingEmitter.errorCount);
+    }
+    if (countingEmitter.alertCount > 0) {
+      metrics.count(Constants.Metrics.RECORDS_ALERT, countingEmitter.alertCount);
+    }
+  }
+
+  @Override
+  public void destroy() {
+    if (transform instanceof Destroyable) {
+      ((Destroyable) transform).destroy();
+    }
+  }
+
+  /**
+   * Emitter that counts what is emitted, so that metrics can be counted once after a batch is transformed.
+   *
+   * @param <T> the type of object to emit
+   */
+  private static final class CountingEmitter<T> implements Emitter<T> {
+    private final DataTracer dataTracer;
+    private Emitter<T> delegate;
+    private int outputCount;
+    private int errorCount;
+    private int alertCount;
+
+    private CountingEmitter(DataTracer dataTracer) {
+      this.dataTracer = dataTracer;
+    }
+
+    private void reset(Emitter<T> delegate) {
+      this.delegate = delegate;
+      this.outputCount = 0;
+      this.errorCount = 0;
+      this.alertCount = 0;
+    }
+
+    @Override
+    public void emit(T value) {
+      outputCount++;
+      if (dataTracer.isEnabled()) {
+        dataTracer.info(Constants.Metrics.RECORDS_OUT, value);
+      }
+      delegate.emit(value);
+    }
+
+    @Override
+    public void emitError(InvalidEntry<T> value) {
+      errorCount++;
+      if (dataTracer.isEnabled()) {
+        dataTracer.info(Constants.Metrics.RECORDS_ERROR, value);
+      }
+      delegate.emitError(value);
+    }
+
+    @Override
+    public void emitAlert(Map<String, String> payload) {
+      alertCount++;
+      if (dataTracer.isEnabled()) {
+        dataTracer.info(Constants.Metrics.RECORDS_ALERT, payload);
+      }
+      delegate.emitAlert(payload);
+    }
+  }
+}
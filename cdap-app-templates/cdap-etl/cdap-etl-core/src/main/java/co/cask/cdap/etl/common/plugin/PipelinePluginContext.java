@@ -21,7 +21,9 @@ import co.cask.cdap.api.macro.MacroEvaluator;
 import co.cask.cdap.api.metrics.Metrics;
 import co.cask.cdap.api.plugin.PluginContext;
 import co.cask.cdap.api.plugin.PluginProperties;
+import co.cask.cdap.etl.api.CombinableAggregator;
 import co.cask.cdap.etl.api.ErrorTransform;
+import co.cask.cdap.etl.api.RecordBatchTransformation;
 import co.cask.cdap.etl.api.SplitterTransform;
 import co.cask.cdap.etl.api.StageMetrics;
 import co.cask.cdap.etl.api.Transform;
@@ -93,8 +95,14 @@ public class PipelinePluginContext implements PluginContext {
     } else if (plugin instanceof ErrorTransform) {
       return new WrappedErrorTransform<>((ErrorTransform) plugin, caller, operationTimer);
     } else if (plugin instanceof Transform) {
+      if (plugin instanceof RecordBatchTransformation) {
+        return new WrappedRecordBatchTransform<>((Transform) plugin, caller, operationTimer);
+      }
       return new WrappedTransform<>((Transform) plugin, caller, operationTimer);
     } else if (plugin instanceof BatchAggregator) {
+      if (plugin instanceof CombinableAggregator) {
+        return new WrappedCombinableBatchAggregator<>((BatchAggregator) plugin, caller, operationTimer);
+      }
       return new WrappedBatchAggregator<>((BatchAggregator) plugin, caller, operationTimer);
     } else if (plugin instanceof BatchJoiner) {
       return new WrappedBatchJoiner<>((BatchJoiner) plugin, caller, operationTimer);
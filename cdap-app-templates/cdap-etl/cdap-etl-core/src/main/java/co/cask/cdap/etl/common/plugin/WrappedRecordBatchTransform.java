@@ -0,0 +1,61 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.common.plugin;
+
+import co.cask.cdap.etl.api.Emitter;
+import co.cask.cdap.etl.api.RecordBatchTransformation;
+import co.cask.cdap.etl.api.Transform;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Wrapper around a {@link Transform} that is also a {@link RecordBatchTransformation}, so that the pipeline
+ * can still send batches of records to the transform after it is wrapped.
+ *
+ * @param <IN> type of input
+ * @param <OUT> type of output
+ */
+public class WrappedRecordBatchTransform<IN, OUT> extends WrappedTransform<IN, OUT>
+  implements RecordBatchTransformation<IN, OUT> {
+  private final RecordBatchTransformation<IN, OUT> transform;
+  private final Caller caller;
+  private final OperationTimer operationTimer;
+
+  public WrappedRecordBatchTransform(Transform<IN, OUT> transform, Caller caller, OperationTimer operationTimer) {
+    super(transform, caller, operationTimer);
+    this.transform = (RecordBatchTransformation<IN, OUT>) transform;
+    this.caller = caller;
+    this.operationTimer = operationTimer;
+  }
+
+  @Override
+  public void transform(final List<IN> input, final Emitter<OUT> emitter) throws Exception {
+    operationTimer.start();
+    try {
+      caller.call(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          transform.transform(input, new UntimedEmitter<>(emitter, operationTimer));
+          return null;
+        }
+      });
+    } finally {
+      operationTimer.reset();
+    }
+  }
+}
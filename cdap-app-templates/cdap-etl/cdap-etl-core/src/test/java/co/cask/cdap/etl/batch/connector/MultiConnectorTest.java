@@ -0,0 +1,126 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.batch.connector;
+
+import co.cask.cdap.api.data.format.StructuredRecord;
+import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.api.dataset.lib.KeyValue;
+import co.cask.cdap.etl.common.DefaultEmitter;
+import co.cask.cdap.etl.common.RecordInfo;
+import co.cask.cdap.etl.common.RecordType;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit test for {@link MultiConnectorSink} and {@link MultiConnectorSource}.
+ */
+public class MultiConnectorTest {
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    Schema schema1 = Schema.recordOf("purchase",
+                                     Schema.Field.of("item", Schema.of(Schema.Type.STRING)),
+                                     Schema.Field.of("price", Schema.nullableOf(Schema.of(Schema.Type.DOUBLE))));
+    Schema schema2 = Schema.recordOf("user", Schema.Field.of("id", Schema.of(Schema.Type.LONG)));
+
+    List<RecordInfo<StructuredRecord>> inputs = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      inputs.add(RecordInfo.builder(StructuredRecord.builder(schema1).set("item", "item" + i)
+                                      .set("price", i % 2 == 0 ? null : 1.5d * i).build(),
+                                    "purchases", RecordType.OUTPUT).build());
+      inputs.add(RecordInfo.builder(StructuredRecord.builder(schema2).set("id", (long) i).build(),
+                                    "users", RecordType.ERROR).build());
+    }
+
+    List<KeyValue<NullWritable, BytesWritable>> file = write(inputs);
+    // The schema is only written with the first record of each schema
+    for (int i = 0; i < file.size(); i++) {
+      Assert.assertEquals(i < 2, file.get(i).getValue().getLength() > schema2.toString().length());
+    }
+
+    MultiConnectorSource source = new MultiConnectorSource("conn", null);
+    List<RecordInfo<StructuredRecord>> outputs = read(source, file);
+    Assert.assertEquals(inputs.size(), outputs.size());
+    for (int i = 0; i < inputs.size(); i++) {
+      RecordInfo<StructuredRecord> expected = inputs.get(i);
+      RecordInfo<StructuredRecord> actual = outputs.get(i);
+      Assert.assertEquals(expected.getFromStage(), actual.getFromStage());
+      Assert.assertEquals(expected.getType(), actual.getType());
+      Assert.assertEquals(expected.getValue(), actual.getValue());
+    }
+  }
+
+  @Test
+  public void testMultipleFiles() throws Exception {
+    Schema schema1 = Schema.recordOf("purchase", Schema.Field.of("item", Schema.of(Schema.Type.STRING)));
+    Schema schema2 = Schema.recordOf("user", Schema.Field.of("id", Schema.of(Schema.Type.LONG)));
+
+    // Files written by different sinks assign the schema ids in a different order
+    List<RecordInfo<StructuredRecord>> inputs1 = new ArrayList<>();
+    List<RecordInfo<StructuredRecord>> inputs2 = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      inputs1.add(RecordInfo.builder(StructuredRecord.builder(schema1).set("item", "item" + i).build(),
+                                     "purchases", RecordType.OUTPUT).build());
+      inputs2.add(RecordInfo.builder(StructuredRecord.builder(schema2).set("id", (long) i).build(),
+                                     "users", RecordType.OUTPUT).build());
+      inputs2.add(RecordInfo.builder(StructuredRecord.builder(schema1).set("item", "other" + i).build(),
+                                     "purchases", RecordType.OUTPUT).build());
+    }
+
+    // A source reads the files one after the other
+    MultiConnectorSource source = new MultiConnectorSource("conn", null);
+    List<RecordInfo<StructuredRecord>> outputs = read(source, write(inputs1));
+    outputs.addAll(read(source, write(inputs2)));
+
+    List<RecordInfo<StructuredRecord>> inputs = new ArrayList<>(inputs1);
+    inputs.addAll(inputs2);
+    Assert.assertEquals(inputs.size(), outputs.size());
+    for (int i = 0; i < inputs.size(); i++) {
+      Assert.assertEquals(inputs.get(i).getValue(), outputs.get(i).getValue());
+    }
+  }
+
+  /**
+   * Writes the given inputs with a new {@link MultiConnectorSink}, which is the same as writing a file.
+   */
+  private List<KeyValue<NullWritable, BytesWritable>> write(List<RecordInfo<StructuredRecord>> inputs)
+    throws Exception {
+    MultiConnectorSink sink = new MultiConnectorSink("conn", "phase");
+    DefaultEmitter<KeyValue<NullWritable, BytesWritable>> sinkEmitter = new DefaultEmitter<>();
+    for (RecordInfo<StructuredRecord> input : inputs) {
+      sink.transform(input, sinkEmitter);
+    }
+    return new ArrayList<>(sinkEmitter.getEntries());
+  }
+
+  private List<RecordInfo<StructuredRecord>> read(MultiConnectorSource source,
+                                                  List<KeyValue<NullWritable, BytesWritable>> file) throws Exception {
+    DefaultEmitter<RecordInfo<StructuredRecord>> sourceEmitter = new DefaultEmitter<>();
+    for (KeyValue<NullWritable, BytesWritable> entry : file) {
+      // BytesWritable read from a sequence file can have a backing array that is longer than its length
+      BytesWritable value = new BytesWritable(entry.getValue().copyBytes());
+      value.setCapacity(value.getLength() + 10);
+      source.transform(new KeyValue<>(NullWritable.get(), value), sourceEmitter);
+    }
+    return new ArrayList<>(sourceEmitter.getEntries());
+  }
+}
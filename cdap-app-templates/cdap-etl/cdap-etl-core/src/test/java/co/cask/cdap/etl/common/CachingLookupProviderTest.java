@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.common;
+
+import co.cask.cdap.etl.api.CacheConfig;
+import co.cask.cdap.etl.api.Lookup;
+import co.cask.cdap.etl.api.LookupProvider;
+import co.cask.cdap.etl.api.LookupTableConfig;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Unit test for {@link CachingLookupProvider}.
+ */
+public class CachingLookupProviderTest {
+
+  private static final Map<String, String> DATA = ImmutableMap.of("k1", "v1", "k2", "v2", "k3", "v3");
+
+  @Test
+  public void testNoCacheConfig() {
+    RecordingLookupProvider delegate = new RecordingLookupProvider();
+    MockMetrics metrics = new MockMetrics();
+    LookupProvider provider = new CachingLookupProvider(delegate, new DefaultStageMetrics(metrics, "stage"));
+
+    Lookup<String> lookup = provider.provide("table", new HashMap<String, String>());
+    Assert.assertEquals("v1", lookup.lookup("k1"));
+    Assert.assertEquals("v1", lookup.lookup("k1"));
+    Assert.assertEquals(2, delegate.lookups.size());
+    Assert.assertEquals(0, metrics.getCount("stage." + Constants.Metrics.LOOKUP_MISSES));
+  }
+
+  @Test
+  public void testCachedLookup() {
+    RecordingLookupProvider delegate = new RecordingLookupProvider();
+    MockMetrics metrics = new MockMetrics();
+    LookupProvider provider = new CachingLookupProvider(delegate, new DefaultStageMetrics(metrics, "stage"));
+
+    LookupTableConfig tableConfig = new LookupTableConfig(LookupTableConfig.TableType.DATASET,
+                                                          new CacheConfig(3600, 100),
+                                                          ImmutableMap.of("prop", "val"), true);
+    Lookup<String> lookup = provider.provide("table", tableConfig.getLookupArguments());
+    // the cache config should not be passed to the dataset
+    Assert.assertEquals(ImmutableMap.of("prop", "val"), delegate.arguments);
+
+    Assert.assertEquals("v1", lookup.lookup("k1"));
+    Assert.assertEquals("v1", lookup.lookup("k1"));
+    Assert.assertNull(lookup.lookup("missing"));
+    Assert.assertNull(lookup.lookup("missing"));
+    Assert.assertEquals(2, delegate.lookups.size());
+
+    // only the keys that are not cached should be looked up, in a single batch
+    Assert.assertEquals(ImmutableMap.of("k1", "v1", "k2", "v2", "k3", "v3"),
+                        lookup.lookup("k1", "k2", "k3", "missing"));
+    Assert.assertEquals(3, delegate.lookups.size());
+    Assert.assertEquals(ImmutableSet.of("k2", "k3"), delegate.lookups.get(2));
+
+    Assert.assertEquals(ImmutableMap.of("k2", "v2"), lookup.lookup(ImmutableSet.of("k2", "missing")));
+    Assert.assertEquals(3, delegate.lookups.size());
+
+    Assert.assertEquals(6, metrics.getCount("stage." + Constants.Metrics.LOOKUP_HITS));
+    Assert.assertEquals(4, metrics.getCount("stage." + Constants.Metrics.LOOKUP_MISSES));
+  }
+
+  @Test
+  public void testMaxSize() {
+    RecordingLookupProvider delegate = new RecordingLookupProvider();
+    LookupProvider provider = new CachingLookupProvider(delegate, new DefaultStageMetrics(new MockMetrics(), "stage"));
+
+    Lookup<String> lookup = provider.provide("table", ImmutableMap.of(CacheConfig.MAX_SIZE_ARGUMENT, "1"));
+    lookup.lookup("k1");
+    lookup.lookup("k2");
+    lookup.lookup("k2");
+    Assert.assertEquals(2, delegate.lookups.size());
+    lookup.lookup("k1");
+    Assert.assertEquals(3, delegate.lookups.size());
+  }
+
+  /**
+   * A {@link LookupProvider} that records the keys of each lookup done.
+   */
+  private static final class RecordingLookupProvider implements LookupProvider {
+
+    private final List<Set<String>> lookups = new ArrayList<>();
+    private Map<String, String> arguments;
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> Lookup<T> provide(String table, Map<String, String> arguments) {
+      this.arguments = arguments;
+      return (Lookup<T>) new Lookup<String>() {
+        @Override
+        public String lookup(String key) {
+          lookups.add(ImmutableSet.of(key));
+          return DATA.get(key);
+        }
+
+        @Override
+        public Map<String, String> lookup(String... keys) {
+          return lookup(ImmutableSet.copyOf(keys));
+        }
+
+        @Override
+        public Map<String, String> lookup(Set<String> keys) {
+          lookups.add(ImmutableSet.copyOf(keys));
+          Map<String, String> result = new HashMap<>();
+          for (String key : keys) {
+            result.put(key, DATA.get(key));
+          }
+          return result;
+        }
+      };
+    }
+  }
+}
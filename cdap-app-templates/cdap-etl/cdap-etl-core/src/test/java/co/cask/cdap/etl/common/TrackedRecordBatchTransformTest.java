@@ -0,0 +1,161 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.common;
+
+import co.cask.cdap.etl.api.Emitter;
+import co.cask.cdap.etl.api.InvalidEntry;
+import co.cask.cdap.etl.api.RecordBatchTransformation;
+import co.cask.cdap.etl.api.Transform;
+import co.cask.cdap.etl.api.Transformation;
+import co.cask.cdap.internal.app.preview.NoopDataTracerFactory;
+import com.google.common.collect.ImmutableList;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit test for {@link TrackedRecordBatchTransform} and {@link RecordBatchTransformationAdapter}.
+ */
+public class TrackedRecordBatchTransformTest {
+
+  @Test
+  public void testMetricsPerBatch() throws Exception {
+    CallCountingMetrics metrics = new CallCountingMetrics();
+    TrackedRecordBatchTransform<Integer, Integer> transform = createTransform(new PositiveFilter(), metrics);
+
+    ListEmitter<Integer> emitter = new ListEmitter<>();
+    transform.transform(ImmutableList.of(1, -2, 3, 4, -5), emitter);
+    Assert.assertEquals(ImmutableList.of(1, 3, 4), emitter.emitted);
+    Assert.assertEquals(ImmutableList.of(-2, -5), emitter.errors);
+
+    Assert.assertEquals(5, metrics.getCount("stage." + Constants.Metrics.RECORDS_IN));
+    Assert.assertEquals(3, metrics.getCount("stage." + Constants.Metrics.RECORDS_OUT));
+    Assert.assertEquals(2, metrics.getCount("stage." + Constants.Metrics.RECORDS_ERROR));
+    // records in, records out and errors are each counted once for the batch
+    Assert.assertEquals(3, metrics.calls);
+
+    // empty batches are not counted
+    transform.transform(new ArrayList<Integer>(), emitter);
+    Assert.assertEquals(3, metrics.calls);
+
+    // single records are still supported
+    transform.transform(6, emitter);
+    Assert.assertEquals(ImmutableList.of(1, 3, 4, 6), emitter.emitted);
+    Assert.assertEquals(6, metrics.getCount("stage." + Constants.Metrics.RECORDS_IN));
+    Assert.assertEquals(4, metrics.getCount("stage." + Constants.Metrics.RECORDS_OUT));
+  }
+
+  @Test
+  public void testAdapter() throws Exception {
+    PositiveFilter batchTransform = new PositiveFilter();
+    Assert.assertSame(batchTransform, RecordBatchTransformationAdapter.of(batchTransform));
+
+    CallCountingMetrics metrics = new CallCountingMetrics();
+    TrackedRecordBatchTransform<Integer, Integer> transform = createTransform(new Doubler(), metrics);
+
+    ListEmitter<Integer> emitter = new ListEmitter<>();
+    transform.transform(ImmutableList.of(1, 2, 3), emitter);
+    Assert.assertEquals(ImmutableList.of(1, 1, 2, 2, 3, 3), emitter.emitted);
+    Assert.assertEquals(3, metrics.getCount("stage." + Constants.Metrics.RECORDS_IN));
+    Assert.assertEquals(6, metrics.getCount("stage." + Constants.Metrics.RECORDS_OUT));
+    Assert.assertEquals(2, metrics.calls);
+  }
+
+  private TrackedRecordBatchTransform<Integer, Integer> createTransform(Transformation<Integer, Integer> transform,
+                                                                        CallCountingMetrics metrics) {
+    return new TrackedRecordBatchTransform<>(RecordBatchTransformationAdapter.of(transform),
+                                             new DefaultStageMetrics(metrics, "stage"),
+                                             new NoopDataTracerFactory().getDataTracer(null, "stage"),
+                                             new NoopStageStatisticsCollector());
+  }
+
+  /**
+   * Counts how many times metrics are counted.
+   */
+  private static class CallCountingMetrics extends MockMetrics {
+    private int calls;
+
+    @Override
+    public void count(String s, int i) {
+      calls++;
+      super.count(s, i);
+    }
+  }
+
+  /**
+   * Emits positive numbers and sends the other numbers to the error emitter.
+   */
+  private static class PositiveFilter extends Transform<Integer, Integer>
+    implements RecordBatchTransformation<Integer, Integer> {
+
+    @Override
+    public void transform(List<Integer> input, Emitter<Integer> emitter) throws Exception {
+      for (Integer value : input) {
+        transform(value, emitter);
+      }
+    }
+
+    @Override
+    public void transform(Integer input, Emitter<Integer> emitter) throws Exception {
+      if (input > 0) {
+        emitter.emit(input);
+      } else {
+        emitter.emitError(new InvalidEntry<>(1, "not positive", input));
+      }
+    }
+  }
+
+  /**
+   * Emits every input twice.
+   */
+  private static class Doubler extends Transform<Integer, Integer> {
+
+    @Override
+    public void transform(Integer input, Emitter<Integer> emitter) throws Exception {
+      emitter.emit(input);
+      emitter.emit(input);
+    }
+  }
+
+  /**
+   * Emitter that keeps everything emitted in lists.
+   *
+   * @param <T> type of object to emit
+   */
+  private static class ListEmitter<T> implements Emitter<T> {
+    private final List<T> emitted = new ArrayList<>();
+    private final List<T> errors = new ArrayList<>();
+
+    @Override
+    public void emit(T value) {
+      emitted.add(value);
+    }
+
+    @Override
+    public void emitError(InvalidEntry<T> invalidEntry) {
+      errors.add(invalidEntry.getInvalidRecord());
+    }
+
+    @Override
+    public void emitAlert(Map<String, String> payload) {
+      // no-op
+    }
+  }
+}
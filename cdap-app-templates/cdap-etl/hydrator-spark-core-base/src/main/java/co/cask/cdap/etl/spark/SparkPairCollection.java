@@ -51,4 +51,16 @@ public interface SparkPairCollection<K, V> {
 
   <T> SparkPairCollection<K, Tuple2<Optional<V>, Optional<T>>> fullOuterJoin(SparkPairCollection<K, T> other,
                                                                              int numPartitions);
+
+  /**
+   * Same as {@link #join(SparkPairCollection)}, except that the other collection may be loaded in memory and
+   * joined with this collection without shuffling it. The other collection must be small enough to fit in memory.
+   */
+  <T> SparkPairCollection<K, Tuple2<V, T>> broadcastJoin(SparkPairCollection<K, T> other);
+
+  /**
+   * Same as {@link #leftOuterJoin(SparkPairCollection)}, except that the other collection may be loaded in memory
+   * and joined with this collection without shuffling it. The other collection must be small enough to fit in memory.
+   */
+  <T> SparkPairCollection<K, Tuple2<V, Optional<T>>> broadcastLeftOuterJoin(SparkPairCollection<K, T> other);
 }
@@ -23,6 +23,7 @@ import co.cask.cdap.etl.api.Alert;
 import co.cask.cdap.etl.api.AlertPublisher;
 import co.cask.cdap.etl.api.ErrorRecord;
 import co.cask.cdap.etl.api.ErrorTransform;
+import co.cask.cdap.etl.api.JoinConfig;
 import co.cask.cdap.etl.api.JoinElement;
 import co.cask.cdap.etl.api.SplitterTransform;
 import co.cask.cdap.etl.api.Transform;
@@ -51,7 +52,9 @@ import co.cask.cdap.etl.spark.function.OuterJoinFlattenFunction;
 import co.cask.cdap.etl.spark.function.OutputPassFilter;
 import co.cask.cdap.etl.spark.function.PluginFunctionContext;
 import co.cask.cdap.etl.spec.StageSpec;
+import com.google.common.collect.Iterables;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -250,18 +253,37 @@ public abstract class SparkPipelineRunner {
 
         Integer numPartitions = stagePartitions.get(stageName);
 
+        JoinConfig joinConfig = joiner.getJoinConfig();
+        Set<String> broadcastInputs = new HashSet<>();
+        Iterables.addAll(broadcastInputs, joinConfig.getBroadcastInputs());
+        List<String> requiredInputs = new ArrayList<>();
+        Iterables.addAll(requiredInputs, joinConfig.getRequiredInputs());
+        // the first required input is not broadcast, since the others are joined with it.
+        // If possible, start from a required input that was not hinted as a broadcast input.
+        for (String requiredInput : requiredInputs) {
+          if (!broadcastInputs.contains(requiredInput)) {
+            requiredInputs.remove(requiredInput);
+            requiredInputs.add(0, requiredInput);
+            break;
+          }
+        }
+
         SparkPairCollection<Object, List<JoinElement<Object>>> joinedInputs = null;
         // inner join on required inputs
-        for (final String inputStageName : joiner.getJoinConfig().getRequiredInputs()) {
+        for (final String inputStageName : requiredInputs) {
           SparkPairCollection<Object, Object> preJoinCollection = preJoinStreams.get(inputStageName);
 
           if (joinedInputs == null) {
             joinedInputs = preJoinCollection.mapValues(new InitialJoinFunction<>(inputStageName));
           } else {
             JoinFlattenFunction<Object> joinFlattenFunction = new JoinFlattenFunction<>(inputStageName);
-            joinedInputs = numPartitions == null ?
-              joinedInputs.join(preJoinCollection).mapValues(joinFlattenFunction) :
-              joinedInputs.join(preJoinCollection, numPartitions).mapValues(joinFlattenFunction);
+            if (broadcastInputs.contains(inputStageName)) {
+              joinedInputs = joinedInputs.broadcastJoin(preJoinCollection).mapValues(joinFlattenFunction);
+            } else {
+              joinedInputs = numPartitions == null ?
+                joinedInputs.join(preJoinCollection).mapValues(joinFlattenFunction) :
+                joinedInputs.join(preJoinCollection, numPartitions).mapValues(joinFlattenFunction);
+            }
           }
           remainingInputs.remove(inputStageName);
         }
@@ -280,6 +302,10 @@ public abstract class SparkPipelineRunner {
               joinedInputs = numPartitions == null ?
                 joinedInputs.fullOuterJoin(preJoinStream).mapValues(flattenFunction) :
                 joinedInputs.fullOuterJoin(preJoinStream, numPartitions).mapValues(flattenFunction);
+            } else if (broadcastInputs.contains(inputStageName)) {
+              LeftJoinFlattenFunction<Object> flattenFunction = new LeftJoinFlattenFunction<>(inputStageName);
+
+              joinedInputs = joinedInputs.broadcastLeftOuterJoin(preJoinStream).mapValues(flattenFunction);
             } else {
               LeftJoinFlattenFunction<Object> flattenFunction = new LeftJoinFlattenFunction<>(inputStageName);
 
@@ -42,16 +42,31 @@ public class SparkStageStatisticsCollector implements StageStatisticsCollector,
     inputRecordCounter.add(1.0);
   }
 
+  @Override
+  public void incrementInputRecordCount(long count) {
+    inputRecordCounter.add((double) count);
+  }
+
   @Override
   public void incrementOutputRecordCount() {
     outputRecordCounter.add(1.0);
   }
 
+  @Override
+  public void incrementOutputRecordCount(long count) {
+    outputRecordCounter.add((double) count);
+  }
+
   @Override
   public void incrementErrorRecordCount() {
     errorRecordCounter.add(1.0);
   }
 
+  @Override
+  public void incrementErrorRecordCount(long count) {
+    errorRecordCounter.add((double) count);
+  }
+
   public long getInputRecordCount() {
     return inputRecordCounter.value().longValue();
   }
@@ -21,6 +21,7 @@ import co.cask.cdap.api.spark.JavaSparkExecutionContext;
 import co.cask.cdap.etl.api.Alert;
 import co.cask.cdap.etl.api.AlertPublisher;
 import co.cask.cdap.etl.api.AlertPublisherContext;
+import co.cask.cdap.etl.api.CombinableAggregator;
 import co.cask.cdap.etl.api.StageMetrics;
 import co.cask.cdap.etl.api.batch.SparkCompute;
 import co.cask.cdap.etl.api.batch.SparkExecutionPluginContext;
@@ -38,12 +39,14 @@ import co.cask.cdap.etl.spark.SparkCollection;
 import co.cask.cdap.etl.spark.SparkPairCollection;
 import co.cask.cdap.etl.spark.SparkPipelineRuntime;
 import co.cask.cdap.etl.spark.function.AggregatorAggregateFunction;
+import co.cask.cdap.etl.spark.function.AggregatorCombineFunction;
 import co.cask.cdap.etl.spark.function.AggregatorGroupByFunction;
 import co.cask.cdap.etl.spark.function.CountingFunction;
 import co.cask.cdap.etl.spark.function.FlatMapFunc;
 import co.cask.cdap.etl.spark.function.MultiOutputTransformFunction;
 import co.cask.cdap.etl.spark.function.PairFlatMapFunc;
 import co.cask.cdap.etl.spark.function.PluginFunctionContext;
+import co.cask.cdap.etl.spark.function.SingletonIterableFunction;
 import co.cask.cdap.etl.spark.function.TransformFunction;
 import co.cask.cdap.etl.spec.StageSpec;
 import com.google.gson.Gson;
@@ -51,6 +54,7 @@ import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.api.java.function.FlatMapFunction;
+import org.apache.spark.api.java.function.Function2;
 import org.apache.spark.api.java.function.PairFlatMapFunction;
 import scala.Tuple2;
 
@@ -99,7 +103,7 @@ public class RDDCollection<T> implements SparkCollection<T> {
   @Override
   public SparkCollection<RecordInfo<Object>> transform(StageSpec stageSpec, StageStatisticsCollector collector) {
     PluginFunctionContext pluginFunctionContext = new PluginFunctionContext(stageSpec, sec, collector);
-    return wrap(rdd.flatMap(Compat.convert(new TransformFunction<T>(pluginFunctionContext))));
+    return wrap(rdd.mapPartitions(Compat.convert(new TransformFunction<T>(pluginFunctionContext))));
   }
 
   @Override
@@ -123,8 +127,17 @@ public class RDDCollection<T> implements SparkCollection<T> {
 
     JavaPairRDD<Object, T> keyedCollection = rdd.flatMapToPair(sparkGroupByFunction);
 
-    JavaPairRDD<Object, Iterable<T>> groupedCollection = partitions == null ?
-      keyedCollection.groupByKey() : keyedCollection.groupByKey(partitions);
+    JavaPairRDD<Object, Iterable<T>> groupedCollection;
+    if (CombinableAggregator.class.isAssignableFrom(sec.getPluginContext().loadPluginClass(stageSpec.getName()))) {
+      // combine values on the map side so that only one value per group is shuffled from each partition
+      Function2<T, T, T> combineFunction = new AggregatorCombineFunction<>(pluginFunctionContext);
+      JavaPairRDD<Object, T> combinedCollection = partitions == null ?
+        keyedCollection.reduceByKey(combineFunction) : keyedCollection.reduceByKey(combineFunction, partitions);
+      groupedCollection = combinedCollection.mapValues(new SingletonIterableFunction<T>());
+    } else {
+      groupedCollection = partitions == null ?
+        keyedCollection.groupByKey() : keyedCollection.groupByKey(partitions);
+    }
 
     FlatMapFunc<Tuple2<Object, Iterable<T>>, RecordInfo<Object>> aggregateFunction =
       new AggregatorAggregateFunction<>(pluginFunctionContext);
@@ -16,38 +16,98 @@
 
 package co.cask.cdap.etl.spark.function;
 
+import co.cask.cdap.api.data.format.StructuredRecord;
 import co.cask.cdap.etl.api.Transform;
+import co.cask.cdap.etl.common.Constants;
+import co.cask.cdap.etl.common.RecordBatchTransformationAdapter;
 import co.cask.cdap.etl.common.RecordInfo;
-import co.cask.cdap.etl.common.TrackedTransform;
+import co.cask.cdap.etl.common.TrackedRecordBatchTransform;
 import co.cask.cdap.etl.spark.CombinedEmitter;
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 
 /**
- * Function that uses a Transform to perform a flatmap.
+ * Function that uses a Transform to transform all records of a partition. Records are sent to the Transform
+ * in batches, so that metrics are counted once per batch. Transforms that do not implement
+ * {@link co.cask.cdap.etl.api.RecordBatchTransformation} are sent one record of the batch at a time.
+ * Output is computed lazily while it is iterated over, so that the partition is not held in memory.
+ * Only immutable {@link StructuredRecord StructuredRecords} are read ahead into a batch, since other input objects,
+ * like Writables read from Hadoop files, may be reused by the input iterator.
  * Non-serializable fields are lazily created since this is used in a Spark closure.
  *
  * @param <T> type of input object
  */
-public class TransformFunction<T> implements FlatMapFunc<T, RecordInfo<Object>> {
+public class TransformFunction<T> implements FlatMapFunc<Iterator<T>, RecordInfo<Object>> {
   private final PluginFunctionContext pluginFunctionContext;
-  private transient TrackedTransform<T, Object> transform;
+  private transient TrackedRecordBatchTransform<T, Object> transform;
   private transient CombinedEmitter<Object> emitter;
+  private transient List<T> batch;
 
   public TransformFunction(PluginFunctionContext pluginFunctionContext) {
     this.pluginFunctionContext = pluginFunctionContext;
   }
 
   @Override
-  public Iterable<RecordInfo<Object>> call(T input) throws Exception {
+  public Iterable<RecordInfo<Object>> call(final Iterator<T> input) throws Exception {
     if (transform == null) {
       Transform<T, Object> plugin = pluginFunctionContext.createPlugin();
       plugin.initialize(pluginFunctionContext.createBatchRuntimeContext());
-      transform = new TrackedTransform<>(plugin, pluginFunctionContext.createStageMetrics(),
-                                         pluginFunctionContext.getDataTracer(),
-                                         pluginFunctionContext.getStageStatisticsCollector());
+      transform = new TrackedRecordBatchTransform<>(RecordBatchTransformationAdapter.of(plugin),
+                                                    pluginFunctionContext.createStageMetrics(),
+                                                    pluginFunctionContext.getDataTracer(),
+                                                    pluginFunctionContext.getStageStatisticsCollector());
       emitter = new CombinedEmitter<>(pluginFunctionContext.getStageName());
+      batch = new ArrayList<>(Constants.RECORD_BATCH_SIZE);
+    }
+    return new Iterable<RecordInfo<Object>>() {
+      @Override
+      public Iterator<RecordInfo<Object>> iterator() {
+        return new TransformIterator(input);
+      }
+    };
+  }
+
+  /**
+   * Iterator over the output of the transform, which transforms the next batch of input records
+   * whenever the output of the previous batch has been consumed.
+   */
+  private final class TransformIterator extends AbstractIterator<RecordInfo<Object>> {
+    private final Iterator<T> input;
+    private Iterator<RecordInfo<Object>> output;
+
+    private TransformIterator(Iterator<T> input) {
+      this.input = input;
+      this.output = Collections.emptyIterator();
+    }
+
+    @Override
+    protected RecordInfo<Object> computeNext() {
+      while (!output.hasNext()) {
+        if (!input.hasNext()) {
+          return endOfData();
+        }
+        batch.clear();
+        while (input.hasNext() && batch.size() < Constants.RECORD_BATCH_SIZE) {
+          T next = input.next();
+          batch.add(next);
+          if (!(next instanceof StructuredRecord)) {
+            break;
+          }
+        }
+        emitter.reset();
+        try {
+          transform.transform(batch, emitter);
+        } catch (Exception e) {
+          throw Throwables.propagate(e);
+        }
+        output = emitter.getEmitted().iterator();
+      }
+      return output.next();
     }
-    emitter.reset();
-    transform.transform(input, emitter);
-    return emitter.getEmitted();
   }
 }
@@ -27,6 +27,8 @@ import org.apache.spark.api.java.function.FlatMapFunction;
 import org.apache.spark.api.java.function.Function2;
 import org.apache.spark.streaming.Time;
 
+import java.util.Iterator;
+
 /**
  * Serializable function that can be used to perform a flat map on a DStream. Dynamically instantiates
  * the Transform plugin used to perform the flat map to ensure that code changes are picked up and to ensure
@@ -38,6 +40,7 @@ public class DynamicTransform<T> implements Function2<JavaRDD<T>, Time, JavaRDD<
   private final DynamicDriverContext dynamicDriverContext;
   private final boolean isMultiOutput;
   private transient FlatMapFunction<T, RecordInfo<Object>> function;
+  private transient FlatMapFunction<Iterator<T>, RecordInfo<Object>> partitionFunction;
 
   public DynamicTransform(DynamicDriverContext dynamicDriverContext, boolean isMultiOutput) {
     this.dynamicDriverContext = dynamicDriverContext;
@@ -46,10 +49,16 @@ public class DynamicTransform<T> implements Function2<JavaRDD<T>, Time, JavaRDD<
 
   @Override
   public JavaRDD<RecordInfo<Object>> call(JavaRDD<T> input, Time batchTime) throws Exception {
+    if (!isMultiOutput) {
+      // transforms are sent batches of records from each partition
+      if (partitionFunction == null) {
+        partitionFunction = Compat.convert(new TransformFunction<T>(dynamicDriverContext.getPluginFunctionContext()));
+      }
+      return input.mapPartitions(partitionFunction);
+    }
     if (function == null) {
-      FlatMapFunc<T, RecordInfo<Object>> flatMap = isMultiOutput ?
-        new MultiOutputTransformFunction<T>(dynamicDriverContext.getPluginFunctionContext()) :
-        new TransformFunction<T>(dynamicDriverContext.getPluginFunctionContext());
+      FlatMapFunc<T, RecordInfo<Object>> flatMap =
+        new MultiOutputTransformFunction<T>(dynamicDriverContext.getPluginFunctionContext());
       function = Compat.convert(flatMap);
     }
     return input.flatMap(function);
@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.mock.batch.aggregator;
+
+import co.cask.cdap.api.annotation.Name;
+import co.cask.cdap.api.annotation.Plugin;
+import co.cask.cdap.api.data.format.StructuredRecord;
+import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.api.plugin.PluginClass;
+import co.cask.cdap.api.plugin.PluginConfig;
+import co.cask.cdap.api.plugin.PluginPropertyField;
+import co.cask.cdap.etl.api.CombinableAggregator;
+import co.cask.cdap.etl.api.Emitter;
+import co.cask.cdap.etl.api.PipelineConfigurer;
+import co.cask.cdap.etl.api.StageMetrics;
+import co.cask.cdap.etl.api.batch.BatchAggregator;
+import co.cask.cdap.etl.api.batch.BatchRuntimeContext;
+import co.cask.cdap.etl.proto.v2.ETLPlugin;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Groups on a string field and sums a long field. Values of the same group are combined before they are grouped,
+ * which is used to test that combining aggregators produce the right results. The number of values that reach
+ * the aggregate method is emitted as the 'aggregated.values' metric, to check how many values were shuffled.
+ */
+@Plugin(type = BatchAggregator.PLUGIN_TYPE)
+@Name("FieldSum")
+public class FieldSumAggregator extends BatchAggregator<String, StructuredRecord, StructuredRecord>
+  implements CombinableAggregator<String, StructuredRecord, StructuredRecord> {
+  public static final PluginClass PLUGIN_CLASS = getPluginClass();
+  private final Config config;
+  private Schema schema;
+  private StageMetrics metrics;
+
+  public FieldSumAggregator(Config config) {
+    this.config = config;
+  }
+
+  @Override
+  public void configurePipeline(PipelineConfigurer pipelineConfigurer) throws IllegalArgumentException {
+    pipelineConfigurer.getStageConfigurer().setOutputSchema(config.getSchema());
+  }
+
+  @Override
+  public void initialize(BatchRuntimeContext context) throws Exception {
+    schema = config.getSchema();
+    metrics = context.getMetrics();
+  }
+
+  @Override
+  public void groupBy(StructuredRecord input, Emitter<String> emitter) throws Exception {
+    emitter.emit(input.get(config.groupField).toString());
+  }
+
+  @Override
+  public StructuredRecord combine(StructuredRecord value1, StructuredRecord value2) throws Exception {
+    long sum = value1.<Long>get(config.sumField) + value2.<Long>get(config.sumField);
+    return StructuredRecord.builder(value1).set(config.sumField, sum).build();
+  }
+
+  @Override
+  public void aggregate(String groupKey, Iterator<StructuredRecord> groupValues,
+                        Emitter<StructuredRecord> emitter) throws Exception {
+    long sum = 0;
+    int count = 0;
+    while (groupValues.hasNext()) {
+      sum += groupValues.next().<Long>get(config.sumField);
+      count++;
+    }
+    metrics.count("aggregated.values", count);
+    emitter.emit(StructuredRecord.builder(schema)
+                   .set(config.groupField, groupKey)
+                   .set(config.sumField, sum)
+                   .build());
+  }
+
+  /**
+   * Conf for the aggregator.
+   */
+  public static class Config extends PluginConfig {
+    private final String groupField;
+
+    private final String sumField;
+
+    public Config() {
+      this.groupField = "group";
+      this.sumField = "value";
+    }
+
+    private Schema getSchema() {
+      return Schema.recordOf(groupField + "." + sumField + ".sum",
+                             Schema.Field.of(groupField, Schema.of(Schema.Type.STRING)),
+                             Schema.Field.of(sumField, Schema.of(Schema.Type.LONG)));
+    }
+  }
+
+  public static ETLPlugin getPlugin(String groupField, String sumField) {
+    Map<String, String> properties = new HashMap<>();
+    properties.put("groupField", groupField);
+    properties.put("sumField", sumField);
+    return new ETLPlugin("FieldSum", BatchAggregator.PLUGIN_TYPE, properties, null);
+  }
+
+  private static PluginClass getPluginClass() {
+    Map<String, PluginPropertyField> properties = new HashMap<>();
+    properties.put("groupField", new PluginPropertyField("groupField", "", "string", true, false));
+    properties.put("sumField", new PluginPropertyField("sumField", "", "string", true, false));
+    return new PluginClass(BatchAggregator.PLUGIN_TYPE, "FieldSum", "", FieldSumAggregator.class.getName(),
+                           "config", properties);
+  }
+}
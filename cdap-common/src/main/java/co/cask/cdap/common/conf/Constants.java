@@ -200,6 +200,7 @@ public final class Constants {
       "app.program.yarn.attempt.failures.validity.interval";
 
     public static final String PROGRAM_TRANSACTION_CONTROL = "app.program.transaction.control";
+    public static final String PROGRAM_ASM_DATUM_READER_ENABLED = "app.program.asm.datum.reader.enabled";
 
     /**
      * Guice named bindings.
@@ -520,6 +521,7 @@ public final class Constants {
     public static final String INSTANCE_FILE_PREFIX = "stream.instance.file.prefix";
     public static final String CONSUMER_TABLE_PRESPLITS = "stream.consumer.table.presplits";
     public static final String FILE_CLEANUP_PERIOD = "stream.file.cleanup.period";
+    public static final String FILE_MEMORY_MAPPED = "stream.file.memory.mapped";
     public static final String BATCH_BUFFER_THRESHOLD = "stream.batch.buffer.threshold";
     public static final String NOTIFICATION_THRESHOLD = "stream.notification.threshold";
 
@@ -638,6 +640,8 @@ public final class Constants {
     public static final String SERVICE_DESCRIPTION = "Service to handle metrics requests.";
     public static final String PROCESSOR_MAX_DELAY_MS = "metrics.processor.max.delay.ms";
     public static final String QUEUE_SIZE = "metrics.processor.queue.size";
+    public static final String ROLLUP_MAX_CELLS = "metrics.processor.rollup.max.cells";
+    public static final String ROLLUP_FLUSH_INTERVAL_MS = "metrics.processor.rollup.flush.interval.ms";
 
     public static final String ENTITY_TABLE_NAME = "metrics.data.entity.tableName";
     public static final String METRICS_TABLE_PREFIX = "metrics.data.table.prefix";
@@ -661,6 +665,11 @@ public final class Constants {
     // NOTE: "v3" to avoid conflict with data of older metrics system
     public static final String DEFAULT_METRIC_V3_TABLE_PREFIX = "metrics.v3.table";
     public static final String METRICS_HBASE_MAX_SCAN_THREADS = "metrics.hbase.max.scan.threads";
+    public static final String QUERY_SCAN_PARALLELISM = "metrics.query.scan.parallelism";
+    public static final String QUERY_SCAN_MAX_THREADS = "metrics.query.scan.max.threads";
+    public static final String QUERY_CACHE_MAX_POINTS = "metrics.query.cache.max.points";
+    public static final String QUERY_CACHE_CLOSE_DELAY_SECONDS = "metrics.query.cache.close.delay.seconds";
+    public static final String QUERY_CACHE_EXPIRE_SECONDS = "metrics.query.cache.expire.seconds";
     public static final String METRICS_HBASE_TABLE_SPLITS = "metrics.table.splits";
     public static final String METRICS_TABLE_HBASE_SPLIT_POLICY = "metrics.table.hbase.split.policy";
 
@@ -677,6 +686,10 @@ public final class Constants {
     public static final Map<String, String> TRANSACTION_MANAGER_CONTEXT =
       ImmutableMap.of(Constants.Metrics.Tag.NAMESPACE, NamespaceId.SYSTEM.getNamespace(),
                       Constants.Metrics.Tag.COMPONENT, Constants.Service.TRANSACTION);
+
+    public static final Map<String, String> LEVELDB_TABLE_CONTEXT =
+      ImmutableMap.of(Constants.Metrics.Tag.NAMESPACE, NamespaceId.SYSTEM.getNamespace(),
+                      Constants.Metrics.Tag.COMPONENT, "leveldb");
     public static final String PROGRAM_METRICS_ENABLED = "app.program.metrics.enabled";
 
     public static final String METRICS_MIGRATION_SLEEP_MILLIS = "metrics.table.migration.sleep.millis";
@@ -897,10 +910,12 @@ public final class Constants {
     public static final String TMS_APPENDER_QUEUE_SIZE = "log.tms.queue.size";
     public static final String NUM_PARTITIONS = "log.publish.num.partitions";
     public static final String LOG_PUBLISH_PARTITION_KEY = "log.publish.partition.key";
+    public static final String READ_MAX_THREADS = "log.read.max.threads";
 
     public static final String PIPELINE_CONFIG_DIR = "log.process.pipeline.config.dir";
     public static final String PIPELINE_LIBRARY_DIR = "log.process.pipeline.lib.dir";
     public static final String PIPELINE_AUTO_BUFFER_RATIO = "log.process.pipeline.auto.buffer.ratio";
+    public static final String PIPELINE_SHARDS = "log.process.pipeline.shards";
 
     // The following properties can be defined in cdap-site and overridden in individual pipeline config xml
     public static final String PIPELINE_BUFFER_SIZE = "log.process.pipeline.buffer.size";
@@ -1241,6 +1256,7 @@ public final class Constants {
   public static final String CFG_DATA_LEVELDB_BLOCKSIZE = "data.local.storage.blocksize";
   public static final String CFG_DATA_LEVELDB_CACHESIZE = "data.local.storage.cachesize";
   public static final String CFG_DATA_LEVELDB_FSYNC = "data.local.storage.fsync";
+  public static final String CFG_DATA_LEVELDB_GROUP_COMMIT_MAX_BYTES = "data.local.storage.group.commit.max.bytes";
 
   /**
    * Defaults for Data Fabric.
@@ -1249,6 +1265,7 @@ public final class Constants {
   public static final int DEFAULT_DATA_LEVELDB_BLOCKSIZE = 1024;
   public static final long DEFAULT_DATA_LEVELDB_CACHESIZE = 1024 * 1024 * 100;
   public static final boolean DEFAULT_DATA_LEVELDB_FSYNC = true;
+  public static final long DEFAULT_DATA_LEVELDB_GROUP_COMMIT_MAX_BYTES = 4 * 1024 * 1024;
 
   /**
    * Config for Log Collection.
@@ -1366,6 +1383,14 @@ public final class Constants {
     public static final String LOCAL_DATA_CLEANUP_FREQUENCY = "messaging.local.data.cleanup.frequency.secs";
 
     public static final String CACHE_SIZE_MB = "messaging.cache.size.mb";
+    public static final String CACHE_OFF_HEAP_ENABLED = "messaging.cache.offheap.enabled";
+    public static final String CACHE_OFF_HEAP_SEGMENT_SIZE_KB = "messaging.cache.offheap.segment.size.kb";
+
+    public static final String GROUP_COMMIT_ENABLED = "messaging.group.commit.enabled";
+    public static final String GROUP_COMMIT_LINGER_MS = "messaging.group.commit.linger.ms";
+    public static final String GROUP_COMMIT_MAX_BATCH_SIZE_KB = "messaging.group.commit.max.batch.size.kb";
+    public static final String GROUP_COMMIT_QUEUE_SIZE = "messaging.group.commit.queue.size";
+    public static final String GROUP_COMMIT_THREADS = "messaging.group.commit.threads";
 
     public static final String HBASE_MAX_SCAN_THREADS = "messaging.hbase.max.scan.threads";
     public static final String HBASE_SCAN_CACHE_ROWS = "messaging.hbase.scan.cache.rows";
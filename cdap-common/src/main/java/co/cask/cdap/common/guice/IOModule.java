@@ -16,6 +16,9 @@
 
 package co.cask.cdap.common.guice;
 
+import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.internal.io.ASMDatumReaderFactory;
 import co.cask.cdap.internal.io.ASMDatumWriterFactory;
 import co.cask.cdap.internal.io.ASMFieldAccessorFactory;
 import co.cask.cdap.internal.io.DatumReaderFactory;
@@ -25,7 +28,9 @@ import co.cask.cdap.internal.io.ReflectionDatumReaderFactory;
 import co.cask.cdap.internal.io.ReflectionSchemaGenerator;
 import co.cask.cdap.internal.io.SchemaGenerator;
 import com.google.inject.PrivateModule;
-import com.google.inject.Scopes;
+import com.google.inject.Provider;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
 
 /**
  * A Guice module for IO related classes bindings.
@@ -42,8 +47,18 @@ public class IOModule extends PrivateModule {
 
     expose(DatumWriterFactory.class);
 
-    // Note: Need to add the DatumReader counter parts when those are refactored to use ASM as well.
-    bind(DatumReaderFactory.class).to(ReflectionDatumReaderFactory.class).in(Scopes.SINGLETON);
+    // DatumReaderFactory is provided by the provider method provideDatumReaderFactory
     expose(DatumReaderFactory.class);
   }
+
+  @Provides
+  @Singleton
+  private DatumReaderFactory provideDatumReaderFactory(CConfiguration cConf,
+                                                       Provider<ASMDatumReaderFactory> asmFactory,
+                                                       Provider<ReflectionDatumReaderFactory> reflectionFactory) {
+    if (cConf.getBoolean(Constants.AppFabric.PROGRAM_ASM_DATUM_READER_ENABLED, false)) {
+      return asmFactory.get();
+    }
+    return reflectionFactory.get();
+  }
 }
@@ -16,20 +16,36 @@
 
 package co.cask.cdap.common.io;
 
+import java.io.EOFException;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import javax.annotation.Nullable;
 
 /**
  * Implements {@link SeekableInputStream} with a {@link FileInputStream}.
+ *
+ * If created as memory mapped, {@link #readBuffer(ByteBuffer, int)} returns read-only slices of a memory mapped
+ * region of the file instead of copying. The region is remapped when reading beyond it, which happens when the file
+ * grows while it is being read.
  */
 final class FileSeekableInputStream extends SeekableInputStream {
 
   private final FileChannel fileChannel;
+  private final boolean memoryMapped;
+  private MappedByteBuffer mappedBuffer;
+  private long mappedPosition;
 
   FileSeekableInputStream(FileInputStream in) {
+    this(in, false);
+  }
+
+  FileSeekableInputStream(FileInputStream in, boolean memoryMapped) {
     super(in);
     this.fileChannel = in.getChannel();
+    this.memoryMapped = memoryMapped;
   }
 
   @Override
@@ -51,4 +67,35 @@ final class FileSeekableInputStream extends SeekableInputStream {
   public long size() throws IOException {
     return fileChannel.size();
   }
+
+  @Override
+  public ByteBuffer readBuffer(@Nullable ByteBuffer buffer, int size) throws IOException {
+    if (!memoryMapped) {
+      return super.readBuffer(buffer, size);
+    }
+
+    long pos = fileChannel.position();
+    if (mappedBuffer == null || pos < mappedPosition || pos + size > mappedPosition + mappedBuffer.capacity()) {
+      long fileSize = fileChannel.size();
+      if (pos + size > fileSize) {
+        throw new EOFException("Expected to read " + size + ", but only " + Math.max(0L, fileSize - pos)
+                                 + " is available");
+      }
+      // Map from the current position to the end of the file, up to the maximum size of a mapped region
+      mappedBuffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(fileSize - pos, Integer.MAX_VALUE));
+      mappedPosition = pos;
+    }
+
+    ByteBuffer result = mappedBuffer.duplicate();
+    result.position((int) (pos - mappedPosition));
+    result.limit(result.position() + size);
+    fileChannel.position(pos + size);
+    return result.slice().asReadOnlyBuffer();
+  }
+
+  @Override
+  public void close() throws IOException {
+    mappedBuffer = null;
+    super.close();
+  }
 }
@@ -27,6 +27,7 @@ import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileContext;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocalFileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.RemoteIterator;
 import org.apache.hadoop.hdfs.DistributedFileSystem;
@@ -97,9 +98,26 @@ public final class Locations {
    * @return A {@link InputSupplier}.
    */
   public static InputSupplier<? extends SeekableInputStream> newInputSupplier(final FileSystem fs, final Path path) {
+    return newInputSupplier(fs, path, false);
+  }
+
+  /**
+   * Creates a new {@link InputSupplier} that can provides {@link SeekableInputStream} of the given path.
+   *
+   * @param fs The {@link org.apache.hadoop.fs.FileSystem} for the given path.
+   * @param path The path to create {@link co.cask.cdap.common.io.SeekableInputStream} when requested.
+   * @param memoryMapped {@code true} to memory map the file if it is on the local file system.
+   *                     See {@link SeekableInputStream#readBuffer(java.nio.ByteBuffer, int)}.
+   * @return A {@link InputSupplier}.
+   */
+  public static InputSupplier<? extends SeekableInputStream> newInputSupplier(final FileSystem fs, final Path path,
+                                                                              final boolean memoryMapped) {
     return new InputSupplier<SeekableInputStream>() {
       @Override
       public SeekableInputStream getInput() throws IOException {
+        if (memoryMapped && fs instanceof LocalFileSystem) {
+          return new FileSeekableInputStream(new FileInputStream(((LocalFileSystem) fs).pathToFile(path)), true);
+        }
         FSDataInputStream input = fs.open(path);
         try {
           return new DFSSeekableInputStream(input, createDFSStreamSizeProvider(fs, false, path, input));
@@ -119,13 +137,26 @@ public final class Locations {
    * @return A {@link InputSupplier}.
    */
   public static InputSupplier<? extends SeekableInputStream> newInputSupplier(final Location location) {
+    return newInputSupplier(location, false);
+  }
+
+  /**
+   * Creates a new {@link InputSupplier} that can provides {@link SeekableInputStream} from the given location.
+   *
+   * @param location Location for the input stream.
+   * @param memoryMapped {@code true} to memory map the file if the location is on the local file system.
+   *                     See {@link SeekableInputStream#readBuffer(java.nio.ByteBuffer, int)}.
+   * @return A {@link InputSupplier}.
+   */
+  public static InputSupplier<? extends SeekableInputStream> newInputSupplier(final Location location,
+                                                                              final boolean memoryMapped) {
     return new InputSupplier<SeekableInputStream>() {
       @Override
       public SeekableInputStream getInput() throws IOException {
         InputStream input = location.getInputStream();
         try {
           if (input instanceof FileInputStream) {
-            return new FileSeekableInputStream((FileInputStream) input);
+            return new FileSeekableInputStream((FileInputStream) input, memoryMapped);
           }
           if (input instanceof FSDataInputStream) {
             final FSDataInputStream dataInput = (FSDataInputStream) input;
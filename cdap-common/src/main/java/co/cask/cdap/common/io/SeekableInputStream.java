@@ -17,9 +17,12 @@ package co.cask.cdap.common.io;
 
 import org.apache.hadoop.fs.Seekable;
 
+import java.io.EOFException;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import javax.annotation.Nullable;
 
 /**
  * Abstract base class for {@link InputStream} that implements the {@link Seekable} interface.
@@ -37,4 +40,33 @@ public abstract class SeekableInputStream extends FilterInputStream implements S
   protected SeekableInputStream(InputStream in) {
     super(in);
   }
+
+  /**
+   * Reads the given number of bytes from the current position into a {@link ByteBuffer}, with position at the first
+   * byte read and limit at the end of the bytes read. The default implementation copies the bytes into the given
+   * buffer if it is a writable heap buffer with sufficient capacity, or into a new heap buffer otherwise.
+   * Implementations may return a read-only buffer that shares content with the underlying file instead of copying.
+   *
+   * @param buffer an optional buffer to reuse
+   * @param size number of bytes to read
+   * @return a {@link ByteBuffer} containing the bytes read
+   * @throws EOFException if there are fewer than the given number of bytes available
+   * @throws IOException if failed to read
+   */
+  public ByteBuffer readBuffer(@Nullable ByteBuffer buffer, int size) throws IOException {
+    ByteBuffer result = (buffer != null && buffer.hasArray() && !buffer.isReadOnly() && buffer.capacity() >= size)
+      ? buffer : ByteBuffer.allocate(size);
+    result.clear();
+
+    int bytesRead = 0;
+    while (bytesRead != size) {
+      int len = read(result.array(), result.arrayOffset() + bytesRead, size - bytesRead);
+      if (len < 0) {
+        throw new EOFException("Expected to read " + size + ", but only " + bytesRead + " was read");
+      }
+      bytesRead += len;
+    }
+    result.limit(size);
+    return result;
+  }
 }
@@ -110,8 +110,22 @@ public final class StreamEventDataCodec {
    */
   public static StreamEventData decode(Decoder decoder, Map<String, String> defaultHeaders) throws IOException {
     // Reads the body
-    ByteBuffer body = decoder.readBytes();
+    return decode(decoder.readBytes(), decoder, defaultHeaders);
+  }
 
+  /**
+   * Decodes the headers from the given {@link Decoder} to reconstruct a {@link StreamEventData} with the given body.
+   * This is for decoders that can provide the body without copying, hence the body must already be consumed from
+   * the decoder. The set of headers provided is used as the default set of headers.
+   *
+   * @param body the body of the event
+   * @param decoder the decoder to read headers from
+   * @param defaultHeaders A map of headers available by default.
+   * @return A new instance of {@link co.cask.cdap.api.stream.StreamEventData}.
+   * @throws IOException If there is any IO error during decoding.
+   */
+  public static StreamEventData decode(ByteBuffer body, Decoder decoder,
+                                       Map<String, String> defaultHeaders) throws IOException {
     // Reads the headers
     int len = decoder.readInt();
 
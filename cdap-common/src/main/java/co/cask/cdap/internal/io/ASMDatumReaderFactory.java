@@ -0,0 +1,235 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.internal.io;
+
+import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.common.io.DatumReader;
+import co.cask.cdap.common.io.Decoder;
+import co.cask.cdap.internal.asm.ByteCodeClassLoader;
+import co.cask.cdap.internal.asm.ClassDefinition;
+import com.google.common.base.Objects;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Maps;
+import com.google.common.reflect.TypeToken;
+
+import java.io.IOException;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Map;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+
+/**
+ * A factory class for creating {@link DatumReader} instance for different data type and schema.
+ * The {@link DatumReader} created generates a {@link DatumReader} class using ASM for each source schema that it
+ * reads from, with the schema resolution between the source schema and the target schema done in the generated
+ * bytecode. The generated {@link Class} are cached per {@link ClassLoader} of the data type.
+ *
+ * The generated classes reference the data type, hence the cache of a {@link ClassLoader} references the
+ * {@link ClassLoader} itself. To not prevent the {@link ClassLoader} from being garbage collected, the cache only
+ * holds it weakly, and it is kept alive by the {@link DatumReader}s created for types of that {@link ClassLoader}.
+ */
+public final class ASMDatumReaderFactory implements DatumReaderFactory {
+
+  private final LoadingCache<ClassLoader, DatumReaderClasses> datumReaderClasses;
+  private final FieldAccessorFactory fieldAccessorFactory;
+
+  @Inject
+  public ASMDatumReaderFactory(FieldAccessorFactory fieldAccessorFactory) {
+    this.fieldAccessorFactory = fieldAccessorFactory;
+    this.datumReaderClasses = CacheBuilder.newBuilder().weakKeys().weakValues().build(
+      new CacheLoader<ClassLoader, DatumReaderClasses>() {
+        @Override
+        public DatumReaderClasses load(ClassLoader key) {
+          return new DatumReaderClasses();
+        }
+      });
+  }
+
+  /**
+   * Creates a {@link DatumReader} that is able to decode data of the given type with the given {@link Schema}.
+   * The instance created is thread safe and reusable.
+   *
+   * @param type Type information of the data type to be decoded.
+   * @param schema Schema of the data type.
+   * @param <T> Type of the data type.
+   * @return A {@link DatumReader} instance.
+   */
+  @Override
+  public <T> DatumReader<T> create(TypeToken<T> type, Schema schema) {
+    return new SchemaResolvingDatumReader<>(type, schema, datumReaderClasses.getUnchecked(getClassLoader(type)));
+  }
+
+  /**
+   * Creates an instance of the generated {@link DatumReader} class for decoding data written with the source
+   * schema into the given type with the target schema.
+   */
+  @SuppressWarnings("unchecked")
+  private <T> DatumReader<T> createReader(DatumReaderClasses classes, TypeToken<T> type,
+                                          Schema sourceSchema, Schema targetSchema) {
+    try {
+      Class<?> readerClass = classes.getClass(new CacheKey(type, sourceSchema, targetSchema));
+      return (DatumReader<T>) readerClass.getConstructor(FieldAccessorFactory.class)
+                                         .newInstance(fieldAccessorFactory);
+    } catch (Exception e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  /**
+   * Returns the {@link ClassLoader} for caching generated classes of the given type, which is the
+   * {@link ClassLoader} of the first class in the type that is not loaded by the bootstrap {@link ClassLoader}.
+   */
+  private ClassLoader getClassLoader(TypeToken<?> type) {
+    ClassLoader classLoader = findClassLoader(type.getType());
+    return classLoader == null ? ASMDatumReaderFactory.class.getClassLoader() : classLoader;
+  }
+
+  @Nullable
+  private ClassLoader findClassLoader(Type type) {
+    if (type instanceof Class) {
+      Class<?> cls = (Class<?>) type;
+      return cls.isArray() ? findClassLoader(cls.getComponentType()) : cls.getClassLoader();
+    }
+    if (type instanceof GenericArrayType) {
+      return findClassLoader(((GenericArrayType) type).getGenericComponentType());
+    }
+    if (type instanceof ParameterizedType) {
+      ClassLoader classLoader = findClassLoader(((ParameterizedType) type).getRawType());
+      if (classLoader != null) {
+        return classLoader;
+      }
+      for (Type typeArg : ((ParameterizedType) type).getActualTypeArguments()) {
+        classLoader = findClassLoader(typeArg);
+        if (classLoader != null) {
+          return classLoader;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * A {@link DatumReader} that decodes with the generated {@link DatumReader} for the source schema. The generated
+   * reader for the most recently used source schema is kept, as the source schema rarely changes.
+   *
+   * @param <T> Type of the data type.
+   */
+  private final class SchemaResolvingDatumReader<T> implements DatumReader<T> {
+
+    private final TypeToken<T> type;
+    private final Schema schema;
+    // Strong reference to the generated classes of the ClassLoader of the type, which are only weakly cached
+    private final DatumReaderClasses classes;
+    private volatile Map.Entry<Schema, DatumReader<T>> reader;
+
+    SchemaResolvingDatumReader(TypeToken<T> type, Schema schema, DatumReaderClasses classes) {
+      this.type = type;
+      this.schema = schema;
+      this.classes = classes;
+    }
+
+    @Override
+    public T read(Decoder decoder, Schema sourceSchema) throws IOException {
+      Map.Entry<Schema, DatumReader<T>> reader = this.reader;
+      if (reader == null || (reader.getKey() != sourceSchema && !reader.getKey().equals(sourceSchema))) {
+        reader = Maps.immutableEntry(sourceSchema, createReader(classes, type, sourceSchema, schema));
+        this.reader = reader;
+      }
+      return reader.getValue().read(decoder, sourceSchema);
+    }
+  }
+
+  /**
+   * Holds the generated {@link DatumReader} classes for one {@link ClassLoader}.
+   */
+  private static final class DatumReaderClasses {
+
+    private final Map<TypeToken<?>, ByteCodeClassLoader> classloaders = Maps.newHashMap();
+    private final LoadingCache<CacheKey, Class<?>> classes = CacheBuilder.newBuilder().build(
+      new CacheLoader<CacheKey, Class<?>>() {
+        @Override
+        public Class<?> load(CacheKey key) throws Exception {
+          ClassDefinition classDef = new DatumReaderGenerator().generate(key.getType(), key.getSourceSchema(),
+                                                                         key.getTargetSchema());
+          ByteCodeClassLoader classloader;
+          synchronized (classloaders) {
+            classloader = classloaders.get(key.getType());
+            if (classloader == null) {
+              // The ClassLoader of the generated DatumReader has CDAP system ClassLoader as parent.
+              // The ClassDefinition contains list of classes that should not be loaded by the generated class
+              // ClassLoader
+              classloader = new ByteCodeClassLoader(ASMDatumReaderFactory.class.getClassLoader());
+              classloaders.put(key.getType(), classloader);
+            }
+          }
+          return classloader.addClass(classDef).loadClass(classDef.getClassName());
+        }
+      });
+
+    Class<?> getClass(CacheKey key) {
+      return classes.getUnchecked(key);
+    }
+  }
+
+  private static final class CacheKey {
+    private final TypeToken<?> type;
+    private final Schema sourceSchema;
+    private final Schema targetSchema;
+
+    private CacheKey(TypeToken<?> type, Schema sourceSchema, Schema targetSchema) {
+      this.type = type;
+      this.sourceSchema = sourceSchema;
+      this.targetSchema = targetSchema;
+    }
+
+    public TypeToken<?> getType() {
+      return type;
+    }
+
+    public Schema getSourceSchema() {
+      return sourceSchema;
+    }
+
+    public Schema getTargetSchema() {
+      return targetSchema;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+
+      CacheKey cacheKey = (CacheKey) o;
+      return type.equals(cacheKey.type)
+        && sourceSchema.equals(cacheKey.sourceSchema) && targetSchema.equals(cacheKey.targetSchema);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(type, sourceSchema, targetSchema);
+    }
+  }
+}
@@ -0,0 +1,1195 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.internal.io;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.common.io.DatumReader;
+import co.cask.cdap.common.io.Decoder;
+import co.cask.cdap.common.lang.Instantiator;
+import co.cask.cdap.common.lang.InstantiatorFactory;
+import co.cask.cdap.internal.asm.ClassDefinition;
+import co.cask.cdap.internal.asm.Methods;
+import co.cask.cdap.internal.asm.Signatures;
+import co.cask.cdap.internal.lang.Fields;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.Primitives;
+import com.google.common.reflect.TypeParameter;
+import com.google.common.reflect.TypeToken;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.GeneratorAdapter;
+import org.objectweb.asm.commons.Method;
+import org.objectweb.asm.commons.TableSwitchGenerator;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.ParameterizedType;
+import java.net.URI;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Class for generating {@link DatumReader} bytecodes using ASM. A generated class decodes data written with one
+ * source schema into a data type with one target schema. The schema resolution that {@link ReflectionDatumReader}
+ * performs for every datum, such as skipping fields that are not in the target schema, type promotion and union
+ * branch selection, is done once when the class is generated. The class generated will have a skeleton looks like
+ * the following:
+ * <pre>
+ * {@code
+ *
+ *  public final class generatedClassName implements DatumReader<InputType> {
+ *    private final FieldAccessor recordTypeName$fieldName;
+ *    private final Instantiator instantiatorRecordTypeName;
+ *
+ *    public generatedClassName(FieldAccessorFactory accessorFactory) {
+ *      // Initialize the field accessors, instantiators and enum values used by the decode methods.
+ *    }
+ *
+ *    @Override
+ *    public Object read(Decoder decoder, Schema sourceSchema) throws IOException {
+ *      return generatedDecodeMethod(decoder);
+ *    }
+ *
+ *    private Object generatedDecodeMethod(Decoder decoder) throws IOException {
+ *      // Do actual decoding by calling methods on decoder based on the source and target schemas.
+ *    }
+ *
+ *    // Could have more generatedDecodeMethods and generatedSkipMethods...
+ *  }
+ * }
+ * </pre>
+ *
+ * The {@code sourceSchema} passed to the {@code read} method is ignored, as the generated class is only used
+ * for the source schema it was generated for.
+ */
+@NotThreadSafe
+final class DatumReaderGenerator {
+
+  private static final Type OBJECT_TYPE = Type.getType(Object.class);
+  private static final Type DECODER_TYPE = Type.getType(Decoder.class);
+
+  private final Map<String, Method> decodeMethods = Maps.newHashMap();
+  private final Map<String, Method> skipMethods = Maps.newHashMap();
+  private final Map<String, Map.Entry<Class<?>, String>> fieldAccessors = Maps.newLinkedHashMap();
+  private final Map<String, Class<?>> instantiators = Maps.newLinkedHashMap();
+  private final Map<String, Class<?>> componentClasses = Maps.newLinkedHashMap();
+  private final Map<String, Map.Entry<Class<?>, String[]>> enumValues = Maps.newLinkedHashMap();
+  private ClassWriter classWriter;
+  private Type classType;
+  private Set<Class<?>> preservedClasses;
+
+  /**
+   * Generates a {@link DatumReader} class for decoding data of the given input type.
+   *
+   * @param inputType Type information of the input data type.
+   * @param sourceSchema Schema of the encoded data.
+   * @param targetSchema Schema of the input data type.
+   * @return A {@link ClassDefinition} that contains generated class information.
+   */
+  ClassDefinition generate(TypeToken<?> inputType, Schema sourceSchema, Schema targetSchema) {
+    classWriter = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+    preservedClasses = Sets.newLinkedHashSet();
+
+    TypeToken<?> interfaceType = getInterfaceType(inputType);
+
+    // Generate the class
+    String className = getClassName(interfaceType, sourceSchema, targetSchema);
+    classType = Type.getObjectType(className);
+    classWriter.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC + Opcodes.ACC_FINAL,
+                      className, Signatures.getClassSignature(interfaceType),
+                      Type.getInternalName(Object.class),
+                      new String[]{Type.getInternalName(interfaceType.getRawType())});
+
+    // Read method
+    generateRead(inputType, sourceSchema, targetSchema);
+
+    // Constructor
+    generateConstructor();
+
+    return new ClassDefinition(classWriter.toByteArray(), className, Lists.newArrayList(preservedClasses));
+  }
+
+  /**
+   * Generates the constructor. The constructor generated has signature {@code (FieldAccessorFactory)}. It
+   * initializes all the class fields requested while generating the decode methods.
+   */
+  private void generateConstructor() {
+    Method constructor = getMethod(void.class, "<init>", FieldAccessorFactory.class);
+    GeneratorAdapter mg = new GeneratorAdapter(Opcodes.ACC_PUBLIC, constructor, null, null, classWriter);
+
+    // super(); // Calling Object constructor
+    mg.loadThis();
+    mg.invokeConstructor(OBJECT_TYPE, getMethod(void.class, "<init>"));
+
+    // this.fieldAccessorName = accessorFactory.getFieldAccessor(TypeToken.of(recordClass), "fieldName");
+    for (Map.Entry<String, Map.Entry<Class<?>, String>> entry : fieldAccessors.entrySet()) {
+      Type fieldType = Type.getType(FieldAccessor.class);
+      classWriter.visitField(Opcodes.ACC_PRIVATE + Opcodes.ACC_FINAL, entry.getKey(),
+                             fieldType.getDescriptor(), null, null).visitEnd();
+      mg.loadThis();
+      mg.loadArg(0);
+      loadClass(mg, entry.getValue().getKey());
+      mg.invokeStatic(Type.getType(TypeToken.class), getMethod(TypeToken.class, "of", Class.class));
+      mg.push(entry.getValue().getValue());
+      mg.invokeInterface(Type.getType(FieldAccessorFactory.class),
+                         getMethod(FieldAccessor.class, "getFieldAccessor", TypeToken.class, String.class));
+      mg.putField(classType, entry.getKey(), fieldType);
+    }
+
+    // InstantiatorFactory instantiatorFactory = new InstantiatorFactory(true);
+    // this.instantiatorName = instantiatorFactory.get(TypeToken.of(dataClass));
+    if (!instantiators.isEmpty()) {
+      Type factoryType = Type.getType(InstantiatorFactory.class);
+      int instantiatorFactory = mg.newLocal(factoryType);
+      mg.newInstance(factoryType);
+      mg.dup();
+      mg.push(true);
+      mg.invokeConstructor(factoryType, getMethod(void.class, "<init>", boolean.class));
+      mg.storeLocal(instantiatorFactory);
+
+      for (Map.Entry<String, Class<?>> entry : instantiators.entrySet()) {
+        Type fieldType = Type.getType(Instantiator.class);
+        classWriter.visitField(Opcodes.ACC_PRIVATE + Opcodes.ACC_FINAL, entry.getKey(),
+                               fieldType.getDescriptor(), null, null).visitEnd();
+        mg.loadThis();
+        mg.loadLocal(instantiatorFactory);
+        loadClass(mg, entry.getValue());
+        mg.invokeStatic(Type.getType(TypeToken.class), getMethod(TypeToken.class, "of", Class.class));
+        mg.invokeVirtual(factoryType, getMethod(Instantiator.class, "get", TypeToken.class));
+        mg.putField(classType, entry.getKey(), fieldType);
+      }
+    }
+
+    // this.componentClassName = componentClass;
+    for (Map.Entry<String, Class<?>> entry : componentClasses.entrySet()) {
+      Type fieldType = Type.getType(Class.class);
+      classWriter.visitField(Opcodes.ACC_PRIVATE + Opcodes.ACC_FINAL, entry.getKey(),
+                             fieldType.getDescriptor(), null, null).visitEnd();
+      mg.loadThis();
+      loadClass(mg, entry.getValue());
+      mg.putField(classType, entry.getKey(), fieldType);
+    }
+
+    // this.enumValuesName = new Object[] { Enum.valueOf(enumClass, "VALUE1"), null, ... };
+    // The array is indexed by the source schema enum index, with null for values that are not in the target.
+    for (Map.Entry<String, Map.Entry<Class<?>, String[]>> entry : enumValues.entrySet()) {
+      Type fieldType = Type.getType(Object[].class);
+      classWriter.visitField(Opcodes.ACC_PRIVATE + Opcodes.ACC_FINAL, entry.getKey(),
+                             fieldType.getDescriptor(), null, null).visitEnd();
+      String[] values = entry.getValue().getValue();
+      mg.loadThis();
+      mg.push(values.length);
+      mg.newArray(OBJECT_TYPE);
+      for (int i = 0; i < values.length; i++) {
+        if (values[i] == null) {
+          continue;
+        }
+        mg.dup();
+        mg.push(i);
+        loadClass(mg, entry.getValue().getKey());
+        mg.push(values[i]);
+        mg.invokeStatic(Type.getType(Enum.class), getMethod(Enum.class, "valueOf", Class.class, String.class));
+        mg.arrayStore(OBJECT_TYPE);
+      }
+      mg.putField(classType, entry.getKey(), fieldType);
+    }
+
+    mg.returnValue();
+    mg.endMethod();
+  }
+
+  /**
+   * Generates the {@link DatumReader#read(Decoder, Schema)} method.
+   *
+   * @param inputType Type information of the data type to decode to
+   * @param sourceSchema Schema of the encoded data
+   * @param targetSchema Schema of the data type
+   */
+  private void generateRead(TypeToken<?> inputType, Schema sourceSchema, Schema targetSchema) {
+    Method readMethod = getMethod(Object.class, "read", Decoder.class, Schema.class);
+    GeneratorAdapter mg = new GeneratorAdapter(Opcodes.ACC_PUBLIC, readMethod, null,
+                                               new Type[] {Type.getType(IOException.class)}, classWriter);
+
+    // return decodeMethod(decoder);
+    invokeDecode(mg, inputType, sourceSchema, targetSchema, OBJECT_TYPE);
+    mg.returnValue();
+    mg.endMethod();
+  }
+
+  /**
+   * Generates an invocation of the decode method for the given type and schemas, and converts the decoded value
+   * to the given result type. The decoder is the first argument of the method being generated.
+   *
+   * @param mg Method body generator
+   * @param inputType Type information of the data type to decode to
+   * @param sourceSchema Schema of the encoded data
+   * @param targetSchema Schema of the data type
+   * @param resultType Type of the value to be left on the stack
+   */
+  private void invokeDecode(GeneratorAdapter mg, TypeToken<?> inputType, Schema sourceSchema,
+                            Schema targetSchema, Type resultType) {
+    Method method = getDecodeMethod(inputType, sourceSchema, targetSchema);
+    mg.loadThis();
+    mg.loadArg(0);
+    mg.invokeVirtual(classType, method);
+    adapt(mg, method.getReturnType(), resultType);
+  }
+
+  /**
+   * Returns the decode method for the given type and schemas. The same method will be returned if the same
+   * type and schemas have been passed to this method before.
+   *
+   * @param inputType Type information of the data type to decode to
+   * @param sourceSchema Schema of the encoded data
+   * @param targetSchema Schema of the data type
+   * @return A method for decoding the given type and schemas
+   */
+  private Method getDecodeMethod(TypeToken<?> inputType, Schema sourceSchema, Schema targetSchema) {
+    String key = String.format("%s%s%s", normalizeTypeName(inputType),
+                               sourceSchema.getSchemaHash(), targetSchema.getSchemaHash());
+
+    Method method = decodeMethods.get(key);
+    if (method != null) {
+      return method;
+    }
+
+    // Generate the decode method (decoder)
+    method = new Method("decode" + key, getCallType(inputType, targetSchema), new Type[] {DECODER_TYPE});
+
+    // Put the method into map first before generating the body in order to support recursive data type.
+    decodeMethods.put(key, method);
+
+    GeneratorAdapter mg = new GeneratorAdapter(Opcodes.ACC_PRIVATE, method, null,
+                                               new Type[] {Type.getType(IOException.class)}, classWriter);
+    generateDecodeBody(mg, inputType, sourceSchema, targetSchema, method.getReturnType());
+    mg.returnValue();
+    mg.endMethod();
+
+    return method;
+  }
+
+  /**
+   * Generates the decode method body, which leaves the decoded value of the given result type on the stack.
+   * The resolution logic follows the one in {@link ReflectionReader}.
+   */
+  private void generateDecodeBody(GeneratorAdapter mg, TypeToken<?> inputType,
+                                  Schema sourceSchema, Schema targetSchema, Type resultType) {
+    Schema.Type sourceType = sourceSchema.getType();
+    Schema.Type targetType = targetSchema.getType();
+
+    if (sourceType != Schema.Type.UNION && targetType == Schema.Type.UNION) {
+      // Use the first union schema in the target that the source can be resolved to
+      Schema resolved = findResolvable(sourceSchema, targetSchema.getUnionSchemas());
+      if (resolved == null) {
+        throwResolveException(mg, sourceSchema, targetSchema);
+      } else {
+        invokeDecode(mg, inputType, sourceSchema, resolved, resultType);
+      }
+      return;
+    }
+
+    if (sourceType == Schema.Type.UNION) {
+      decodeUnion(mg, inputType, sourceSchema, targetSchema, resultType);
+      return;
+    }
+
+    if (!isResolvable(sourceSchema, targetSchema, Sets.<Map.Entry<String, String>>newHashSet())) {
+      throwResolveException(mg, sourceSchema, targetSchema);
+      return;
+    }
+
+    switch (sourceType) {
+      case NULL:
+        mg.loadArg(0);
+        mg.invokeInterface(DECODER_TYPE, getMethod(Object.class, "readNull"));
+        adapt(mg, OBJECT_TYPE, resultType);
+        break;
+      case BYTES:
+        decodeBytes(mg, inputType);
+        adapt(mg, OBJECT_TYPE, resultType);
+        break;
+      case ENUM:
+        decodeEnum(mg, inputType, sourceSchema, targetSchema);
+        adapt(mg, OBJECT_TYPE, resultType);
+        break;
+      case ARRAY:
+        if (inputType.isArray()) {
+          decodeArray(mg, inputType.getComponentType(),
+                      sourceSchema.getComponentSchema(), targetSchema.getComponentSchema());
+        } else if (Collection.class.isAssignableFrom(inputType.getRawType())) {
+          Preconditions.checkArgument(inputType.getType() instanceof ParameterizedType,
+                                      "Only support parameterized collection type.");
+          TypeToken<?> componentType = inputType.resolveType(((ParameterizedType) inputType.getType())
+                                                               .getActualTypeArguments()[0]);
+          decodeCollection(mg, inputType, componentType,
+                           sourceSchema.getComponentSchema(), targetSchema.getComponentSchema());
+        } else {
+          mg.throwException(Type.getType(IOException.class),
+                            "Only array or collection type is support for array value.");
+          return;
+        }
+        adapt(mg, OBJECT_TYPE, resultType);
+        break;
+      case MAP:
+        Preconditions.checkArgument(Map.class.isAssignableFrom(inputType.getRawType()),
+                                    "Only %s type is supported.", Map.class.getName());
+        Preconditions.checkArgument(inputType.getType() instanceof ParameterizedType,
+                                    "Only support parameterized map type.");
+        java.lang.reflect.Type[] mapArgs = ((ParameterizedType) inputType.getType()).getActualTypeArguments();
+        decodeMap(mg, inputType, inputType.resolveType(mapArgs[0]), inputType.resolveType(mapArgs[1]),
+                  sourceSchema.getMapSchema(), targetSchema.getMapSchema());
+        adapt(mg, OBJECT_TYPE, resultType);
+        break;
+      case RECORD:
+        decodeRecord(mg, inputType, sourceSchema, targetSchema);
+        adapt(mg, OBJECT_TYPE, resultType);
+        break;
+      default:
+        decodeSimple(mg, inputType, sourceType, targetType, resultType);
+    }
+  }
+
+  /**
+   * Generates method body for decoding simple types other than null and bytes, with type promotion from the
+   * source type to the target type.
+   */
+  private void decodeSimple(GeneratorAdapter mg, TypeToken<?> inputType,
+                            Schema.Type sourceType, Schema.Type targetType, Type resultType) {
+    // value = decoder.readXXX();
+    Class<?> valueClass = getValueClass(sourceType);
+    String readMethod = "read" + (sourceType == Schema.Type.BOOLEAN ? "Bool"
+      : sourceType.name().charAt(0) + sourceType.name().substring(1).toLowerCase());
+    mg.loadArg(0);
+    mg.invokeInterface(DECODER_TYPE, getMethod(valueClass, readMethod));
+
+    Class<?> rawType = inputType.getRawType();
+    if (targetType == Schema.Type.STRING) {
+      if (sourceType != Schema.Type.STRING) {
+        // String.valueOf(value)
+        mg.invokeStatic(Type.getType(String.class), getMethod(String.class, "valueOf", valueClass));
+      }
+      if (URI.class.equals(rawType)) {
+        mg.invokeStatic(Type.getType(URI.class), getMethod(URI.class, "create", String.class));
+      } else if (URL.class.equals(rawType)) {
+        int str = mg.newLocal(Type.getType(String.class));
+        mg.storeLocal(str);
+        mg.newInstance(Type.getType(URL.class));
+        mg.dup();
+        mg.loadLocal(str);
+        mg.invokeConstructor(Type.getType(URL.class), getMethod(void.class, "<init>", String.class));
+      }
+      adapt(mg, OBJECT_TYPE, resultType);
+      return;
+    }
+
+    // Promote the value to the target type, and then convert it to the type of the data, which can be narrower
+    // for the int schema type (byte, char, short and int).
+    Type valueType = Type.getType(valueClass);
+    Type targetValueType = Type.getType(getValueClass(targetType));
+    if (!valueType.equals(targetValueType)) {
+      mg.cast(valueType, targetValueType);
+    }
+    Class<?> primitiveType = Primitives.unwrap(rawType);
+    Type dataType = targetValueType;
+    if (targetType == Schema.Type.INT && primitiveType.isPrimitive() && !int.class.equals(primitiveType)) {
+      dataType = Type.getType(primitiveType);
+      mg.cast(targetValueType, dataType);
+    }
+    adapt(mg, dataType, resultType);
+  }
+
+  /**
+   * Generates method body for decoding bytes into either {@code byte[]}, {@link UUID} or {@link ByteBuffer}.
+   */
+  private void decodeBytes(GeneratorAdapter mg, TypeToken<?> inputType) {
+    // ByteBuffer buffer = decoder.readBytes();
+    mg.loadArg(0);
+    mg.invokeInterface(DECODER_TYPE, getMethod(ByteBuffer.class, "readBytes"));
+
+    Class<?> rawType = inputType.getRawType();
+    if (byte[].class.equals(rawType)) {
+      // Bytes.toBytes(buffer);
+      mg.invokeStatic(Type.getType(Bytes.class), getMethod(byte[].class, "toBytes", ByteBuffer.class));
+    } else if (UUID.class.equals(rawType)) {
+      // new UUID(buffer.getLong(), buffer.getLong());
+      Type bufferType = Type.getType(ByteBuffer.class);
+      int buffer = mg.newLocal(bufferType);
+      mg.storeLocal(buffer);
+      mg.newInstance(Type.getType(UUID.class));
+      mg.dup();
+      mg.loadLocal(buffer);
+      mg.invokeVirtual(bufferType, getMethod(long.class, "getLong"));
+      mg.loadLocal(buffer);
+      mg.invokeVirtual(bufferType, getMethod(long.class, "getLong"));
+      mg.invokeConstructor(Type.getType(UUID.class), getMethod(void.class, "<init>", long.class, long.class));
+    }
+  }
+
+  /**
+   * Generates method body for decoding enum value. The logic is like this:
+   *
+   * <pre>
+   * {@code
+   *
+   * Object[] values = this.enumValues;
+   * int idx = decoder.readInt();
+   * if (idx < 0 || idx >= values.length) {
+   *   throw new IOException("Invalid enum index.");
+   * }
+   * Object value = values[idx];
+   * if (value == null) {
+   *   throw new IOException("Enum value missing in target.");
+   * }
+   * }
+   * </pre>
+   */
+  private void decodeEnum(GeneratorAdapter mg, TypeToken<?> inputType, Schema sourceSchema, Schema targetSchema) {
+    Class<?> rawType = inputType.getRawType();
+    Preconditions.checkArgument(rawType.isEnum(), "Only enum type is supported for enum data.");
+
+    // Maps each source enum index to the target enum value name, or null if the value is missing in the target.
+    String[] values = new String[sourceSchema.getEnumValues().size()];
+    for (int i = 0; i < values.length; i++) {
+      String value = sourceSchema.getEnumValue(i);
+      values[i] = targetSchema.getEnumValues().contains(value) ? value : null;
+    }
+    String fieldName = String.format("enumValues%s%s%s", normalizeTypeName(inputType),
+                                     sourceSchema.getSchemaHash(), targetSchema.getSchemaHash());
+    enumValues.put(fieldName, Maps.<Class<?>, String[]>immutableEntry(rawType, values));
+
+    Type valuesType = Type.getType(Object[].class);
+    int enumValues = mg.newLocal(valuesType);
+    mg.loadThis();
+    mg.getField(classType, fieldName, valuesType);
+    mg.storeLocal(enumValues);
+
+    int idx = mg.newLocal(Type.INT_TYPE);
+    mg.loadArg(0);
+    mg.invokeInterface(DECODER_TYPE, getMethod(int.class, "readInt"));
+    mg.storeLocal(idx);
+
+    Label invalidIdx = mg.newLabel();
+    Label validIdx = mg.newLabel();
+    mg.loadLocal(idx);
+    mg.ifZCmp(GeneratorAdapter.LT, invalidIdx);
+    mg.loadLocal(idx);
+    mg.loadLocal(enumValues);
+    mg.arrayLength();
+    mg.ifICmp(GeneratorAdapter.LT, validIdx);
+    mg.mark(invalidIdx);
+    mg.throwException(Type.getType(IOException.class), "Invalid enum index.");
+    mg.mark(validIdx);
+
+    int value = mg.newLocal(OBJECT_TYPE);
+    mg.loadLocal(enumValues);
+    mg.loadLocal(idx);
+    mg.arrayLoad(OBJECT_TYPE);
+    mg.storeLocal(value);
+
+    Label valueFound = mg.newLabel();
+    mg.loadLocal(value);
+    mg.ifNonNull(valueFound);
+    mg.throwException(Type.getType(IOException.class), "Enum value missing in target.");
+    mg.mark(valueFound);
+    mg.loadLocal(value);
+  }
+
+  /**
+   * Generates method body for decoding array value into Java array. The logic is like this:
+   *
+   * <pre>
+   * {@code
+   *
+   * int len = decoder.readInt();
+   * T[] array = new T[len];
+   * int size = 0;
+   * while (len != 0) {
+   *   if (array.length < size + len) {
+   *     array = Arrays.copyOf(array, size + len);
+   *   }
+   *   for (; len > 0; len--) {
+   *     array[size++] = decodeElement(decoder);
+   *   }
+   *   len = decoder.readInt();
+   * }
+   * }
+   * </pre>
+   *
+   * Arrays of non-primitive type are created with {@link Array#newInstance(Class, int)}, as the component type
+   * may not be accessible from the generated class.
+   */
+  private void decodeArray(GeneratorAdapter mg, TypeToken<?> componentType,
+                           Schema sourceComponentSchema, Schema targetComponentSchema) {
+    Class<?> componentClass = componentType.getRawType();
+    Class<?> arrayClass = componentClass.isPrimitive()
+      ? Array.newInstance(componentClass, 0).getClass() : Object[].class;
+    Type elementType = componentClass.isPrimitive() ? Type.getType(componentClass) : OBJECT_TYPE;
+    Type arrayType = Type.getType(arrayClass);
+
+    int len = mg.newLocal(Type.INT_TYPE);
+    mg.loadArg(0);
+    mg.invokeInterface(DECODER_TYPE, getMethod(int.class, "readInt"));
+    mg.storeLocal(len);
+
+    // array = new T[len];
+    int array = mg.newLocal(arrayType);
+    if (componentClass.isPrimitive()) {
+      mg.loadLocal(len);
+      mg.newArray(elementType);
+    } else {
+      String fieldName = "componentClass" + normalizeTypeName(componentType);
+      componentClasses.put(fieldName, componentClass);
+      mg.loadThis();
+      mg.getField(classType, fieldName, Type.getType(Class.class));
+      mg.loadLocal(len);
+      mg.invokeStatic(Type.getType(Array.class), getMethod(Object.class, "newInstance", Class.class, int.class));
+      mg.checkCast(arrayType);
+    }
+    mg.storeLocal(array);
+
+    int size = mg.newLocal(Type.INT_TYPE);
+    mg.push(0);
+    mg.storeLocal(size);
+
+    // while (len != 0)
+    Label beginWhile = mg.mark();
+    Label endWhile = mg.newLabel();
+    mg.loadLocal(len);
+    mg.ifZCmp(GeneratorAdapter.EQ, endWhile);
+
+    // Grow the array if needed
+    Label hasSpace = mg.newLabel();
+    mg.loadLocal(array);
+    mg.arrayLength();
+    mg.loadLocal(size);
+    mg.loadLocal(len);
+    mg.math(GeneratorAdapter.ADD, Type.INT_TYPE);
+    mg.ifICmp(GeneratorAdapter.GE, hasSpace);
+    mg.loadLocal(array);
+    mg.loadLocal(size);
+    mg.loadLocal(len);
+    mg.math(GeneratorAdapter.ADD, Type.INT_TYPE);
+    mg.invokeStatic(Type.getType(Arrays.class), getMethod(arrayClass, "copyOf", arrayClass, int.class));
+    mg.storeLocal(array);
+    mg.mark(hasSpace);
+
+    // for (; len > 0; len--)
+    Label beginFor = mg.mark();
+    Label endFor = mg.newLabel();
+    mg.loadLocal(len);
+    mg.ifZCmp(GeneratorAdapter.LE, endFor);
+    mg.loadLocal(array);
+    mg.loadLocal(size);
+    invokeDecode(mg, componentType, sourceComponentSchema, targetComponentSchema, elementType);
+    mg.arrayStore(elementType);
+    mg.iinc(size, 1);
+    mg.iinc(len, -1);
+    mg.goTo(beginFor);
+    mg.mark(endFor);
+
+    mg.loadArg(0);
+    mg.invokeInterface(DECODER_TYPE, getMethod(int.class, "readInt"));
+    mg.storeLocal(len);
+    mg.goTo(beginWhile);
+    mg.mark(endWhile);
+
+    mg.loadLocal(array);
+  }
+
+  /**
+   * Generates method body for decoding array value into {@link Collection}. The logic is like this:
+   *
+   * <pre>
+   * {@code
+   *
+   * Collection collection = (Collection) this.instantiator.create();
+   * int len = decoder.readInt();
+   * while (len != 0) {
+   *   for (; len > 0; len--) {
+   *     collection.add(decodeElement(decoder));
+   *   }
+   *   len = decoder.readInt();
+   * }
+   * }
+   * </pre>
+   */
+  private void decodeCollection(GeneratorAdapter mg, TypeToken<?> collectionType, TypeToken<?> componentType,
+                                Schema sourceComponentSchema, Schema targetComponentSchema) {
+    Type type = Type.getType(Collection.class);
+    int collection = mg.newLocal(type);
+    createInstance(mg, collectionType.getRawType());
+    mg.checkCast(type);
+    mg.storeLocal(collection);
+
+    int len = mg.newLocal(Type.INT_TYPE);
+    mg.loadArg(0);
+    mg.invokeInterface(DECODER_TYPE, getMethod(int.class, "readInt"));
+    mg.storeLocal(len);
+
+    // while (len != 0)
+    Label beginWhile = mg.mark();
+    Label endWhile = mg.newLabel();
+    mg.loadLocal(len);
+    mg.ifZCmp(GeneratorAdapter.EQ, endWhile);
+
+    // for (; len > 0; len--)
+    Label beginFor = mg.mark();
+    Label endFor = mg.newLabel();
+    mg.loadLocal(len);
+    mg.ifZCmp(GeneratorAdapter.LE, endFor);
+    mg.loadLocal(collection);
+    invokeDecode(mg, componentType, sourceComponentSchema, targetComponentSchema, OBJECT_TYPE);
+    mg.invokeInterface(type, getMethod(boolean.class, "add", Object.class));
+    mg.pop();
+    mg.iinc(len, -1);
+    mg.goTo(beginFor);
+    mg.mark(endFor);
+
+    mg.loadArg(0);
+    mg.invokeInterface(DECODER_TYPE, getMethod(int.class, "readInt"));
+    mg.storeLocal(len);
+    mg.goTo(beginWhile);
+    mg.mark(endWhile);
+
+    mg.loadLocal(collection);
+  }
+
+  /**
+   * Generates method body for decoding map value. The logic is the same as in
+   * {@link #decodeCollection(GeneratorAdapter, TypeToken, TypeToken, Schema, Schema)}, with each element
+   * decoded as a key and a value and put into a {@link Map}.
+   */
+  private void decodeMap(GeneratorAdapter mg, TypeToken<?> mapType, TypeToken<?> keyType, TypeToken<?> valueType,
+                         Map.Entry<Schema, Schema> sourceMapSchema, Map.Entry<Schema, Schema> targetMapSchema) {
+    Type type = Type.getType(Map.class);
+    int map = mg.newLocal(type);
+    createInstance(mg, mapType.getRawType());
+    mg.checkCast(type);
+    mg.storeLocal(map);
+
+    int len = mg.newLocal(Type.INT_TYPE);
+    mg.loadArg(0);
+    mg.invokeInterface(DECODER_TYPE, getMethod(int.class, "readInt"));
+    mg.storeLocal(len);
+
+    // while (len != 0)
+    Label beginWhile = mg.mark();
+    Label endWhile = mg.newLabel();
+    mg.loadLocal(len);
+    mg.ifZCmp(GeneratorAdapter.EQ, endWhile);
+
+    // for (; len > 0; len--)
+    Label beginFor = mg.mark();
+    Label endFor = mg.newLabel();
+    mg.loadLocal(len);
+    mg.ifZCmp(GeneratorAdapter.LE, endFor);
+    mg.loadLocal(map);
+    invokeDecode(mg, keyType, sourceMapSchema.getKey(), targetMapSchema.getKey(), OBJECT_TYPE);
+    invokeDecode(mg, valueType, sourceMapSchema.getValue(), targetMapSchema.getValue(), OBJECT_TYPE);
+    mg.invokeInterface(type, getMethod(Object.class, "put", Object.class, Object.class));
+    mg.pop();
+    mg.iinc(len, -1);
+    mg.goTo(beginFor);
+    mg.mark(endFor);
+
+    mg.loadArg(0);
+    mg.invokeInterface(DECODER_TYPE, getMethod(int.class, "readInt"));
+    mg.storeLocal(len);
+    mg.goTo(beginWhile);
+    mg.mark(endWhile);
+
+    mg.loadLocal(map);
+  }
+
+  /**
+   * Generates method body for decoding record. Fields in the source schema are decoded in order. Those that are not
+   * in the target schema are skipped, and the rest are set with {@link FieldAccessor}.
+   */
+  private void decodeRecord(GeneratorAdapter mg, TypeToken<?> inputType, Schema sourceSchema, Schema targetSchema) {
+    try {
+      Class<?> rawType = inputType.getRawType();
+
+      // Object record = this.instantiator.create();
+      int record = mg.newLocal(OBJECT_TYPE);
+      createInstance(mg, rawType);
+      mg.storeLocal(record);
+
+      for (Schema.Field sourceField : sourceSchema.getFields()) {
+        Schema.Field targetField = targetSchema.getField(sourceField.getName());
+        if (targetField == null) {
+          invokeSkip(mg, sourceField.getSchema());
+          continue;
+        }
+
+        // this.fieldAccessor.setXXX(record, decodeField(decoder));
+        TypeToken<?> fieldType = inputType.resolveType(Fields.findField(inputType.getType(),
+                                                                        sourceField.getName()).getGenericType());
+        String fieldAccessorName = getFieldAccessorName(rawType, sourceField.getName());
+        fieldAccessors.put(fieldAccessorName, Maps.<Class<?>, String>immutableEntry(rawType, sourceField.getName()));
+
+        mg.loadThis();
+        mg.getField(classType, fieldAccessorName, Type.getType(FieldAccessor.class));
+        mg.loadLocal(record);
+        Class<?> fieldClass = fieldType.getRawType();
+        if (fieldClass.isPrimitive()) {
+          invokeDecode(mg, fieldType, sourceField.getSchema(), targetField.getSchema(), Type.getType(fieldClass));
+          mg.invokeInterface(Type.getType(FieldAccessor.class),
+                             getMethod(void.class, String.format("set%c%s",
+                                                                 Character.toUpperCase(fieldClass.getName().charAt(0)),
+                                                                 fieldClass.getName().substring(1)),
+                                       Object.class, fieldClass));
+        } else {
+          invokeDecode(mg, fieldType, sourceField.getSchema(), targetField.getSchema(), OBJECT_TYPE);
+          mg.invokeInterface(Type.getType(FieldAccessor.class),
+                             getMethod(void.class, "set", Object.class, Object.class));
+        }
+      }
+
+      mg.loadLocal(record);
+    } catch (Exception e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  /**
+   * Generates method body for decoding union. The union index is decoded and the value is decoded with the
+   * union schema of the index, which is resolved to the target schema in the same way as
+   * {@link ReflectionDatumReader} does.
+   */
+  private void decodeUnion(final GeneratorAdapter mg, final TypeToken<?> inputType, Schema sourceSchema,
+                           final Schema targetSchema, final Type resultType) {
+    final List<Schema> unionSchemas = sourceSchema.getUnionSchemas();
+
+    // switch (decoder.readInt())
+    mg.loadArg(0);
+    mg.invokeInterface(DECODER_TYPE, getMethod(int.class, "readInt"));
+    mg.tableSwitch(getIndices(unionSchemas.size()), new TableSwitchGenerator() {
+      @Override
+      public void generateCase(int key, Label end) {
+        Schema unionSchema = unionSchemas.get(key);
+        Schema resolved = resolveUnionSchema(unionSchema, key, targetSchema);
+        if (resolved == null) {
+          throwResolveException(mg, unionSchema, targetSchema);
+        } else {
+          invokeDecode(mg, inputType, unionSchema, resolved, resultType);
+          mg.goTo(end);
+        }
+      }
+
+      @Override
+      public void generateDefault() {
+        mg.throwException(Type.getType(IOException.class), "Invalid union index.");
+      }
+    });
+  }
+
+  /**
+   * Generates an invocation of the skip method for the given schema. The decoder is the first argument of
+   * the method being generated.
+   */
+  private void invokeSkip(GeneratorAdapter mg, Schema schema) {
+    String key = schema.getSchemaHash().toString();
+    Method method = skipMethods.get(key);
+    if (method == null) {
+      method = new Method("skip" + key, Type.VOID_TYPE, new Type[] {DECODER_TYPE});
+
+      // Put the method into map first before generating the body in order to support recursive data type.
+      skipMethods.put(key, method);
+
+      GeneratorAdapter skipMg = new GeneratorAdapter(Opcodes.ACC_PRIVATE, method, null,
+                                                     new Type[] {Type.getType(IOException.class)}, classWriter);
+      generateSkipBody(skipMg, schema);
+      skipMg.returnValue();
+      skipMg.endMethod();
+    }
+
+    mg.loadThis();
+    mg.loadArg(0);
+    mg.invokeVirtual(classType, method);
+  }
+
+  /**
+   * Generates the skip method body, which skips a value of the given schema in the decoder.
+   */
+  private void generateSkipBody(final GeneratorAdapter mg, Schema schema) {
+    switch (schema.getType()) {
+      case NULL:
+        break;
+      case BOOLEAN:
+        mg.loadArg(0);
+        mg.invokeInterface(DECODER_TYPE, getMethod(boolean.class, "readBool"));
+        mg.pop();
+        break;
+      case INT:
+      case ENUM:
+        mg.loadArg(0);
+        mg.invokeInterface(DECODER_TYPE, getMethod(int.class, "readInt"));
+        mg.pop();
+        break;
+      case LONG:
+        mg.loadArg(0);
+        mg.invokeInterface(DECODER_TYPE, getMethod(long.class, "readLong"));
+        mg.pop2();
+        break;
+      case FLOAT:
+      case DOUBLE:
+      case BYTES:
+      case STRING:
+        mg.loadArg(0);
+        mg.invokeInterface(DECODER_TYPE, getMethod(void.class, "skip" + schema.getType().name().charAt(0)
+                                                     + schema.getType().name().substring(1).toLowerCase()));
+        break;
+      case ARRAY:
+        skipBlocks(mg, schema.getComponentSchema());
+        break;
+      case MAP:
+        skipBlocks(mg, schema.getMapSchema().getKey(), schema.getMapSchema().getValue());
+        break;
+      case RECORD:
+        for (Schema.Field field : schema.getFields()) {
+          invokeSkip(mg, field.getSchema());
+        }
+        break;
+      case UNION:
+        final List<Schema> unionSchemas = schema.getUnionSchemas();
+        mg.loadArg(0);
+        mg.invokeInterface(DECODER_TYPE, getMethod(int.class, "readInt"));
+        mg.tableSwitch(getIndices(unionSchemas.size()), new TableSwitchGenerator() {
+          @Override
+          public void generateCase(int key, Label end) {
+            invokeSkip(mg, unionSchemas.get(key));
+            mg.goTo(end);
+          }
+
+          @Override
+          public void generateDefault() {
+            mg.throwException(Type.getType(IOException.class), "Invalid union index.");
+          }
+        });
+        break;
+    }
+  }
+
+  /**
+   * Generates code for skipping blocks of array or map elements, with each element consists of values of the
+   * given schemas.
+   */
+  private void skipBlocks(GeneratorAdapter mg, Schema...elementSchemas) {
+    int len = mg.newLocal(Type.INT_TYPE);
+    mg.loadArg(0);
+    mg.invokeInterface(DECODER_TYPE, getMethod(int.class, "readInt"));
+    mg.storeLocal(len);
+
+    // while (len != 0)
+    Label beginWhile = mg.mark();
+    Label endWhile = mg.newLabel();
+    mg.loadLocal(len);
+    mg.ifZCmp(GeneratorAdapter.EQ, endWhile);
+
+    // for (; len > 0; len--)
+    Label beginFor = mg.mark();
+    Label endFor = mg.newLabel();
+    mg.loadLocal(len);
+    mg.ifZCmp(GeneratorAdapter.LE, endFor);
+    for (Schema elementSchema : elementSchemas) {
+      invokeSkip(mg, elementSchema);
+    }
+    mg.iinc(len, -1);
+    mg.goTo(beginFor);
+    mg.mark(endFor);
+
+    mg.loadArg(0);
+    mg.invokeInterface(DECODER_TYPE, getMethod(int.class, "readInt"));
+    mg.storeLocal(len);
+    mg.goTo(beginWhile);
+    mg.mark(endWhile);
+  }
+
+  /**
+   * Generates code for creating a new instance of the given class with the {@link Instantiator} stored in a
+   * class field. The instance is left on the stack.
+   */
+  private void createInstance(GeneratorAdapter mg, Class<?> rawType) {
+    String fieldName = "instantiator" + normalizeTypeName(TypeToken.of(rawType));
+    instantiators.put(fieldName, rawType);
+
+    mg.loadThis();
+    mg.getField(classType, fieldName, Type.getType(Instantiator.class));
+    mg.invokeInterface(Type.getType(Instantiator.class), getMethod(Object.class, "create"));
+  }
+
+  /**
+   * Generates code for loading the given class, which is left on the stack. Classes are loaded by name through
+   * the ClassLoader of the generated class, hence they are added to the preserved classes.
+   */
+  private void loadClass(GeneratorAdapter mg, Class<?> cls) {
+    if (cls.isPrimitive()) {
+      mg.getStatic(Type.getType(Primitives.wrap(cls)), "TYPE", Type.getType(Class.class));
+    } else if (cls.isArray()) {
+      // Array.newInstance(componentClass, 0).getClass();
+      loadClass(mg, cls.getComponentType());
+      mg.push(0);
+      mg.invokeStatic(Type.getType(Array.class), getMethod(Object.class, "newInstance", Class.class, int.class));
+      mg.invokeVirtual(OBJECT_TYPE, getMethod(Class.class, "getClass"));
+    } else {
+      preservedClasses.add(cls);
+      mg.push(cls.getName());
+      mg.invokeStatic(Type.getType(Class.class), getMethod(Class.class, "forName", String.class));
+    }
+  }
+
+  /**
+   * Generates code for converting the value on the stack from one type to another. Conversion is only between
+   * a primitive type and its boxed type, or between primitive types.
+   */
+  private void adapt(GeneratorAdapter mg, Type fromType, Type toType) {
+    if (fromType.equals(toType)) {
+      return;
+    }
+    boolean fromPrimitive = fromType.getSort() != Type.OBJECT && fromType.getSort() != Type.ARRAY;
+    boolean toPrimitive = toType.getSort() != Type.OBJECT && toType.getSort() != Type.ARRAY;
+    if (fromPrimitive && toPrimitive) {
+      mg.cast(fromType, toType);
+    } else if (fromPrimitive) {
+      mg.valueOf(fromType);
+    } else if (toPrimitive) {
+      mg.unbox(toType);
+    }
+  }
+
+  /**
+   * Generates code for throwing {@link IOException} when the source schema cannot be resolved to the target schema.
+   */
+  private void throwResolveException(GeneratorAdapter mg, Schema sourceSchema, Schema targetSchema) {
+    mg.throwException(Type.getType(IOException.class),
+                      String.format("Fail to resolve type %s to type %s", getTypeName(sourceSchema),
+                                    getTypeName(targetSchema)));
+  }
+
+  private String getTypeName(Schema schema) {
+    return schema.getType() == Schema.Type.RECORD
+      ? schema.getType() + " " + schema.getRecordName() : schema.getType().toString();
+  }
+
+  /**
+   * Returns the schema that a union schema of the given index in the source resolves to, or {@code null} if it
+   * cannot be resolved. If the target is also a union, the union schema of the same index in the target is
+   * preferred.
+   */
+  @Nullable
+  private Schema resolveUnionSchema(Schema sourceSchema, int idx, Schema targetSchema) {
+    if (targetSchema.getType() != Schema.Type.UNION) {
+      return isResolvable(sourceSchema, targetSchema, Sets.<Map.Entry<String, String>>newHashSet())
+        ? targetSchema : null;
+    }
+    Schema schema = targetSchema.getUnionSchema(idx);
+    if (schema != null && schema.getType() == sourceSchema.getType()
+      && isResolvable(sourceSchema, schema, Sets.<Map.Entry<String, String>>newHashSet())) {
+      return schema;
+    }
+    return findResolvable(sourceSchema, targetSchema.getUnionSchemas());
+  }
+
+  /**
+   * Returns the first schema in the given list that the source schema can be resolved to, or {@code null} if
+   * there is none.
+   */
+  @Nullable
+  private Schema findResolvable(Schema sourceSchema, List<Schema> targetSchemas) {
+    for (Schema targetSchema : targetSchemas) {
+      if (isResolvable(sourceSchema, targetSchema, Sets.<Map.Entry<String, String>>newHashSet())) {
+        return targetSchema;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Checks if data of the source schema can be decoded with the target schema.
+   *
+   * @param recordsCompared pairs of source and target record schema hashes that are being checked, for
+   *                        supporting recursive record schemas
+   */
+  private boolean isResolvable(Schema sourceSchema, Schema targetSchema,
+                               Set<Map.Entry<String, String>> recordsCompared) {
+    Schema.Type sourceType = sourceSchema.getType();
+    Schema.Type targetType = targetSchema.getType();
+
+    if (sourceType == Schema.Type.UNION) {
+      // Each union schema is resolved when it is decoded
+      return true;
+    }
+    if (targetType == Schema.Type.UNION) {
+      for (Schema schema : targetSchema.getUnionSchemas()) {
+        if (isResolvable(sourceSchema, schema, recordsCompared)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    switch (sourceType) {
+      case NULL:
+      case BYTES:
+      case ENUM:
+        return sourceType == targetType;
+      case ARRAY:
+        return targetType == Schema.Type.ARRAY
+          && isResolvable(sourceSchema.getComponentSchema(), targetSchema.getComponentSchema(), recordsCompared);
+      case MAP:
+        return targetType == Schema.Type.MAP
+          && isResolvable(sourceSchema.getMapSchema().getKey(), targetSchema.getMapSchema().getKey(), recordsCompared)
+          && isResolvable(sourceSchema.getMapSchema().getValue(), targetSchema.getMapSchema().getValue(),
+                          recordsCompared);
+      case RECORD:
+        if (targetType != Schema.Type.RECORD) {
+          return false;
+        }
+        if (!recordsCompared.add(Maps.immutableEntry(sourceSchema.getSchemaHash().toString(),
+                                                     targetSchema.getSchemaHash().toString()))) {
+          return true;
+        }
+        for (Schema.Field sourceField : sourceSchema.getFields()) {
+          Schema.Field targetField = targetSchema.getField(sourceField.getName());
+          if (targetField != null && !isResolvable(sourceField.getSchema(), targetField.getSchema(), recordsCompared)) {
+            return false;
+          }
+        }
+        return true;
+      case BOOLEAN:
+        return targetType == Schema.Type.BOOLEAN || targetType == Schema.Type.STRING;
+      case INT:
+        return targetType == Schema.Type.INT || targetType == Schema.Type.LONG || targetType == Schema.Type.FLOAT
+          || targetType == Schema.Type.DOUBLE || targetType == Schema.Type.STRING;
+      case LONG:
+        return targetType == Schema.Type.LONG || targetType == Schema.Type.FLOAT
+          || targetType == Schema.Type.DOUBLE || targetType == Schema.Type.STRING;
+      case FLOAT:
+        return targetType == Schema.Type.FLOAT || targetType == Schema.Type.DOUBLE || targetType == Schema.Type.STRING;
+      case DOUBLE:
+        return targetType == Schema.Type.DOUBLE || targetType == Schema.Type.STRING;
+      case STRING:
+        return targetType == Schema.Type.STRING;
+    }
+    return false;
+  }
+
+  /**
+   * Returns the class of the value returned by the {@link Decoder} read method for the given simple type.
+   */
+  private Class<?> getValueClass(Schema.Type type) {
+    switch (type) {
+      case BOOLEAN:
+        return boolean.class;
+      case INT:
+        return int.class;
+      case LONG:
+        return long.class;
+      case FLOAT:
+        return float.class;
+      case DOUBLE:
+        return double.class;
+      case STRING:
+        return String.class;
+    }
+    throw new IllegalArgumentException("Not a simple type: " + type);
+  }
+
+  /**
+   * Returns the return type of the decode method. Primitive types are decoded without boxing, unless the
+   * target schema is a union. All other types are returned as {@link Object}, as the generated class may not
+   * have access to them.
+   */
+  private Type getCallType(TypeToken<?> inputType, Schema targetSchema) {
+    Class<?> rawType = inputType.getRawType();
+    if (rawType.isPrimitive() && targetSchema.getType() != Schema.Type.UNION) {
+      return Type.getType(rawType);
+    }
+    return OBJECT_TYPE;
+  }
+
+  private int[] getIndices(int size) {
+    int[] indices = new int[size];
+    for (int i = 0; i < size; i++) {
+      indices[i] = i;
+    }
+    return indices;
+  }
+
+  private <T> TypeToken<DatumReader<T>> getInterfaceType(TypeToken<T> type) {
+    return new TypeToken<DatumReader<T>>() {
+    }.where(new TypeParameter<T>() {
+    }, type);
+  }
+
+  private String getClassName(TypeToken<?> interfaceType, Schema sourceSchema, Schema targetSchema) {
+    return String.format("%s/%s%s%s%s",
+                         interfaceType.getRawType().getPackage().getName().replace('.', '/'),
+                         normalizeTypeName(TypeToken.of(((ParameterizedType) interfaceType.getType())
+                                                          .getActualTypeArguments()[0])),
+                         interfaceType.getRawType().getSimpleName(),
+                         sourceSchema.getSchemaHash(), targetSchema.getSchemaHash());
+  }
+
+  private String normalizeTypeName(TypeToken<?> type) {
+    String typeName = type.toString();
+    int dimension = 0;
+    while (type.isArray()) {
+      type = type.getComponentType();
+      typeName = type.toString();
+      dimension++;
+    }
+
+    typeName = typeName.replace(".", "")
+                        .replace("<", "Of")
+                        .replace(">", "")
+                        .replace(",", "To")
+                        .replace(" ", "")
+                        .replace("$", "")
+                        .replace("?", "");
+    if (dimension > 0) {
+      typeName = "Array" + dimension + typeName;
+    }
+    return typeName;
+  }
+
+  /**
+   * Generates the name of the class field for storing {@link FieldAccessor} for the given record field.
+   */
+  private String getFieldAccessorName(Class<?> recordClass, String fieldName) {
+    return String.format("%s$%s", normalizeTypeName(TypeToken.of(recordClass)), fieldName);
+  }
+
+  private Method getMethod(Class<?> returnType, String name, Class<?>...args) {
+    return Methods.getMethod(returnType, name, args);
+  }
+}
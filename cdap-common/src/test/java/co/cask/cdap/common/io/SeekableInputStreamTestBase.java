@@ -25,8 +25,10 @@ import org.junit.ClassRule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Random;
 
 /**
@@ -122,6 +124,64 @@ public abstract class SeekableInputStreamTestBase {
     input.close();
   }
 
+  @Test
+  public void testReadBuffer() throws IOException {
+    Location location = getLocationFactory().create("testReadBuffer");
+
+    byte[] bytes = new byte[1024];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) (i & 0xff);
+    }
+
+    // Writes 1024 bytes to the output, and keep the output stream open
+    OutputStream output = Locations.newOutputSupplier(location).getOutput();
+    output.write(bytes);
+    sync(output);
+
+    for (boolean memoryMapped : new boolean[] { false, true }) {
+      InputSupplier<? extends SeekableInputStream> inputSupplier = Locations.newInputSupplier(location, memoryMapped);
+      long size;
+      try (SeekableInputStream input = inputSupplier.getInput()) {
+        size = input.size();
+        // Read buffers at random positions, which may be before or after the previous read
+        Random random = new Random();
+        ByteBuffer buffer = null;
+        for (int i = 0; i < 100; i++) {
+          long pos = random.nextInt((int) size - 100);
+          input.seek(pos);
+          buffer = input.readBuffer(buffer, 100);
+          Assert.assertEquals(100, buffer.remaining());
+          Assert.assertEquals(pos + 100, input.getPos());
+          for (int j = 0; j < 100; j++) {
+            Assert.assertEquals((byte) (pos + j), buffer.get());
+          }
+        }
+
+        // Reading beyond the end should fail
+        input.seek(size - 10);
+        try {
+          input.readBuffer(buffer, 100);
+          Assert.fail("Expected EOFException");
+        } catch (EOFException e) {
+          // Expected
+        }
+      }
+
+      // Write another 1024 bytes and read across the previous end of the file
+      output.write(bytes);
+      sync(output);
+      try (SeekableInputStream input = inputSupplier.getInput()) {
+        input.seek(size - 10);
+        ByteBuffer buffer = input.readBuffer(null, 100);
+        Assert.assertEquals(100, buffer.remaining());
+        for (int i = 0; i < 100; i++) {
+          Assert.assertEquals((byte) (size - 10 + i), buffer.get());
+        }
+      }
+    }
+    output.close();
+  }
+
   private void sync(OutputStream output) throws IOException {
     if (output instanceof Syncable) {
       ((Syncable) output).hsync();
@@ -0,0 +1,396 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.io;
+
+import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.api.data.schema.UnsupportedTypeException;
+import co.cask.cdap.common.io.BinaryDecoder;
+import co.cask.cdap.common.io.BinaryEncoder;
+import co.cask.cdap.common.io.DatumReader;
+import co.cask.cdap.common.utils.Tasks;
+import co.cask.cdap.internal.io.ASMDatumReaderFactory;
+import co.cask.cdap.internal.io.ASMDatumWriterFactory;
+import co.cask.cdap.internal.io.ASMFieldAccessorFactory;
+import co.cask.cdap.internal.io.ReflectionDatumReader;
+import co.cask.cdap.internal.io.ReflectionDatumWriter;
+import co.cask.cdap.internal.io.ReflectionSchemaGenerator;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.reflect.TypeToken;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit test for {@link ASMDatumReaderFactory}.
+ */
+public class ASMDatumReaderFactoryTest {
+
+  private static final ASMFieldAccessorFactory FIELD_ACCESSOR_FACTORY = new ASMFieldAccessorFactory();
+  private static final ASMDatumReaderFactory DATUM_READER_FACTORY = new ASMDatumReaderFactory(FIELD_ACCESSOR_FACTORY);
+  private static final ASMDatumWriterFactory DATUM_WRITER_FACTORY = new ASMDatumWriterFactory(FIELD_ACCESSOR_FACTORY);
+
+  /**
+   * Enum for testing.
+   */
+  public enum Color {
+    RED, GREEN, BLUE
+  }
+
+  /**
+   * Enum with a subset of the values of {@link Color} in a different order.
+   */
+  public enum LessColor {
+    BLUE, RED
+  }
+
+  /**
+   * Record nested in {@link Outer}.
+   */
+  public static final class Inner {
+    private String name;
+    private Color color;
+    private List<Long> values;
+
+    Inner(String name, Color color, List<Long> values) {
+      this.name = name;
+      this.color = color;
+      this.values = values;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Inner other = (Inner) o;
+      return Objects.equal(name, other.name) && color == other.color && Objects.equal(values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(name, color, values);
+    }
+  }
+
+  /**
+   * Record with fields of all kinds of types.
+   */
+  public static final class Outer {
+    private boolean b;
+    private byte by;
+    private char c;
+    private short s;
+    private int i;
+    private long l;
+    private float f;
+    private double d;
+    private Integer boxed;
+    private String str;
+    private String nullStr;
+    private URI uri;
+    private URL url;
+    private UUID uuid;
+    private byte[] bytes;
+    private int[] ints;
+    private String[] strs;
+    private Inner[] innerArray;
+    private Set<String> set;
+    private Map<String, Inner> map;
+    private Inner inner;
+    private Inner nullInner;
+    private Outer next;
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Outer other = (Outer) o;
+      return b == other.b && by == other.by && c == other.c && s == other.s && i == other.i && l == other.l
+        && f == other.f && d == other.d && Objects.equal(boxed, other.boxed) && Objects.equal(str, other.str)
+        && Objects.equal(nullStr, other.nullStr) && Objects.equal(uri, other.uri)
+        && Objects.equal(url == null ? null : url.toString(), other.url == null ? null : other.url.toString())
+        && Objects.equal(uuid, other.uuid) && Arrays.equals(bytes, other.bytes) && Arrays.equals(ints, other.ints)
+        && Arrays.equals(strs, other.strs) && Arrays.equals(innerArray, other.innerArray)
+        && Objects.equal(set, other.set) && Objects.equal(map, other.map) && Objects.equal(inner, other.inner)
+        && Objects.equal(nullInner, other.nullInner) && Objects.equal(next, other.next);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(i, l, str);
+    }
+  }
+
+  /**
+   * Record with fields added, removed and promoted compared to {@link Outer}.
+   */
+  public static final class Projected {
+    private long i;
+    private double l;
+    private String boxed;
+    private Long added;
+    private Set<LessInner> innerArray;
+    private Map<String, LessInner> map;
+    private Projected next;
+  }
+
+  /**
+   * Record with less fields than {@link Inner}.
+   */
+  public static final class LessInner {
+    private List<Double> values;
+    private LessColor color;
+  }
+
+  @Test
+  public void testNestedRecord() throws Exception {
+    TypeToken<Outer> type = TypeToken.of(Outer.class);
+    Schema schema = getSchema(type);
+
+    Outer outer = createOuter(1);
+    outer.next = createOuter(2);
+    outer.next.next = createOuter(3);
+
+    byte[] encoded = encode(type, schema, outer);
+    DatumReader<Outer> reader = DATUM_READER_FACTORY.create(type, schema);
+    Outer decoded = reader.read(new BinaryDecoder(new ByteArrayInputStream(encoded)), schema);
+
+    Assert.assertEquals(outer, decoded);
+    Assert.assertEquals(new ReflectionDatumReader<>(schema, type)
+                          .read(new BinaryDecoder(new ByteArrayInputStream(encoded)), schema), decoded);
+
+    // The reader is reusable
+    Assert.assertEquals(outer, reader.read(new BinaryDecoder(new ByteArrayInputStream(encoded)), schema));
+  }
+
+  @Test
+  public void testProjection() throws Exception {
+    TypeToken<Outer> sourceType = TypeToken.of(Outer.class);
+    Schema sourceSchema = getSchema(sourceType);
+    TypeToken<Projected> targetType = TypeToken.of(Projected.class);
+    Schema targetSchema = getSchema(targetType);
+
+    Outer outer = createOuter(1);
+    outer.next = createOuter(2);
+    outer.inner.color = Color.BLUE;
+    outer.innerArray = new Inner[] { new Inner("a", Color.RED, ImmutableList.of(1L, 2L)) };
+    outer.map = ImmutableMap.of("b", new Inner("b", Color.BLUE, ImmutableList.of(3L)));
+    outer.next.innerArray = new Inner[0];
+    outer.next.map = ImmutableMap.of();
+
+    byte[] encoded = encode(sourceType, sourceSchema, outer);
+    Projected projected = DATUM_READER_FACTORY.create(targetType, targetSchema)
+      .read(new BinaryDecoder(new ByteArrayInputStream(encoded)), sourceSchema);
+
+    Assert.assertEquals(outer.i, projected.i);
+    Assert.assertEquals((double) outer.l, projected.l, 0.0d);
+    Assert.assertEquals(outer.boxed.toString(), projected.boxed);
+    Assert.assertNull(projected.added);
+
+    Assert.assertEquals(1, projected.innerArray.size());
+    LessInner lessInner = projected.innerArray.iterator().next();
+    Assert.assertEquals(ImmutableList.of(1.0d, 2.0d), lessInner.values);
+    Assert.assertEquals(LessColor.RED, lessInner.color);
+    Assert.assertEquals(ImmutableSet.of("b"), projected.map.keySet());
+    Assert.assertEquals(ImmutableList.of(3.0d), projected.map.get("b").values);
+    Assert.assertEquals(LessColor.BLUE, projected.map.get("b").color);
+
+    Assert.assertEquals(outer.next.i, projected.next.i);
+    Assert.assertTrue(projected.next.innerArray.isEmpty());
+    Assert.assertNull(projected.next.next);
+  }
+
+  @Test
+  public void testReflectionCompatible() throws Exception {
+    // Decode the types used in DatumCodecTest, and the result should be the same as the reflection reader
+    Map<Integer, DatumCodecTest.Value> properties = new HashMap<>();
+    properties.put(1, new DatumCodecTest.Value(1, "Name1"));
+    properties.put(2, null);
+    DatumCodecTest.Record1 r1 = new DatumCodecTest.Record1(10, properties, new URL("http://www.cask.co"));
+
+    TypeToken<DatumCodecTest.Record2> targetType = TypeToken.of(DatumCodecTest.Record2.class);
+    Schema sourceSchema = getSchema(TypeToken.of(DatumCodecTest.Record1.class));
+    Schema targetSchema = getSchema(targetType);
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    new ReflectionDatumWriter<DatumCodecTest.Record1>(sourceSchema).encode(r1, new BinaryEncoder(os));
+
+    DatumCodecTest.Record2 r2 = DATUM_READER_FACTORY.create(targetType, targetSchema)
+      .read(new BinaryDecoder(new ByteArrayInputStream(os.toByteArray())), sourceSchema);
+    DatumCodecTest.Record2 expected = new ReflectionDatumReader<>(targetSchema, targetType)
+      .read(new BinaryDecoder(new ByteArrayInputStream(os.toByteArray())), sourceSchema);
+
+    // Compare by encoding both with the target schema
+    Assert.assertArrayEquals(encode(targetType, targetSchema, expected), encode(targetType, targetSchema, r2));
+  }
+
+  @Test
+  public void testSourceSchemaChange() throws Exception {
+    // The same reader should be able to decode data written with different source schemas
+    TypeToken<Projected> targetType = TypeToken.of(Projected.class);
+    Schema targetSchema = getSchema(targetType);
+    DatumReader<Projected> reader = DATUM_READER_FACTORY.create(targetType, targetSchema);
+
+    TypeToken<Outer> outerType = TypeToken.of(Outer.class);
+    Schema outerSchema = getSchema(outerType);
+    Outer outer = createOuter(5);
+    outer.innerArray = new Inner[0];
+    outer.map = ImmutableMap.of();
+    byte[] outerEncoded = encode(outerType, outerSchema, outer);
+
+    Projected projected = new Projected();
+    projected.i = 10L;
+    projected.l = 1.5d;
+    projected.added = 20L;
+    byte[] projectedEncoded = encode(targetType, targetSchema, projected);
+
+    for (int i = 0; i < 3; i++) {
+      Assert.assertEquals(500L, reader.read(new BinaryDecoder(new ByteArrayInputStream(outerEncoded)),
+                                          outerSchema).i);
+      Projected decoded = reader.read(new BinaryDecoder(new ByteArrayInputStream(projectedEncoded)), targetSchema);
+      Assert.assertEquals(10L, decoded.i);
+      Assert.assertEquals(1.5d, decoded.l, 0.0d);
+      Assert.assertEquals(Long.valueOf(20L), decoded.added);
+    }
+  }
+
+  @Test
+  public void testEnumValueMissing() throws Exception {
+    TypeToken<Color> sourceType = TypeToken.of(Color.class);
+    Schema sourceSchema = getSchema(sourceType);
+    TypeToken<LessColor> targetType = TypeToken.of(LessColor.class);
+    DatumReader<LessColor> reader = DATUM_READER_FACTORY.create(targetType, getSchema(targetType));
+
+    Assert.assertEquals(LessColor.BLUE, reader.read(new BinaryDecoder(new ByteArrayInputStream(
+      encode(sourceType, sourceSchema, Color.BLUE))), sourceSchema));
+    try {
+      reader.read(new BinaryDecoder(new ByteArrayInputStream(encode(sourceType, sourceSchema, Color.GREEN))),
+                  sourceSchema);
+      Assert.fail("Expected IOException");
+    } catch (IOException e) {
+      // Expected
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testNotResolvable() throws Exception {
+    TypeToken<String> sourceType = TypeToken.of(String.class);
+    Schema sourceSchema = getSchema(sourceType);
+    TypeToken<Integer> targetType = TypeToken.of(Integer.class);
+
+    byte[] encoded = encode(sourceType, sourceSchema, "1");
+    DATUM_READER_FACTORY.create(targetType, getSchema(targetType))
+      .read(new BinaryDecoder(new ByteArrayInputStream(encoded)), sourceSchema);
+  }
+
+  @Test
+  public void testClassLoaderCollectable() throws Exception {
+    ASMDatumReaderFactory factory = new ASMDatumReaderFactory(FIELD_ACCESSOR_FACTORY);
+    Schema schema = getSchema(TypeToken.of(Color.class));
+    byte[] encoded = encode(TypeToken.of(Color.class), schema, Color.GREEN);
+    final WeakReference<ClassLoader> classLoaderRef = decodeWithNewClassLoader(factory, schema, encoded);
+
+    // The classes generated by the factory should not prevent the ClassLoader from being garbage collected
+    // once the readers created for it are gone
+    Tasks.waitFor(true, new Callable<Boolean>() {
+      @Override
+      public Boolean call() throws Exception {
+        System.gc();
+        return classLoaderRef.get() == null;
+      }
+    }, 10, TimeUnit.SECONDS, 100, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Decodes a {@link Color} with the enum class loaded by a new {@link ClassLoader}.
+   *
+   * @return a {@link WeakReference} to the {@link ClassLoader}
+   */
+  private WeakReference<ClassLoader> decodeWithNewClassLoader(ASMDatumReaderFactory factory, Schema schema,
+                                                              byte[] encoded) throws Exception {
+    URL classPath = Color.class.getProtectionDomain().getCodeSource().getLocation();
+    try (URLClassLoader classLoader = new URLClassLoader(new URL[] { classPath }, null)) {
+      Class<?> colorClass = classLoader.loadClass(Color.class.getName());
+      Assert.assertNotSame(Color.class, colorClass);
+
+      Object decoded = factory.create(TypeToken.of(colorClass), schema)
+        .read(new BinaryDecoder(new ByteArrayInputStream(encoded)), schema);
+      Assert.assertSame(colorClass, decoded.getClass());
+      Assert.assertEquals(Color.GREEN.name(), ((Enum<?>) decoded).name());
+      return new WeakReference<ClassLoader>(classLoader);
+    }
+  }
+
+  private Outer createOuter(int seed) throws Exception {
+    Outer outer = new Outer();
+    outer.b = seed % 2 == 0;
+    outer.by = (byte) seed;
+    outer.c = (char) ('a' + seed);
+    outer.s = (short) (seed * 10);
+    outer.i = seed * 100;
+    outer.l = seed * 1000L;
+    outer.f = seed / 10.0f;
+    outer.d = seed / 100.0d;
+    outer.boxed = seed;
+    outer.str = "str" + seed;
+    outer.uri = URI.create("http://www.cask.co/" + seed);
+    outer.url = new URL("http://www.cask.co/url/" + seed);
+    outer.uuid = UUID.randomUUID();
+    outer.bytes = new byte[] { (byte) seed, 1, 2 };
+    outer.ints = new int[] { seed, seed + 1 };
+    outer.strs = new String[] { "a" + seed, null };
+    outer.innerArray = new Inner[] { new Inner("i" + seed, Color.GREEN, ImmutableList.of((long) seed)), null };
+    outer.set = ImmutableSet.of("x", "y" + seed);
+    outer.map = ImmutableMap.of("k" + seed, new Inner("m", Color.RED, ImmutableList.<Long>of()));
+    outer.inner = new Inner("inner", Color.BLUE, ImmutableList.of(1L, 2L, 3L));
+    return outer;
+  }
+
+  private <T> Schema getSchema(TypeToken<T> type) throws UnsupportedTypeException {
+    return new ReflectionSchemaGenerator().generate(type.getType());
+  }
+
+  private <T> byte[] encode(TypeToken<T> type, Schema schema, T value) throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    DATUM_WRITER_FACTORY.create(type, schema).encode(value, new BinaryEncoder(os));
+    return os.toByteArray();
+  }
+}
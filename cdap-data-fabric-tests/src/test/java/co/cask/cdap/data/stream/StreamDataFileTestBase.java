@@ -150,6 +150,49 @@ public abstract class StreamDataFileTestBase {
     }
   }
 
+  @Test
+  public void testMemoryMapped() throws Exception {
+    Location dir = StreamFileTestUtils.createTempDir(getLocationFactory());
+    Location eventFile = dir.getTempFile(".dat");
+    Location indexFile = dir.getTempFile(".idx");
+
+    StreamDataFileWriter writer = new StreamDataFileWriter(Locations.newOutputSupplier(eventFile),
+                                                           Locations.newOutputSupplier(indexFile),
+                                                           10000L);
+
+    // Write 200 events with 40 timestamps, so that there are index entries
+    for (int i = 0; i < 40; i++) {
+      for (int j = 0; j < 5; j++) {
+        writer.append(new StreamEvent(ImmutableMap.of("key", "value" + j),
+                                      Charsets.UTF_8.encode("Mapped test " + i + " " + j), i * 5000L));
+      }
+    }
+    writer.close();
+
+    // Reading with and without memory mapping should give the same events, starting at different times
+    for (long startTime : new long[] { 0L, 42000L, 100000L, 195000L }) {
+      List<StreamEvent> expected = Lists.newArrayList();
+      try (StreamDataFileReader reader = StreamDataFileReader.createByStartTime(
+        Locations.newInputSupplier(eventFile), Locations.newInputSupplier(indexFile), startTime)) {
+        reader.read(expected, 1000, 0, TimeUnit.SECONDS);
+      }
+
+      List<StreamEvent> actual = Lists.newArrayList();
+      try (StreamDataFileReader reader = StreamDataFileReader.createByStartTime(
+        Locations.newInputSupplier(eventFile, true), Locations.newInputSupplier(indexFile, true), startTime)) {
+        reader.read(actual, 1000, 0, TimeUnit.SECONDS);
+      }
+
+      Assert.assertEquals(200 - (startTime + 4999) / 5000 * 5, actual.size());
+      Assert.assertEquals(expected.size(), actual.size());
+      for (int i = 0; i < expected.size(); i++) {
+        Assert.assertEquals(expected.get(i).getTimestamp(), actual.get(i).getTimestamp());
+        Assert.assertEquals(expected.get(i).getHeaders(), actual.get(i).getHeaders());
+        Assert.assertEquals(expected.get(i).getBody(), actual.get(i).getBody());
+      }
+    }
+  }
+
   @Test
   public void testLargeDataBlock() throws Exception {
     Location dir = StreamFileTestUtils.createTempDir(getLocationFactory());
@@ -21,6 +21,7 @@ import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.api.data.schema.UnsupportedTypeException;
 import co.cask.cdap.api.flow.flowlet.StreamEvent;
 import co.cask.cdap.api.stream.StreamEventDecoder;
+import co.cask.cdap.data.stream.decoder.BatchStreamEventDecoder;
 import co.cask.cdap.data.stream.decoder.BytesStreamEventDecoder;
 import co.cask.cdap.data.stream.decoder.FormatStreamEventDecoder;
 import co.cask.cdap.data.stream.decoder.IdentityStreamEventDecoder;
@@ -108,6 +109,8 @@ public abstract class AbstractStreamInputFormat<K, V> extends InputFormat<K, V>
   private static final String DECODER_TYPE = "input.streaminputformat.decoder.type";
   private static final String BODY_FORMAT = "input.streaminputformat.stream.body.format";
   private static final String STREAM_ID = "input.streaminputformat.stream.id";
+  private static final String DECODE_BATCH_SIZE = "input.streaminputformat.decode.batch.size";
+  private static final int DEFAULT_DECODE_BATCH_SIZE = 100;
 
   /**
    * Sets the TTL for the stream events.
@@ -185,6 +188,18 @@ public abstract class AbstractStreamInputFormat<K, V> extends InputFormat<K, V>
     conf.set(DECODER_TYPE, decoderClassName);
   }
 
+  /**
+   * Sets the maximum number of stream events to decode at a time, if the decoder supports decoding events in
+   * batches. See {@link BatchStreamEventDecoder}.
+   *
+   * @param conf The conf to modify.
+   * @param batchSize Maximum number of events in a batch. Batching is disabled if it is {@code 1}.
+   */
+  public static void setDecodeBatchSize(Configuration conf, int batchSize) {
+    Preconditions.checkArgument(batchSize > 0, "Decode batch size must be > 0");
+    conf.setInt(DECODE_BATCH_SIZE, batchSize);
+  }
+
   /**
    * Returns the {@link StreamEventDecoder} class as specified in the job configuration.
    *
@@ -269,7 +284,8 @@ public abstract class AbstractStreamInputFormat<K, V> extends InputFormat<K, V>
     return new StreamRecordReader<>(createStreamEventDecoder(context.getConfiguration()),
                                     getAuthorizationEnforcer(context),
                                     getAuthenticationContext(context),
-                                    GSON.fromJson(context.getConfiguration().get(STREAM_ID), StreamId.class));
+                                    GSON.fromJson(context.getConfiguration().get(STREAM_ID), StreamId.class),
+                                    context.getConfiguration().getInt(DECODE_BATCH_SIZE, DEFAULT_DECODE_BATCH_SIZE));
   }
 
   protected long getCurrentTime() {
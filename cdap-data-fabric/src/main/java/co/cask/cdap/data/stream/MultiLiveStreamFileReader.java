@@ -15,6 +15,7 @@
  */
 package co.cask.cdap.data.stream;
 
+import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.common.io.Locations;
 import co.cask.cdap.data.file.FileReader;
 import co.cask.cdap.data.file.PositionReporter;
@@ -50,10 +51,22 @@ public final class MultiLiveStreamFileReader implements FileReader<StreamEventOf
   private final Iterable<StreamFileOffset> offsetsView;
 
   public MultiLiveStreamFileReader(StreamConfig streamConfig, Iterable<? extends StreamFileOffset> offsets) {
+    this(streamConfig, offsets, false);
+  }
+
+  /**
+   * Creates a reader of the given stream file offsets.
+   *
+   * @param streamConfig the stream configuration
+   * @param offsets the offsets to begin with
+   * @param memoryMapped {@code true} to memory map stream files that are on the local file system
+   */
+  public MultiLiveStreamFileReader(StreamConfig streamConfig, Iterable<? extends StreamFileOffset> offsets,
+                                   boolean memoryMapped) {
     this.allSources = Sets.newTreeSet();
 
     for (StreamFileOffset source : offsets) {
-      StreamEventSource eventSource = new StreamEventSource(streamConfig, source);
+      StreamEventSource eventSource = new StreamEventSource(streamConfig, source, memoryMapped);
       allSources.add(eventSource);
     }
 
@@ -165,8 +178,9 @@ public final class MultiLiveStreamFileReader implements FileReader<StreamEventOf
     private StreamFileOffset currentOffset;
     private StreamFileOffset nextOffset;
 
-    private StreamEventSource(StreamConfig streamConfig, StreamFileOffset beginOffset) {
-      this.reader = new LiveStreamFileReader(streamConfig, beginOffset);
+    private StreamEventSource(StreamConfig streamConfig, StreamFileOffset beginOffset, boolean memoryMapped) {
+      this.reader = new LiveStreamFileReader(streamConfig, beginOffset, Constants.Stream.NEW_FILE_CHECK_INTERVAL,
+                                             memoryMapped);
       this.events = Lists.newArrayListWithCapacity(1);
       this.currentOffset = new StreamFileOffset(beginOffset);
       this.nextOffset = beginOffset;
@@ -17,6 +17,7 @@ package co.cask.cdap.data.stream;
 
 import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.common.io.BinaryDecoder;
+import co.cask.cdap.common.io.SeekableInputStream;
 import com.google.common.collect.Maps;
 import com.google.common.io.ByteStreams;
 import com.google.common.io.InputSupplier;
@@ -30,6 +31,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
@@ -42,6 +44,8 @@ final class StreamDataFileIndex {
   private static final Logger LOG = LoggerFactory.getLogger(StreamDataFileIndex.class);
 
   private static final byte[] INDEX_MAGIC_HEADER = {'I', '1'};
+  // Each index entry is a pair of timestamp and position
+  private static final int ENTRY_SIZE = Longs.BYTES * 2;
 
   // Parallel array list for holding timestamps and corresponding positions in the index.
   private final LongList timestamps;
@@ -189,8 +193,22 @@ final class StreamDataFileIndex {
     // Read in all index (timestamp, position pairs).
     LongList timestamps = new LongArrayList(1000);
     LongList positions = new LongArrayList(1000);
-    byte[] buf = new byte[Longs.BYTES * 2];
 
+    if (input instanceof SeekableInputStream) {
+      // Read all the complete entries in one buffer, which avoids copying if the file is memory mapped.
+      SeekableInputStream seekableInput = (SeekableInputStream) input;
+      long entriesSize = (seekableInput.size() - seekableInput.getPos()) / ENTRY_SIZE * ENTRY_SIZE;
+      if (entriesSize > 0 && entriesSize <= Integer.MAX_VALUE) {
+        ByteBuffer entries = seekableInput.readBuffer(null, (int) entriesSize);
+        while (entries.hasRemaining()) {
+          timestamps.add(entries.getLong());
+          positions.add(entries.getLong());
+        }
+        return Maps.immutableEntry(timestamps, positions);
+      }
+    }
+
+    byte[] buf = new byte[ENTRY_SIZE];
     while (ByteStreams.read(input, buf, 0, buf.length) == buf.length) {
       timestamps.add(Bytes.toLong(buf, 0));
       positions.add(Bytes.toLong(buf, Longs.BYTES));
@@ -16,6 +16,7 @@
 
 package co.cask.cdap.data.stream;
 
+import co.cask.cdap.api.stream.StreamEventData;
 import co.cask.cdap.common.io.BinaryDecoder;
 import co.cask.cdap.common.io.ByteBuffers;
 import co.cask.cdap.common.io.Decoder;
@@ -33,6 +34,9 @@ import javax.annotation.concurrent.NotThreadSafe;
 /**
  * A buffer for holding encoded stream events. It is used by {@link StreamDataFileReader} for holding
  * encoded stream events in each data block.
+ *
+ * If the input provides read-only buffers, which share content with a memory mapped file, the body of each event
+ * is a slice of the buffer instead of a copy.
  */
 @NotThreadSafe
 final class StreamEventBuffer {
@@ -59,20 +63,9 @@ final class StreamEventBuffer {
    * @throws EOFException if failed to read the given number of bytes from the input
    */
   void fillBuffer(SeekableInputStream input, int size) throws IOException {
-    buffer.clear();
-    buffer = ensureCapacity(buffer, size);
-
     try {
       basePosition = input.getPos();
-      int bytesRead = 0;
-      while (bytesRead != size) {
-        int len = input.read(buffer.array(), bytesRead, size - bytesRead);
-        if (len < 0) {
-          throw new EOFException("Expected to read " + size + ", but only " + bytesRead + " was read");
-        }
-        bytesRead += len;
-      }
-      buffer.limit(size);
+      buffer = input.readBuffer(buffer, size);
       bufferInput.reset(buffer);
     } catch (IOException e) {
       // Make the buffer has nothing to read
@@ -122,20 +115,26 @@ final class StreamEventBuffer {
 
     long eventPos = basePosition + buffer.position();
     if (filter.acceptOffset(eventPos)) {
-      return new PositionStreamEvent(StreamEventDataCodec.decode(decoder, defaultHeaders), timestamp, eventPos);
+      StreamEventData data = buffer.isReadOnly() ? decodeShared(defaultHeaders)
+                                                 : StreamEventDataCodec.decode(decoder, defaultHeaders);
+      return new PositionStreamEvent(data, timestamp, eventPos);
     }
     StreamEventDataCodec.skip(decoder);
     return null;
   }
 
   /**
-   * Ensures that the given {@link ByteBuffer} is of sufficient size.
-   *
-   * @param buffer The buffer to check for capacity
-   * @param size Capacity needed
-   * @return The given buffer if it is of sufficient size; otherwise, a new buffer of the given size will be returned.
+   * Decodes a stream event with the body sliced from the buffer. It is only used for read-only buffers, since they
+   * are not reused for reading other data blocks.
    */
-  private ByteBuffer ensureCapacity(ByteBuffer buffer, int size) {
-    return (buffer.remaining() >= size) ? buffer : ByteBuffer.allocate(size);
+  private StreamEventData decodeShared(Map<String, String> defaultHeaders) throws IOException {
+    int len = decoder.readInt();
+    if (len < 0 || len > buffer.remaining()) {
+      throw new EOFException("Expected body of " + len + " bytes, but only " + buffer.remaining() + " is available");
+    }
+    ByteBuffer body = buffer.duplicate();
+    body.limit(body.position() + len);
+    buffer.position(buffer.position() + len);
+    return StreamEventDataCodec.decode(body.slice(), decoder, defaultHeaders);
   }
 }
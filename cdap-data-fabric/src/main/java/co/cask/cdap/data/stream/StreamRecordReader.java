@@ -18,6 +18,7 @@ package co.cask.cdap.data.stream;
 import co.cask.cdap.api.stream.StreamEventDecoder;
 import co.cask.cdap.common.io.Locations;
 import co.cask.cdap.data.file.ReadFilter;
+import co.cask.cdap.data.stream.decoder.BatchStreamEventDecoder;
 import co.cask.cdap.proto.id.StreamId;
 import co.cask.cdap.proto.security.Action;
 import co.cask.cdap.proto.security.Principal;
@@ -37,13 +38,18 @@ import java.util.concurrent.TimeUnit;
 /**
  * A {@link RecordReader} for reading stream events.
  *
+ * If the decoder is a {@link BatchStreamEventDecoder}, events are read and decoded in batches, and returned one
+ * at a time from the decoded batch.
+ *
  * @param <K> Key type read by this record reader.
  * @param <V> Value type read by this record reader.
  */
 final class StreamRecordReader<K, V> extends RecordReader<K, V> {
 
   private final StreamEventDecoder<K, V> decoder;
+  private final int batchSize;
   private final List<PositionStreamEvent> events;
+  private final List<StreamEventDecoder.DecodeResult<K, V>> batchResults;
   private final Principal principal;
   private final StreamId streamId;
   private final AuthorizationEnforcer authorizationEnforcer;
@@ -52,6 +58,8 @@ final class StreamRecordReader<K, V> extends RecordReader<K, V> {
   private StreamInputSplit inputSplit;
   private StreamEventDecoder.DecodeResult<K, V> currentEntry;
   private ReadFilter readFilter;
+  private int batchIndex;
+  private boolean splitEnd;
 
   /**
    * Construct a {@link StreamRecordReader} with a given {@link StreamEventDecoder}.
@@ -60,8 +68,22 @@ final class StreamRecordReader<K, V> extends RecordReader<K, V> {
    */
   StreamRecordReader(StreamEventDecoder<K, V> decoder, AuthorizationEnforcer authorizationEnforcer,
                      AuthenticationContext authenticationContext, StreamId streamId) {
+    this(decoder, authorizationEnforcer, authenticationContext, streamId, 1);
+  }
+
+  /**
+   * Construct a {@link StreamRecordReader} with a given {@link StreamEventDecoder}.
+   *
+   * @param decoder The decoder to use for decoding stream events.
+   * @param batchSize Maximum number of events to decode at a time if the decoder is a
+   *                  {@link BatchStreamEventDecoder}.
+   */
+  StreamRecordReader(StreamEventDecoder<K, V> decoder, AuthorizationEnforcer authorizationEnforcer,
+                     AuthenticationContext authenticationContext, StreamId streamId, int batchSize) {
     this.decoder = decoder;
-    this.events = Lists.newArrayListWithCapacity(1);
+    this.batchSize = decoder instanceof BatchStreamEventDecoder ? Math.max(1, batchSize) : 1;
+    this.events = Lists.newArrayListWithCapacity(this.batchSize);
+    this.batchResults = Lists.newArrayListWithCapacity(this.batchSize);
     this.currentEntry = new StreamEventDecoder.DecodeResult<>();
     this.authorizationEnforcer = authorizationEnforcer;
     // cache the principal since it is created for every MR job
@@ -88,6 +110,10 @@ final class StreamRecordReader<K, V> extends RecordReader<K, V> {
       throw new IOException(e);
     }
 
+    if (batchSize > 1) {
+      return nextBatchKeyValue();
+    }
+
     events.clear();
     if (reader.read(events, 1, 0, TimeUnit.SECONDS, readFilter) <= 0) {
       return false;
@@ -100,6 +126,36 @@ final class StreamRecordReader<K, V> extends RecordReader<K, V> {
     return true;
   }
 
+  /**
+   * Moves to the next decoded entry in the current batch, reading and decoding a new batch if needed.
+   */
+  private boolean nextBatchKeyValue() throws IOException, InterruptedException {
+    if (batchIndex >= events.size()) {
+      events.clear();
+      batchIndex = 0;
+      if (splitEnd || reader.read(events, batchSize, 0, TimeUnit.SECONDS, readFilter) <= 0) {
+        return false;
+      }
+
+      // Drop the events that are beyond the split
+      int size = 0;
+      while (size < events.size()
+        && events.get(size).getStart() - inputSplit.getStart() < inputSplit.getLength()) {
+        size++;
+      }
+      if (size < events.size()) {
+        splitEnd = true;
+        events.subList(size, events.size()).clear();
+      }
+      if (events.isEmpty()) {
+        return false;
+      }
+      ((BatchStreamEventDecoder<K, V>) decoder).decode(events, batchResults);
+    }
+    currentEntry = batchResults.get(batchIndex++);
+    return true;
+  }
+
   @Override
   public K getCurrentKey() throws IOException, InterruptedException {
     return currentEntry.getKey();
@@ -135,9 +191,10 @@ final class StreamRecordReader<K, V> extends RecordReader<K, V> {
    * @return A {@link StreamRecordReader} that is ready for reading events as specified by the input split.
    */
   private StreamDataFileReader createReader(FileSystem fs, StreamInputSplit inputSplit) {
+    // Memory map files on the local file system, since local jobs may read the same files repeatedly
     return StreamDataFileReader.createWithOffset(
-      Locations.newInputSupplier(fs, inputSplit.getPath()),
-      inputSplit.getIndexPath() == null ? null : Locations.newInputSupplier(fs, inputSplit.getIndexPath()),
+      Locations.newInputSupplier(fs, inputSplit.getPath(), true),
+      inputSplit.getIndexPath() == null ? null : Locations.newInputSupplier(fs, inputSplit.getIndexPath(), true),
       inputSplit.getStart());
   }
 }
@@ -0,0 +1,41 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data.stream.decoder;
+
+import co.cask.cdap.api.flow.flowlet.StreamEvent;
+import co.cask.cdap.api.stream.StreamEventDecoder;
+
+import java.util.List;
+
+/**
+ * A {@link StreamEventDecoder} that can also decode a batch of {@link StreamEvent} at once.
+ *
+ * @param <K> Type of key that this class decodes.
+ * @param <V> Type of value that this class decodes.
+ */
+public interface BatchStreamEventDecoder<K, V> extends StreamEventDecoder<K, V> {
+
+  /**
+   * Decodes a batch of {@link StreamEvent}. The i-th event is decoded into the i-th result. Results in the given list
+   * are reused, and new results are appended to the list if it has fewer results than events. Keys and values of
+   * the results may also be reused across calls, hence they are only valid until the next call.
+   *
+   * @param events The events to be decoded.
+   * @param results Reusable objects for putting decode results.
+   */
+  void decode(List<? extends StreamEvent> events, List<DecodeResult<K, V>> results);
+}
@@ -20,10 +20,13 @@ import co.cask.cdap.api.data.format.RecordFormat;
 import co.cask.cdap.api.flow.flowlet.StreamEvent;
 import co.cask.cdap.api.stream.GenericStreamEventData;
 import co.cask.cdap.api.stream.StreamEventDecoder;
+import co.cask.cdap.spi.stream.AbstractStreamEventRecordFormat;
 import com.google.common.base.Objects;
 import com.google.common.collect.ImmutableMap;
 import org.apache.hadoop.io.LongWritable;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -32,11 +35,17 @@ import java.util.Map;
  * the value is a {@link GenericStreamEventData}, which contains the event headers and the event body
  * formatted by some {@link RecordFormat}.
  *
+ * When decoding a batch of events, the batch is formatted with
+ * {@link AbstractStreamEventRecordFormat#read(List, List)} if the format is an {@link AbstractStreamEventRecordFormat}.
+ *
  * @param <T> Type of the stream body.
  */
-public final class FormatStreamEventDecoder<T> implements StreamEventDecoder<LongWritable, GenericStreamEventData<T>> {
+public final class FormatStreamEventDecoder<T>
+  implements BatchStreamEventDecoder<LongWritable, GenericStreamEventData<T>> {
+
   private final LongWritable key = new LongWritable();
   private final RecordFormat<StreamEvent, T> bodyFormat;
+  private final List<T> bodies = new ArrayList<>();
 
   /**
    * Create a decoder for stream events that decodes the body of the stream using the given initialized format.
@@ -55,4 +64,32 @@ public final class FormatStreamEventDecoder<T> implements StreamEventDecoder<Lon
     Map<String, String> headers = Objects.firstNonNull(event.getHeaders(), ImmutableMap.<String, String>of());
     return result.setKey(key).setValue(new GenericStreamEventData<>(headers, body));
   }
+
+  @Override
+  public void decode(List<? extends StreamEvent> events,
+                     List<DecodeResult<LongWritable, GenericStreamEventData<T>>> results) {
+    bodies.clear();
+    if (bodyFormat instanceof AbstractStreamEventRecordFormat) {
+      ((AbstractStreamEventRecordFormat<T>) bodyFormat).read(events, bodies);
+    } else {
+      for (StreamEvent event : events) {
+        bodies.add(bodyFormat.read(event));
+      }
+    }
+
+    while (results.size() < events.size()) {
+      results.add(new DecodeResult<LongWritable, GenericStreamEventData<T>>());
+    }
+    for (int i = 0; i < events.size(); i++) {
+      StreamEvent event = events.get(i);
+      DecodeResult<LongWritable, GenericStreamEventData<T>> result = results.get(i);
+
+      // Each result has its own key, since all the results of a batch are valid at the same time
+      LongWritable resultKey = result.getKey() == null || result.getKey() == key ? new LongWritable() : result.getKey();
+      resultKey.set(event.getTimestamp());
+      Map<String, String> headers = Objects.firstNonNull(event.getHeaders(), ImmutableMap.<String, String>of());
+      result.setKey(resultKey).setValue(new GenericStreamEventData<>(headers, bodies.get(i)));
+    }
+    bodies.clear();
+  }
 }
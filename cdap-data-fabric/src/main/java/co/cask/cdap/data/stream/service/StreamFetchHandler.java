@@ -307,7 +307,8 @@ public final class StreamFetchHandler extends AbstractHttpHandler {
       fileOffsets.add(new StreamFileOffset(eventLocation, 0, generation));
     }
 
-    MultiLiveStreamFileReader reader = new MultiLiveStreamFileReader(streamConfig, fileOffsets);
+    MultiLiveStreamFileReader reader = new MultiLiveStreamFileReader(
+      streamConfig, fileOffsets, cConf.getBoolean(Constants.Stream.FILE_MEMORY_MAPPED));
     reader.initialize();
     return reader;
   }
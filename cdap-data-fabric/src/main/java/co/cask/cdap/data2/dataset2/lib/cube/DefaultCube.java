@@ -33,6 +33,8 @@ import co.cask.cdap.data2.dataset2.lib.timeseries.FactScan;
 import co.cask.cdap.data2.dataset2.lib.timeseries.FactScanResult;
 import co.cask.cdap.data2.dataset2.lib.timeseries.FactScanner;
 import co.cask.cdap.data2.dataset2.lib.timeseries.FactTable;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
@@ -41,10 +43,12 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.PeekingIterator;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Table;
+import com.google.common.util.concurrent.Uninterruptibles;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -52,6 +56,11 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.Nullable;
 
 /**
@@ -70,6 +79,10 @@ public class DefaultCube implements Cube, MeteredDataset {
 
   @Nullable
   private MetricsCollector metrics;
+  @Nullable
+  private ExecutorService queryExecutor;
+  private int queryParallelism = 1;
+  private int maxRecordsToScan = MAX_RECORDS_TO_SCAN;
 
   public DefaultCube(int[] resolutions, FactTableSupplier factTableSupplier,
                      Map<String, ? extends Aggregation> aggregations,
@@ -124,6 +137,17 @@ public class DefaultCube implements Cube, MeteredDataset {
     incrementMetric("cube.tsFact.added.count", toWrite.size() * resolutionToFactTable.size());
   }
 
+  /**
+   * Writes all the values buffered by the rollup of the underlying {@link FactTable}s.
+   *
+   * @see FactTable#setRollup(int, long)
+   */
+  public void flush() {
+    for (FactTable table : resolutionToFactTable.values()) {
+      table.flush();
+    }
+  }
+
   @Override
   public Collection<TimeSeries> query(CubeQuery query) {
     /*
@@ -209,8 +233,7 @@ public class DefaultCube implements Cube, MeteredDataset {
 
     // 3) execute scan query
     FactTable table = resolutionToFactTable.get(query.getResolution());
-    FactScanner scanner = table.scan(scan);
-    Table<Map<String, String>, String, Map<Long, Long>> resultMap = getTimeSeries(query, scanner);
+    Table<Map<String, String>, String, Map<Long, Long>> resultMap = scan(query, table, scan);
 
     incrementMetric("cube.query.request.success.count", 1);
     incrementMetric("cube.query.result.size", resultMap.size());
@@ -303,6 +326,27 @@ public class DefaultCube implements Cube, MeteredDataset {
     }
   }
 
+  /**
+   * Sets the {@link ExecutorService} for executing the scan of a query in parallel. Queries are split into
+   * scans over disjoint time ranges, which are executed concurrently on the given executor.
+   * The underlying {@link FactTable}s must support iterating multiple scanners concurrently.
+   *
+   * @param executor the executor for running the scans, or {@code null} to scan in the calling thread
+   * @param parallelism maximum number of scans to split a query into
+   */
+  public void setQueryExecutor(@Nullable ExecutorService executor, int parallelism) {
+    this.queryExecutor = executor;
+    this.queryParallelism = parallelism;
+  }
+
+  /**
+   * Sets the maximum number of records to scan for a query.
+   */
+  @VisibleForTesting
+  void setMaxRecordsToScan(int maxRecordsToScan) {
+    this.maxRecordsToScan = maxRecordsToScan;
+  }
+
   private void incrementMetric(String metricName, long value) {
     if (metrics != null) {
       metrics.increment(metricName, value);
@@ -329,12 +373,117 @@ public class DefaultCube implements Cube, MeteredDataset {
     return currentBest;
   }
 
-  private Table<Map<String, String>, String, Map<Long, Long>> getTimeSeries(CubeQuery query, FactScanner scanner) {
-    // {dimension values, measure} -> {time -> value}s
+  /**
+   * Executes the given {@link FactScan}. If a query executor is set, the scan is split into multiple scans of
+   * disjoint time ranges, which are executed in parallel.
+   */
+  private Table<Map<String, String>, String, Map<Long, Long>> scan(CubeQuery query, FactTable table, FactScan scan) {
+    List<FactScan> scans = queryExecutor == null ? Collections.singletonList(scan)
+                                                 : table.splitScan(scan, queryParallelism);
+    if (scans.size() == 1) {
+      return scan(query, table, scan, maxRecordsToScan);
+    }
+
+    incrementMetric("cube.query.scan.partitions.count", scans.size());
+
+    // Open the scanners from the current thread, since the underlying table may not be thread safe,
+    // and only iterate the scanners in parallel, the same as what the DistributedScanner does.
+    // Each scan has its own limit on the number of records to scan, and the limit on the total is applied
+    // when merging the results in scan order, so that the result is the same as the one of a single scan.
+    final AtomicBoolean stopped = new AtomicBoolean();
+    List<FactScanner> scanners = new ArrayList<>(scans.size());
+    List<Table<Map<String, String>, String, Map<Long, Long>>> partialResults = new ArrayList<>(scans.size());
+    List<Future<Integer>> futures = new ArrayList<>(scans.size());
+    try {
+      for (FactScan partition : scans) {
+        scanners.add(table.scan(partition));
+      }
+      for (final FactScanner scanner : scanners) {
+        final Table<Map<String, String>, String, Map<Long, Long>> partialResult = HashBasedTable.create();
+        partialResults.add(partialResult);
+        futures.add(queryExecutor.submit(new Callable<Integer>() {
+          @Override
+          public Integer call() {
+            return getTimeSeries(query, scanner, maxRecordsToScan, stopped, partialResult);
+          }
+        }));
+      }
+
+      // Each scan covers a disjoint time range, hence the partial results have no timestamp in common and
+      // can be merged without applying the aggregation function again
+      Table<Map<String, String>, String, Map<Long, Long>> result = HashBasedTable.create();
+      int remaining = maxRecordsToScan;
+      for (int i = 0; i < futures.size() && remaining > 0; i++) {
+        Table<Map<String, String>, String, Map<Long, Long>> partialResult = partialResults.get(i);
+        int scannedRecords = futures.get(i).get();
+        if (scannedRecords > remaining) {
+          // The limit is reached within this scan. Only the records up to the limit are part of the result,
+          // which are not known from the partial result, hence scan them again.
+          stopped.set(true);
+          partialResult = scan(query, table, scans.get(i), remaining);
+          scannedRecords = remaining;
+        }
+        for (Table.Cell<Map<String, String>, String, Map<Long, Long>> cell : partialResult.cellSet()) {
+          Map<Long, Long> timeValues = result.get(cell.getRowKey(), cell.getColumnKey());
+          if (timeValues == null) {
+            result.put(cell.getRowKey(), cell.getColumnKey(), cell.getValue());
+          } else {
+            timeValues.putAll(cell.getValue());
+          }
+        }
+        remaining -= scannedRecords;
+      }
+      return result;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw Throwables.propagate(e);
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    } finally {
+      // Stop the scans that are still running, and wait for them to finish before closing the scanners
+      stopped.set(true);
+      for (Future<?> future : futures) {
+        try {
+          Uninterruptibles.getUninterruptibly(future);
+        } catch (ExecutionException e) {
+          // Failure of a scan whose result is not needed, or that is already propagated
+          LOG.trace("Scan of query {} failed", query, e.getCause());
+        }
+      }
+      for (FactScanner scanner : scanners) {
+        scanner.close();
+      }
+    }
+  }
+
+  /**
+   * Executes the given {@link FactScan} in the current thread, scanning at most the given number of records.
+   */
+  private Table<Map<String, String>, String, Map<Long, Long>> scan(CubeQuery query, FactTable table,
+                                                                   FactScan scan, int limit) {
     Table<Map<String, String>, String, Map<Long, Long>> result = HashBasedTable.create();
+    FactScanner scanner = table.scan(scan);
+    try {
+      getTimeSeries(query, scanner, limit, new AtomicBoolean(), result);
+      return result;
+    } finally {
+      scanner.close();
+    }
+  }
 
+  /**
+   * Aggregates the records from the given {@link FactScanner} into the given result.
+   *
+   * @param limit maximum number of records to scan
+   * @param stopped flag to stop scanning early, when the result is no longer needed
+   * @param result {dimension values, measure} -> {time -> value}s
+   * @return the number of records scanned
+   */
+  private int getTimeSeries(CubeQuery query, FactScanner scanner, int limit, AtomicBoolean stopped,
+                            Table<Map<String, String>, String, Map<Long, Long>> result) {
     int count = 0;
-    while (scanner.hasNext()) {
+
+    while (!stopped.get() && scanner.hasNext()) {
       FactScanResult next = scanner.next();
       incrementMetric("cube.query.scan.records.count", 1);
 
@@ -393,11 +542,11 @@ public class DefaultCube implements Cube, MeteredDataset {
           throw new RuntimeException("Unknown MeasureType: " + function);
         }
       }
-      if (++count >= MAX_RECORDS_TO_SCAN) {
+      if (++count >= limit) {
         break;
       }
     }
-    return result;
+    return count;
   }
 
   private Collection<TimeSeries> convertToQueryResult(CubeQuery query,
@@ -0,0 +1,286 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.dataset2.lib.table;
+
+import co.cask.cdap.api.common.Bytes;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+
+/**
+ * An append-only buffer of cell writes used by {@link BufferingTable}. Writes are appended to parallel arrays of
+ * row, column, value and increment amount, without creating any map entry or {@link Update} object. The buffered
+ * writes are only sorted and merged into the row->(column->{@link Update}) form when it is needed, which is on
+ * the first read, the computation of transaction changes or commit.
+ *
+ * Writes of the same cell are merged in the order they were appended, using {@link Updates#mergeUpdates}, hence
+ * draining this buffer into a map gives the same result as applying each write to the map directly. Merging an
+ * increment into a put of a value that is not a long fails, hence callers must validate increments of the cells for
+ * which {@link #hasNonLongPut(byte[], byte[])} returns {@code true} before appending them, so that draining never
+ * fails.
+ *
+ * This class is not thread safe.
+ */
+final class AppendOnlyWriteBuffer {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private byte[][] rows;
+  private byte[][] columns;
+  // null value means delete for put; unused for increment
+  private byte[][] values;
+  private long[] amounts;
+  private boolean[] increments;
+  private int size;
+
+  // the row of the last write, for sharing the same row array among writes of the same row
+  private byte[] lastRow;
+
+  // cells that had a put of a value that is not convertible to long appended since the last clear. It is not reset by
+  // draining, since the drained puts are still in the map that was drained to.
+  private final Set<Cell> nonLongPutCells = new HashSet<>();
+
+  AppendOnlyWriteBuffer() {
+    allocate(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Returns {@code true} if there is no buffered write.
+   */
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Returns the number of buffered writes.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Appends a put of a cell. The given arrays are owned by this buffer after this call.
+   *
+   * @param row the row key
+   * @param column the column key
+   * @param value the value or {@code null} to delete the cell
+   */
+  void put(byte[] row, byte[] column, @Nullable byte[] value) {
+    int idx = append(row, column);
+    values[idx] = value;
+    increments[idx] = false;
+    if (value != null && value.length != Bytes.SIZEOF_LONG) {
+      nonLongPutCells.add(new Cell(row, column));
+    }
+  }
+
+  /**
+   * Appends an increment of a cell. The given arrays are owned by this buffer after this call. If
+   * {@link #hasNonLongPut(byte[], byte[])} returns {@code true} for the cell, the caller must make sure that the cell
+   * doesn't have a put of a value that is not convertible to long.
+   *
+   * @param row the row key
+   * @param column the column key
+   * @param amount the amount to increment
+   */
+  void increment(byte[] row, byte[] column, long amount) {
+    int idx = append(row, column);
+    amounts[idx] = amount;
+    increments[idx] = true;
+  }
+
+  /**
+   * Returns {@code true} if a put of a value that is not convertible to long was appended to the given cell since
+   * the last {@link #clear()}, in which case an increment of the cell may fail.
+   */
+  boolean hasNonLongPut(byte[] row, byte[] column) {
+    return !nonLongPutCells.isEmpty() && nonLongPutCells.contains(new Cell(row, column));
+  }
+
+  /**
+   * Returns a copy of the given row if it is different from the row of the last write, otherwise returns the row of
+   * the last write. This is for callers to avoid copying the same row for consecutive writes.
+   */
+  byte[] copyRow(byte[] row) {
+    if (lastRow != null && Bytes.equals(lastRow, row)) {
+      return lastRow;
+    }
+    return Arrays.copyOf(row, row.length);
+  }
+
+  /**
+   * Merges all the buffered writes into the given map and clears this buffer.
+   *
+   * @param buffer a row->(column->{@link Update}) map sorted with {@link Bytes#BYTES_COMPARATOR}
+   */
+  void drainTo(NavigableMap<byte[], NavigableMap<byte[], Update>> buffer) {
+    if (size == 0) {
+      return;
+    }
+    int[] index = new int[size];
+    for (int i = 0; i < size; i++) {
+      index[i] = i;
+    }
+    // Sort by (row, column, write order) so that writes to the same row are adjacent and writes
+    // to the same cell are applied in order
+    sort(index, new int[size], 0, size);
+
+    int i = 0;
+    while (i < size) {
+      byte[] row = rows[index[i]];
+      NavigableMap<byte[], Update> rowMap = buffer.get(row);
+      boolean newRow = rowMap == null;
+      if (newRow) {
+        rowMap = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+      }
+
+      // Merge all writes of the same row
+      for (; i < size && Bytes.equals(row, rows[index[i]]); i++) {
+        int idx = index[i];
+        Update update = increments[idx] ? new IncrementValue(amounts[idx]) : new PutValue(values[idx]);
+        rowMap.put(columns[idx], Updates.mergeUpdates(rowMap.get(columns[idx]), update));
+      }
+
+      if (newRow) {
+        buffer.put(row, rowMap);
+      }
+    }
+    clearWrites();
+  }
+
+  /**
+   * Discards all the buffered writes. This must be called when the map that this buffer drains to is cleared.
+   */
+  void clear() {
+    clearWrites();
+    nonLongPutCells.clear();
+  }
+
+  private void clearWrites() {
+    // Release the references and shrink back if the buffer has grown large
+    if (rows.length > INITIAL_CAPACITY) {
+      allocate(INITIAL_CAPACITY);
+    } else {
+      Arrays.fill(rows, 0, size, null);
+      Arrays.fill(columns, 0, size, null);
+      Arrays.fill(values, 0, size, null);
+    }
+    size = 0;
+    lastRow = null;
+  }
+
+  private int append(byte[] row, byte[] column) {
+    if (size == rows.length) {
+      grow();
+    }
+    int idx = size++;
+    rows[idx] = row;
+    columns[idx] = column;
+    lastRow = row;
+    return idx;
+  }
+
+  private void allocate(int capacity) {
+    rows = new byte[capacity][];
+    columns = new byte[capacity][];
+    values = new byte[capacity][];
+    amounts = new long[capacity];
+    increments = new boolean[capacity];
+  }
+
+  private void grow() {
+    int capacity = rows.length * 2;
+    rows = Arrays.copyOf(rows, capacity);
+    columns = Arrays.copyOf(columns, capacity);
+    values = Arrays.copyOf(values, capacity);
+    amounts = Arrays.copyOf(amounts, capacity);
+    increments = Arrays.copyOf(increments, capacity);
+  }
+
+  private int compare(int left, int right) {
+    int cmp = Bytes.compareTo(rows[left], rows[right]);
+    if (cmp != 0) {
+      return cmp;
+    }
+    cmp = Bytes.compareTo(columns[left], columns[right]);
+    return cmp != 0 ? cmp : Integer.compare(left, right);
+  }
+
+  /**
+   * Merge sorts the index in the range of [from, to), using the given scratch array of the same size.
+   */
+  private void sort(int[] index, int[] scratch, int from, int to) {
+    if (to - from < 2) {
+      return;
+    }
+    int mid = (from + to) >>> 1;
+    sort(index, scratch, from, mid);
+    sort(index, scratch, mid, to);
+
+    // Already in order, which is common when writes are appended in key order
+    if (compare(index[mid - 1], index[mid]) <= 0) {
+      return;
+    }
+
+    System.arraycopy(index, from, scratch, from, to - from);
+    int left = from;
+    int right = mid;
+    for (int i = from; i < to; i++) {
+      if (right >= to || (left < mid && compare(scratch[left], scratch[right]) <= 0)) {
+        index[i] = scratch[left++];
+      } else {
+        index[i] = scratch[right++];
+      }
+    }
+  }
+
+  /**
+   * A (row, column) key for hashing cells by content.
+   */
+  private static final class Cell {
+    private final byte[] row;
+    private final byte[] column;
+    private final int hashCode;
+
+    Cell(byte[] row, byte[] column) {
+      this.row = row;
+      this.column = column;
+      this.hashCode = 31 * Bytes.hashCode(row) + Bytes.hashCode(column);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Cell)) {
+        return false;
+      }
+      Cell other = (Cell) o;
+      return hashCode == other.hashCode && Bytes.equals(row, other.row) && Bytes.equals(column, other.column);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
@@ -96,9 +96,12 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   private final boolean enableReadlessIncrements;
 
   // In-memory buffer that keeps not yet persisted data. It is row->(column->value) map. Value can be null which means
-  // that the corresponded column was removed.
+  // that the corresponded column was removed. Always access it through getBuffer() to include pending writes.
   private NavigableMap<byte[], NavigableMap<byte[], Update>> buff;
 
+  // Writes that are not yet merged into buff. They are merged lazily when buff is needed for reads or commit.
+  private AppendOnlyWriteBuffer writeBuffer;
+
   // Keeps track of what was persisted so far
   private NavigableMap<byte[], NavigableMap<byte[], Update>> toUndo;
 
@@ -151,6 +154,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     // Default uses the above scheme. Subclasses can change it by overriding the #getNameAsTxChangePrefix method
     this.nameAsTxChangePrefix = Bytes.add(new byte[]{(byte) name.length()}, Bytes.toBytes(name));
     this.buff = new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR);
+    this.writeBuffer = new AppendOnlyWriteBuffer();
   }
 
   /**
@@ -261,6 +265,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   public void close() throws IOException {
     // releasing resources
     buff = null;
+    writeBuffer = null;
     toUndo = null;
   }
 
@@ -273,6 +278,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     }
     // starting with fresh buffer when tx starts
     buff.clear();
+    writeBuffer.clear();
     toUndo = null;
     this.tx = tx;
   }
@@ -307,18 +313,20 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   }
 
   private Collection<byte[]> getRowChanges() {
+    NavigableMap<byte[], NavigableMap<byte[], Update>> buffer = getBuffer();
     // we resolve conflicts on row level of individual table
-    List<byte[]> changes = new ArrayList<>(buff.size());
-    for (byte[] changedRow : buff.keySet()) {
+    List<byte[]> changes = new ArrayList<>(buffer.size());
+    for (byte[] changedRow : buffer.keySet()) {
       changes.add(Bytes.add(getNameAsTxChangePrefix(), changedRow));
     }
     return changes;
   }
 
   private Collection<byte[]> getColumnChanges() {
+    NavigableMap<byte[], NavigableMap<byte[], Update>> buffer = getBuffer();
     // we resolve conflicts on row level of individual table
-    List<byte[]> changes = new ArrayList<>(buff.size());
-    for (Map.Entry<byte[], NavigableMap<byte[], Update>> rowChange : buff.entrySet()) {
+    List<byte[]> changes = new ArrayList<>(buffer.size());
+    for (Map.Entry<byte[], NavigableMap<byte[], Update>> rowChange : buffer.entrySet()) {
       if (rowChange.getValue() == null) {
         // NOTE: as of now we cannot detect conflict between delete whole row and row's column value change.
         //       this is not a big problem as of now, as row deletion is now act as deletion of every column, but this
@@ -338,7 +346,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
 
   @Override
   public boolean commitTx() throws Exception {
-    if (!buff.isEmpty()) {
+    if (!getBuffer().isEmpty()) {
       // We first assume that all data will be persisted. So that if exception happen during persist we try to
       // rollback everything we had in in-memory buffer.
       toUndo = buff;
@@ -357,6 +365,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   public void postTxCommit() {
     // don't need buffer anymore: tx has been committed
     buff.clear();
+    writeBuffer.clear();
     toUndo = null;
     tx = null;
   }
@@ -364,6 +373,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   @Override
   public boolean rollbackTx() throws Exception {
     buff.clear();
+    writeBuffer.clear();
     if (toUndo != null) {
       undo(toUndo);
       toUndo = null;
@@ -378,6 +388,30 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     }
   }
 
+  /**
+   * Verifies that the given increments can be merged with the buffered writes, so that an increment of a value that
+   * is not convertible to long fails on the increment call, without changing the buffer.
+   *
+   * @throws NumberFormatException if any of the columns has a buffered value that is not convertible to long
+   */
+  private void validateIncrements(byte[] row, byte[][] columns, long[] amounts) {
+    NavigableMap<byte[], Update> buffCols = getBuffer().get(row);
+    if (buffCols == null) {
+      return;
+    }
+    for (int i = 0; i < columns.length; i++) {
+      Updates.mergeUpdates(buffCols.get(columns[i]), new IncrementValue(amounts[i]));
+    }
+  }
+
+  /**
+   * Returns the in-memory buffer after merging all pending writes into it.
+   */
+  private NavigableMap<byte[], NavigableMap<byte[], Update>> getBuffer() {
+    writeBuffer.drainTo(buff);
+    return buff;
+  }
+
   /**
    * NOTE: Depending on the use-case, calling this method may be much less
    *       efficient than calling same method with columns as parameters because it may always require round trip to
@@ -415,7 +449,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     ensureTransactionIsStarted();
     reportRead(1);
     // checking if the row was deleted inside this tx
-    NavigableMap<byte[], Update> buffCols = buff.get(row);
+    NavigableMap<byte[], Update> buffCols = getBuffer().get(row);
 
     // NOTE: since we cannot tell the exact column set, we always have to go to persisted store.
     //       potential improvement: do not fetch columns available in in-mem buffer (we know them at this point)
@@ -467,7 +501,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
         rowColumns.putAll(persistedRow);
 
         byte[] row = get.getRow();
-        NavigableMap<byte[], Update> buffCols = buff.get(row);
+        NavigableMap<byte[], Update> buffCols = getBuffer().get(row);
 
         // merge what was in the buffer and what was persisted
         if (buffCols != null) {
@@ -500,23 +534,30 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   }
 
   private void putInternal(byte[] row, byte[][] columns, byte[][] values) {
-    NavigableMap<byte[], Update> colVals = buff.get(row);
-    boolean newRow = false;
-    if (colVals == null) {
-      colVals = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-      newRow = true;
+    if (columns.length == 0) {
+      ensureRowInBuffer(row);
+      return;
     }
+    // NOTE: we copy passed row's, column's and value's byte arrays to protect buffer against possible changes of
+    // these arrays on client
+    byte[] rowCopy = writeBuffer.copyRow(row);
     for (int i = 0; i < columns.length; i++) {
-      // NOTE: we copy passed column's and value's byte arrays to protect buffer against possible changes of these
-      // arrays on client
       if (values[i] != null && values[i].length == 0) {
         warnAboutEmptyValue(columns[i]);
       }
-      colVals.put(copy(columns[i]), new PutValue(copy(values[i])));
+      writeBuffer.put(rowCopy, copy(columns[i]), copy(values[i]));
     }
-    if (newRow) {
-      // NOTE: we copy passed row's byte arrays to protect buffer against possible changes of this array on client
-      buff.put(copy(row), colVals);
+  }
+
+  /**
+   * Adds an empty row to the buffer if the row is not already in it. A write without any column still
+   * counts as a change of the row.
+   */
+  private void ensureRowInBuffer(byte[] row) {
+    NavigableMap<byte[], NavigableMap<byte[], Update>> buffer = getBuffer();
+    if (!buffer.containsKey(row)) {
+      NavigableMap<byte[], Update> emptyRow = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+      buffer.put(copy(row), emptyRow);
     }
   }
 
@@ -620,13 +661,18 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   public void increment(byte[] row, byte[][] columns, long[] amounts) {
     ensureTransactionIsStarted();
     if (enableReadlessIncrements) {
-      NavigableMap<byte[], Update> colVals = buff.get(row);
-      if (colVals == null) {
-        colVals = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-        buff.put(row, colVals);
+      if (columns.length == 0) {
+        ensureRowInBuffer(row);
+      }
+      for (byte[] column : columns) {
+        if (writeBuffer.hasNonLongPut(row, column)) {
+          validateIncrements(row, columns, amounts);
+          break;
+        }
       }
+      byte[] rowCopy = writeBuffer.copyRow(row);
       for (int i = 0; i < columns.length; i++) {
-        colVals.put(columns[i], Updates.mergeUpdates(colVals.get(columns[i]), new IncrementValue(amounts[i])));
+        writeBuffer.increment(rowCopy, copy(columns[i]), amounts[i]);
       }
       reportWrite(1, getSize(row) + getSize(columns) + getSize(amounts));
     } else {
@@ -706,17 +752,18 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   }
 
   private NavigableMap<byte[], NavigableMap<byte[], Update>> scanBuffer(Scan scan) {
+    NavigableMap<byte[], NavigableMap<byte[], Update>> buffer = getBuffer();
     NavigableMap<byte[], NavigableMap<byte[], Update>> bufferMap;
     byte[] startRow = scan.getStartRow();
     byte[] stopRow = scan.getStopRow();
     if (startRow == null && stopRow == null) {
-      bufferMap = buff;
+      bufferMap = buffer;
     } else if (startRow == null) {
-      bufferMap = buff.headMap(stopRow, false);
+      bufferMap = buffer.headMap(stopRow, false);
     } else if (stopRow == null) {
-      bufferMap = buff.tailMap(startRow, true);
+      bufferMap = buffer.tailMap(startRow, true);
     } else {
-      bufferMap = buff.subMap(startRow, true, stopRow, false);
+      bufferMap = buffer.subMap(startRow, true, stopRow, false);
     }
     bufferMap = applyFilter(bufferMap, scan.getFilter());
     return bufferMap;
@@ -746,8 +793,9 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   private Map<byte[], byte[]> getRowMap(byte[] row) throws Exception {
     NavigableMap<byte[], byte[]> result = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
     // checking if the row was deleted inside this tx
-    NavigableMap<byte[], Update> buffCols = buff.get(row);
-    boolean rowDeleted = buffCols == null && buff.containsKey(row);
+    NavigableMap<byte[], NavigableMap<byte[], Update>> buffer = getBuffer();
+    NavigableMap<byte[], Update> buffCols = buffer.get(row);
+    boolean rowDeleted = buffCols == null && buffer.containsKey(row);
     if (rowDeleted) {
       return Collections.emptyMap();
     }
@@ -767,7 +815,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   private Map<byte[], byte[]> getRowMap(byte[] row, byte[][] columns) throws Exception {
     NavigableMap<byte[], byte[]> result = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
     // checking if the row was deleted inside this tx
-    NavigableMap<byte[], Update> buffCols = buff.get(row);
+    NavigableMap<byte[], Update> buffCols = getBuffer().get(row);
 
     // if nothing locally, return all from server
     if (buffCols == null) {
@@ -27,6 +27,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Ordering;
 import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.Striped;
 import org.apache.tephra.Transaction;
 
 import java.util.Arrays;
@@ -35,189 +36,220 @@ import java.util.Comparator;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.Lock;
 import javax.annotation.Nullable;
 
 /**
  * Holds all in-memory tables for {@link InMemoryTable}.
+ *
+ * Each table has its own {@link TableData} in a concurrent registry, so that operations on different tables never
+ * contend with each other. Within a table, rows are kept in a {@link ConcurrentSkipListMap} and each row is an
+ * immutable snapshot that is replaced as a whole on every write (copy-on-write). Reads are therefore lock-free and
+ * always see a consistent row, while writes to the same row are serialized with a striped row lock, which makes
+ * {@link #increment(String, byte[], Map)} and {@link #swap(String, byte[], byte[], byte[], byte[])} atomic per row.
  */
-// todo: use locks instead of synchronize
 // todo: consider using SortedMap instead of NavigableMap in APIs
 public class InMemoryTableService {
-  private static Map<String, ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>>> tables =
-    Maps.newHashMap();
 
-  public static synchronized boolean exists(String tableName) {
+  // Number of lock stripes per table for serializing writes to the same row
+  private static final int ROW_LOCK_STRIPES = 64;
+
+  private static final ConcurrentMap<String, TableData> tables = new ConcurrentHashMap<>();
+
+  public static boolean exists(String tableName) {
     return tables.containsKey(tableName);
   }
 
-  public static synchronized void create(String tableName) {
+  public static void create(String tableName) {
     if (!tables.containsKey(tableName)) {
-      tables.put(tableName, new ConcurrentSkipListMap<byte[],
-        NavigableMap<byte[], NavigableMap<Long, Update>>>(Bytes.BYTES_COMPARATOR));
+      tables.putIfAbsent(tableName, new TableData());
     }
   }
 
-  public static synchronized void truncate(String tableName) {
-    tables.get(tableName).clear();
+  public static void truncate(String tableName) {
+    TableData table = getTable(tableName);
+    table.removeRows(table.rows.keySet());
   }
 
-  public static synchronized void drop(String tableName) {
+  public static void drop(String tableName) {
     tables.remove(tableName);
   }
 
-  public static synchronized void reset() {
+  public static void reset() {
     tables.clear();
   }
 
   // no nulls
-  public static synchronized void merge(String tableName,
-                                        SortedMap<byte[], ? extends SortedMap<byte[], ? extends Update>> changes,
-                                        long version) {
+  public static void merge(String tableName, SortedMap<byte[], ? extends SortedMap<byte[], ? extends Update>> changes,
+                           long version) {
     // todo: handle nulls
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
+    TableData table = getTable(tableName);
     SortedMap<byte[], ? extends SortedMap<byte[], Update>> changesCopy = deepCopyUpdates(changes);
     for (Map.Entry<byte[], ? extends SortedMap<byte[], Update>> change : changesCopy.entrySet()) {
       merge(table, change.getKey(), change.getValue(), version);
     }
   }
 
-  private static void merge(ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table,
-                            byte[] row, Map<byte[], Update> changes, long version) {
-    // get the correct row from the table, create it if it doesn't exist
-    NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.get(row);
-    if (rowMap == null) {
-      rowMap = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-      table.put(row, rowMap);
-    }
-    // now merge the changes into the row, one by one
-    for (Map.Entry<byte[], Update> keyVal : changes.entrySet()) {
-      // create the column in the row if it does not exist
-      NavigableMap<Long, Update> colMap = rowMap.get(keyVal.getKey());
-      if (colMap == null) {
-        colMap = Maps.newTreeMap();
+  private static void merge(TableData table, byte[] row, Map<byte[], Update> changes, long version) {
+    Lock lock = table.getRowLock(row);
+    lock.lock();
+    try {
+      // get a copy of the row from the table, create it if it doesn't exist
+      NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.copyRow(row);
+      // now merge the changes into the row, one by one
+      for (Map.Entry<byte[], Update> keyVal : changes.entrySet()) {
+        // copy the column or create it if it does not exist
+        NavigableMap<Long, Update> colMap = copyColumn(rowMap.get(keyVal.getKey()));
+        // put into the column with given version
+        Update merged = Updates.mergeUpdates(colMap.get(version), keyVal.getValue());
+        colMap.put(version, merged);
         rowMap.put(keyVal.getKey(), colMap);
       }
-      // put into the column with given version
-      Update merged = Updates.mergeUpdates(colMap.get(version), keyVal.getValue());
-      colMap.put(version, merged);
+      table.rows.put(row, rowMap);
+    } finally {
+      lock.unlock();
     }
   }
 
   // todo: remove it from here: only used by "system" metrics table, which should be revised
   @Deprecated
-  public static synchronized Map<byte[], Long> increment(String tableName, byte[] row, Map<byte[], Long> increments) {
+  public static Map<byte[], Long> increment(String tableName, byte[] row, Map<byte[], Long> increments) {
     Map<byte[], Long> resultMap = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
-    // get the correct row from the table, create it if it doesn't exist
-    NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.get(row);
-    if (rowMap == null) {
-      rowMap = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-      table.put(row, rowMap);
-    }
-    // now increment each column, one by one
-    long versionForWrite = System.currentTimeMillis();
-    for (Map.Entry<byte[], Long> inc : increments.entrySet()) {
-      IncrementValue increment = new IncrementValue(inc.getValue());
-      // create the column in the row if it does not exist
-      NavigableMap<Long, Update> colMap = rowMap.get(inc.getKey());
-      Update last = null;
-      if (colMap == null) {
-        colMap = Maps.newTreeMap();
+    TableData table = getTable(tableName);
+    Lock lock = table.getRowLock(row);
+    lock.lock();
+    try {
+      // get a copy of the row from the table, create it if it doesn't exist
+      NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.copyRow(row);
+      // now increment each column, one by one
+      long versionForWrite = System.currentTimeMillis();
+      for (Map.Entry<byte[], Long> inc : increments.entrySet()) {
+        IncrementValue increment = new IncrementValue(inc.getValue());
+        NavigableMap<Long, Update> existing = rowMap.get(inc.getKey());
+        Update last = existing == null ? null : existing.lastEntry().getValue();
+        Update merged = Updates.mergeUpdates(last, increment);
+        // put into the column with given version
+        long newValue = Bytes.toLong(merged.getBytes());
+        resultMap.put(inc.getKey(), newValue);
+        NavigableMap<Long, Update> colMap = copyColumn(existing);
+        colMap.put(versionForWrite, merged);
         rowMap.put(inc.getKey(), colMap);
-      } else {
-        last = colMap.lastEntry().getValue();
       }
-      Update merged = Updates.mergeUpdates(last, increment);
-      // put into the column with given version
-      long newValue = Bytes.toLong(merged.getBytes());
-      resultMap.put(inc.getKey(), newValue);
-      colMap.put(versionForWrite, merged);
+      table.rows.put(row, rowMap);
+    } finally {
+      lock.unlock();
     }
     return resultMap;
   }
 
-  public static synchronized boolean swap(String tableName, byte[] row, byte[] column,
-                                          byte[] oldValue, byte[] newValue) {
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
-    // get the correct row from the table, create it if it doesn't exist
-    NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.get(row);
-    Update existingValue = null;
-    if (rowMap != null) {
-      NavigableMap<Long, Update> columnMap = rowMap.get(column);
-      if (columnMap != null) {
-        existingValue = columnMap.lastEntry().getValue();
-      }
-    }
-    // verify existing value matches
-    if (oldValue == null && existingValue != null) {
-      return false;
-    }
-    if (oldValue != null && (existingValue == null || !Bytes.equals(oldValue, existingValue.getBytes()))) {
-      return false;
-    }
-    // write new value
-    if (newValue == null) {
+  public static boolean swap(String tableName, byte[] row, byte[] column, byte[] oldValue, byte[] newValue) {
+    TableData table = getTable(tableName);
+    Lock lock = table.getRowLock(row);
+    lock.lock();
+    try {
+      NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.rows.get(row);
+      Update existingValue = null;
       if (rowMap != null) {
-        rowMap.remove(column);
+        NavigableMap<Long, Update> columnMap = rowMap.get(column);
+        if (columnMap != null) {
+          existingValue = columnMap.lastEntry().getValue();
+        }
       }
-    } else {
-      if (rowMap == null) {
-        rowMap = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-        table.put(row, rowMap);
+      // verify existing value matches
+      if (oldValue == null && existingValue != null) {
+        return false;
       }
-      NavigableMap<Long, Update> columnMap = rowMap.get(column);
-      if (columnMap == null) {
-        columnMap = Maps.newTreeMap();
+      if (oldValue != null && (existingValue == null || !Bytes.equals(oldValue, existingValue.getBytes()))) {
+        return false;
+      }
+      // write new value
+      if (newValue == null) {
+        if (rowMap != null) {
+          rowMap = table.copyRow(row);
+          rowMap.remove(column);
+          table.rows.put(row, rowMap);
+        }
+      } else {
+        rowMap = table.copyRow(row);
+        NavigableMap<Long, Update> columnMap = copyColumn(rowMap.get(column));
+        columnMap.put(System.currentTimeMillis(), new PutValue(newValue));
         rowMap.put(column, columnMap);
+        table.rows.put(row, rowMap);
       }
-      PutValue newPut = new PutValue(newValue);
-      columnMap.put(System.currentTimeMillis(), newPut);
+      return true;
+    } finally {
+      lock.unlock();
     }
-    return true;
   }
 
-  public static synchronized void undo(String tableName,
-                                       NavigableMap<byte[], NavigableMap<byte[], Update>> changes,
-                                       long version) {
+  public static void undo(String tableName, NavigableMap<byte[], NavigableMap<byte[], Update>> changes,
+                          long version) {
     // todo: handle nulls
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
+    TableData table = getTable(tableName);
     for (Map.Entry<byte[], NavigableMap<byte[], Update>> change : changes.entrySet()) {
       byte[] row = change.getKey();
-      NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.get(row);
-      if (rowMap != null) {
+      Lock lock = table.getRowLock(row);
+      lock.lock();
+      try {
+        if (!table.rows.containsKey(row)) {
+          continue;
+        }
+        NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.copyRow(row);
         for (byte[] column : change.getValue().keySet()) {
           NavigableMap<Long, Update> values = rowMap.get(column);
+          if (values == null || !values.containsKey(version)) {
+            continue;
+          }
+          values = copyColumn(values);
           values.remove(version);
+          if (values.isEmpty()) {
+            rowMap.remove(column);
+          } else {
+            rowMap.put(column, values);
+          }
         }
+        table.rows.put(row, rowMap);
+      } finally {
+        lock.unlock();
       }
     }
   }
 
-  public static synchronized void delete(String tableName, Iterable<byte[]> rows) {
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
-    for (byte[] row : rows) {
-      table.remove(row);
-    }
+  public static void delete(String tableName, Iterable<byte[]> rows) {
+    getTable(tableName).removeRows(rows);
   }
 
-  public static synchronized void deleteColumns(String tableName, byte[] row, byte[] column) {
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
-    NavigableMap<byte[], NavigableMap<Long, Update>> columnValues = table.get(row);
-    columnValues.remove(column);
+  public static void deleteColumns(String tableName, byte[] row, byte[] column) {
+    TableData table = getTable(tableName);
+    Lock lock = table.getRowLock(row);
+    lock.lock();
+    try {
+      NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.rows.get(row);
+      if (rowMap != null && rowMap.containsKey(column)) {
+        rowMap = table.copyRow(row);
+        rowMap.remove(column);
+        table.rows.put(row, rowMap);
+      }
+    } finally {
+      lock.unlock();
+    }
   }
 
-  public static synchronized void delete(String tableName, byte[] rowPrefix) {
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
+  public static void delete(String tableName, byte[] rowPrefix) {
+    TableData table = getTable(tableName);
     if (rowPrefix.length == 0) {
-      table.clear();
+      table.removeRows(table.rows.keySet());
     } else {
       byte[] rowAfter = rowAfterPrefix(rowPrefix);
       if (rowAfter == null) {
-        table.tailMap(rowPrefix).clear();
+        table.removeRows(table.rows.tailMap(rowPrefix).keySet());
       } else {
-        table.subMap(rowPrefix, rowAfter).clear();
+        table.removeRows(table.rows.subMap(rowPrefix, rowAfter).keySet());
       }
     }
   }
@@ -239,23 +271,18 @@ public class InMemoryTableService {
     return null;
   }
 
-  public static synchronized NavigableMap<byte[], NavigableMap<Long, byte[]>> get(String tableName,
-                                                                                  byte[] row,
-                                                                                  @Nullable Transaction tx) {
+  public static NavigableMap<byte[], NavigableMap<Long, byte[]>> get(String tableName, byte[] row,
+                                                                     @Nullable Transaction tx) {
     // todo: handle nulls
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
-    Preconditions.checkArgument(table != null, "table not found: " + tableName);
-    NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.get(row);
+    NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = getTable(tableName).rows.get(row);
     return deepCopy(Updates.rowToBytes(getVisible(rowMap, tx)));
   }
 
-  public static synchronized NavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, byte[]>>>
-                             getRowRange(String tableName,
-                                         byte[] startRow,
-                                         byte[] stopRow,
-                                         @Nullable Transaction tx) {
+  public static NavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, byte[]>>>
+                getRowRange(String tableName, byte[] startRow, byte[] stopRow, @Nullable Transaction tx) {
     // todo: handle nulls
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> tableData = tables.get(tableName);
+    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> tableData =
+      getTable(tableName).rows;
     NavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> rows;
     if (startRow == null && stopRow == null) {
       rows = tableData;
@@ -278,10 +305,23 @@ public class InMemoryTableService {
     return result;
   }
 
-  public static synchronized Collection<String> list() {
+  public static Collection<String> list() {
     return ImmutableList.copyOf(tables.keySet());
   }
 
+  private static TableData getTable(String tableName) {
+    TableData table = tables.get(tableName);
+    Preconditions.checkArgument(table != null, "table not found: " + tableName);
+    return table;
+  }
+
+  /**
+   * Returns a mutable copy of the given column, or a new column if it is {@code null}.
+   */
+  private static NavigableMap<Long, Update> copyColumn(@Nullable NavigableMap<Long, Update> column) {
+    return column == null ? new TreeMap<Long, Update>() : new TreeMap<>(column);
+  }
+
   private static NavigableMap<byte[], NavigableMap<Long, Update>> getVisible(
     NavigableMap<byte[], NavigableMap<Long, Update>> rowMap, final Transaction tx) {
 
@@ -356,6 +396,48 @@ public class InMemoryTableService {
     return src == null ? null : Arrays.copyOf(src, src.length);
   }
 
+  /**
+   * Data of a single table. Row maps stored in the table are never modified after being put into the table, and
+   * modifications to a row must be done on a copy of it while holding the row lock.
+   */
+  private static final class TableData {
+
+    private final ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> rows =
+      new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR);
+    private final Striped<Lock> rowLocks = Striped.lock(ROW_LOCK_STRIPES);
+
+    Lock getRowLock(byte[] row) {
+      // Cannot use Striped.get since byte[] doesn't have value based hashCode
+      return rowLocks.getAt((Bytes.hashCode(row) & Integer.MAX_VALUE) % rowLocks.size());
+    }
+
+    /**
+     * Returns a mutable copy of the given row. The column maps in the copy are shared with the existing row,
+     * hence they need to be copied before modification. This method must be called while holding the row lock.
+     */
+    NavigableMap<byte[], NavigableMap<Long, Update>> copyRow(byte[] row) {
+      NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = rows.get(row);
+      return rowMap == null
+        ? new TreeMap<byte[], NavigableMap<Long, Update>>(Bytes.BYTES_COMPARATOR)
+        : new TreeMap<>(rowMap);
+    }
+
+    /**
+     * Removes the given rows, each while holding the corresponding row lock.
+     */
+    void removeRows(Iterable<byte[]> rowsToRemove) {
+      for (byte[] row : rowsToRemove) {
+        Lock lock = getRowLock(row);
+        lock.lock();
+        try {
+          rows.remove(row);
+        } finally {
+          lock.unlock();
+        }
+      }
+    }
+  }
+
   // This is descending Longs comparator
   public static final Comparator<Long> VERSIONED_VALUE_MAP_COMPARATOR = new Ordering<Long>() {
     @Override
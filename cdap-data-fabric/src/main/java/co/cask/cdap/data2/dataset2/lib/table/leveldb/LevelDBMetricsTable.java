@@ -42,7 +42,8 @@ public class LevelDBMetricsTable implements MetricsTable {
 
   public LevelDBMetricsTable(String namespace, String tableName,
                              LevelDBTableService service, CConfiguration cConf) {
-    this.core = new LevelDBTableCore(PrefixedNamespaces.namespace(cConf, namespace, tableName), service);
+    // Writes to metrics tables don't emit metrics, otherwise each write would cause more metrics to be written
+    this.core = new LevelDBTableCore(PrefixedNamespaces.namespace(cConf, namespace, tableName), service, false);
     this.tableName = tableName;
   }
 
@@ -23,13 +23,10 @@ import co.cask.cdap.api.dataset.table.Scanner;
 import co.cask.cdap.common.utils.ImmutablePair;
 import co.cask.cdap.data2.dataset2.lib.table.FuzzyRowFilter;
 import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
 import org.apache.tephra.Transaction;
 import org.iq80.leveldb.DB;
 import org.iq80.leveldb.DBIterator;
-import org.iq80.leveldb.ReadOptions;
-import org.iq80.leveldb.Snapshot;
-import org.iq80.leveldb.WriteBatch;
-import org.iq80.leveldb.WriteOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,9 +35,11 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
 import javax.annotation.Nullable;
 
 /**
@@ -70,81 +69,109 @@ public class LevelDBTableCore {
 
   private final String tableName;
   private final LevelDBTableService service;
+  private final boolean emitWriteMetrics;
 
   public LevelDBTableCore(String tableName, LevelDBTableService service) {
+    this(tableName, service, true);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param tableName name of the LevelDB table
+   * @param service the {@link LevelDBTableService} that manages the table
+   * @param emitWriteMetrics whether to emit metrics for the writes to the table. It must be {@code false} for tables
+   *                         that the metrics system writes to, otherwise every metrics write would emit more metrics.
+   */
+  public LevelDBTableCore(String tableName, LevelDBTableService service, boolean emitWriteMetrics) {
     this.tableName = tableName;
     this.service = service;
+    this.emitWriteMetrics = emitWriteMetrics;
   }
 
   private DB getDB() throws IOException {
     return service.getTable(tableName);
   }
 
-  private WriteOptions getWriteOptions() {
-    return service.getWriteOptions();
+  private LevelDBTableWriter getWriter() throws IOException {
+    return service.getTableWriter(tableName, emitWriteMetrics);
   }
 
-
-  public synchronized boolean swap(byte[] row, byte[] column, byte[] oldValue, byte[] newValue) throws IOException {
-    byte[] existing = getRow(row, new byte[][] { column }, null, null, -1, null).get(column);
-    // verify
-    if (oldValue == null && existing != null) {
-      return false;
-    }
-    if (oldValue != null && (existing == null || !Bytes.equals(oldValue, existing))) {
-      return false;
-    }
-    // write
-    if (newValue == null) {
-      // to-do
-      deleteColumn(row, column);
-    } else {
-      persist(Collections.singletonMap(row, Collections.singletonMap(column, newValue)), Long.MAX_VALUE);
+  public boolean swap(byte[] row, byte[] column, byte[] oldValue, byte[] newValue) throws IOException {
+    Lock lock = getWriter().getRowLock(row);
+    lock.lock();
+    try {
+      byte[] existing = getRow(row, new byte[][] { column }, null, null, -1, null).get(column);
+      // verify
+      if (oldValue == null && existing != null) {
+        return false;
+      }
+      if (oldValue != null && (existing == null || !Bytes.equals(oldValue, existing))) {
+        return false;
+      }
+      // write
+      if (newValue == null) {
+        // to-do
+        deleteColumn(row, column);
+      } else {
+        persist(Collections.singletonMap(row, Collections.singletonMap(column, newValue)), Long.MAX_VALUE);
+      }
+      return true;
+    } finally {
+      lock.unlock();
     }
-    return true;
   }
 
-  public synchronized Map<byte[], Long> increment(byte[] row, Map<byte[], Long> increments) throws IOException {
+  public Map<byte[], Long> increment(byte[] row, Map<byte[], Long> increments) throws IOException {
     Map<byte[], Long> result = new TreeMap<>(Bytes.BYTES_COMPARATOR);
 
     DB db = getDB();
-    WriteBatch writeBatch = db.createWriteBatch();
-    try (Snapshot snapshot = db.getSnapshot()) {
-      ReadOptions readOptions = new ReadOptions().snapshot(snapshot);
-
+    LevelDBTableWriter writer = getWriter();
+    LevelDBTableWriter.Batch batch = new LevelDBTableWriter.Batch();
+    Lock lock = writer.getRowLock(row);
+    lock.lock();
+    try {
       for (Map.Entry<byte[], Long> entry : increments.entrySet()) {
         byte[] rowKey = createPutKey(row, entry.getKey(), Long.MAX_VALUE);
-        byte[] existingValue = db.get(rowKey, readOptions);
+        byte[] existingValue = db.get(rowKey);
         long newValue = incrementValue(entry.getValue(), existingValue, row, entry.getKey());
         result.put(entry.getKey(), newValue);
-        writeBatch.put(rowKey, Bytes.toBytes(newValue));
+        batch.put(rowKey, Bytes.toBytes(newValue));
       }
-      db.write(writeBatch, service.getWriteOptions());
+      writer.write(batch);
+    } finally {
+      lock.unlock();
     }
 
     return result;
   }
 
-
-  public synchronized void increment(NavigableMap<byte[], NavigableMap<byte[], Long>> updates) throws IOException {
+  public void increment(NavigableMap<byte[], NavigableMap<byte[], Long>> updates) throws IOException {
     if (updates.isEmpty()) {
       return;
     }
 
     DB db = getDB();
-    WriteBatch writeBatch = db.createWriteBatch();
-    try (Snapshot snapshot = db.getSnapshot()) {
-      ReadOptions readOptions = new ReadOptions().snapshot(snapshot);
-
+    LevelDBTableWriter writer = getWriter();
+    LevelDBTableWriter.Batch batch = new LevelDBTableWriter.Batch();
+    List<Lock> locks = writer.getRowLocks(updates.keySet());
+    for (Lock lock : locks) {
+      lock.lock();
+    }
+    try {
       for (Map.Entry<byte[], NavigableMap<byte[], Long>> updateEntry : updates.entrySet()) {
         for (Map.Entry<byte[], Long> entry : updateEntry.getValue().entrySet()) {
           byte[] rowKey = createPutKey(updateEntry.getKey(), entry.getKey(), Long.MAX_VALUE);
-          byte[] existingValue = db.get(rowKey, readOptions);
+          byte[] existingValue = db.get(rowKey);
           long newValue = incrementValue(entry.getValue(), existingValue, updateEntry.getKey(), entry.getKey());
-          writeBatch.put(rowKey, Bytes.toBytes(newValue));
+          batch.put(rowKey, Bytes.toBytes(newValue));
         }
       }
-      db.write(writeBatch, service.getWriteOptions());
+      writer.write(batch);
+    } finally {
+      for (Lock lock : Lists.reverse(locks)) {
+        lock.unlock();
+      }
     }
   }
 
@@ -161,16 +188,15 @@ public class LevelDBTableCore {
   }
 
   public void persist(Map<byte[], ? extends Map<byte[], byte[]>> changes, long version) throws IOException {
-    DB db = getDB();
     // todo support writing null when no transaction
-    WriteBatch batch = db.createWriteBatch();
+    LevelDBTableWriter.Batch batch = new LevelDBTableWriter.Batch();
     for (Map.Entry<byte[], ? extends Map<byte[], byte[]>> row : changes.entrySet()) {
       for (Map.Entry<byte[], byte[]> column : row.getValue().entrySet()) {
         byte[] key = createPutKey(row.getKey(), column.getKey(), version);
         batch.put(key, column.getValue() == null ? DELETE_MARKER : column.getValue());
       }
     }
-    db.write(batch, service.getWriteOptions());
+    getWriter().write(batch);
   }
 
   public void put(byte[] row, byte[] column, byte[] value, long version) throws IOException {
@@ -181,15 +207,14 @@ public class LevelDBTableCore {
     if (persisted.isEmpty()) {
       return;
     }
-    DB db = getDB();
-    WriteBatch batch = db.createWriteBatch();
+    LevelDBTableWriter.Batch batch = new LevelDBTableWriter.Batch();
     for (Map.Entry<byte[], ? extends Map<byte[], ?>> row : persisted.entrySet()) {
       for (Map.Entry<byte[], ?> column : row.getValue().entrySet()) {
         byte[] key = createPutKey(row.getKey(), column.getKey(), version);
         batch.delete(key);
       }
     }
-    db.write(batch, service.getWriteOptions());
+    getWriter().write(batch);
   }
 
   public Scanner scan(byte[] startRow, byte[] stopRow,
@@ -343,7 +368,7 @@ public class LevelDBTableCore {
     byte[] currentRow = rows.next();
     byte[] startKey = createStartKey(currentRow);
     DB db = getDB();
-    WriteBatch batch = db.createWriteBatch();
+    LevelDBTableWriter.Batch batch = new LevelDBTableWriter.Batch();
     try (DBIterator iterator = db.iterator()) {
       iterator.seek(startKey);
       if (!iterator.hasNext()) {
@@ -370,7 +395,7 @@ public class LevelDBTableCore {
       }
     }
     // delete all the entries that were found
-    db.write(batch, getWriteOptions());
+    getWriter().write(batch);
   }
 
   public void deleteRange(byte[] startRow, byte[] stopRow, @Nullable FuzzyRowFilter filter, @Nullable byte[][] columns)
@@ -384,6 +409,7 @@ public class LevelDBTableCore {
     }
 
     DB db = getDB();
+    LevelDBTableWriter writer = getWriter();
     DBIterator iterator = db.iterator();
     seekToStart(iterator, startRow);
     byte[] endKey = stopRow == null ? null : createEndKey(stopRow);
@@ -393,49 +419,43 @@ public class LevelDBTableCore {
     final int deletesPerRound = 1024; // todo make configurable
     try (Scanner scanner = new LevelDBScanner(iterator, endKey, filter, columns, null)) {
       Row rowValues;
-      WriteBatch batch = db.createWriteBatch();
-      int deletesInBatch = 0;
+      LevelDBTableWriter.Batch batch = new LevelDBTableWriter.Batch();
 
       // go through all matching cells and delete them in batches.
       while ((rowValues = scanner.next()) != null) {
         byte[] row = rowValues.getRow();
         for (byte[] column : rowValues.getColumns().keySet()) {
           addToDeleteBatch(batch, deleteIterator, row, column);
-          deletesInBatch++;
 
           // perform the deletes when we have built up a batch.
-          if (deletesInBatch >= deletesPerRound) {
+          if (batch.size() >= deletesPerRound) {
             // delete all the entries that were found
-            db.write(batch, getWriteOptions());
-            batch = db.createWriteBatch();
-            deletesInBatch = 0;
+            writer.write(batch);
+            batch = new LevelDBTableWriter.Batch();
           }
         }
       }
 
       // perform any outstanding deletes
-      if (deletesInBatch > 0) {
-        db.write(batch, getWriteOptions());
-      }
+      writer.write(batch);
     } finally {
       deleteIterator.close();
     }
   }
 
   public void deleteColumn(byte[] row, byte[] column) throws IOException {
-    DB db = getDB();
-    WriteBatch batch = db.createWriteBatch();
-    try (DBIterator iterator = db.iterator()) {
+    LevelDBTableWriter.Batch batch = new LevelDBTableWriter.Batch();
+    try (DBIterator iterator = getDB().iterator()) {
       addToDeleteBatch(batch, iterator, row, column);
-      db.write(batch);
     }
+    getWriter().writeUnsynced(batch);
   }
 
   /**
    * Helper to add deletes to a batch.  The expected use case is for the caller to be iterating
    * through leveldb keys in sorted order, collecting key values to delete in batch.
    */
-  private void addToDeleteBatch(WriteBatch batch, DBIterator iterator, byte[] row, byte[] column) {
+  private void addToDeleteBatch(LevelDBTableWriter.Batch batch, DBIterator iterator, byte[] row, byte[] column) {
     byte[] endKey = createStartKey(row, Bytes.add(column, new byte[] { 0 }));
     iterator.seek(createStartKey(row, column));
     while (iterator.hasNext()) {
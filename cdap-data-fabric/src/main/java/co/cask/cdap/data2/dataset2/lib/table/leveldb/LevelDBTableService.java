@@ -16,6 +16,10 @@
 
 package co.cask.cdap.data2.dataset2.lib.table.leveldb;
 
+import co.cask.cdap.api.metrics.MetricsCollectionService;
+import co.cask.cdap.api.metrics.MetricsCollector;
+import co.cask.cdap.api.metrics.MetricsContext;
+import co.cask.cdap.api.metrics.NoopMetricsContext;
 import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.data2.transaction.stream.leveldb.LevelDBNameConverter;
@@ -28,6 +32,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import com.google.common.io.Closeables;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import com.google.inject.Singleton;
 import org.iq80.leveldb.DB;
 import org.iq80.leveldb.DBComparator;
@@ -59,9 +64,13 @@ public class LevelDBTableService implements AutoCloseable {
   private long cacheSize;
   private String basePath;
   private WriteOptions writeOptions;
+  private long groupCommitMaxBytes = Constants.DEFAULT_DATA_LEVELDB_GROUP_COMMIT_MAX_BYTES;
+  private Provider<MetricsCollectionService> metricsCollectionServiceProvider;
+  private volatile MetricsContext metricsContext;
   private boolean isClosed;
 
   private final ConcurrentMap<String, DB> tables = Maps.newConcurrentMap();
+  private final ConcurrentMap<String, LevelDBTableWriter> writers = Maps.newConcurrentMap();
 
   /**
    * To avoid database locking issues make sure that the single LevelDBTableService instance
@@ -91,16 +100,31 @@ public class LevelDBTableService implements AutoCloseable {
     cacheSize = config.getLong(Constants.CFG_DATA_LEVELDB_CACHESIZE, Constants.DEFAULT_DATA_LEVELDB_CACHESIZE);
     writeOptions = new WriteOptions().sync(
       config.getBoolean(Constants.CFG_DATA_LEVELDB_FSYNC, Constants.DEFAULT_DATA_LEVELDB_FSYNC));
+    groupCommitMaxBytes = config.getLong(Constants.CFG_DATA_LEVELDB_GROUP_COMMIT_MAX_BYTES,
+                                         Constants.DEFAULT_DATA_LEVELDB_GROUP_COMMIT_MAX_BYTES);
+  }
+
+  /**
+   * Optional guice injection of the {@link MetricsCollectionService} for emitting the table write metrics.
+   * A {@link Provider} is used to delay the instantiation, since the {@link MetricsCollectionService} in local mode
+   * depends on tables provided by this class.
+   */
+  @Inject(optional = true)
+  public void setMetricsCollectionService(Provider<MetricsCollectionService> metricsCollectionServiceProvider) {
+    this.metricsCollectionServiceProvider = metricsCollectionServiceProvider;
   }
 
   /**
    * only use in unit test since the singleton may be reused for multiple tests.
    */
   public void clearTables() {
-    for (DB entries : tables.values()) {
-      Closeables.closeQuietly(entries);
+    synchronized (tables) {
+      writers.clear();
+      for (DB entries : tables.values()) {
+        Closeables.closeQuietly(entries);
+      }
+      tables.clear();
     }
-    tables.clear();
   }
 
   private void ensureOpen() {
@@ -187,6 +211,50 @@ public class LevelDBTableService implements AutoCloseable {
     return db;
   }
 
+  /**
+   * Returns the {@link LevelDBTableWriter} for writing to the given table.
+   *
+   * @param tableName name of the table
+   * @param emitMetrics whether the writer emits metrics for each commit. It is only used when the writer of the table
+   *                    is created, which happens on the first write to the table.
+   */
+  LevelDBTableWriter getTableWriter(String tableName, boolean emitMetrics) throws IOException {
+    LevelDBTableWriter writer = writers.get(tableName);
+    if (writer != null) {
+      return writer;
+    }
+    // Get the metrics context outside of the lock, since it may need to instantiate the MetricsCollectionService,
+    // which can open tables from other threads.
+    MetricsCollector metricsCollector = emitMetrics
+      ? getMetricsContext().childContext(Constants.Metrics.Tag.TABLE, tableName)
+      : new NoopMetricsContext();
+
+    // Create the writer under the same lock as opening and dropping the table, so that the writer is never created
+    // for a table that is being dropped.
+    synchronized (tables) {
+      writer = writers.get(tableName);
+      if (writer == null) {
+        writer = new LevelDBTableWriter(getTable(tableName), writeOptions, groupCommitMaxBytes, metricsCollector);
+        writers.put(tableName, writer);
+      }
+      return writer;
+    }
+  }
+
+  private MetricsContext getMetricsContext() {
+    MetricsContext context = metricsContext;
+    if (context == null) {
+      if (metricsCollectionServiceProvider == null) {
+        context = new NoopMetricsContext();
+      } else {
+        // The service.getContext already handle concurrent calls, so no need to synchronize here
+        context = metricsCollectionServiceProvider.get().getContext(Constants.Metrics.LEVELDB_TABLE_CONTEXT);
+      }
+      metricsContext = context;
+    }
+    return context;
+  }
+
   public void ensureTableExists(String tableName) throws IOException {
     ensureOpen();
     DB db = tables.get(tableName);
@@ -239,9 +307,12 @@ public class LevelDBTableService implements AutoCloseable {
 
   public void dropTable(String name) throws IOException {
     ensureOpen();
-    DB db = tables.remove(name);
-    if (db != null) {
-      db.close();
+    synchronized (tables) {
+      writers.remove(name);
+      DB db = tables.remove(name);
+      if (db != null) {
+        db.close();
+      }
     }
     String dbPath = getDBPath(basePath, name);
     factory.destroy(new File(dbPath), new Options());
@@ -0,0 +1,268 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.dataset2.lib.table.leveldb;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.metrics.MetricsCollector;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.Striped;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.WriteBatch;
+import org.iq80.leveldb.WriteOptions;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Performs writes to a LevelDB table with group commit, and provides row locks for read-modify-write operations.
+ *
+ * Writers add their {@link Batch} to a queue and then compete for the commit lock. The thread that holds the commit
+ * lock merges all pending batches into one {@link WriteBatch} and writes it to LevelDB, while other writers wait
+ * for the lock. When a waiting writer gets the lock, its batch most likely has already been written together with
+ * others, hence it can return right away. This turns many concurrent small writes, each of which may need a fsync,
+ * into one write per group.
+ */
+@ThreadSafe
+final class LevelDBTableWriter {
+
+  // Number of lock stripes for serializing read-modify-write operations on the same row
+  private static final int ROW_LOCK_STRIPES = 64;
+
+  private final DB db;
+  private final WriteOptions writeOptions;
+  private final long maxBatchBytes;
+  private final MetricsCollector metricsCollector;
+  private final Queue<Batch> pending;
+  private final Lock commitLock;
+  private final Striped<Lock> rowLocks;
+
+  /**
+   * Constructor.
+   *
+   * @param db the LevelDB table to write to
+   * @param writeOptions the {@link WriteOptions} for writing to LevelDB
+   * @param maxBatchBytes the maximum size in bytes of the write to LevelDB when merging pending batches
+   * @param metricsCollector the {@link MetricsCollector} for emitting the batch size and the commit latency
+   */
+  LevelDBTableWriter(DB db, WriteOptions writeOptions, long maxBatchBytes, MetricsCollector metricsCollector) {
+    this.db = db;
+    this.writeOptions = writeOptions;
+    this.maxBatchBytes = maxBatchBytes;
+    this.metricsCollector = metricsCollector;
+    this.pending = new ConcurrentLinkedQueue<>();
+    this.commitLock = new ReentrantLock();
+    this.rowLocks = Striped.lock(ROW_LOCK_STRIPES);
+  }
+
+  /**
+   * Writes the given {@link Batch} to LevelDB. This method blocks until the batch is written, possibly together with
+   * batches from other threads.
+   *
+   * @throws IOException if failed to write to LevelDB
+   */
+  void write(Batch batch) throws IOException {
+    if (batch.isEmpty()) {
+      return;
+    }
+    pending.add(batch);
+    commitLock.lock();
+    try {
+      // Batches are committed in FIFO order, hence loop until the given batch is committed
+      while (!batch.committed) {
+        commitPending();
+      }
+    } finally {
+      commitLock.unlock();
+    }
+
+    if (batch.failure != null) {
+      Throwables.propagateIfPossible(batch.failure, IOException.class);
+      throw new IOException("Failed to write to LevelDB", batch.failure);
+    }
+  }
+
+  /**
+   * Writes the given {@link Batch} to LevelDB right away with the default {@link WriteOptions}, which doesn't sync.
+   * This is for single operations that don't require durability, hence don't need to wait for group commit.
+   *
+   * @throws IOException if failed to write to LevelDB
+   */
+  void writeUnsynced(Batch batch) throws IOException {
+    if (batch.isEmpty()) {
+      return;
+    }
+    try (WriteBatch writeBatch = db.createWriteBatch()) {
+      batch.addTo(writeBatch);
+      db.write(writeBatch);
+    }
+  }
+
+  /**
+   * Returns the lock for the given row. Read-modify-write operations on a row must be performed while holding
+   * the lock of the row.
+   */
+  Lock getRowLock(byte[] row) {
+    return rowLocks.getAt(getStripe(row));
+  }
+
+  /**
+   * Returns the locks for the given rows, in an order that is consistent across calls, so that acquiring the locks
+   * in the returned order would not deadlock.
+   */
+  List<Lock> getRowLocks(Collection<byte[]> rows) {
+    int[] stripes = new int[rows.size()];
+    int idx = 0;
+    for (byte[] row : rows) {
+      stripes[idx++] = getStripe(row);
+    }
+    Arrays.sort(stripes);
+
+    List<Lock> locks = new ArrayList<>(stripes.length);
+    for (int i = 0; i < stripes.length; i++) {
+      if (i == 0 || stripes[i] != stripes[i - 1]) {
+        locks.add(rowLocks.getAt(stripes[i]));
+      }
+    }
+    return locks;
+  }
+
+  private int getStripe(byte[] row) {
+    // Cannot use Striped.get since byte[] doesn't have value based hashCode
+    return (Bytes.hashCode(row) & Integer.MAX_VALUE) % rowLocks.size();
+  }
+
+  /**
+   * Merges pending batches up to the max batch size and writes them to LevelDB with one write.
+   * This method must be called while holding the commit lock.
+   */
+  private void commitPending() {
+    List<Batch> batches = new ArrayList<>();
+    long bytes = 0L;
+    WriteBatch writeBatch = db.createWriteBatch();
+    try {
+      Batch batch = pending.peek();
+      // Always include at least one batch
+      while (batch != null && (batches.isEmpty() || bytes + batch.bytes <= maxBatchBytes)) {
+        pending.poll();
+        batch.addTo(writeBatch);
+        batches.add(batch);
+        bytes += batch.bytes;
+        batch = pending.peek();
+      }
+
+      Throwable failure = null;
+      long startTime = System.nanoTime();
+      try {
+        db.write(writeBatch, writeOptions);
+      } catch (Throwable t) {
+        failure = t;
+      }
+
+      metricsCollector.gauge("leveldb.commit.batch.size", batches.size());
+      metricsCollector.gauge("leveldb.commit.batch.bytes", bytes);
+      metricsCollector.gauge("leveldb.commit.latency.ms",
+                             TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+      metricsCollector.increment("leveldb.commit.count", 1L);
+      if (failure != null) {
+        metricsCollector.increment("leveldb.commit.failure", 1L);
+      }
+
+      for (Batch committed : batches) {
+        committed.complete(failure);
+      }
+    } finally {
+      try {
+        writeBatch.close();
+      } catch (IOException e) {
+        // WriteBatch.close() doesn't actually do any IO, hence shouldn't happen.
+        throw Throwables.propagate(e);
+      }
+    }
+  }
+
+  /**
+   * A batch of puts and deletes to be written atomically to LevelDB.
+   */
+  static final class Batch {
+
+    private final List<byte[]> keys = new ArrayList<>();
+    // null value represents a delete
+    private final List<byte[]> values = new ArrayList<>();
+    private long bytes;
+
+    // These are only modified while holding the commit lock
+    private boolean committed;
+    private Throwable failure;
+
+    /**
+     * Adds a put of the given key and value to this batch.
+     */
+    Batch put(byte[] key, byte[] value) {
+      keys.add(key);
+      values.add(value);
+      bytes += key.length + value.length;
+      return this;
+    }
+
+    /**
+     * Adds a delete of the given key to this batch.
+     */
+    Batch delete(byte[] key) {
+      keys.add(key);
+      values.add(null);
+      bytes += key.length;
+      return this;
+    }
+
+    /**
+     * Returns the number of operations in this batch.
+     */
+    int size() {
+      return keys.size();
+    }
+
+    boolean isEmpty() {
+      return keys.isEmpty();
+    }
+
+    private void addTo(WriteBatch writeBatch) {
+      for (int i = 0; i < keys.size(); i++) {
+        byte[] value = values.get(i);
+        if (value == null) {
+          writeBatch.delete(keys.get(i));
+        } else {
+          writeBatch.put(keys.get(i), value);
+        }
+      }
+    }
+
+    private void complete(@Nullable Throwable failure) {
+      this.failure = failure;
+      this.committed = true;
+    }
+  }
+}
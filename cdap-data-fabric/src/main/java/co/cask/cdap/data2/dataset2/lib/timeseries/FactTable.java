@@ -79,6 +79,17 @@ public final class FactTable implements Closeable {
 
   private final String putCountMetric;
   private final String incrementCountMetric;
+  private final String rollupInputCountMetric;
+  private final String rollupReductionMetric;
+
+  // Rollup buffer that coalesces writes across calls to add(), guarded by this FactTable instance
+  private NavigableMap<byte[], NavigableMap<byte[], Long>> bufferedGauges;
+  private NavigableMap<byte[], NavigableMap<byte[], Long>> bufferedIncrements;
+  private int rollupMaxCells;
+  private long rollupFlushIntervalMillis;
+  private int bufferedCells;
+  private long bufferedInputCells;
+  private long lastFlushTime;
 
   @Nullable
   private MetricsCollector metrics;
@@ -106,38 +117,88 @@ public final class FactTable implements Closeable {
     this.rollTime = rollTime;
     this.putCountMetric = "factTable." + resolution + ".put.count";
     this.incrementCountMetric = "factTable." + resolution + ".increment.count";
+    this.rollupInputCountMetric = "factTable." + resolution + ".rollup.input.count";
+    this.rollupReductionMetric = "factTable." + resolution + ".rollup.reduction.percent";
+    this.bufferedGauges = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+    this.bufferedIncrements = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+    this.lastFlushTime = System.currentTimeMillis();
   }
 
   public void setMetricsCollector(MetricsCollector metrics) {
     this.metrics = metrics;
   }
 
-  public void add(List<Fact> facts) {
+  /**
+   * Enables the in-memory rollup of writes. When enabled, values written by {@link #add(List)} are coalesced per
+   * cell, that is per (dimension values, measure name, time bucket), across calls: increments are summed and the
+   * last gauge wins. Buffered values are written to the underlying table when the number of buffered cells reaches
+   * the given limit, when the given interval has passed since the last flush, or when {@link #flush()} is called.
+   *
+   * Rollup must only be enabled when the underlying table is not transactional, since buffered values can outlive
+   * a transaction.
+   *
+   * @param maxBufferedCells maximum number of buffered cells; {@code 0} or less disables the rollup
+   * @param flushIntervalMillis maximum time in milliseconds for buffering values since the last flush
+   */
+  public synchronized void setRollup(int maxBufferedCells, long flushIntervalMillis) {
+    flush();
+    this.rollupMaxCells = maxBufferedCells;
+    this.rollupFlushIntervalMillis = flushIntervalMillis;
+  }
+
+  public synchronized void add(List<Fact> facts) {
     // Simply collecting all rows/cols/values that need to be put to the underlying table.
-    NavigableMap<byte[], NavigableMap<byte[], Long>> gaugesTable = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-    NavigableMap<byte[], NavigableMap<byte[], Long>> incrementsTable = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
     for (Fact fact : facts) {
       for (Measurement measurement : fact.getMeasurements()) {
         byte[] rowKey = codec.createRowKey(fact.getDimensionValues(), measurement.getName(), fact.getTimestamp());
         byte[] column = codec.createColumn(fact.getTimestamp());
 
+        Long oldValue;
         if (MeasureType.COUNTER == measurement.getType()) {
-          inc(incrementsTable, rowKey, column, measurement.getValue());
+          oldValue = inc(bufferedIncrements, rowKey, column, measurement.getValue());
         } else {
-          gaugesTable
+          oldValue = bufferedGauges
             .computeIfAbsent(rowKey, k -> Maps.newTreeMap(Bytes.BYTES_COMPARATOR))
             .put(column, measurement.getValue());
         }
+        if (oldValue == null) {
+          bufferedCells++;
+        }
+        bufferedInputCells++;
       }
     }
 
+    if (rollupMaxCells <= 0 || bufferedCells >= rollupMaxCells
+      || System.currentTimeMillis() - lastFlushTime >= rollupFlushIntervalMillis) {
+      flush();
+    }
+  }
+
+  /**
+   * Writes all values buffered by the rollup to the underlying table.
+   */
+  public synchronized void flush() {
+    lastFlushTime = System.currentTimeMillis();
+    if (bufferedInputCells == 0) {
+      return;
+    }
+
     // todo: replace with single call, to be able to optimize rpcs in underlying table
-    timeSeriesTable.put(gaugesTable);
-    timeSeriesTable.increment(incrementsTable);
+    timeSeriesTable.put(bufferedGauges);
+    timeSeriesTable.increment(bufferedIncrements);
     if (metrics != null) {
-      metrics.increment(putCountMetric, gaugesTable.size());
-      metrics.increment(incrementCountMetric, incrementsTable.size());
+      metrics.increment(putCountMetric, bufferedGauges.size());
+      metrics.increment(incrementCountMetric, bufferedIncrements.size());
+      if (rollupMaxCells > 0) {
+        metrics.increment(rollupInputCountMetric, bufferedInputCells);
+        metrics.gauge(rollupReductionMetric, 100 - bufferedCells * 100L / bufferedInputCells);
+      }
     }
+    // Not reusing the maps, since the underlying table may hold on to them
+    bufferedGauges = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+    bufferedIncrements = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+    bufferedCells = 0;
+    bufferedInputCells = 0;
   }
 
   private class MeasureNameComparator implements Comparator<String> {
@@ -154,9 +215,42 @@ public final class FactTable implements Closeable {
   }
 
   public FactScanner scan(FactScan scan) {
+    flush();
     return new FactScanner(getScanner(scan), codec, scan.getStartTs(), scan.getEndTs(), scan.getMeasureNames());
   }
 
+  /**
+   * Splits the given {@link FactScan} into at most the given number of scans, each covering a disjoint time range.
+   * The time ranges are aligned to the time base of rows, hence the scans cover disjoint row key ranges and
+   * every timestamp is covered by exactly one scan. The returned scans are sorted by time.
+   *
+   * @param scan the scan to split
+   * @param maxSplits the maximum number of scans to return
+   * @return a list of {@link FactScan}
+   */
+  public List<FactScan> splitScan(FactScan scan, int maxSplits) {
+    long startTimeBase = scan.getStartTs() / rollTime * rollTime;
+    long timeBases = (scan.getEndTs() / rollTime * rollTime - startTimeBase) / rollTime + 1;
+    if (maxSplits <= 1 || timeBases <= 1) {
+      return Collections.singletonList(scan);
+    }
+
+    long timeBasesPerSplit = (timeBases + maxSplits - 1) / maxSplits;
+    List<FactScan> scans = new ArrayList<>();
+    long startTs = scan.getStartTs();
+    long splitTimeBase = startTimeBase;
+    while (true) {
+      splitTimeBase += timeBasesPerSplit * rollTime;
+      // Also guard against overflow for very large end timestamp
+      if (splitTimeBase > scan.getEndTs() || splitTimeBase <= startTs) {
+        scans.add(new FactScan(startTs, scan.getEndTs(), scan.getMeasureNames(), scan.getDimensionValues()));
+        return scans;
+      }
+      scans.add(new FactScan(startTs, splitTimeBase - 1, scan.getMeasureNames(), scan.getDimensionValues()));
+      startTs = splitTimeBase;
+    }
+  }
+
   private List<String> getSortedMeasures(Collection<String> measures) {
     Map<String, Long> measureToEntityMap = new HashMap<>();
     List<String> measureNames = new ArrayList<>();
@@ -210,6 +304,7 @@ public final class FactTable implements Closeable {
    * @param scan specifies deletion criteria
    */
   public void delete(FactScan scan) {
+    flush();
     try (Scanner scanner = getScanner(scan)) {
       Row row;
       while ((row = scanner.next()) != null) {
@@ -262,6 +357,7 @@ public final class FactTable implements Closeable {
     // When we find value to return, since we only fill a single dimension, we are not interested in drilling down
     // further and instead attempt to fast-forward (jump) to a record that has different value in that dimension.
     // Thus we find all results.
+    flush();
 
     List<DimensionValue> allDimensions = Lists.newArrayList();
     List<Integer> dimToFillIndexes = Lists.newArrayList();
@@ -363,6 +459,7 @@ public final class FactTable implements Closeable {
   // todo: pass a limit on number of measures returned
   public Set<String> findMeasureNames(List<String> allDimensionNames, Map<String, String> dimensionSlice,
                                       long startTs, long endTs) {
+    flush();
 
     List<DimensionValue> allDimensions = Lists.newArrayList();
     for (String dimensionName : allDimensionNames) {
@@ -406,8 +503,12 @@ public final class FactTable implements Closeable {
 
   @Override
   public void close() throws IOException {
-    timeSeriesTable.close();
-    entityTable.close();
+    try {
+      flush();
+    } finally {
+      timeSeriesTable.close();
+      entityTable.close();
+    }
   }
 
   public static byte[][] getSplits(int aggGroupsCount) {
@@ -437,9 +538,11 @@ public final class FactTable implements Closeable {
     return new FuzzyRowFilter(ImmutableList.of(new ImmutablePair<>(startRow, fuzzyRowMask)));
   }
 
-  // todo: shouldn't we aggregate "before" writing to FactTable? We could do it really efficient outside
-  //       also: the underlying datasets will do aggregation in memory anyways
-  private static void inc(NavigableMap<byte[], NavigableMap<byte[], Long>> incrementsTable,
+  /**
+   * Adds the value to the given cell and returns the previous value of the cell, or {@code null} if it is a new cell.
+   */
+  @Nullable
+  private static Long inc(NavigableMap<byte[], NavigableMap<byte[], Long>> incrementsTable,
                           byte[] rowKey, byte[] column, long value) {
     NavigableMap<byte[], Long> values = incrementsTable.computeIfAbsent(rowKey,
                                                                         k -> new TreeMap<>(Bytes.BYTES_COMPARATOR));
@@ -450,5 +553,6 @@ public final class FactTable implements Closeable {
     }
 
     values.put(column, newValue);
+    return oldValue;
   }
 }
@@ -156,6 +156,7 @@ public abstract class AbstractStreamFileConsumerFactory implements StreamConsume
     // Look for the latest stream generation
     final int generation = StreamUtils.getGeneration(streamConfig);
     streamLocation = StreamUtils.createGenerationLocation(streamLocation, generation);
+    boolean memoryMapped = cConf.getBoolean(Constants.Stream.FILE_MEMORY_MAPPED);
 
     final long currentTime = System.currentTimeMillis();
 
@@ -173,7 +174,8 @@ public abstract class AbstractStreamFileConsumerFactory implements StreamConsume
       if (useStoredStates) {
         LOG.info("Create file reader with consumer state: {}", consumerState);
         // Has existing offsets, just resume from there.
-        MultiLiveStreamFileReader reader = new MultiLiveStreamFileReader(streamConfig, consumerState.getState());
+        MultiLiveStreamFileReader reader = new MultiLiveStreamFileReader(streamConfig, consumerState.getState(),
+                                                                          memoryMapped);
         reader.initialize();
         return reader;
       }
@@ -212,7 +214,7 @@ public abstract class AbstractStreamFileConsumerFactory implements StreamConsume
     LOG.info("Empty consumer state. Create file reader with file offsets: groupId={}, instanceId={} states={}",
              consumerState.getGroupId(), consumerState.getInstanceId(), fileOffsets);
 
-    MultiLiveStreamFileReader reader = new MultiLiveStreamFileReader(streamConfig, fileOffsets);
+    MultiLiveStreamFileReader reader = new MultiLiveStreamFileReader(streamConfig, fileOffsets, memoryMapped);
     reader.initialize();
     return reader;
   }
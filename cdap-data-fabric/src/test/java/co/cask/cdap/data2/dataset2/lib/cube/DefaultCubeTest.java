@@ -16,14 +16,29 @@
 
 package co.cask.cdap.data2.dataset2.lib.cube;
 
+import co.cask.cdap.api.dataset.lib.cube.AggregationFunction;
 import co.cask.cdap.api.dataset.lib.cube.Cube;
+import co.cask.cdap.api.dataset.lib.cube.CubeQuery;
+import co.cask.cdap.api.dataset.lib.cube.TimeSeries;
+import co.cask.cdap.api.dataset.lib.cube.TimeValue;
 import co.cask.cdap.data2.dataset2.lib.table.inmemory.InMemoryMetricsTable;
 import co.cask.cdap.data2.dataset2.lib.table.inmemory.InMemoryTableService;
 import co.cask.cdap.data2.dataset2.lib.timeseries.EntityTable;
 import co.cask.cdap.data2.dataset2.lib.timeseries.FactTable;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Assert;
+import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  *
@@ -48,4 +63,92 @@ public class DefaultCubeTest extends AbstractCubeTest {
 
     return new DefaultCube(resolutions, supplier, aggregations, ImmutableMap.<String, AggregationAlias>of());
   }
+
+  @Test
+  public void testParallelScan() throws Exception {
+    Aggregation agg = new DefaultAggregation(ImmutableList.of("dim1", "dim2"));
+    DefaultCube cube = (DefaultCube) getCube("parallelScanCube", new int[] {1, 60},
+                                             ImmutableMap.of("agg", agg));
+
+    // Writes data that spans over many time bases, which are 3600 seconds each
+    List<TimeValue> expectedSum = new ArrayList<>();
+    List<TimeValue> expectedDim2 = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      long ts = i * 1800 + 7;
+      writeInc(cube, "metric", ts, i, "1", "1");
+      writeInc(cube, "metric", ts, 2 * i, "1", "2");
+      expectedSum.add(new TimeValue(ts, 3 * i));
+      expectedDim2.add(new TimeValue(ts, 2 * i));
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      Collection<TimeSeries> sequential = cube.query(createQuery(Collections.<String>emptyList(), 1));
+      Assert.assertEquals(ImmutableList.of(new TimeSeries("metric", ImmutableMap.<String, String>of(), expectedSum)),
+                          sequential);
+
+      cube.setQueryExecutor(executor, 4);
+      Assert.assertEquals(sequential, cube.query(createQuery(Collections.<String>emptyList(), 1)));
+
+      // Group by a dimension, with the query split into as many scans as the time bases
+      cube.setQueryExecutor(executor, 100);
+      Collection<TimeSeries> grouped = cube.query(createQuery(ImmutableList.of("dim2"), 1));
+      Assert.assertEquals(2, grouped.size());
+      Assert.assertTrue(grouped.contains(new TimeSeries("metric", ImmutableMap.of("dim2", "2"), expectedDim2)));
+
+      // Query with a coarser resolution
+      cube.setQueryExecutor(executor, 4);
+      Collection<TimeSeries> result = cube.query(createQuery(Collections.<String>emptyList(), 60));
+      cube.setQueryExecutor(null, 1);
+      Assert.assertEquals(cube.query(createQuery(Collections.<String>emptyList(), 60)), result);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testParallelScanLimit() throws Exception {
+    Aggregation agg = new DefaultAggregation(ImmutableList.of("dim1", "dim2"));
+    DefaultCube cube = (DefaultCube) getCube("parallelScanLimitCube", new int[] {1, 60},
+                                             ImmutableMap.of("agg", agg));
+
+    // Writes two series over 20 time bases, which is one record per series and time base
+    for (int i = 0; i < 20; i++) {
+      long ts = i * 3600 + 7;
+      writeInc(cube, "metric", ts, i, "1", "1");
+      writeInc(cube, "metric", ts, 2 * i, "1", "2");
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      for (int limit : new int[] {1, 7, 15, 16, 39, 40, 100}) {
+        cube.setMaxRecordsToScan(limit);
+        cube.setQueryExecutor(null, 1);
+        Collection<TimeSeries> sequential = cube.query(createQuery(ImmutableList.of("dim2"), 1));
+
+        // The limit must be applied in scan order, regardless of how the query is split
+        for (int parallelism : new int[] {2, 4, 100}) {
+          cube.setQueryExecutor(executor, parallelism);
+          Assert.assertEquals(ImmutableSet.copyOf(sequential),
+                              ImmutableSet.copyOf(cube.query(createQuery(ImmutableList.of("dim2"), 1))));
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private CubeQuery createQuery(List<String> groupByDims, int resolution) {
+    return CubeQuery.builder()
+      .select()
+        .measurement("metric", AggregationFunction.SUM)
+      .from().resolution(resolution, TimeUnit.SECONDS)
+      .where()
+        .dimensions(ImmutableMap.of("dim1", "1"))
+        .timeRange(0, 20 * 1800)
+      .groupBy()
+        .dimensions(groupByDims)
+      .limit(Integer.MAX_VALUE)
+      .build();
+  }
 }
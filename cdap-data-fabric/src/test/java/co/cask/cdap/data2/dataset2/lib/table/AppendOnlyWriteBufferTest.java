@@ -0,0 +1,160 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.dataset2.lib.table;
+
+import co.cask.cdap.api.common.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Unit test for {@link AppendOnlyWriteBuffer}.
+ */
+public class AppendOnlyWriteBufferTest {
+
+  @Test
+  public void testDrainMatchesDirectWrites() {
+    Random random = new Random(0);
+    AppendOnlyWriteBuffer writeBuffer = new AppendOnlyWriteBuffer();
+    NavigableMap<byte[], NavigableMap<byte[], Update>> drained = new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR);
+    NavigableMap<byte[], NavigableMap<byte[], Update>> expected = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+
+    for (int round = 0; round < 5; round++) {
+      // Random puts, deletes and increments over a small key space, so that the same cell is written multiple times
+      for (int i = 0; i < 1000; i++) {
+        byte[] row = Bytes.toBytes("r" + random.nextInt(20));
+        byte[] column = Bytes.toBytes("c" + random.nextInt(10));
+        Update update;
+        switch (random.nextInt(3)) {
+          case 0:
+            byte[] value = Bytes.toBytes((long) random.nextInt(100));
+            writeBuffer.put(writeBuffer.copyRow(row), column, value);
+            update = new PutValue(value);
+            break;
+          case 1:
+            writeBuffer.put(writeBuffer.copyRow(row), column, null);
+            update = new PutValue(null);
+            break;
+          default:
+            long amount = random.nextInt(100);
+            writeBuffer.increment(writeBuffer.copyRow(row), column, amount);
+            update = new IncrementValue(amount);
+        }
+        apply(expected, row, column, update);
+      }
+      writeBuffer.drainTo(drained);
+      Assert.assertTrue(writeBuffer.isEmpty());
+      assertSameCells(expected, drained);
+    }
+  }
+
+  @Test
+  public void testWriteOrder() {
+    AppendOnlyWriteBuffer writeBuffer = new AppendOnlyWriteBuffer();
+    byte[] row = Bytes.toBytes("row");
+
+    // Writes out of key order, with multiple writes to the same cell
+    writeBuffer.put(row, Bytes.toBytes("c2"), Bytes.toBytes(1L));
+    writeBuffer.increment(row, Bytes.toBytes("c2"), 2L);
+    writeBuffer.increment(Bytes.toBytes("a"), Bytes.toBytes("c1"), 3L);
+    writeBuffer.increment(row, Bytes.toBytes("c1"), 4L);
+    writeBuffer.increment(row, Bytes.toBytes("c1"), 5L);
+    writeBuffer.put(row, Bytes.toBytes("c3"), Bytes.toBytes(6L));
+    writeBuffer.put(row, Bytes.toBytes("c3"), null);
+    Assert.assertEquals(7, writeBuffer.size());
+
+    NavigableMap<byte[], NavigableMap<byte[], Update>> buffer = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    writeBuffer.drainTo(buffer);
+
+    Assert.assertEquals(2, buffer.size());
+    Assert.assertArrayEquals(Bytes.toBytes("a"), buffer.firstKey());
+    Assert.assertEquals(3L, ((IncrementValue) buffer.get(Bytes.toBytes("a")).get(Bytes.toBytes("c1"))).getValue()
+      .longValue());
+
+    NavigableMap<byte[], Update> columns = buffer.get(row);
+    Assert.assertEquals(9L, ((IncrementValue) columns.get(Bytes.toBytes("c1"))).getValue().longValue());
+    Assert.assertArrayEquals(Bytes.toBytes(3L), ((PutValue) columns.get(Bytes.toBytes("c2"))).getValue());
+    Assert.assertNull(((PutValue) columns.get(Bytes.toBytes("c3"))).getValue());
+
+    // Writes after draining are merged on top of the existing buffer
+    writeBuffer.increment(row, Bytes.toBytes("c1"), 1L);
+    writeBuffer.drainTo(buffer);
+    Assert.assertEquals(10L, ((IncrementValue) buffer.get(row).get(Bytes.toBytes("c1"))).getValue().longValue());
+  }
+
+  @Test
+  public void testNonLongPuts() {
+    AppendOnlyWriteBuffer writeBuffer = new AppendOnlyWriteBuffer();
+    byte[] row = Bytes.toBytes("row");
+
+    writeBuffer.put(row, Bytes.toBytes("c1"), Bytes.toBytes(1L));
+    writeBuffer.put(row, Bytes.toBytes("c2"), null);
+    Assert.assertFalse(writeBuffer.hasNonLongPut(row, Bytes.toBytes("c1")));
+    Assert.assertFalse(writeBuffer.hasNonLongPut(row, Bytes.toBytes("c2")));
+
+    // Only the cell with the non-long put is reported, matched by content
+    writeBuffer.put(row, Bytes.toBytes("c3"), Bytes.toBytes("value"));
+    Assert.assertTrue(writeBuffer.hasNonLongPut(Bytes.toBytes("row"), Bytes.toBytes("c3")));
+    Assert.assertFalse(writeBuffer.hasNonLongPut(row, Bytes.toBytes("c1")));
+    Assert.assertFalse(writeBuffer.hasNonLongPut(Bytes.toBytes("row2"), Bytes.toBytes("c3")));
+
+    // The cell is kept after draining, since the put is still in the drained map
+    writeBuffer.drainTo(new TreeMap<byte[], NavigableMap<byte[], Update>>(Bytes.BYTES_COMPARATOR));
+    Assert.assertTrue(writeBuffer.hasNonLongPut(row, Bytes.toBytes("c3")));
+
+    writeBuffer.clear();
+    Assert.assertFalse(writeBuffer.hasNonLongPut(row, Bytes.toBytes("c3")));
+  }
+
+  private void apply(NavigableMap<byte[], NavigableMap<byte[], Update>> map, byte[] row, byte[] column,
+                     Update update) {
+    NavigableMap<byte[], Update> columns = map.get(row);
+    if (columns == null) {
+      columns = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+      map.put(row, columns);
+    }
+    columns.put(column, Updates.mergeUpdates(columns.get(column), update));
+  }
+
+  /**
+   * Asserts the two maps have the same set of cells, with the same update type and value.
+   */
+  private void assertSameCells(NavigableMap<byte[], NavigableMap<byte[], Update>> expected,
+                               NavigableMap<byte[], NavigableMap<byte[], Update>> actual) {
+    Assert.assertEquals(expected.size(), actual.size());
+    for (Map.Entry<byte[], NavigableMap<byte[], Update>> row : expected.entrySet()) {
+      NavigableMap<byte[], Update> actualColumns = actual.get(row.getKey());
+      Assert.assertNotNull(actualColumns);
+      Assert.assertEquals(row.getValue().keySet().size(), actualColumns.size());
+      for (Map.Entry<byte[], Update> cell : row.getValue().entrySet()) {
+        Update actualUpdate = actualColumns.get(cell.getKey());
+        Assert.assertNotNull(actualUpdate);
+        Assert.assertEquals(cell.getValue().getClass(), actualUpdate.getClass());
+        if (cell.getValue() instanceof IncrementValue) {
+          Assert.assertEquals(cell.getValue().getValue(), actualUpdate.getValue());
+        } else {
+          Assert.assertArrayEquals(((PutValue) cell.getValue()).getValue(), ((PutValue) actualUpdate).getValue());
+        }
+      }
+    }
+  }
+}
@@ -24,7 +24,16 @@ import org.apache.tephra.Transaction;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.NavigableMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  *
@@ -97,6 +106,61 @@ public class InMemoryTableServiceTest {
     verify123();
   }
 
+  @Test
+  public void testConcurrentIncrementAndSwap() throws Exception {
+    final String tableName = "concurrentTable";
+    InMemoryTableService.create(tableName);
+
+    final byte[] row = new byte[] {1};
+    final byte[] incColumn = new byte[] {2};
+    final byte[] swapColumn = new byte[] {3};
+    final int threads = 8;
+    final int iterations = 500;
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      final CyclicBarrier barrier = new CyclicBarrier(threads);
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            barrier.await();
+            for (int j = 0; j < iterations; j++) {
+              InMemoryTableService.increment(tableName, row, Collections.singletonMap(incColumn, 1L));
+
+              // Increment the swap column with compare and swap
+              boolean swapped = false;
+              while (!swapped) {
+                NavigableMap<byte[], NavigableMap<Long, byte[]>> current =
+                  InMemoryTableService.get(tableName, row, null);
+                byte[] oldValue = null;
+                if (current != null && current.containsKey(swapColumn)) {
+                  oldValue = current.get(swapColumn).firstEntry().getValue();
+                }
+                long newValue = oldValue == null ? 1L : Bytes.toLong(oldValue) + 1L;
+                swapped = InMemoryTableService.swap(tableName, row, swapColumn, oldValue, Bytes.toBytes(newValue));
+              }
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    NavigableMap<byte[], NavigableMap<Long, byte[]>> result = InMemoryTableService.get(tableName, row, null);
+    Assert.assertEquals(threads * iterations, Bytes.toLong(result.get(incColumn).firstEntry().getValue()));
+    Assert.assertEquals(threads * iterations, Bytes.toLong(result.get(swapColumn).firstEntry().getValue()));
+
+    InMemoryTableService.drop(tableName);
+    Assert.assertFalse(InMemoryTableService.exists(tableName));
+  }
+
   private void verify123() {
     NavigableMap<byte[], NavigableMap<Long, byte[]>> rowFromGet =
       InMemoryTableService.get("table", new byte[]{1}, new Transaction(1L, 2L, new long[0], new long[0], 1L));
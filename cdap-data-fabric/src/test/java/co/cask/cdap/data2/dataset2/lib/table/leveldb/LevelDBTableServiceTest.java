@@ -38,7 +38,15 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -112,6 +120,71 @@ public class LevelDBTableServiceTest {
     Assert.assertEquals(table2Size, service.getTableStats().get(tableId2).getDiskSizeBytes());
   }
 
+  @Test
+  public void testConcurrentWrites() throws Exception {
+    final String tableName = "cdap_default.concurrent";
+    service.ensureTableExists(tableName);
+
+    final byte[] row = Bytes.toBytes("row");
+    final byte[] column = Bytes.toBytes("col");
+    final int threads = 8;
+    final int iterations = 200;
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      final CyclicBarrier barrier = new CyclicBarrier(threads);
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        final int threadId = i;
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            // Each thread uses its own table core, similar to each dataset instance has its own
+            LevelDBTableCore table = new LevelDBTableCore(tableName, service);
+            barrier.await();
+            for (int j = 0; j < iterations; j++) {
+              table.increment(row, Collections.singletonMap(column, 1L));
+              table.persist(Collections.singletonMap(Bytes.toBytes("row" + threadId),
+                                                     Collections.singletonMap(Bytes.toBytes(j), Bytes.toBytes(j))),
+                            1L);
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    LevelDBTableCore table = new LevelDBTableCore(tableName, service);
+    Assert.assertEquals(threads * iterations, Bytes.toLong(table.getRow(row, null, null, null, -1, null).get(column)));
+    for (int i = 0; i < threads; i++) {
+      Assert.assertEquals(iterations, table.getRow(Bytes.toBytes("row" + i), null, null, null, -1, null).size());
+    }
+    service.dropTable(tableName);
+  }
+
+  @Test
+  public void testWriteAfterDrop() throws Exception {
+    String tableName = "cdap_default.writeAfterDrop";
+    byte[] row = Bytes.toBytes("row");
+    byte[] column = Bytes.toBytes("col");
+
+    service.ensureTableExists(tableName);
+    LevelDBTableCore table = new LevelDBTableCore(tableName, service);
+    table.increment(row, Collections.singletonMap(column, 1L));
+
+    // The writer of the dropped table must not be used for the recreated table
+    service.dropTable(tableName);
+    service.ensureTableExists(tableName);
+    table.increment(row, Collections.singletonMap(column, 2L));
+    Assert.assertEquals(2L, Bytes.toLong(table.getRow(row, null, null, null, -1, null).get(column)));
+    service.dropTable(tableName);
+  }
+
   private void writeSome(String tableName) throws IOException {
     LevelDBTableCore table = new LevelDBTableCore(tableName, service);
     Random r = new Random();
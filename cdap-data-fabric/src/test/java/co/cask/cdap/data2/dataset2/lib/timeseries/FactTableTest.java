@@ -22,6 +22,7 @@ import co.cask.cdap.api.dataset.lib.cube.Measurement;
 import co.cask.cdap.api.dataset.lib.cube.TimeValue;
 import co.cask.cdap.api.dataset.table.Row;
 import co.cask.cdap.api.dataset.table.Scanner;
+import co.cask.cdap.api.metrics.MetricsCollector;
 import co.cask.cdap.data2.dataset2.lib.table.inmemory.InMemoryMetricsTable;
 import co.cask.cdap.data2.dataset2.lib.table.inmemory.InMemoryTableService;
 import com.google.common.collect.HashBasedTable;
@@ -562,6 +563,74 @@ public class FactTableTest {
     Assert.assertEquals(3, splitsWithRows.size());
   }
 
+  @Test
+  public void testRollup() throws Exception {
+    InMemoryTableService.create("RollupEntityTable");
+    InMemoryTableService.create("RollupDataTable");
+    int resolution = 10;
+    int rollTimebaseInterval = 2;
+
+    FactTable table = new FactTable(new InMemoryMetricsTable("RollupDataTable"),
+                                    new EntityTable(new InMemoryMetricsTable("RollupEntityTable")),
+                                    resolution, rollTimebaseInterval);
+    final List<Long> reductions = Lists.newArrayList();
+    table.setMetricsCollector(new MetricsCollector() {
+      @Override
+      public void increment(String metricName, long value) {
+        // no-op
+      }
+
+      @Override
+      public void gauge(String metricName, long value) {
+        if (metricName.endsWith(".rollup.reduction.percent")) {
+          reductions.add(value);
+        }
+      }
+    });
+    // Only flush explicitly or when there are more than 4 buffered cells
+    table.setRollup(4, Long.MAX_VALUE);
+
+    long ts = ((System.currentTimeMillis() / 1000) / resolution) * resolution;
+    List<DimensionValue> dimensionValues = dimValues("dim1", "value1", "dim2", "value2");
+
+    // Writes to 2 counter cells and 1 gauge cell across multiple calls
+    for (int i = 0; i < 10; i++) {
+      table.add(ImmutableList.of(new Fact(ts + i % resolution, dimensionValues,
+                                          ImmutableList.of(new Measurement("counter", MeasureType.COUNTER, 1),
+                                                           new Measurement("gauge", MeasureType.GAUGE, i)))));
+      table.add(ImmutableList.of(new Fact(ts + resolution, dimensionValues,
+                                          new Measurement("counter", MeasureType.COUNTER, 2))));
+    }
+
+    // Nothing should be written to the underlying table yet
+    try (Scanner scanner = new InMemoryMetricsTable("RollupDataTable").scan(null, null, null)) {
+      Assert.assertNull(scanner.next());
+    }
+
+    // 30 values are coalesced into 3 cells
+    table.flush();
+    Assert.assertEquals(ImmutableList.of(90L), reductions);
+
+    Table<String, List<DimensionValue>, List<TimeValue>> expected = HashBasedTable.create();
+    expected.put("counter", dimensionValues, timeValues(ts, resolution, 10, 20));
+    expected.put("gauge", dimensionValues, timeValues(ts, resolution, 9));
+    assertScan(table, expected, new FactScan(ts, ts + resolution, dimensionValues));
+
+    // Writing to more than 4 cells should trigger a flush
+    for (int i = 2; i < 7; i++) {
+      table.add(ImmutableList.of(new Fact(ts + resolution * i, dimensionValues,
+                                          new Measurement("counter", MeasureType.COUNTER, i))));
+    }
+    Assert.assertEquals(ImmutableList.of(90L, 0L), reductions);
+
+    // Scanning should see the buffered writes
+    table.add(ImmutableList.of(new Fact(ts, dimensionValues, new Measurement("counter", MeasureType.COUNTER, 5))));
+    expected.clear();
+    expected.put("counter", dimensionValues, timeValues(ts, resolution, 15, 20, 2, 3, 4, 5, 6));
+    assertScan(table, expected, new FactScan(ts, ts + resolution * 6, "counter", dimensionValues));
+    table.close();
+  }
+
   private List<TimeValue> timeValues(long ts, int resolution, long... values) {
     List<TimeValue> timeValues = Lists.newArrayList();
     for (int i = 0; i < values.length; i++) {
@@ -0,0 +1,53 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.format;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Decodes stream event bodies into strings for formats reading batches of events. Bodies backed by an array are
+ * decoded in place, while other bodies, such as ones from memory mapped stream files, are copied into a buffer that
+ * is reused across events.
+ *
+ * This class is not thread safe.
+ */
+final class BodyStringDecoder {
+
+  private final Charset charset;
+  private byte[] buffer;
+
+  BodyStringDecoder(Charset charset) {
+    this.charset = charset;
+    this.buffer = new byte[0];
+  }
+
+  /**
+   * Decodes the remaining bytes of the given body. The position of the body is not changed.
+   */
+  String decode(ByteBuffer body) {
+    int length = body.remaining();
+    if (body.hasArray()) {
+      return new String(body.array(), body.arrayOffset() + body.position(), length, charset);
+    }
+    if (buffer.length < length) {
+      buffer = new byte[length];
+    }
+    body.duplicate().get(buffer, 0, length);
+    return new String(buffer, 0, length, charset);
+  }
+}
@@ -61,6 +61,8 @@ public class DelimitedStringsRecordFormat extends AbstractStreamEventRecordForma
   private Charset charset = Charsets.UTF_8;
   private String delimiter = ",";
   private RecordMaker recordMaker = new DefaultRecordMaker();
+  private BodyStringDecoder bodyDecoder = new BodyStringDecoder(charset);
+  private final List<String> batchFields = Lists.newArrayList();
 
   @Override
   public StructuredRecord read(StreamEvent event) throws UnexpectedFormatException {
@@ -69,6 +71,30 @@ public class DelimitedStringsRecordFormat extends AbstractStreamEventRecordForma
     return recordMaker.make(schema, bodyFields);
   }
 
+  @Override
+  public void read(List<? extends StreamEvent> events,
+                   List<? super StructuredRecord> records) throws UnexpectedFormatException {
+    if (delimiter.isEmpty()) {
+      // Let the Splitter used by read(event) handle the invalid delimiter
+      super.read(events, records);
+      return;
+    }
+    // Split each body into the same list of fields, which gives the same fields as the Splitter used by read(event)
+    for (StreamEvent event : events) {
+      String body = bodyDecoder.decode(event.getBody());
+      batchFields.clear();
+      int start = 0;
+      int end = body.indexOf(delimiter);
+      while (end >= 0) {
+        batchFields.add(body.substring(start, end));
+        start = end + delimiter.length();
+        end = body.indexOf(delimiter, start);
+      }
+      batchFields.add(body.substring(start));
+      records.add(recordMaker.make(schema, batchFields.iterator()));
+    }
+  }
+
   @Override
   protected Schema getDefaultSchema() {
     // default is a String[]
@@ -102,6 +128,7 @@ public class DelimitedStringsRecordFormat extends AbstractStreamEventRecordForma
     String charsetStr = settings.get(CHARSET);
     if (charsetStr != null) {
       this.charset = Charset.forName(charsetStr);
+      this.bodyDecoder = new BodyStringDecoder(charset);
     }
     String delimiter = settings.get(DELIMITER);
     if (delimiter != null) {
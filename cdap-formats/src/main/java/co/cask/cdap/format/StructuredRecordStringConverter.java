@@ -30,7 +30,6 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.Iterator;
-import java.util.stream.Collectors;
 
 /**
  * Utility class for converting {@link StructuredRecord} to and from json.
@@ -64,11 +63,18 @@ public final class StructuredRecordStringConverter {
    * Converts a {@link StructuredRecord} to a delimited string.
    */
   public static String toDelimitedString(final StructuredRecord record, String delimiter) {
-    return record.getSchema().getFields().stream()
-      .map(Schema.Field::getName)
-      .map(record::get)
-      .map(value -> value == null ? "" : value.toString())
-      .collect(Collectors.joining(delimiter));
+    StringBuilder builder = new StringBuilder();
+    int size = record.getSchema().getFields().size();
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        builder.append(delimiter);
+      }
+      Object value = record.get(i);
+      if (value != null) {
+        builder.append(value);
+      }
+    }
+    return builder.toString();
   }
 
   /**
@@ -78,12 +84,15 @@ public final class StructuredRecordStringConverter {
     StructuredRecord.Builder builder = StructuredRecord.builder(schema);
     Iterator<Schema.Field> fields = schema.getFields().iterator();
 
+    int index = 0;
     for (String part : Splitter.on(delimiter).split(delimitedString)) {
+      Schema.Field field = fields.next();
       if (part.isEmpty()) {
-        builder.set(fields.next().getName(), null);
+        builder.set(index, null);
       } else {
-        builder.convertAndSet(fields.next().getName(), part);
+        builder.convertAndSet(field.getName(), part);
       }
+      index++;
     }
 
     return builder.build();
@@ -35,6 +35,7 @@ public class TextRecordFormat extends AbstractStreamEventRecordFormat<Structured
   public static final String CHARSET = "charset";
   private Charset charset = Charsets.UTF_8;
   private String fieldName = "body";
+  private BodyStringDecoder bodyDecoder = new BodyStringDecoder(charset);
 
   @Override
   public StructuredRecord read(StreamEvent event) {
@@ -42,6 +43,13 @@ public class TextRecordFormat extends AbstractStreamEventRecordFormat<Structured
     return StructuredRecord.builder(schema).set(fieldName, bodyAsStr).build();
   }
 
+  @Override
+  public void read(List<? extends StreamEvent> events, List<? super StructuredRecord> records) {
+    for (StreamEvent event : events) {
+      records.add(StructuredRecord.builder(schema).set(fieldName, bodyDecoder.decode(event.getBody())).build());
+    }
+  }
+
   @Override
   protected Schema getDefaultSchema() {
     return Schema.recordOf("stringBody", Schema.Field.of("body", Schema.of(Schema.Type.STRING)));
@@ -60,6 +68,7 @@ public class TextRecordFormat extends AbstractStreamEventRecordFormat<Structured
     String charsetStr = settings.get(CHARSET);
     if (charsetStr != null) {
       this.charset = Charset.forName(charsetStr);
+      this.bodyDecoder = new BodyStringDecoder(charset);
     }
     this.fieldName = schema.getFields().get(0).getName();
   }
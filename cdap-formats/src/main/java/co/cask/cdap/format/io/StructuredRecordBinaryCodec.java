@@ -0,0 +1,540 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.format.io;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.data.format.StructuredRecord;
+import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.common.io.Decoder;
+import co.cask.cdap.common.io.Encoder;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Encodes and decodes {@link StructuredRecord} of a given record {@link Schema} directly with {@link Encoder} and
+ * {@link Decoder}. The schema is compiled into a tree of value codecs when the codec is created, so that no schema
+ * inspection is needed when encoding or decoding values. Record fields are accessed by position.
+ *
+ * The binary format is the same as the one produced by {@link StructuredRecordDatumWriter} and consumed by
+ * {@link StructuredRecordDatumReader}. Logical types are encoded with their underlying physical types, and decoded
+ * values are of the same types as the ones returned by {@link StructuredRecordDatumReader}.
+ *
+ * Instances of this class are immutable and thread safe.
+ */
+public final class StructuredRecordBinaryCodec {
+
+  // Codecs are keyed by schema identity. Values are soft referenced since each codec refers to its schema key.
+  private static final LoadingCache<Schema, StructuredRecordBinaryCodec> CODECS = CacheBuilder.newBuilder()
+    .weakKeys()
+    .softValues()
+    .build(new CacheLoader<Schema, StructuredRecordBinaryCodec>() {
+      @Override
+      public StructuredRecordBinaryCodec load(Schema schema) {
+        return new StructuredRecordBinaryCodec(schema);
+      }
+    });
+
+  private final Schema schema;
+  private final RecordCodec recordCodec;
+
+  /**
+   * Returns a {@link StructuredRecordBinaryCodec} for the given schema. Codecs are cached by the schema instance,
+   * hence callers should reuse the same {@link Schema} instance whenever possible.
+   *
+   * @param schema the record schema
+   * @return a {@link StructuredRecordBinaryCodec} for the given schema
+   * @throws IllegalArgumentException if the schema is not a record schema
+   */
+  public static StructuredRecordBinaryCodec of(Schema schema) {
+    if (schema.getType() != Schema.Type.RECORD) {
+      throw new IllegalArgumentException("Expected schema of type RECORD. Got: " + schema.getType());
+    }
+    return CODECS.getUnchecked(schema);
+  }
+
+  private StructuredRecordBinaryCodec(Schema schema) {
+    this.schema = schema;
+    this.recordCodec = (RecordCodec) compile(schema, new HashMap<String, RecordCodec>());
+  }
+
+  /**
+   * Returns the record {@link Schema} of this codec.
+   */
+  public Schema getSchema() {
+    return schema;
+  }
+
+  /**
+   * Encodes the given {@link StructuredRecord}. The record can be of a different schema instance than the one of this
+   * codec, as long as it has all the fields of this codec schema.
+   *
+   * @param record the record to encode
+   * @param encoder the {@link Encoder} to write to
+   * @throws IOException if failed to encode
+   */
+  public void encode(StructuredRecord record, Encoder encoder) throws IOException {
+    recordCodec.encode(encoder, record);
+  }
+
+  /**
+   * Decodes a {@link StructuredRecord} of the schema of this codec.
+   *
+   * @param decoder the {@link Decoder} to read from
+   * @return a new {@link StructuredRecord}
+   * @throws IOException if failed to decode
+   */
+  public StructuredRecord decode(Decoder decoder) throws IOException {
+    return recordCodec.decode(decoder);
+  }
+
+  /**
+   * Compiles the given schema into a {@link ValueCodec}.
+   *
+   * @param schema the schema to compile
+   * @param recordCodecs the record codecs created so far, for handling recursive records
+   */
+  private static ValueCodec compile(Schema schema, Map<String, RecordCodec> recordCodecs) {
+    switch (schema.getType()) {
+      case NULL:
+        return NULL_CODEC;
+      case BOOLEAN:
+        return BOOLEAN_CODEC;
+      case INT:
+        return INT_CODEC;
+      case LONG:
+        return LONG_CODEC;
+      case FLOAT:
+        return FLOAT_CODEC;
+      case DOUBLE:
+        return DOUBLE_CODEC;
+      case BYTES:
+        return BYTES_CODEC;
+      case STRING:
+        return STRING_CODEC;
+      case ENUM:
+        return new EnumCodec(schema);
+      case ARRAY:
+        return new ArrayCodec(compile(schema.getComponentSchema(), recordCodecs));
+      case MAP:
+        Map.Entry<Schema, Schema> mapSchema = schema.getMapSchema();
+        return new MapCodec(compile(mapSchema.getKey(), recordCodecs), compile(mapSchema.getValue(), recordCodecs));
+      case RECORD:
+        RecordCodec recordCodec = recordCodecs.get(schema.getRecordName());
+        if (recordCodec == null) {
+          // Register before compiling the fields, so that recursive references resolve to this codec
+          recordCodec = new RecordCodec(schema);
+          recordCodecs.put(schema.getRecordName(), recordCodec);
+          recordCodec.compileFields(recordCodecs);
+        }
+        return recordCodec;
+      case UNION:
+        return new UnionCodec(schema, recordCodecs);
+    }
+    throw new IllegalArgumentException("Unsupported schema: " + schema);
+  }
+
+  /**
+   * Encodes and decodes values of a particular schema.
+   */
+  private abstract static class ValueCodec {
+
+    abstract void encode(Encoder encoder, Object value) throws IOException;
+
+    abstract Object decode(Decoder decoder) throws IOException;
+  }
+
+  private static final ValueCodec NULL_CODEC = new ValueCodec() {
+    @Override
+    void encode(Encoder encoder, Object value) throws IOException {
+      encoder.writeNull();
+    }
+
+    @Override
+    Object decode(Decoder decoder) throws IOException {
+      return decoder.readNull();
+    }
+  };
+
+  private static final ValueCodec BOOLEAN_CODEC = new ValueCodec() {
+    @Override
+    void encode(Encoder encoder, Object value) throws IOException {
+      encoder.writeBool((Boolean) value);
+    }
+
+    @Override
+    Object decode(Decoder decoder) throws IOException {
+      return decoder.readBool();
+    }
+  };
+
+  private static final ValueCodec INT_CODEC = new ValueCodec() {
+    @Override
+    void encode(Encoder encoder, Object value) throws IOException {
+      // Byte and Short are allowed for int, same as StructuredRecordDatumWriter
+      encoder.writeInt(((Number) value).intValue());
+    }
+
+    @Override
+    Object decode(Decoder decoder) throws IOException {
+      return decoder.readInt();
+    }
+  };
+
+  private static final ValueCodec LONG_CODEC = new ValueCodec() {
+    @Override
+    void encode(Encoder encoder, Object value) throws IOException {
+      encoder.writeLong((Long) value);
+    }
+
+    @Override
+    Object decode(Decoder decoder) throws IOException {
+      return decoder.readLong();
+    }
+  };
+
+  private static final ValueCodec FLOAT_CODEC = new ValueCodec() {
+    @Override
+    void encode(Encoder encoder, Object value) throws IOException {
+      encoder.writeFloat((Float) value);
+    }
+
+    @Override
+    Object decode(Decoder decoder) throws IOException {
+      return decoder.readFloat();
+    }
+  };
+
+  private static final ValueCodec DOUBLE_CODEC = new ValueCodec() {
+    @Override
+    void encode(Encoder encoder, Object value) throws IOException {
+      encoder.writeDouble((Double) value);
+    }
+
+    @Override
+    Object decode(Decoder decoder) throws IOException {
+      return decoder.readDouble();
+    }
+  };
+
+  private static final ValueCodec STRING_CODEC = new ValueCodec() {
+    @Override
+    void encode(Encoder encoder, Object value) throws IOException {
+      encoder.writeString((String) value);
+    }
+
+    @Override
+    Object decode(Decoder decoder) throws IOException {
+      return decoder.readString();
+    }
+  };
+
+  private static final ValueCodec BYTES_CODEC = new ValueCodec() {
+    @Override
+    void encode(Encoder encoder, Object value) throws IOException {
+      if (value instanceof byte[]) {
+        byte[] bytes = (byte[]) value;
+        encoder.writeBytes(bytes, 0, bytes.length);
+      } else if (value instanceof ByteBuffer) {
+        ByteBuffer buffer = (ByteBuffer) value;
+        if (buffer.hasArray()) {
+          encoder.writeBytes(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        } else {
+          byte[] bytes = Bytes.toBytes(buffer);
+          encoder.writeBytes(bytes, 0, bytes.length);
+        }
+      } else {
+        throw new IOException("Expects either ByteBuffer or byte[]. Got " + value.getClass());
+      }
+    }
+
+    @Override
+    Object decode(Decoder decoder) throws IOException {
+      return decoder.readBytes();
+    }
+  };
+
+  /**
+   * Codec for enum values. Values are decoded as {@link String}.
+   */
+  private static final class EnumCodec extends ValueCodec {
+
+    private final Schema schema;
+    private final String[] values;
+
+    EnumCodec(Schema schema) {
+      this.schema = schema;
+      this.values = schema.getEnumValues().toArray(new String[0]);
+    }
+
+    @Override
+    void encode(Encoder encoder, Object value) throws IOException {
+      String enumValue = value instanceof Enum ? ((Enum) value).name() : value.toString();
+      encoder.writeInt(schema.getEnumIndex(enumValue));
+    }
+
+    @Override
+    Object decode(Decoder decoder) throws IOException {
+      int idx = decoder.readInt();
+      return idx >= 0 && idx < values.length ? values[idx] : null;
+    }
+  }
+
+  /**
+   * Codec for arrays. Values can be {@link Collection} or Java array, and are decoded as {@link List}.
+   */
+  private static final class ArrayCodec extends ValueCodec {
+
+    private final ValueCodec elementCodec;
+
+    ArrayCodec(ValueCodec elementCodec) {
+      this.elementCodec = elementCodec;
+    }
+
+    @Override
+    void encode(Encoder encoder, Object value) throws IOException {
+      if (value instanceof Collection) {
+        Collection<?> collection = (Collection<?>) value;
+        encoder.writeInt(collection.size());
+        for (Object element : collection) {
+          elementCodec.encode(encoder, element);
+        }
+      } else if (value.getClass().isArray()) {
+        int size = Array.getLength(value);
+        encoder.writeInt(size);
+        if (value instanceof Object[]) {
+          for (Object element : (Object[]) value) {
+            elementCodec.encode(encoder, element);
+          }
+        } else {
+          for (int i = 0; i < size; i++) {
+            elementCodec.encode(encoder, Array.get(value, i));
+          }
+        }
+      } else {
+        throw new IOException("Expects either Collection or array. Got: " + value.getClass());
+      }
+      encoder.writeInt(0);
+    }
+
+    @Override
+    Object decode(Decoder decoder) throws IOException {
+      int size = decoder.readInt();
+      List<Object> array = new ArrayList<>(size);
+      while (size != 0) {
+        for (int i = 0; i < size; i++) {
+          array.add(elementCodec.decode(decoder));
+        }
+        size = decoder.readInt();
+      }
+      return array;
+    }
+  }
+
+  /**
+   * Codec for maps. Values are decoded as {@link LinkedHashMap}.
+   */
+  private static final class MapCodec extends ValueCodec {
+
+    private final ValueCodec keyCodec;
+    private final ValueCodec valueCodec;
+
+    MapCodec(ValueCodec keyCodec, ValueCodec valueCodec) {
+      this.keyCodec = keyCodec;
+      this.valueCodec = valueCodec;
+    }
+
+    @Override
+    void encode(Encoder encoder, Object value) throws IOException {
+      if (!(value instanceof Map)) {
+        throw new IOException("Expects Map type. Got: " + value.getClass());
+      }
+      Map<?, ?> map = (Map<?, ?>) value;
+      encoder.writeInt(map.size());
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        keyCodec.encode(encoder, entry.getKey());
+        valueCodec.encode(encoder, entry.getValue());
+      }
+      encoder.writeInt(0);
+    }
+
+    @Override
+    Object decode(Decoder decoder) throws IOException {
+      int size = decoder.readInt();
+      Map<Object, Object> map = new LinkedHashMap<>(size);
+      while (size != 0) {
+        for (int i = 0; i < size; i++) {
+          map.put(keyCodec.decode(decoder), valueCodec.decode(decoder));
+        }
+        size = decoder.readInt();
+      }
+      return map;
+    }
+  }
+
+  /**
+   * Codec for records.
+   */
+  private static final class RecordCodec extends ValueCodec {
+
+    private final Schema schema;
+    private final String[] fieldNames;
+    private ValueCodec[] fieldCodecs;
+
+    RecordCodec(Schema schema) {
+      this.schema = schema;
+      List<Schema.Field> fields = schema.getFields();
+      this.fieldNames = new String[fields.size()];
+      for (int i = 0; i < fieldNames.length; i++) {
+        fieldNames[i] = fields.get(i).getName();
+      }
+    }
+
+    void compileFields(Map<String, RecordCodec> recordCodecs) {
+      List<Schema.Field> fields = schema.getFields();
+      ValueCodec[] codecs = new ValueCodec[fields.size()];
+      for (int i = 0; i < codecs.length; i++) {
+        codecs[i] = compile(fields.get(i).getSchema(), recordCodecs);
+      }
+      this.fieldCodecs = codecs;
+    }
+
+    @Override
+    void encode(Encoder encoder, Object value) throws IOException {
+      if (!(value instanceof StructuredRecord)) {
+        throw new IOException("Expected StructuredRecord type. Got: " + value.getClass());
+      }
+      StructuredRecord record = (StructuredRecord) value;
+      // Access the fields by position if the record is of the same schema, which is the common case
+      boolean sameSchema = record.getSchema() == schema;
+      for (int i = 0; i < fieldCodecs.length; i++) {
+        fieldCodecs[i].encode(encoder, sameSchema ? record.get(i) : record.get(fieldNames[i]));
+      }
+    }
+
+    @Override
+    StructuredRecord decode(Decoder decoder) throws IOException {
+      StructuredRecord.Builder builder = StructuredRecord.builder(schema);
+      for (int i = 0; i < fieldCodecs.length; i++) {
+        builder.set(i, fieldCodecs[i].decode(decoder));
+      }
+      return builder.build();
+    }
+  }
+
+  /**
+   * Codec for unions. The union branch for encoding is selected by the type of the value, same as
+   * {@link StructuredRecordDatumWriter}.
+   */
+  private static final class UnionCodec extends ValueCodec {
+
+    private final Schema schema;
+    private final ValueCodec[] codecs;
+    private final Map<Schema.Type, Integer> typeIndexes;
+    // Index of the null schema in the union, or -1 if there is no null in the union
+    private final int nullIndex;
+
+    UnionCodec(Schema schema, Map<String, RecordCodec> recordCodecs) {
+      List<Schema> unionSchemas = schema.getUnionSchemas();
+      this.schema = schema;
+      this.codecs = new ValueCodec[unionSchemas.size()];
+      this.typeIndexes = new EnumMap<>(Schema.Type.class);
+      for (int i = 0; i < codecs.length; i++) {
+        Schema unionSchema = unionSchemas.get(i);
+        codecs[i] = compile(unionSchema, recordCodecs);
+        if (!typeIndexes.containsKey(unionSchema.getType())) {
+          typeIndexes.put(unionSchema.getType(), i);
+        }
+      }
+      Integer idx = typeIndexes.get(Schema.Type.NULL);
+      this.nullIndex = idx == null ? -1 : idx;
+    }
+
+    @Override
+    void encode(Encoder encoder, @Nullable Object value) throws IOException {
+      int idx = value == null ? nullIndex : getIndex(value);
+      if (idx < 0) {
+        throw new IOException("Value type " + getSchemaType(value) + " not valid in union: " + schema);
+      }
+      encoder.writeInt(idx);
+      codecs[idx].encode(encoder, value);
+    }
+
+    @Override
+    Object decode(Decoder decoder) throws IOException {
+      int idx = decoder.readInt();
+      if (idx < 0 || idx >= codecs.length) {
+        throw new IOException("Invalid union index " + idx + " for union: " + schema);
+      }
+      return codecs[idx].decode(decoder);
+    }
+
+    private int getIndex(Object value) throws IOException {
+      Integer idx = typeIndexes.get(getSchemaType(value));
+      return idx == null ? -1 : idx;
+    }
+
+    private Schema.Type getSchemaType(@Nullable Object value) throws IOException {
+      if (value == null) {
+        return Schema.Type.NULL;
+      }
+      if (value instanceof String) {
+        return Schema.Type.STRING;
+      }
+      if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+        return Schema.Type.INT;
+      }
+      if (value instanceof Long) {
+        return Schema.Type.LONG;
+      }
+      if (value instanceof Boolean) {
+        return Schema.Type.BOOLEAN;
+      }
+      if (value instanceof Double) {
+        return Schema.Type.DOUBLE;
+      }
+      if (value instanceof Float) {
+        return Schema.Type.FLOAT;
+      }
+      if (value instanceof ByteBuffer || value instanceof byte[]) {
+        return Schema.Type.BYTES;
+      }
+      if (value instanceof StructuredRecord) {
+        return Schema.Type.RECORD;
+      }
+      if (value instanceof Collection || value.getClass().isArray()) {
+        return Schema.Type.ARRAY;
+      }
+      if (value instanceof Map) {
+        return Schema.Type.MAP;
+      }
+      throw new IOException("Unsupported type found in StructuredRecord: " + value.getClass());
+    }
+  }
+}
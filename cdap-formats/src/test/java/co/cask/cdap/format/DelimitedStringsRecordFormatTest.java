@@ -30,14 +30,58 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 /**
  *
  */
 public class DelimitedStringsRecordFormatTest {
 
+  @Test
+  public void testBatchRead() throws UnsupportedTypeException {
+    List<StreamEvent> events = new ArrayList<>();
+    for (String body : new String[] { "a||b||c", "||", "", "x||", "||y||1||2", "no delimiter" }) {
+      events.add(new StreamEvent(ByteBuffer.wrap(Bytes.toBytes(body))));
+    }
+    // Body that is not backed by an array
+    ByteBuffer directBody = ByteBuffer.allocateDirect(32);
+    directBody.put(Bytes.toBytes("d||e")).flip();
+    events.add(new StreamEvent(ImmutableMap.<String, String>of(), directBody));
+
+    Schema schema = Schema.recordOf("event",
+                                    Schema.Field.of("f1", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+                                    Schema.Field.of("f2", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+                                    Schema.Field.of("rest", Schema.arrayOf(Schema.of(Schema.Type.STRING))));
+
+    for (Schema formatSchema : Arrays.asList(null, schema)) {
+      DelimitedStringsRecordFormat format = new DelimitedStringsRecordFormat();
+      format.initialize(new FormatSpecification(DelimitedStringsRecordFormat.class.getCanonicalName(), formatSchema,
+                                                ImmutableMap.of(DelimitedStringsRecordFormat.DELIMITER, "||")));
+
+      List<StructuredRecord> records = new ArrayList<>();
+      format.read(events, records);
+      Assert.assertEquals(events.size(), records.size());
+
+      // Batch read should give the same records as reading one by one
+      for (int i = 0; i < events.size(); i++) {
+        StructuredRecord expected = format.read(events.get(i));
+        StructuredRecord actual = records.get(i);
+        for (Schema.Field field : expected.getSchema().getFields()) {
+          Object expectedValue = expected.get(field.getName());
+          Object actualValue = actual.get(field.getName());
+          if (expectedValue instanceof String[]) {
+            Assert.assertArrayEquals((String[]) expectedValue, (String[]) actualValue);
+          } else {
+            Assert.assertEquals(expectedValue, actualValue);
+          }
+        }
+      }
+    }
+  }
+
   @Test
   public void testSimpleSchemaValidation() throws UnsupportedTypeException {
     Schema simpleSchema = Schema.recordOf("event",
@@ -248,4 +248,56 @@ public class StructuredRecordBuilderTest {
     LocalDate expected = LocalDate.now();
     StructuredRecord.builder(schema).set("id", 1).set("name", "test").setDate("timestamp", expected).build();
   }
+
+  @Test
+  public void testPositionalAccess() {
+    Schema schema = Schema.recordOf("x",
+                                    Schema.Field.of("a", Schema.of(Schema.Type.INT)),
+                                    Schema.Field.of("b", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+                                    Schema.Field.of("c", Schema.of(Schema.Type.LONG)));
+    Assert.assertEquals(0, schema.getFieldIndex("a"));
+    Assert.assertEquals(2, schema.getFieldIndex("c"));
+    Assert.assertEquals(-1, schema.getFieldIndex("d"));
+
+    StructuredRecord record = StructuredRecord.builder(schema).set(0, 1).set("c", 3L).build();
+    Assert.assertEquals(1, (int) record.get("a"));
+    Assert.assertEquals(1, (int) record.get(0));
+    Assert.assertNull(record.get(1));
+    Assert.assertEquals(3L, (long) record.get(2));
+    Assert.assertEquals(record, StructuredRecord.builder(schema).set("a", 1).set(2, 3L).set(1, null).build());
+
+    try {
+      StructuredRecord.builder(schema).set(0, null);
+      Assert.fail("Expected UnexpectedFormatException");
+    } catch (UnexpectedFormatException e) {
+      // expected
+    }
+    try {
+      StructuredRecord.builder(schema).set(0, 1).build();
+      Assert.fail("Expected UnexpectedFormatException");
+    } catch (UnexpectedFormatException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testDerivedRecord() {
+    Schema schema = Schema.recordOf("x",
+                                    Schema.Field.of("a", Schema.of(Schema.Type.INT)),
+                                    Schema.Field.of("b", Schema.of(Schema.Type.STRING)));
+    StructuredRecord.Builder builder = StructuredRecord.builder(schema).set("a", 1).set("b", "1");
+    StructuredRecord record = builder.build();
+
+    // Modifying the builder after build shouldn't affect the record built
+    StructuredRecord record2 = builder.set("a", 2).build();
+    Assert.assertEquals(1, (int) record.get("a"));
+    Assert.assertEquals(2, (int) record2.get("a"));
+
+    // Derived record has all the values of the source record, and modification doesn't affect the source record
+    Assert.assertEquals(record, StructuredRecord.builder(record).build());
+    StructuredRecord derived = StructuredRecord.builder(record).set("b", "2").build();
+    Assert.assertEquals(1, (int) derived.get("a"));
+    Assert.assertEquals("2", derived.get("b"));
+    Assert.assertEquals("1", record.get("b"));
+  }
 }
@@ -0,0 +1,172 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.format.io;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.data.format.StructuredRecord;
+import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.common.io.BinaryDecoder;
+import co.cask.cdap.common.io.BinaryEncoder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * Unit test for {@link StructuredRecordBinaryCodec}.
+ */
+public class StructuredRecordBinaryCodecTest {
+
+  private static final Schema INNER_SCHEMA = Schema.recordOf(
+    "inner",
+    Schema.Field.of("id", Schema.of(Schema.Type.INT)),
+    Schema.Field.of("tags", Schema.nullableOf(Schema.arrayOf(Schema.of(Schema.Type.STRING)))));
+
+  private static final Schema SCHEMA = Schema.recordOf(
+    "record",
+    Schema.Field.of("boolean", Schema.of(Schema.Type.BOOLEAN)),
+    Schema.Field.of("int", Schema.of(Schema.Type.INT)),
+    Schema.Field.of("long", Schema.of(Schema.Type.LONG)),
+    Schema.Field.of("float", Schema.of(Schema.Type.FLOAT)),
+    Schema.Field.of("double", Schema.of(Schema.Type.DOUBLE)),
+    Schema.Field.of("string", Schema.of(Schema.Type.STRING)),
+    Schema.Field.of("nullString", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+    Schema.Field.of("bytes", Schema.of(Schema.Type.BYTES)),
+    Schema.Field.of("buffer", Schema.of(Schema.Type.BYTES)),
+    Schema.Field.of("enum", Schema.enumWith("a", "b", "c")),
+    Schema.Field.of("date", Schema.of(Schema.LogicalType.DATE)),
+    Schema.Field.of("time", Schema.nullableOf(Schema.of(Schema.LogicalType.TIME_MICROS))),
+    Schema.Field.of("timestamp", Schema.of(Schema.LogicalType.TIMESTAMP_MILLIS)),
+    Schema.Field.of("intArray", Schema.arrayOf(Schema.of(Schema.Type.INT))),
+    Schema.Field.of("map", Schema.mapOf(Schema.of(Schema.Type.STRING), Schema.nullableOf(INNER_SCHEMA))),
+    Schema.Field.of("union", Schema.unionOf(Schema.of(Schema.Type.NULL), Schema.of(Schema.Type.LONG),
+                                            Schema.of(Schema.Type.STRING))),
+    Schema.Field.of("inner", INNER_SCHEMA));
+
+  @Test
+  public void testCompatibility() throws IOException {
+    StructuredRecord record = createRecord(1, "union");
+    StructuredRecordBinaryCodec codec = StructuredRecordBinaryCodec.of(SCHEMA);
+
+    // The codec produces the same binary format as the StructuredRecordDatumWriter
+    byte[] encoded = encode(codec, record);
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    new StructuredRecordDatumWriter().encode(record, new BinaryEncoder(os));
+    Assert.assertArrayEquals(os.toByteArray(), encoded);
+
+    // Decode should give the same result as the StructuredRecordDatumReader
+    StructuredRecord decoded = codec.decode(new BinaryDecoder(new ByteArrayInputStream(encoded)));
+    Assert.assertEquals(new StructuredRecordDatumReader().read(new BinaryDecoder(new ByteArrayInputStream(encoded)),
+                                                               SCHEMA), decoded);
+
+    Assert.assertTrue(decoded.get("boolean"));
+    Assert.assertEquals("string1", decoded.get("string"));
+    Assert.assertNull(decoded.get("nullString"));
+    Assert.assertEquals(ByteBuffer.wrap(Bytes.toBytes("bytes")), decoded.get("bytes"));
+    Assert.assertEquals("b", decoded.get("enum"));
+    Assert.assertEquals(record.getDate("date"), decoded.getDate("date"));
+    Assert.assertEquals(record.getTime("time"), decoded.getTime("time"));
+    Assert.assertEquals(record.getTimestamp("timestamp"), decoded.getTimestamp("timestamp"));
+    Assert.assertEquals(ImmutableList.of(1, 2, 3), decoded.get("intArray"));
+    Assert.assertEquals("union", decoded.get("union"));
+    Assert.assertEquals(record.<StructuredRecord>get("inner"), decoded.get("inner"));
+    Assert.assertEquals(ImmutableList.of("x"), decoded.<StructuredRecord>get("inner").get("tags"));
+  }
+
+  @Test
+  public void testMultipleRecords() throws IOException {
+    StructuredRecordBinaryCodec codec = StructuredRecordBinaryCodec.of(SCHEMA);
+    Assert.assertSame(codec, StructuredRecordBinaryCodec.of(SCHEMA));
+
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    BinaryEncoder encoder = new BinaryEncoder(os);
+    for (int i = 0; i < 10; i++) {
+      codec.encode(createRecord(i, i % 2 == 0 ? null : (Object) (long) i), encoder);
+    }
+
+    BinaryDecoder decoder = new BinaryDecoder(new ByteArrayInputStream(os.toByteArray()));
+    for (int i = 0; i < 10; i++) {
+      StructuredRecord record = codec.decode(decoder);
+      Assert.assertEquals(i, (int) record.get("int"));
+      Assert.assertEquals(i % 2 == 0 ? null : (long) i, record.<Long>get("union"));
+    }
+  }
+
+  @Test
+  public void testRecursiveRecord() throws IOException {
+    Schema schema = Schema.recordOf("node",
+                                    Schema.Field.of("value", Schema.of(Schema.Type.STRING)),
+                                    Schema.Field.of("next", Schema.nullableOf(Schema.recordOf("node"))));
+    Schema nextSchema = schema.getField("next").getSchema().getNonNullable();
+    StructuredRecord record = StructuredRecord.builder(schema)
+      .set("value", "1")
+      .set("next", StructuredRecord.builder(nextSchema).set("value", "2").build())
+      .build();
+
+    StructuredRecordBinaryCodec codec = StructuredRecordBinaryCodec.of(schema);
+    StructuredRecord decoded = codec.decode(new BinaryDecoder(new ByteArrayInputStream(encode(codec, record))));
+    Assert.assertEquals("1", decoded.get("value"));
+    Assert.assertEquals("2", decoded.<StructuredRecord>get("next").get("value"));
+    Assert.assertNull(decoded.<StructuredRecord>get("next").get("next"));
+  }
+
+  @Test(expected = IOException.class)
+  public void testInvalidUnionValue() throws IOException {
+    Schema schema = Schema.recordOf("record",
+                                    Schema.Field.of("union", Schema.unionOf(Schema.of(Schema.Type.INT),
+                                                                            Schema.of(Schema.Type.STRING))));
+    StructuredRecord record = StructuredRecord.builder(schema).set("union", 1.0d).build();
+    encode(StructuredRecordBinaryCodec.of(schema), record);
+  }
+
+  private StructuredRecord createRecord(int id, Object union) {
+    return StructuredRecord.builder(SCHEMA)
+      .set("boolean", true)
+      .set("int", id)
+      .set("long", 10L * id)
+      .set("float", 1.5f * id)
+      .set("double", 2.5d * id)
+      .set("string", "string" + id)
+      .set("nullString", null)
+      .set("bytes", Bytes.toBytes("bytes"))
+      .set("buffer", ByteBuffer.wrap(Bytes.toBytes("buffer")))
+      .set("enum", "b")
+      .setDate("date", LocalDate.of(2018, 1, 1))
+      .setTime("time", LocalTime.of(10, 20, 30))
+      .setTimestamp("timestamp", ZonedDateTime.of(2018, 1, 1, 10, 20, 30, 0, ZoneId.of("UTC")))
+      .set("intArray", new int[] { 1, 2, 3 })
+      .set("map", ImmutableMap.of("key", StructuredRecord.builder(INNER_SCHEMA).set("id", id).build()))
+      .set("union", union)
+      .set("inner", StructuredRecord.builder(INNER_SCHEMA).set("id", id).set("tags", ImmutableList.of("x")).build())
+      .build();
+  }
+
+  private byte[] encode(StructuredRecordBinaryCodec codec, StructuredRecord record) throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    codec.encode(record, new BinaryEncoder(os));
+    return os.toByteArray();
+  }
+}
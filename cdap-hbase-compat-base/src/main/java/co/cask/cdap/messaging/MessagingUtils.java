@@ -40,6 +40,12 @@ public final class MessagingUtils {
     public static final byte[] METADATA_COLUMN = Bytes.toBytes("m");
     public static final String GENERATION_KEY = "generation";
     public static final String TTL_KEY = "ttl";
+    public static final String PARTITIONS_KEY = "partitions";
+    // Marks the start of the partition id in data table row keys. It can never be the first byte of a generation,
+    // since generations in data table row keys are always positive.
+    public static final byte PARTITION_MARKER = (byte) 0xff;
+    // Number of bytes taken by the partition id in data table row keys, including the marker.
+    public static final int PARTITION_SUFFIX_LENGTH = 1 + Bytes.SIZEOF_INT;
     public static final byte[] TX_COL = Bytes.toBytes('t');
     public static final byte[] PAYLOAD_COL = Bytes.toBytes('p');
     public static final long METADATA_CACHE_UPDATE_FREQUENCY_SECS = TimeUnit.MINUTES.toSeconds(5);
@@ -65,10 +71,31 @@ public final class MessagingUtils {
    * @return byte array representation to be used as row key prefix for data tables
    */
   public static byte[] toDataKeyPrefix(TopicId topicId, int generation) {
+    return toDataKeyPrefix(topicId, 0, generation);
+  }
+
+  /**
+   * Convert {@link TopicId}, partition and generation id to byte array to be used for data tables (message and payload)
+   * as row key prefix. For partition {@code 0}, the row key prefix is the same as the one returned by
+   * {@link #toDataKeyPrefix(TopicId, int)}. For other partitions, the {@link Constants#PARTITION_MARKER} followed by
+   * the partition id is inserted between the topic and the generation id. Since the marker is never the first
+   * byte of a generation id, the row key prefix of one partition is never a prefix of rows in another partition.
+   *
+   * @param topicId {@link TopicId}
+   * @param partition partition of the topic
+   * @param generation generation id of the topic
+   * @return byte array representation to be used as row key prefix for data tables
+   */
+  public static byte[] toDataKeyPrefix(TopicId topicId, int partition, int generation) {
     byte[] metadataRowKey = toMetadataRowKey(topicId);
-    byte[] keyPrefix = new byte[metadataRowKey.length + Bytes.SIZEOF_INT];
+    int partitionSize = partition == 0 ? 0 : Constants.PARTITION_SUFFIX_LENGTH;
+    byte[] keyPrefix = new byte[metadataRowKey.length + partitionSize + Bytes.SIZEOF_INT];
     Bytes.putBytes(keyPrefix, 0, metadataRowKey, 0, metadataRowKey.length);
-    Bytes.putInt(keyPrefix, metadataRowKey.length, generation);
+    if (partition != 0) {
+      keyPrefix[metadataRowKey.length] = Constants.PARTITION_MARKER;
+      Bytes.putInt(keyPrefix, metadataRowKey.length + 1, partition);
+    }
+    Bytes.putInt(keyPrefix, metadataRowKey.length + partitionSize, generation);
     return keyPrefix;
   }
 
@@ -81,13 +108,37 @@ public final class MessagingUtils {
    * @return {@link TopicId}
    */
   public static TopicId toTopicId(byte[] topicBytes, int offset, int length) {
-    String topic = Bytes.toString(topicBytes, offset, length);
-    int firstSeparator = topic.indexOf(":", offset);
-    String ns = topic.substring(offset, firstSeparator);
+    // Only decode up to the end of the topic name, since there can be partition id afterward.
+    int topicEnd = getTopicEnd(topicBytes, offset, length);
+    String topic = Bytes.toString(topicBytes, offset, topicEnd - offset);
+    int firstSeparator = topic.indexOf(":");
+    String ns = topic.substring(0, firstSeparator);
     String topicId = topic.substring(firstSeparator + 1, topic.length() - 1);
     return new TopicId(ns, topicId);
   }
 
+  /**
+   * Returns the partition id from the topic bytes encoded in the data table row key prefix.
+   *
+   * @param topicBytes byte array which contains the topic id, optionally followed by the partition id
+   * @param offset offset to start decoding
+   * @param length number of bytes that contains the topic id and the optional partition id
+   * @return the partition id
+   * @see #toDataKeyPrefix(TopicId, int, int)
+   */
+  public static int getPartition(byte[] topicBytes, int offset, int length) {
+    int topicEnd = getTopicEnd(topicBytes, offset, length);
+    if (topicEnd == offset + length) {
+      return 0;
+    }
+    if (offset + length - topicEnd != Constants.PARTITION_SUFFIX_LENGTH
+      || topicBytes[topicEnd] != Constants.PARTITION_MARKER) {
+      throw new IllegalArgumentException("Invalid partition in topic bytes "
+                                           + Bytes.toStringBinary(topicBytes, offset, length));
+    }
+    return Bytes.toInt(topicBytes, topicEnd + 1);
+  }
+
   /**
    * Convert byte array encoded with the {@link #toMetadataRowKey(TopicId)} method back to the {@link TopicId}.
    * Same as calling {@link #toTopicId(byte[], int, int)} with {@code offset = 0}
@@ -148,6 +199,20 @@ public final class MessagingUtils {
     return Bytes.toLong(messageTableRowKey, offset + getTopicLengthMessageEntry(rowKeyLength));
   }
 
+  /**
+   * Returns the exclusive end position of the topic id encoded with the {@link #toMetadataRowKey(TopicId)} method,
+   * which is the position right after the second separator.
+   */
+  private static int getTopicEnd(byte[] topicBytes, int offset, int length) {
+    int separators = 0;
+    for (int i = offset; i < offset + length; i++) {
+      if (topicBytes[i] == ':' && ++separators == 2) {
+        return i + 1;
+      }
+    }
+    throw new IllegalArgumentException("Invalid topic bytes " + Bytes.toStringBinary(topicBytes, offset, length));
+  }
+
   /**
    * Determine if the data generation is older compared to the current generation
    *
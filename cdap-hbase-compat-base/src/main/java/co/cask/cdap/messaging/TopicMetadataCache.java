@@ -100,9 +100,23 @@ public class TopicMetadataCache extends AbstractIdleService {
     }
   }
 
+  /**
+   * Returns the topic properties for the given topic bytes. The topic bytes can optionally be followed by the
+   * partition id as encoded in the row key prefix of data tables, in which case the properties of the topic
+   * that the partition belongs to are returned.
+   */
   @Nullable
   public Map<String, String> getTopicMetadata(ByteBuffer topicId) {
-    return metadataCache.get(topicId);
+    Map<String, String> properties = metadataCache.get(topicId);
+    int partitionStart = topicId.limit() - MessagingUtils.Constants.PARTITION_SUFFIX_LENGTH;
+    if (properties != null || partitionStart <= topicId.position()
+      || topicId.get(partitionStart) != MessagingUtils.Constants.PARTITION_MARKER) {
+      return properties;
+    }
+    // Lookup again without the partition id.
+    ByteBuffer topic = topicId.duplicate();
+    topic.limit(partitionStart);
+    return metadataCache.get(topic);
   }
 
   @Nullable
@@ -24,12 +24,25 @@ import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
- * A Kryo {@link Serializer} for {@link Schema}.
+ * A Kryo {@link Serializer} for {@link Schema}. Recently read schemas are cached, so that records of the same schema
+ * share the same {@link Schema} instance, and the schema json is not parsed for every record.
  */
 public class SchemaSerializer extends Serializer<Schema> {
 
+  private static final int MAX_CACHE_SIZE = 100;
+
+  // Kryo instance is not thread safe, hence no need to synchronize on the cache
+  private final Map<String, Schema> schemaCache = new LinkedHashMap<String, Schema>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Schema> eldest) {
+      return size() > MAX_CACHE_SIZE;
+    }
+  };
+
   @Override
   public void write(Kryo kryo, Output output, Schema schema) {
     output.writeString(schema.toString());
@@ -37,8 +50,15 @@ public class SchemaSerializer extends Serializer<Schema> {
 
   @Override
   public Schema read(Kryo kryo, Input input, Class<Schema> type) {
+    String schemaStr = input.readString();
+    Schema schema = schemaCache.get(schemaStr);
+    if (schema != null) {
+      return schema;
+    }
     try {
-      return Schema.parseJson(input.readString());
+      schema = Schema.parseJson(schemaStr);
+      schemaCache.put(schemaStr, schema);
+      return schema;
     } catch (IOException e) {
       throw new KryoException("Fail to deserialize Schema", e);
     }
@@ -18,8 +18,7 @@ package co.cask.cdap.app.runtime.spark.serializer;
 
 import co.cask.cdap.api.data.format.StructuredRecord;
 import co.cask.cdap.api.data.schema.Schema;
-import co.cask.cdap.format.io.StructuredRecordDatumReader;
-import co.cask.cdap.format.io.StructuredRecordDatumWriter;
+import co.cask.cdap.format.io.StructuredRecordBinaryCodec;
 import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.KryoException;
 import com.esotericsoftware.kryo.Serializer;
@@ -33,16 +32,13 @@ import java.io.IOException;
  */
 public class StructuredRecordSerializer extends Serializer<StructuredRecord> {
 
-  private static final StructuredRecordDatumWriter DATUM_WRITER = new StructuredRecordDatumWriter();
-  private static final StructuredRecordDatumReader DATUM_READER = new StructuredRecordDatumReader();
-
   @Override
   public void write(Kryo kryo, Output output, StructuredRecord record) {
     // First write out the schema
     kryo.writeObject(output, record.getSchema());
     // Then write out the data
     try {
-      DATUM_WRITER.encode(record, new KryoEncoder(output));
+      StructuredRecordBinaryCodec.of(record.getSchema()).encode(record, new KryoEncoder(output));
     } catch (IOException e) {
       throw new KryoException("Failed to encode StructuredRecord " + record.getSchema().getRecordName(), e);
     }
@@ -53,7 +49,7 @@ public class StructuredRecordSerializer extends Serializer<StructuredRecord> {
     // Read the schema
     Schema schema = kryo.readObject(input, Schema.class);
     try {
-      return DATUM_READER.read(new KryoDecoder(input), schema);
+      return StructuredRecordBinaryCodec.of(schema).decode(new KryoDecoder(input));
     } catch (IOException e) {
       throw new KryoException("Failed to decode StructuredRecord " + schema.getRecordName(), e);
     }
@@ -17,8 +17,11 @@
 package co.cask.cdap.spi.stream;
 
 import co.cask.cdap.api.data.format.RecordFormat;
+import co.cask.cdap.api.data.format.UnexpectedFormatException;
 import co.cask.cdap.api.flow.flowlet.StreamEvent;
 
+import java.util.List;
+
 /**
  * Format for a record contained in a {@link StreamEvent}.
  *
@@ -26,4 +29,17 @@ import co.cask.cdap.api.flow.flowlet.StreamEvent;
  */
 public abstract class AbstractStreamEventRecordFormat<T> extends RecordFormat<StreamEvent, T> {
 
+  /**
+   * Reads a batch of stream events. The default implementation calls {@link #read(Object)} for each event.
+   * Formats can override it to reuse intermediate objects across the events in the batch.
+   *
+   * @param events the events to read
+   * @param records the list to add the formatted events to, in the same order as the events
+   * @throws UnexpectedFormatException if any of the events could not be read because it is of an unexpected format.
+   */
+  public void read(List<? extends StreamEvent> events, List<? super T> records) throws UnexpectedFormatException {
+    for (StreamEvent event : events) {
+      records.add(read(event));
+    }
+  }
 }
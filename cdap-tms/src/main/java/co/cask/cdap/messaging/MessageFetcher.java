@@ -35,6 +35,7 @@ public abstract class MessageFetcher {
   private boolean includeStart = true;
   private Long startTime;
   private Transaction transaction;
+  private int partition;
 
   // by default there is virtually no limit
   private int limit = Integer.MAX_VALUE;
@@ -82,6 +83,22 @@ public abstract class MessageFetcher {
     return this;
   }
 
+  /**
+   * Sets the topic partition to fetch from. By default, messages are fetched from partition {@code 0}.
+   * Message ids are ordered within a partition, hence the start message set by the
+   * {@link #setStartMessage(byte[], boolean)} method should be a message id fetched from the same partition.
+   *
+   * @param partition the partition to fetch from
+   * @return this instance
+   */
+  public MessageFetcher setPartition(int partition) {
+    if (partition < 0) {
+      throw new IllegalArgumentException("Invalid partition. Partition must be >= 0");
+    }
+    this.partition = partition;
+    return this;
+  }
+
   /**
    * Sets the maximum limit on number of messages to be fetched. By default, this is set to {@code Integer.MAX_VALUE}.
    *
@@ -119,6 +136,10 @@ public abstract class MessageFetcher {
     return limit;
   }
 
+  protected int getPartition() {
+    return partition;
+  }
+
   /**
    * Returns a {@link CloseableIterator} that iterates over messages fetched from the messaging system.
    *
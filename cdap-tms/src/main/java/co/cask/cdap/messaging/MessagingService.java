@@ -44,10 +44,11 @@ public interface MessagingService {
   void createTopic(TopicMetadata topicMetadata) throws TopicAlreadyExistsException, IOException;
 
   /**
-   * Updates the metadata of a topic.
+   * Updates the metadata of a topic. The number of partitions of a topic cannot be changed.
    *
    * @param topicMetadata the topic metadata to be updated
    * @throws TopicNotFoundException if the topic doesn't exist
+   * @throws IllegalArgumentException if the topic metadata gives a different number of partitions
    * @throws IOException if failed to update the topic metadata
    * @throws ServiceUnavailableException if the messaging service is not available
    */
@@ -19,21 +19,31 @@ package co.cask.cdap.messaging;
 import co.cask.cdap.proto.id.TopicId;
 
 import java.util.Iterator;
+import javax.annotation.Nullable;
 
 /**
  * This class represents messages to be store to the messaging system.
  * The message payloads are provide through the {@link Iterator}.
+ * If the request has a partition key, all the messages are stored to the topic partition selected by the key,
+ * so that messages published with the same key are consumed in order from the same partition.
  */
 public abstract class StoreRequest implements Iterable<byte[]> {
 
   private final TopicId topicId;
   private final boolean transactional;
   private final long transactionWritePointer;
+  private final String partitionKey;
 
   protected StoreRequest(TopicId topicId, boolean transactional, long transactionWritePointer) {
+    this(topicId, transactional, transactionWritePointer, null);
+  }
+
+  protected StoreRequest(TopicId topicId, boolean transactional, long transactionWritePointer,
+                         @Nullable String partitionKey) {
     this.topicId = topicId;
     this.transactional = transactional;
     this.transactionWritePointer = transactionWritePointer;
+    this.partitionKey = partitionKey;
   }
 
   public TopicId getTopicId() {
@@ -55,6 +65,16 @@ public abstract class StoreRequest implements Iterable<byte[]> {
     return transactionWritePointer;
   }
 
+  /**
+   * Returns the key for selecting the topic partition to store to, or {@code null} to store to partition {@code 0}.
+   *
+   * @see TopicMetadata#getPartition(String)
+   */
+  @Nullable
+  public String getPartitionKey() {
+    return partitionKey;
+  }
+
   /**
    * Returns {@code true} if there is payload in this request.
    */
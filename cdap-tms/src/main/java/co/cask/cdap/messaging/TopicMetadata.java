@@ -22,6 +22,7 @@ import com.google.common.collect.ImmutableMap;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import javax.annotation.Nullable;
 
 /**
  * Represents metadata about a messaging topic.
@@ -30,10 +31,12 @@ public class TopicMetadata {
 
   public static final String GENERATION_KEY = MessagingUtils.Constants.GENERATION_KEY;
   public static final String TTL_KEY = MessagingUtils.Constants.TTL_KEY;
+  public static final String PARTITIONS_KEY = MessagingUtils.Constants.PARTITIONS_KEY;
 
   private final TopicId topicId;
   private final Map<String, String> properties;
   private final transient boolean validated;
+  private final transient int partition;
 
   /**
    * Creates a new instance for the given topic with the associated properties.
@@ -56,6 +59,7 @@ public class TopicMetadata {
       validateProperties();
     }
     this.validated = validate;
+    this.partition = 0;
   }
 
   /**
@@ -68,6 +72,13 @@ public class TopicMetadata {
     this(topicId, toMap(properties));
   }
 
+  private TopicMetadata(TopicMetadata other, int partition) {
+    this.topicId = other.topicId;
+    this.properties = other.properties;
+    this.validated = other.validated;
+    this.partition = partition;
+  }
+
   /**
    * Returns the topic id that this metadata is associated with.
    */
@@ -109,6 +120,56 @@ public class TopicMetadata {
     return Integer.parseInt(properties.get(TTL_KEY));
   }
 
+  /**
+   * Returns the number of partitions of the topic. Topics without the partitions property have one partition.
+   */
+  public int getPartitions() {
+    if (!validated) {
+      validatePartitions();
+    }
+    String partitions = properties.get(PARTITIONS_KEY);
+    return partitions == null ? 1 : Integer.parseInt(partitions);
+  }
+
+  /**
+   * Returns the partition that data operations performed with this metadata are applied to.
+   * It is always {@code 0} unless this instance was created by the {@link #forPartition(int)} method.
+   */
+  public int getPartition() {
+    return partition;
+  }
+
+  /**
+   * Returns a {@link TopicMetadata} that has the same topic id and properties as this instance, with
+   * data operations applied to the given partition.
+   *
+   * @param partition the partition, which must be in the range of {@code [0, getPartitions())}
+   * @throws IllegalArgumentException if the given partition is not valid for the topic
+   */
+  public TopicMetadata forPartition(int partition) {
+    if (partition == this.partition) {
+      return this;
+    }
+    if (partition < 0 || partition >= getPartitions()) {
+      throw new IllegalArgumentException("Invalid partition " + partition + " for topic " + topicId
+                                           + ", which has " + getPartitions() + " partitions");
+    }
+    return new TopicMetadata(this, partition);
+  }
+
+  /**
+   * Returns the partition for the given partition key.
+   *
+   * @param partitionKey the partition key or {@code null} for publishing to partition {@code 0}
+   * @return the partition in the range of {@code [0, getPartitions())}
+   */
+  public int getPartition(@Nullable String partitionKey) {
+    if (partitionKey == null) {
+      return 0;
+    }
+    return (partitionKey.hashCode() & Integer.MAX_VALUE) % getPartitions();
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -118,12 +179,13 @@ public class TopicMetadata {
       return false;
     }
     TopicMetadata that = (TopicMetadata) o;
-    return Objects.equals(topicId, that.topicId) && Objects.equals(properties, that.properties);
+    return partition == that.partition
+      && Objects.equals(topicId, that.topicId) && Objects.equals(properties, that.properties);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(topicId, properties);
+    return Objects.hash(topicId, properties, partition);
   }
 
   @Override
@@ -131,6 +193,7 @@ public class TopicMetadata {
     return "TopicMetadata{" +
       "topicId=" + topicId +
       ", properties=" + properties +
+      (partition == 0 ? "" : ", partition=" + partition) +
       '}';
   }
 
@@ -142,6 +205,7 @@ public class TopicMetadata {
   private void validateProperties() {
     validateTTL();
     validateGeneration();
+    validatePartitions();
   }
 
   /**
@@ -183,6 +247,26 @@ public class TopicMetadata {
     }
   }
 
+  /**
+   * Validates the optional "partitions" property of the given topic.
+   *
+   * @throws IllegalArgumentException if the partitions value is not a number or <= 0.
+   */
+  private void validatePartitions() {
+    String partitions = properties.get(PARTITIONS_KEY);
+    if (partitions == null) {
+      return;
+    }
+    try {
+      if (Integer.parseInt(partitions) <= 0) {
+        throw new IllegalArgumentException("The partitions property must be greater than zero for topic " + topicId);
+      }
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("The partitions property must be a number greater than zero for topic "
+                                           + topicId, e);
+    }
+  }
+
   /**
    * Turns a list of {@link Object} into a {@link Map} by using even index objects as keys and the following odd index
    * objects as values. The {@link Object#toString()} method will be used to convert {@link Object} to {@link String}.
@@ -61,17 +61,19 @@ import javax.annotation.Nullable;
  *     it if needed. This essentially is to amortize the cost of the blocking weight reduction operations among all
  *     fetchers (which typically has multiple of them), without blocking the single publish as much as possible.
  *
+ * Subclasses can provide a different storage for the cached entries by overriding all the public operations.
+ *
  * @param <T> type of entry stored in the cache
  */
 public class MessageCache<T> {
 
-  private static final String METRICS_WEIGHT = "cache.weight";
-  private static final String METRICS_ENTRIES_ADDED = "cache.entries.added";
-  private static final String METRICS_ENTRIES_REMOVED = "cache.entries.removed";
-  private static final String METRICS_ADD_REQUESTS = "cache.add.requests";
-  private static final String METRICS_ADD_REDUCE_WEIGHT = "cache.add.reduce.weight";
-  private static final String METRICS_SCAN_REQUESTS = "cache.scan.requests";
-  private static final String METRICS_SCAN_REDUCE_WEIGHT = "cache.scan.reduce.weight";
+  protected static final String METRICS_WEIGHT = "cache.weight";
+  protected static final String METRICS_ENTRIES_ADDED = "cache.entries.added";
+  protected static final String METRICS_ENTRIES_REMOVED = "cache.entries.removed";
+  protected static final String METRICS_ADD_REQUESTS = "cache.add.requests";
+  protected static final String METRICS_ADD_REDUCE_WEIGHT = "cache.add.reduce.weight";
+  protected static final String METRICS_SCAN_REQUESTS = "cache.scan.requests";
+  protected static final String METRICS_SCAN_REDUCE_WEIGHT = "cache.scan.reduce.weight";
 
   private final NavigableSet<CacheEntry<T>> cache;
   private final Comparator<T> comparator;
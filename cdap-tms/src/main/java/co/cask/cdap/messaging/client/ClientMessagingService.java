@@ -32,6 +32,7 @@ import co.cask.cdap.messaging.Schemas;
 import co.cask.cdap.messaging.StoreRequest;
 import co.cask.cdap.messaging.TopicMetadata;
 import co.cask.cdap.messaging.data.RawMessage;
+import co.cask.cdap.messaging.data.RawMessageFrames;
 import co.cask.cdap.proto.id.NamespaceId;
 import co.cask.cdap.proto.id.TopicId;
 import co.cask.common.http.HttpMethod;
@@ -61,12 +62,15 @@ import org.apache.avro.io.EncoderFactory;
 import org.apache.tephra.TransactionCodec;
 import org.apache.twill.discovery.DiscoveryServiceClient;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.net.URLEncoder;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -95,12 +99,26 @@ public final class ClientMessagingService implements MessagingService {
   private static final Type TOPIC_LIST_TYPE = new TypeToken<List<String>>() { }.getType();
 
   private final RemoteClient remoteClient;
+  private final boolean acceptFramedMessages;
 
   @VisibleForTesting
   @Inject
   public ClientMessagingService(final DiscoveryServiceClient discoveryServiceClient) {
+    this(discoveryServiceClient, true);
+  }
+
+  /**
+   * Creates an instance.
+   *
+   * @param discoveryServiceClient the {@link DiscoveryServiceClient} for discovering the messaging service
+   * @param acceptFramedMessages {@code true} to ask the messaging service to respond to fetch requests using the
+   *                             {@link RawMessageFrames} format; {@code false} to always use avro
+   */
+  @VisibleForTesting
+  public ClientMessagingService(DiscoveryServiceClient discoveryServiceClient, boolean acceptFramedMessages) {
     this.remoteClient = new RemoteClient(discoveryServiceClient, Constants.Service.MESSAGING_SERVICE,
                                          HTTP_REQUEST_CONFIG, "/v1/namespaces/");
+    this.acceptFramedMessages = acceptFramedMessages;
   }
 
   @Override
@@ -245,7 +263,11 @@ public final class ClientMessagingService implements MessagingService {
     // Make the publish request
     String writeType = publish ? "publish" : "store";
     TopicId topicId = request.getTopicId();
-    HttpRequest httpRequest = remoteClient.requestBuilder(HttpMethod.POST, createTopicPath(topicId) + "/" + writeType)
+    String path = createTopicPath(topicId) + "/" + writeType;
+    if (request.getPartitionKey() != null) {
+      path += "?partitionKey=" + URLEncoder.encode(request.getPartitionKey(), StandardCharsets.UTF_8.name());
+    }
+    HttpRequest httpRequest = remoteClient.requestBuilder(HttpMethod.POST, path)
       .addHeader(HttpHeaders.CONTENT_TYPE, "avro/binary")
       .withBody(os.toByteBuffer())
       .build();
@@ -398,12 +420,20 @@ public final class ClientMessagingService implements MessagingService {
 
       // The cask common http library doesn't support read streaming, and we don't want to buffer all messages
       // in memory, hence we use the HttpURLConnection directly instead.
-      URL url = remoteClient.resolve(createTopicPath(topicId) + "/poll");
+      String path = createTopicPath(topicId) + "/poll";
+      if (getPartition() != 0) {
+        path += "?partition=" + getPartition();
+      }
+      URL url = remoteClient.resolve(path);
       final HttpURLConnection urlConn = (HttpURLConnection)  url.openConnection();
       urlConn.setConnectTimeout(HTTP_REQUEST_CONFIG.getConnectTimeout());
       urlConn.setReadTimeout(HTTP_REQUEST_CONFIG.getReadTimeout());
       urlConn.setRequestMethod("POST");
       urlConn.setRequestProperty(HttpHeaders.CONTENT_TYPE, "avro/binary");
+      if (acceptFramedMessages) {
+        // Prefer the framed format, which older servers don't understand and will respond with avro instead.
+        urlConn.setRequestProperty(HttpHeaders.ACCEPT, RawMessageFrames.CONTENT_TYPE + ", avro/binary");
+      }
       urlConn.setDoInput(true);
       urlConn.setDoOutput(true);
 
@@ -428,6 +458,10 @@ public final class ClientMessagingService implements MessagingService {
           urlConn.disconnect();
         }
       }, "Failed to update topic " + topicId);
+
+      if (acceptFramedMessages && RawMessageFrames.CONTENT_TYPE.equalsIgnoreCase(urlConn.getContentType())) {
+        return createFramedIterator(urlConn);
+      }
       verifyContentType(urlConn.getHeaderFields(), "avro/binary");
 
       // Decode the avro array manually instead of using DatumReader in order to support streaming decode.
@@ -474,5 +508,30 @@ public final class ClientMessagingService implements MessagingService {
         }
       };
     }
+
+    /**
+     * Creates a {@link CloseableIterator} that decodes messages in the {@link RawMessageFrames} format
+     * from the response.
+     */
+    private CloseableIterator<RawMessage> createFramedIterator(final HttpURLConnection urlConn) throws IOException {
+      final DataInputStream input = new DataInputStream(new BufferedInputStream(urlConn.getInputStream()));
+      return new AbstractCloseableIterator<RawMessage>() {
+        @Override
+        protected RawMessage computeNext() {
+          try {
+            RawMessage message = RawMessageFrames.read(input);
+            return message == null ? endOfData() : message;
+          } catch (IOException e) {
+            throw Throwables.propagate(e);
+          }
+        }
+
+        @Override
+        public void close() {
+          Closeables.closeQuietly(input);
+          urlConn.disconnect();
+        }
+      };
+    }
   }
 }
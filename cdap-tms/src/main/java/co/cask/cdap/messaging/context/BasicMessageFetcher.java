@@ -19,7 +19,6 @@ package co.cask.cdap.messaging.context;
 import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.api.dataset.lib.CloseableIterator;
 import co.cask.cdap.api.messaging.Message;
-import co.cask.cdap.api.messaging.MessageFetcher;
 import co.cask.cdap.api.messaging.TopicNotFoundException;
 import co.cask.cdap.messaging.MessagingService;
 import co.cask.cdap.proto.id.NamespaceId;
@@ -32,10 +31,11 @@ import java.util.Collections;
 import javax.annotation.Nullable;
 
 /**
- * Implementation of {@link MessageFetcher} that implements {@link TransactionAware}. The active transaction will
- * be used for fetching messages if there is one. Otherwise messages will be fetched without transaction.
+ * Implementation of {@link PartitionedMessageFetcher} that implements {@link TransactionAware}.
+ * The active transaction will be used for fetching messages if there is one. Otherwise messages will be fetched
+ * without transaction.
  */
-final class BasicMessageFetcher implements MessageFetcher, TransactionAware {
+final class BasicMessageFetcher implements PartitionedMessageFetcher, TransactionAware {
 
   private final MessagingService messagingService;
   private final String name;
@@ -64,8 +64,15 @@ final class BasicMessageFetcher implements MessageFetcher, TransactionAware {
   @Override
   public CloseableIterator<Message> fetch(String namespace, String topic, int limit,
                                           @Nullable String afterMessageId) throws IOException, TopicNotFoundException {
+    return fetch(namespace, topic, 0, limit, afterMessageId);
+  }
+
+  @Override
+  public CloseableIterator<Message> fetch(String namespace, String topic, int partition, int limit,
+                                          @Nullable String afterMessageId) throws IOException, TopicNotFoundException {
     co.cask.cdap.messaging.MessageFetcher fetcher = messagingService
       .prepareFetch(new NamespaceId(namespace).topic(topic))
+      .setPartition(partition)
       .setLimit(limit);
 
     if (afterMessageId != null) {
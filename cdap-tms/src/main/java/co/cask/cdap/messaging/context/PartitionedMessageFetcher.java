@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.messaging.context;
+
+import co.cask.cdap.api.dataset.lib.CloseableIterator;
+import co.cask.cdap.api.messaging.Message;
+import co.cask.cdap.api.messaging.MessageFetcher;
+import co.cask.cdap.api.messaging.TopicNotFoundException;
+
+import java.io.IOException;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link MessageFetcher} that can fetch messages from a specific partition of a topic.
+ * The {@link MessageFetcher} methods always fetch from partition {@code 0}.
+ */
+public interface PartitionedMessageFetcher extends MessageFetcher {
+
+  /**
+   * Fetches messages from the given topic partition that were published after a message, identified by the given
+   * message id.
+   *
+   * @param namespace namespace of the topic
+   * @param topic name of the topic
+   * @param partition the partition of the topic to fetch from
+   * @param limit maximum number of messages to fetch
+   * @param afterMessageId message id returned from the {@link Message#getId()} method from a prior call to
+   *                       fetch from the same partition. If it is {@code null}, it will fetch from
+   *                       the first available message.
+   * @return a {@link CloseableIterator} of {@link Message}
+   * @throws IllegalArgumentException if the topic name or the partition is invalid
+   * @throws IOException if there was a failure to communicate with the messaging system
+   * @throws TopicNotFoundException if the give topic doesn't exist
+   */
+  CloseableIterator<Message> fetch(String namespace, String topic, int partition, int limit,
+                                   @Nullable String afterMessageId) throws TopicNotFoundException, IOException;
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.messaging.data;
+
+import co.cask.cdap.api.common.Bytes;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import javax.annotation.Nullable;
+
+/**
+ * Helper for the length-prefixed binary format for streaming {@link RawMessage} from the poll endpoint.
+ * Each message is encoded as a frame of
+ *
+ * <pre>
+ *   payload length (4 bytes) | message id ({@link MessageId#RAW_ID_SIZE} bytes) | payload
+ * </pre>
+ *
+ * and the stream is terminated by a payload length of {@code -1}. Since the header has a fixed size, the payload can
+ * be sent directly from the fetched messages without per message encoding.
+ */
+public final class RawMessageFrames {
+
+  /**
+   * The content type for the framed format.
+   */
+  public static final String CONTENT_TYPE = "application/x-cdap-tms-frames";
+
+  /**
+   * Size of the frame header that precedes the payload.
+   */
+  public static final int HEADER_SIZE = Bytes.SIZEOF_INT + MessageId.RAW_ID_SIZE;
+
+  /**
+   * Size of the end of stream marker.
+   */
+  public static final int END_OF_STREAM_SIZE = Bytes.SIZEOF_INT;
+
+  private static final int END_OF_STREAM = -1;
+
+  /**
+   * Writes the frame header of the given message to the given {@link ByteBuffer}.
+   *
+   * @throws IllegalArgumentException if the message id is not of size {@link MessageId#RAW_ID_SIZE}
+   */
+  public static void writeHeader(RawMessage message, ByteBuffer buffer) {
+    byte[] id = message.getId();
+    if (id.length != MessageId.RAW_ID_SIZE) {
+      throw new IllegalArgumentException("Expected message id of size " + MessageId.RAW_ID_SIZE
+                                           + " bytes, but got " + id.length + " bytes");
+    }
+    buffer.putInt(message.getPayload().length).put(id);
+  }
+
+  /**
+   * Writes the end of stream marker to the given {@link ByteBuffer}.
+   */
+  public static void writeEndOfStream(ByteBuffer buffer) {
+    buffer.putInt(END_OF_STREAM);
+  }
+
+  /**
+   * Reads a {@link RawMessage} from the given {@link DataInput}.
+   *
+   * @return the {@link RawMessage} read or {@code null} if reached the end of stream marker
+   * @throws IOException if failed to read from the given input
+   */
+  @Nullable
+  public static RawMessage read(DataInput input) throws IOException {
+    int payloadLength = input.readInt();
+    if (payloadLength == END_OF_STREAM) {
+      return null;
+    }
+    if (payloadLength < 0) {
+      throw new IOException("Invalid payload length " + payloadLength);
+    }
+
+    byte[] id = new byte[MessageId.RAW_ID_SIZE];
+    input.readFully(id);
+    byte[] payload = new byte[payloadLength];
+    input.readFully(payload);
+    return new RawMessage(id, payload);
+  }
+
+  private RawMessageFrames() {
+    // no-op
+  }
+}
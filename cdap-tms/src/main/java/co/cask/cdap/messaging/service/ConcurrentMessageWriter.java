@@ -24,7 +24,6 @@ import co.cask.cdap.messaging.TopicMetadata;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
 
-import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -60,7 +59,7 @@ import javax.annotation.concurrent.ThreadSafe;
  * get written and flushed.
  */
 @ThreadSafe
-final class ConcurrentMessageWriter implements Closeable {
+final class ConcurrentMessageWriter implements MessageWriter {
 
   private final StoreRequestWriter<?> messagesWriter;
   private final MetricsCollector metricsCollector;
@@ -90,18 +89,9 @@ final class ConcurrentMessageWriter implements Closeable {
     this.closed = new AtomicBoolean();
   }
 
-  /**
-   * Persists the given {@link StoreRequest} to the {@link StoreRequestWriter} in this class. This method
-   * is safe to be called concurrently from multiple threads.
-   *
-   * @param storeRequest contains information about payload to be store
-   * @param metadata {@link TopicMetadata} for the topic in the {@link StoreRequest}
-   * @return if the store request is transactional, then returns a {@link RollbackDetail} containing
-   *         information for rollback; otherwise {@code null} will be returned.
-   * @throws IOException if failed to persist the data
-   */
   @Nullable
-  RollbackDetail persist(StoreRequest storeRequest, TopicMetadata metadata) throws IOException {
+  @Override
+  public RollbackDetail persist(StoreRequest storeRequest, TopicMetadata metadata) throws IOException {
     if (closed.get()) {
       throw new IOException("Message writer is already closed");
     }
@@ -122,9 +112,7 @@ final class ConcurrentMessageWriter implements Closeable {
       if (!pendingStoreRequest.isTransactional()) {
         return null;
       }
-      return new SimpleRollbackDetail(pendingStoreRequest.getTransactionWritePointer(),
-                                      pendingStoreRequest.getStartTimestamp(), pendingStoreRequest.getStartSequenceId(),
-                                      pendingStoreRequest.getEndTimestamp(), pendingStoreRequest.getEndSequenceId());
+      return pendingStoreRequest.getRollbackDetail();
     } else {
       metricsCollector.increment("persist.failure", 1L);
       Throwables.propagateIfInstanceOf(pendingStoreRequest.getFailureCause(), IOException.class);
@@ -228,50 +216,4 @@ final class ConcurrentMessageWriter implements Closeable {
       }
     }
   }
-
-  /**
-   * Straightforward implementation of {@link RollbackDetail}
-   */
-  private static final class SimpleRollbackDetail implements RollbackDetail {
-
-    private final long transactionWritePointer;
-    private final long startTimestamp;
-    private final int startSequenceId;
-    private final long endTimestamp;
-    private final int endSequenceId;
-
-    SimpleRollbackDetail(long transactionWritePointer, long startTimestamp,
-                         int startSequenceId, long endTimestamp, int endSequenceId) {
-      this.transactionWritePointer = transactionWritePointer;
-      this.startTimestamp = startTimestamp;
-      this.startSequenceId = startSequenceId;
-      this.endTimestamp = endTimestamp;
-      this.endSequenceId = endSequenceId;
-    }
-
-    @Override
-    public long getTransactionWritePointer() {
-      return transactionWritePointer;
-    }
-
-    @Override
-    public long getStartTimestamp() {
-      return startTimestamp;
-    }
-
-    @Override
-    public int getStartSequenceId() {
-      return startSequenceId;
-    }
-
-    @Override
-    public long getEndTimestamp() {
-      return endTimestamp;
-    }
-
-    @Override
-    public int getEndSequenceId() {
-      return endSequenceId;
-    }
-  }
 }
@@ -55,9 +55,11 @@ final class CoreMessageFetcher extends MessageFetcher {
 
   @Override
   public CloseableIterator<RawMessage> fetch() throws IOException {
+    // Validates the partition before opening the table
+    TopicMetadata partitionMetadata = topicMetadata.forPartition(getPartition());
     MessageTable messageTable = messageTableProvider.get();
     try {
-      return new MessageCloseableIterator(messageTable);
+      return new MessageCloseableIterator(partitionMetadata, messageTable);
     } catch (Throwable t) {
       closeQuietly(messageTable);
       throw t;
@@ -125,6 +127,7 @@ final class CoreMessageFetcher extends MessageFetcher {
   private final class MessageCloseableIterator implements CloseableIterator<RawMessage> {
 
     private final CloseableIterator<MessageTable.Entry> messageIterator;
+    private final TopicMetadata topicMetadata;
     private final TopicId topicId;
     private final MessageTable messageTable;
     private RawMessage nextMessage;
@@ -135,7 +138,8 @@ final class CoreMessageFetcher extends MessageFetcher {
     private int messageLimit;
     private PayloadTable payloadTable;
 
-    MessageCloseableIterator(MessageTable messageTable) throws IOException {
+    MessageCloseableIterator(TopicMetadata topicMetadata, MessageTable messageTable) throws IOException {
+      this.topicMetadata = topicMetadata;
       this.topicId = topicMetadata.getTopicId();
       this.messageTable = messageTable;
       this.inclusive = isIncludeStart();
@@ -62,8 +62,11 @@ import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
@@ -80,8 +83,9 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
   private final CConfiguration cConf;
   private final TableFactory tableFactory;
   private final LoadingCache<TopicId, TopicMetadata> topicCache;
-  private final LoadingCache<TopicId, ConcurrentMessageWriter> messageTableWriterCache;
-  private final LoadingCache<TopicId, ConcurrentMessageWriter> payloadTableWriterCache;
+  private final LoadingCache<TopicId, MessageWriter> messageTableWriterCache;
+  private final LoadingCache<TopicId, MessageWriter> payloadTableWriterCache;
+  private final ExecutorService groupCommitExecutor;
   private final TimeProvider timeProvider;
   private final MetricsCollectionService metricsCollectionService;
   private final long txMaxLifeTimeInMillis;
@@ -97,6 +101,14 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
                        TimeProvider timeProvider, MetricsCollectionService metricsCollectionService) {
     this.cConf = cConf;
     this.tableFactory = tableFactory;
+    // There is at most one commit task per topic pending in the executor queue, hence the queue is bounded by the
+    // number of topics. Threads are released if left idle.
+    int groupCommitThreads = cConf.getInt(Constants.MessagingSystem.GROUP_COMMIT_THREADS);
+    ThreadPoolExecutor groupCommitExecutor = new ThreadPoolExecutor(
+      groupCommitThreads, groupCommitThreads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+      Threads.createDaemonThreadFactory("messaging-group-commit-%d"));
+    groupCommitExecutor.allowCoreThreadTimeOut(true);
+    this.groupCommitExecutor = groupCommitExecutor;
     this.topicCache = createTopicCache();
     this.messageTableWriterCache = createTableWriterCache(true, cConf);
     this.payloadTableWriterCache = createTableWriterCache(false, cConf);
@@ -212,7 +224,12 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
     TopicMetadata metadata = getTopic(topicId);
     Exception failure = null;
     try (MessageTable messageTable = createMessageTable(metadata)) {
-      messageTable.rollback(metadata, rollbackDetail);
+      // The RollbackDetail doesn't carry the partition. Since the publish timestamp and sequence id are generated
+      // by the same writer for all partitions of a topic, the rollback range only contains messages written by the
+      // transaction in one partition and it is safe to rollback the same range in all partitions.
+      for (int partition = 0; partition < metadata.getPartitions(); partition++) {
+        messageTable.rollback(metadata.forPartition(partition), rollbackDetail);
+      }
     } catch (Exception e) {
       failure = e;
     }
@@ -260,6 +277,7 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
     messageTableWriterCache.invalidateAll();
     messageTableWriterCache.invalidateAll();
     payloadTableWriterCache.invalidateAll();
+    groupCommitExecutor.shutdown();
     LOG.info("Core Messaging Service stopped");
   }
 
@@ -331,7 +349,7 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
   }
 
   /**
-   * Creates a {@link LoadingCache} for {@link ConcurrentMessageWriter}
+   * Creates a {@link LoadingCache} for {@link MessageWriter}
    * for writing to {@link MessageTable} or {@link PayloadTable}.
    *
    * @param messageTable {@code true} for building a cache for the {@link MessageTable};
@@ -339,16 +357,16 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
    * @param cConf the system configuration
    * @return a {@link LoadingCache} for
    */
-  private LoadingCache<TopicId, ConcurrentMessageWriter> createTableWriterCache(final boolean messageTable,
-                                                                                final CConfiguration cConf) {
+  private LoadingCache<TopicId, MessageWriter> createTableWriterCache(final boolean messageTable,
+                                                                      final CConfiguration cConf) {
     long expireSecs = cConf.getLong(Constants.MessagingSystem.TABLE_CACHE_EXPIRATION_SECONDS);
 
     return CacheBuilder.newBuilder()
       .expireAfterAccess(expireSecs, TimeUnit.SECONDS)
-      .removalListener(new RemovalListener<TopicId, ConcurrentMessageWriter>() {
+      .removalListener(new RemovalListener<TopicId, MessageWriter>() {
         @Override
-        public void onRemoval(RemovalNotification<TopicId, ConcurrentMessageWriter> notification) {
-          ConcurrentMessageWriter writer = notification.getValue();
+        public void onRemoval(RemovalNotification<TopicId, MessageWriter> notification) {
+          MessageWriter writer = notification.getValue();
           if (writer != null) {
             try {
               writer.close();
@@ -358,9 +376,9 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
           }
         }
       })
-      .build(new CacheLoader<TopicId, ConcurrentMessageWriter>() {
+      .build(new CacheLoader<TopicId, MessageWriter>() {
         @Override
-        public ConcurrentMessageWriter load(TopicId topicId) throws Exception {
+        public MessageWriter load(TopicId topicId) throws Exception {
           TopicMetadata metadata = getTopic(topicId);
           StoreRequestWriter<?> messagesWriter = messageTable
             ? new MessageTableStoreRequestWriter(createMessageTable(metadata), timeProvider)
@@ -373,7 +391,14 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
             Constants.Metrics.Tag.TABLE, messageTable ? "message" : "payload"
           ));
 
-          return new ConcurrentMessageWriter(messagesWriter, metricsContext);
+          if (!cConf.getBoolean(Constants.MessagingSystem.GROUP_COMMIT_ENABLED)) {
+            return new ConcurrentMessageWriter(messagesWriter, metricsContext);
+          }
+          return new GroupCommitMessageWriter(messagesWriter, metricsContext, groupCommitExecutor,
+                                              cConf.getInt(Constants.MessagingSystem.GROUP_COMMIT_QUEUE_SIZE),
+                                              cConf.getLong(Constants.MessagingSystem.GROUP_COMMIT_LINGER_MS),
+                                              cConf.getLong(Constants.MessagingSystem.GROUP_COMMIT_MAX_BATCH_SIZE_KB)
+                                                * 1024L);
         }
       });
   }
@@ -0,0 +1,346 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.messaging.service;
+
+import co.cask.cdap.api.metrics.MetricsCollector;
+import co.cask.cdap.messaging.RollbackDetail;
+import co.cask.cdap.messaging.StoreRequest;
+import co.cask.cdap.messaging.TopicMetadata;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A {@link MessageWriter} that commits {@link StoreRequest} in groups from a commit task, so that the threads
+ * publishing messages never perform the table write for other threads.
+ *
+ * Store requests are enqueued to a bounded queue and a {@link ListenableFuture} is returned to the caller.
+ * There is at most one commit task running for each instance of this class, which is submitted to the given
+ * {@link Executor} when there are pending requests. The commit task collects pending requests until either
+ * the total payload size reaches the max batch size, or there is no more pending request after waiting for
+ * the linger time. All the collected requests are then written with one call to the {@link StoreRequestWriter},
+ * which results in one batch write to the underlying table.
+ *
+ * Besides the same metrics as the {@link ConcurrentMessageWriter}, this class also emits the batch size, the number
+ * of requests still queued and the publish latency. The latency is emitted once per batch as the total time of all
+ * requests in the batch and the maximum time of a request in the batch.
+ */
+@ThreadSafe
+final class GroupCommitMessageWriter implements MessageWriter {
+
+  private final StoreRequestWriter<?> messagesWriter;
+  private final MetricsCollector metricsCollector;
+  private final Executor executor;
+  private final long lingerNanos;
+  private final long maxBatchBytes;
+  private final BlockingQueue<GroupCommitRequest> queue;
+  private final AtomicBoolean commitScheduled;
+  // For the close method to wait for the commitScheduled flag to be released
+  private final Lock commitLock;
+  private final Condition commitReleased;
+  private final AtomicBoolean closed;
+  private final Runnable commitTask;
+
+  // The following are only accessed by the thread that set the commitScheduled flag
+  private final List<GroupCommitRequest> batch;
+  private final List<PendingStoreRequest> batchRequests;
+
+  /**
+   * Constructor.
+   *
+   * @param messagesWriter the {@link StoreRequestWriter} for persisting {@link StoreRequest}
+   * @param metricsCollector the {@link MetricsCollector} for collecting metrics emitted by this class
+   * @param executor the {@link Executor} for running the commit task
+   * @param queueSize maximum number of pending requests. Publishing threads are blocked when it is reached.
+   * @param lingerMillis maximum time in milliseconds to wait for more requests before committing a batch
+   * @param maxBatchBytes maximum total payload size in bytes of a batch
+   */
+  GroupCommitMessageWriter(StoreRequestWriter<?> messagesWriter, MetricsCollector metricsCollector,
+                           Executor executor, int queueSize, long lingerMillis, long maxBatchBytes) {
+    this.messagesWriter = messagesWriter;
+    this.metricsCollector = metricsCollector;
+    this.executor = executor;
+    this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+    this.maxBatchBytes = maxBatchBytes;
+    this.queue = new ArrayBlockingQueue<>(queueSize);
+    this.commitScheduled = new AtomicBoolean();
+    this.commitLock = new ReentrantLock();
+    this.commitReleased = commitLock.newCondition();
+    this.closed = new AtomicBoolean();
+    this.commitTask = new Runnable() {
+      @Override
+      public void run() {
+        runCommits();
+      }
+    };
+    this.batch = new ArrayList<>();
+    this.batchRequests = new ArrayList<>();
+  }
+
+  @Nullable
+  @Override
+  public RollbackDetail persist(StoreRequest storeRequest, TopicMetadata metadata) throws IOException {
+    try {
+      return Uninterruptibles.getUninterruptibly(persistAsync(storeRequest, metadata));
+    } catch (ExecutionException e) {
+      Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+      throw new IOException("Unable to write message to " + storeRequest.getTopicId(), e.getCause());
+    }
+  }
+
+  /**
+   * Enqueues the given {@link StoreRequest} to be committed asynchronously. This method only blocks if there are
+   * too many pending requests.
+   *
+   * @param storeRequest contains information about payload to be store
+   * @param metadata {@link TopicMetadata} for the topic in the {@link StoreRequest}
+   * @return a {@link ListenableFuture} that will be completed when the request is persisted. If the store request
+   *         is transactional, the future result is a {@link RollbackDetail} containing information for rollback;
+   *         otherwise the result is {@code null}.
+   */
+  ListenableFuture<RollbackDetail> persistAsync(StoreRequest storeRequest, TopicMetadata metadata) {
+    if (closed.get()) {
+      return Futures.immediateFailedFuture(new IOException("Message writer is already closed"));
+    }
+
+    GroupCommitRequest request = new GroupCommitRequest(new PendingStoreRequest(storeRequest, metadata));
+    try {
+      queue.put(request);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return Futures.immediateFailedFuture(new InterruptedIOException("Interrupted while enqueuing store request"));
+    }
+    metricsCollector.increment("persist.requested", 1L);
+
+    // If the writer got closed concurrently and the request was not drained by the close method, fail it.
+    if (closed.get() && queue.remove(request)) {
+      request.complete(new IOException("Message writer is already closed"));
+      return request.future;
+    }
+
+    scheduleCommit();
+    return request.future;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+
+    // Wait for the running commit task to finish. The flag is not reset after draining so that no more commit task
+    // will be run after the writer is closed.
+    commitLock.lock();
+    try {
+      while (!commitScheduled.compareAndSet(false, true)) {
+        commitReleased.awaitUninterruptibly();
+      }
+    } finally {
+      commitLock.unlock();
+    }
+    try {
+      // Commit everything left in the queue.
+      GroupCommitRequest request = queue.poll();
+      while (request != null) {
+        commitBatch(request);
+        request = queue.poll();
+      }
+    } finally {
+      messagesWriter.close();
+    }
+  }
+
+  /**
+   * Submits the commit task to the executor if it is not already scheduled.
+   */
+  private void scheduleCommit() {
+    if (!commitScheduled.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      executor.execute(commitTask);
+    } catch (RejectedExecutionException e) {
+      // This can only happen if the executor is shutdown, which happens after all writers are closed
+      GroupCommitRequest request = queue.poll();
+      while (request != null) {
+        request.complete(new IOException("Message writer is already closed", e));
+        request = queue.poll();
+      }
+      releaseCommit();
+    }
+  }
+
+  /**
+   * Commits pending requests until the queue is empty.
+   */
+  private void runCommits() {
+    try {
+      GroupCommitRequest request = queue.poll();
+      while (request != null) {
+        commitBatch(request);
+        request = queue.poll();
+      }
+    } finally {
+      releaseCommit();
+    }
+
+    // Requests can be enqueued after the last poll and before the flag was reset
+    if (!queue.isEmpty()) {
+      scheduleCommit();
+    }
+  }
+
+  /**
+   * Resets the commitScheduled flag and wakes up the close method if it is waiting for it.
+   */
+  private void releaseCommit() {
+    commitLock.lock();
+    try {
+      commitScheduled.set(false);
+      commitReleased.signalAll();
+    } finally {
+      commitLock.unlock();
+    }
+  }
+
+  /**
+   * Collects a batch of requests starting with the given one, writes it and completes the requests in it.
+   * This method must be called while holding the commitScheduled flag.
+   */
+  private void commitBatch(GroupCommitRequest firstRequest) {
+    long batchBytes = collectBatch(firstRequest);
+
+    metricsCollector.gauge("persist.batch.size", batch.size());
+    metricsCollector.gauge("persist.queue.size", queue.size());
+    metricsCollector.gauge("persist.batch.bytes", batchBytes);
+
+    batchRequests.clear();
+    for (GroupCommitRequest request : batch) {
+      batchRequests.add(request.pendingRequest);
+    }
+
+    Throwable failure = null;
+    try {
+      messagesWriter.write(batchRequests.iterator());
+    } catch (Throwable t) {
+      failure = t;
+    }
+
+    long now = System.nanoTime();
+    long totalLatencyNanos = 0L;
+    long maxLatencyNanos = 0L;
+    for (GroupCommitRequest request : batch) {
+      request.complete(failure);
+      long latencyNanos = now - request.enqueueNanos;
+      totalLatencyNanos += latencyNanos;
+      maxLatencyNanos = Math.max(maxLatencyNanos, latencyNanos);
+    }
+    metricsCollector.increment("persist.latency.total.ms", TimeUnit.NANOSECONDS.toMillis(totalLatencyNanos));
+    metricsCollector.gauge("persist.latency.max.ms", TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos));
+    batch.clear();
+    batchRequests.clear();
+  }
+
+  /**
+   * Collects requests into the batch, starting with the given request.
+   *
+   * @return the total payload size of the batch
+   */
+  private long collectBatch(GroupCommitRequest firstRequest) {
+    batch.add(firstRequest);
+    long batchBytes = firstRequest.payloadBytes;
+
+    // No need to linger for more requests if the writer is closed
+    long linger = closed.get() ? 0L : lingerNanos;
+    long deadline = System.nanoTime() + linger;
+    while (batchBytes < maxBatchBytes) {
+      GroupCommitRequest request = queue.poll();
+      if (request == null) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          break;
+        }
+        try {
+          request = queue.poll(remaining, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+        if (request == null) {
+          break;
+        }
+      }
+      batch.add(request);
+      batchBytes += request.payloadBytes;
+    }
+    return batchBytes;
+  }
+
+  /**
+   * A pending request together with the {@link SettableFuture} for the caller.
+   */
+  private final class GroupCommitRequest {
+
+    private final PendingStoreRequest pendingRequest;
+    private final SettableFuture<RollbackDetail> future;
+    private final long payloadBytes;
+    private final long enqueueNanos;
+
+    GroupCommitRequest(PendingStoreRequest pendingRequest) {
+      this.pendingRequest = pendingRequest;
+      this.future = SettableFuture.create();
+
+      long payloadBytes = 0L;
+      for (byte[] payload : pendingRequest) {
+        payloadBytes += payload.length;
+      }
+      this.payloadBytes = payloadBytes;
+      this.enqueueNanos = System.nanoTime();
+    }
+
+    void complete(@Nullable Throwable failureCause) {
+      pendingRequest.completed(failureCause);
+
+      if (failureCause != null) {
+        metricsCollector.increment("persist.failure", 1L);
+        future.setException(failureCause);
+        return;
+      }
+      metricsCollector.increment("persist.success", 1L);
+      future.set(pendingRequest.isTransactional() ? pendingRequest.getRollbackDetail() : null);
+    }
+  }
+}
@@ -48,6 +48,7 @@ final class MessageTableStoreRequestWriter extends StoreRequestWriter<MessageTab
     return entry
       .setTopicId(metadata.getTopicId())
       .setGeneration(metadata.getGeneration())
+      .setPartition(metadata.getPartition())
       .setTransactional(transactional)
       .setTransactionWritePointer(transactionWritePointer)
       .setPublishTimestamp(writeTimestamp)
@@ -72,6 +73,7 @@ final class MessageTableStoreRequestWriter extends StoreRequestWriter<MessageTab
 
     private TopicId topicId;
     private int generation;
+    private int partition;
     private boolean transactional;
     private long transactionWritePointer;
     private long publishTimestamp;
@@ -88,6 +90,11 @@ final class MessageTableStoreRequestWriter extends StoreRequestWriter<MessageTab
       return this;
     }
 
+    MutableMessageTableEntry setPartition(int partition) {
+      this.partition = partition;
+      return this;
+    }
+
     MutableMessageTableEntry setTransactional(boolean transactional) {
       this.transactional = transactional;
       return this;
@@ -123,6 +130,11 @@ final class MessageTableStoreRequestWriter extends StoreRequestWriter<MessageTab
       return generation;
     }
 
+    @Override
+    public int getPartition() {
+      return partition;
+    }
+
     @Override
     public boolean isPayloadReference() {
       return getPayload() == null;
@@ -48,6 +48,7 @@ final class PayloadTableStoreRequestWriter extends StoreRequestWriter<PayloadTab
     return entry
       .setTopicId(metadata.getTopicId())
       .setGeneration(metadata.getGeneration())
+      .setPartition(metadata.getPartition())
       .setTransactionWritePointer(transactionWritePointer)
       .setPayloadWriteTimestamp(writeTimestamp)
       .setPayloadSequenceId(sequenceId)
@@ -71,6 +72,7 @@ final class PayloadTableStoreRequestWriter extends StoreRequestWriter<PayloadTab
 
     private TopicId topicId;
     private int generation;
+    private int partition;
     private long transactionWritePointer;
     private long writeTimestamp;
     private short sequenceId;
@@ -86,6 +88,11 @@ final class PayloadTableStoreRequestWriter extends StoreRequestWriter<PayloadTab
       return this;
     }
 
+    MutablePayloadTableEntry setPartition(int partition) {
+      this.partition = partition;
+      return this;
+    }
+
     MutablePayloadTableEntry setTransactionWritePointer(long transactionWritePointer) {
       this.transactionWritePointer = transactionWritePointer;
       return this;
@@ -116,6 +123,11 @@ final class PayloadTableStoreRequestWriter extends StoreRequestWriter<PayloadTab
       return generation;
     }
 
+    @Override
+    public int getPartition() {
+      return partition;
+    }
+
     @Override
     public byte[] getPayload() {
       return payload;
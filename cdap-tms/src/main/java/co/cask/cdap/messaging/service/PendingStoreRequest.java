@@ -16,6 +16,7 @@
 
 package co.cask.cdap.messaging.service;
 
+import co.cask.cdap.messaging.RollbackDetail;
 import co.cask.cdap.messaging.StoreRequest;
 import co.cask.cdap.messaging.TopicMetadata;
 
@@ -39,11 +40,14 @@ final class PendingStoreRequest extends StoreRequest {
 
   PendingStoreRequest(StoreRequest originalRequest, TopicMetadata topicMetadata) {
     super(originalRequest.getTopicId(), originalRequest.isTransactional(),
-          originalRequest.getTransactionWritePointer());
+          originalRequest.getTransactionWritePointer(), originalRequest.getPartitionKey());
     this.originalRequest = originalRequest;
-    this.metadata = topicMetadata;
+    this.metadata = topicMetadata.forPartition(topicMetadata.getPartition(originalRequest.getPartitionKey()));
   }
 
+  /**
+   * Returns the {@link TopicMetadata} for the topic partition that this request is storing to.
+   */
   TopicMetadata getTopicMetadata() {
     return metadata;
   }
@@ -101,6 +105,15 @@ final class PendingStoreRequest extends StoreRequest {
     return endSequenceId;
   }
 
+  /**
+   * Returns a {@link RollbackDetail} for rolling back the messages written by this request. This method
+   * should only be called for a transactional request that was completed successfully.
+   */
+  RollbackDetail getRollbackDetail() {
+    return new SimpleRollbackDetail(getTransactionWritePointer(), startTimestamp, startSequenceId,
+                                    endTimestamp, endSequenceId);
+  }
+
   @Override
   public boolean hasPayload() {
     return originalRequest.hasPayload();
@@ -122,4 +135,50 @@ final class PendingStoreRequest extends StoreRequest {
       ", failureCause=" + failureCause +
       '}';
   }
+
+  /**
+   * Straightforward implementation of {@link RollbackDetail}
+   */
+  private static final class SimpleRollbackDetail implements RollbackDetail {
+
+    private final long transactionWritePointer;
+    private final long startTimestamp;
+    private final int startSequenceId;
+    private final long endTimestamp;
+    private final int endSequenceId;
+
+    SimpleRollbackDetail(long transactionWritePointer, long startTimestamp,
+                         int startSequenceId, long endTimestamp, int endSequenceId) {
+      this.transactionWritePointer = transactionWritePointer;
+      this.startTimestamp = startTimestamp;
+      this.startSequenceId = startSequenceId;
+      this.endTimestamp = endTimestamp;
+      this.endSequenceId = endSequenceId;
+    }
+
+    @Override
+    public long getTransactionWritePointer() {
+      return transactionWritePointer;
+    }
+
+    @Override
+    public long getStartTimestamp() {
+      return startTimestamp;
+    }
+
+    @Override
+    public int getStartSequenceId() {
+      return startSequenceId;
+    }
+
+    @Override
+    public long getEndTimestamp() {
+      return endTimestamp;
+    }
+
+    @Override
+    public int getEndSequenceId() {
+      return endSequenceId;
+    }
+  }
 }
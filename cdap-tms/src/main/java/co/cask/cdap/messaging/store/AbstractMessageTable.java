@@ -67,7 +67,8 @@ public abstract class AbstractMessageTable implements MessageTable {
   @Override
   public CloseableIterator<Entry> fetch(TopicMetadata metadata, long startTime, int limit,
                                         @Nullable Transaction transaction) throws IOException {
-    byte[] topic = MessagingUtils.toDataKeyPrefix(metadata.getTopicId(), metadata.getGeneration());
+    byte[] topic = MessagingUtils.toDataKeyPrefix(metadata.getTopicId(), metadata.getPartition(),
+                                                   metadata.getGeneration());
     byte[] startRow = new byte[topic.length + Bytes.SIZEOF_LONG];
     Bytes.putBytes(startRow, 0, topic, 0, topic.length);
     Bytes.putLong(startRow, topic.length, startTime);
@@ -79,7 +80,8 @@ public abstract class AbstractMessageTable implements MessageTable {
   @Override
   public CloseableIterator<Entry> fetch(TopicMetadata metadata, MessageId messageId, boolean inclusive,
                                         final int limit, @Nullable final Transaction transaction) throws IOException {
-    byte[] topic = MessagingUtils.toDataKeyPrefix(metadata.getTopicId(), metadata.getGeneration());
+    byte[] topic = MessagingUtils.toDataKeyPrefix(metadata.getTopicId(), metadata.getPartition(),
+                                                   metadata.getGeneration());
     byte[] startRow = new byte[topic.length + Bytes.SIZEOF_LONG + Bytes.SIZEOF_SHORT];
     Bytes.putBytes(startRow, 0, topic, 0, topic.length);
     Bytes.putLong(startRow, topic.length, messageId.getPublishTimestamp());
@@ -98,7 +100,8 @@ public abstract class AbstractMessageTable implements MessageTable {
   public void rollback(TopicMetadata metadata, RollbackDetail rollbackDetail) throws IOException {
     //long startTimestamp, short startSequenceId,
     //long endTimestamp, short endSequenceId
-    byte[] topic = MessagingUtils.toDataKeyPrefix(metadata.getTopicId(), metadata.getGeneration());
+    byte[] topic = MessagingUtils.toDataKeyPrefix(metadata.getTopicId(), metadata.getPartition(),
+                                                   metadata.getGeneration());
     byte[] startRow = new byte[topic.length + Bytes.SIZEOF_LONG + Bytes.SIZEOF_SHORT];
     Bytes.putBytes(startRow, 0, topic, 0, topic.length);
     Bytes.putLong(startRow, topic.length, rollbackDetail.getStartTimestamp());
@@ -192,6 +195,7 @@ public abstract class AbstractMessageTable implements MessageTable {
     private final RawMessageTableEntry tableEntry;
     private TopicId topicId;
     private int generation;
+    private int partition;
     private byte[] topic;
     private byte[] rowKey;
 
@@ -208,10 +212,12 @@ public abstract class AbstractMessageTable implements MessageTable {
 
       Entry entry = entries.next();
       // Create new byte arrays only when the topicId is different. Else, reuse the byte arrays.
-      if (topicId == null || (!topicId.equals(entry.getTopicId())) || (generation != entry.getGeneration())) {
+      if (topicId == null || (!topicId.equals(entry.getTopicId())) || (generation != entry.getGeneration())
+        || (partition != entry.getPartition())) {
         topicId = entry.getTopicId();
         generation = entry.getGeneration();
-        topic = MessagingUtils.toDataKeyPrefix(topicId, entry.getGeneration());
+        partition = entry.getPartition();
+        topic = MessagingUtils.toDataKeyPrefix(topicId, partition, generation);
         rowKey = new byte[topic.length + Bytes.SIZEOF_LONG + Bytes.SIZEOF_SHORT];
       }
 
@@ -28,6 +28,7 @@ import javax.annotation.Nullable;
 public final class ImmutableMessageTableEntry implements MessageTable.Entry {
   private final TopicId topicId;
   private final int generation;
+  private final int partition;
   private final boolean transactional;
   private final long transactionWritePointer;
   private final byte[] payload;
@@ -35,8 +36,9 @@ public final class ImmutableMessageTableEntry implements MessageTable.Entry {
   private final short sequenceId;
 
   public ImmutableMessageTableEntry(byte[] row, @Nullable byte[] payload, @Nullable byte[] txPtr) {
-    this.topicId = MessagingUtils.toTopicId(row, 0,
-                                            row.length - Bytes.SIZEOF_SHORT - Bytes.SIZEOF_LONG - Bytes.SIZEOF_INT);
+    int topicAndPartitionLength = row.length - Bytes.SIZEOF_SHORT - Bytes.SIZEOF_LONG - Bytes.SIZEOF_INT;
+    this.topicId = MessagingUtils.toTopicId(row, 0, topicAndPartitionLength);
+    this.partition = MessagingUtils.getPartition(row, 0, topicAndPartitionLength);
     this.generation = Bytes.toInt(row, row.length - Bytes.SIZEOF_SHORT - Bytes.SIZEOF_LONG - Bytes.SIZEOF_INT);
 
     int topicLength = MessagingUtils.getTopicLengthMessageEntry(row.length);
@@ -58,6 +60,11 @@ public final class ImmutableMessageTableEntry implements MessageTable.Entry {
     return generation;
   }
 
+  @Override
+  public int getPartition() {
+    return partition;
+  }
+
   @Override
   public boolean isPayloadReference() {
     return payload == null;
@@ -26,14 +26,16 @@ import co.cask.cdap.proto.id.TopicId;
 public final class ImmutablePayloadTableEntry implements PayloadTable.Entry {
   private final TopicId topicId;
   private final int generation;
+  private final int partition;
   private final long transactionWriterPointer;
   private final long writeTimestamp;
   private final short sequenceId;
   private final byte[] payload;
 
   public ImmutablePayloadTableEntry(byte[] row, byte[] payload) {
-    this.topicId = MessagingUtils.toTopicId(row, 0, row.length - Bytes.SIZEOF_SHORT - (2 * Bytes.SIZEOF_LONG)
-      - Bytes.SIZEOF_INT);
+    int topicAndPartitionLength = row.length - Bytes.SIZEOF_SHORT - (2 * Bytes.SIZEOF_LONG) - Bytes.SIZEOF_INT;
+    this.topicId = MessagingUtils.toTopicId(row, 0, topicAndPartitionLength);
+    this.partition = MessagingUtils.getPartition(row, 0, topicAndPartitionLength);
     this.generation = Bytes.toInt(row, row.length - Bytes.SIZEOF_SHORT - (2 * Bytes.SIZEOF_LONG) - Bytes.SIZEOF_INT);
     this.transactionWriterPointer = Bytes.toLong(row, row.length - Bytes.SIZEOF_SHORT - (2 * Bytes.SIZEOF_LONG));
     this.writeTimestamp = Bytes.toLong(row, row.length - Bytes.SIZEOF_SHORT - Bytes.SIZEOF_LONG);
@@ -51,6 +53,11 @@ public final class ImmutablePayloadTableEntry implements PayloadTable.Entry {
     return generation;
   }
 
+  @Override
+  public int getPartition() {
+    return partition;
+  }
+
   @Override
   public byte[] getPayload() {
     return payload;
@@ -50,6 +50,11 @@ public interface MessageTable extends Closeable {
      */
     int getGeneration();
 
+    /**
+     * Returns the partition of the topic that the entry belongs to.
+     */
+    int getPartition();
+
     /**
      * Returns {@code true} if the entry is a reference to messages stored in payload table.
      */
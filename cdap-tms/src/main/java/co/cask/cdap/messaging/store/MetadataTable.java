@@ -51,10 +51,11 @@ public interface MetadataTable extends Closeable {
   void createTopic(TopicMetadata topicMetadata) throws TopicAlreadyExistsException, IOException;
 
   /**
-   * Updates the topic properties.
+   * Updates the topic properties. The number of partitions of the topic is kept.
    *
    * @param topicMetadata metadata of the topic.
    * @throws TopicNotFoundException if the topic doesn't exist
+   * @throws IllegalArgumentException if the properties give a different number of partitions
    * @throws IOException if failed to update metadata
    */
   void updateTopic(TopicMetadata topicMetadata) throws TopicNotFoundException, IOException;
@@ -47,6 +47,11 @@ public interface PayloadTable extends Closeable {
      */
     int getGeneration();
 
+    /**
+     * Returns the partition of the topic that the entry belongs to.
+     */
+    int getPartition();
+
     /**
      * Returns the message payload.
      */
@@ -43,6 +43,8 @@ import javax.annotation.Nullable;
 
 /**
  * A {@link MessageTable} that uses {@link MessageCache} for caching recently published messages.
+ * Only messages in the first partition of a topic are cached, and operations on other partitions go
+ * to the underlying {@link MessageTable} directly.
  */
 final class CachingMessageTable implements MessageTable {
 
@@ -73,7 +75,7 @@ final class CachingMessageTable implements MessageTable {
   @Override
   public CloseableIterator<Entry> fetch(TopicMetadata metadata, long startTime,
                                         int limit, @Nullable Transaction transaction) throws IOException {
-    MessageCache<Entry> messageCache = cacheProvider.getMessageCache(metadata.getTopicId());
+    MessageCache<Entry> messageCache = getMessageCache(metadata);
     if (messageCache == null) {
       // If no caching for the given topic, just return result from table directly
       return messageTable.fetch(metadata, startTime, limit, transaction);
@@ -100,7 +102,7 @@ final class CachingMessageTable implements MessageTable {
   public CloseableIterator<Entry> fetch(TopicMetadata metadata, MessageId messageId, boolean inclusive,
                                         int limit, @Nullable Transaction transaction) throws IOException {
 
-    MessageCache<Entry> messageCache = cacheProvider.getMessageCache(metadata.getTopicId());
+    MessageCache<Entry> messageCache = getMessageCache(metadata);
     if (messageCache == null) {
       // If no caching for the given topic, just return result from table directly
       return messageTable.fetch(metadata, messageId, inclusive, limit, transaction);
@@ -143,7 +145,7 @@ final class CachingMessageTable implements MessageTable {
 
   @Override
   public void rollback(TopicMetadata metadata, RollbackDetail rollbackDetail) throws IOException {
-    MessageCache<Entry> messageCache = cacheProvider.getMessageCache(metadata.getTopicId());
+    MessageCache<Entry> messageCache = getMessageCache(metadata);
     if (messageCache != null) {
       // Rollback from the cache first so that we don't have to worry about invalid list pruning for the cache,
       // assuming the rollback from cache shouldn't fail.
@@ -176,6 +178,15 @@ final class CachingMessageTable implements MessageTable {
     messageTable.close();
   }
 
+  /**
+   * Returns the {@link MessageCache} for the topic partition represented by the given {@link TopicMetadata},
+   * or {@code null} if there is no caching for it.
+   */
+  @Nullable
+  private MessageCache<Entry> getMessageCache(TopicMetadata metadata) {
+    return metadata.getPartition() == 0 ? cacheProvider.getMessageCache(metadata.getTopicId()) : null;
+  }
+
   /**
    * Adjusts the given {@link Entry} based on the grace period.
    *
@@ -315,7 +326,10 @@ final class CachingMessageTable implements MessageTable {
         return endOfData();
       }
       Entry entry = iterator.next();
-      entries.put(entry.getTopicId(), copyEntry(entry));
+      // Only entries of the first partition are cached
+      if (entry.getPartition() == 0) {
+        entries.put(entry.getTopicId(), copyEntry(entry));
+      }
 
       return entry;
     }
@@ -356,6 +370,19 @@ final class CachingMessageTable implements MessageTable {
       this.sequenceId = sequenceId;
     }
 
+    CacheMessageTableEntry(TopicId topicId, int generation, boolean transactional, long transactionWritePointer,
+                           @Nullable byte[] payload, long publishTimestamp, short sequenceId, boolean rollback) {
+      this.lookupOnly = false;
+      this.topicId = topicId;
+      this.generation = generation;
+      this.transactional = transactional;
+      this.transactionWritePointer = transactionWritePointer;
+      this.payload = payload;
+      this.publishTimestamp = publishTimestamp;
+      this.sequenceId = sequenceId;
+      this.rollback = rollback;
+    }
+
     CacheMessageTableEntry(Entry other) {
       this.lookupOnly = false;
       this.topicId = other.getTopicId();
@@ -387,6 +414,12 @@ final class CachingMessageTable implements MessageTable {
       return generation;
     }
 
+    @Override
+    public int getPartition() {
+      // Only entries of the first partition are cached
+      return 0;
+    }
+
     @Override
     public boolean isPayloadReference() {
       return getPayload() == null;
@@ -0,0 +1,487 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.messaging.store.cache;
+
+import co.cask.cdap.api.metrics.MetricsContext;
+import co.cask.cdap.messaging.cache.MessageCache;
+import co.cask.cdap.messaging.store.MessageFilter;
+import co.cask.cdap.messaging.store.MessageTable;
+import co.cask.cdap.proto.id.TopicId;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.AbstractIterator;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link MessageCache} for {@link MessageTable.Entry} of a single topic that stores messages in append-only,
+ * off-heap memory segments instead of keeping entry objects on the heap.
+ *
+ * The entry keys (generation, publish timestamp and sequence id) are kept in primitive arrays, sorted in the
+ * insertion order, together with the segment and offset of the serialized entry. Since TMS only has a single writer
+ * per topic and entries are always appended in increasing order, new entries are written to slots that are not
+ * yet visible to fetchers and then published by a volatile write to the index size. Weight reduction never modifies
+ * an index that is visible to fetchers; instead, a new compacted index is created and published. Segments are never
+ * reused, hence the data referenced by any published index is immutable, except for the rollback flag, which is
+ * only updated under the write lock and published by a volatile write to the index reference.
+ * Fetchers therefore can scan the cache without acquiring any lock.
+ *
+ * Memory of evicted segments is released when no index refers to them anymore and the garbage collector
+ * reclaims the direct {@link ByteBuffer}.
+ *
+ * The on-heap storage of the parent {@link MessageCache} is not used by this class, while limits and metrics
+ * have the same meaning.
+ */
+final class OffHeapMessageTableCache extends MessageCache<MessageTable.Entry> {
+
+  private static final String METRICS_SEGMENTS_ALLOCATED = "cache.offheap.segments.allocated";
+
+  // Layout of each entry stored in a segment:
+  //   flags (1 byte) | transaction write pointer (8 bytes) | payload length (4 bytes, -1 for no payload) | payload
+  private static final int TX_WRITE_POINTER_OFFSET = 1;
+  private static final int PAYLOAD_LENGTH_OFFSET = 9;
+  private static final int HEADER_SIZE = 13;
+
+  private static final byte FLAG_TRANSACTIONAL = 0x01;
+  private static final byte FLAG_ROLLBACK = 0x02;
+
+  private static final int MIN_INDEX_CAPACITY = 64;
+
+  private final TopicId topicId;
+  private final int segmentSize;
+  private final Weigher<MessageTable.Entry> weigher;
+  private final AtomicReference<Limits> limits;
+  private final MetricsContext metricsContext;
+  private final AtomicLong currentWeight;
+  private final AtomicBoolean needReduceWeight;
+  private final AtomicBoolean adding;
+  private final Lock writeLock;
+
+  private volatile Index index;
+
+  // Segment for appending new entries. Only accessed while holding the write lock.
+  private ByteBuffer writeSegment;
+
+  /**
+   * Creates a new instance of the cache.
+   *
+   * @param topicId the topic that this cache is for
+   * @param segmentSize size in bytes of each off-heap segment
+   * @param comparator a {@link Comparator} for ordering cache entries
+   * @param weigher a {@link Weigher} for computing the weight of each cache entry
+   * @param limits the limits for maintaining cache weight; see {@link MessageCache} for more detail
+   * @param metricsContext a {@link MetricsContext} for emitting metrics about this cache.
+   */
+  OffHeapMessageTableCache(TopicId topicId, int segmentSize, Comparator<MessageTable.Entry> comparator,
+                           Weigher<MessageTable.Entry> weigher, Limits limits, MetricsContext metricsContext) {
+    super(comparator, weigher, limits, metricsContext);
+    this.topicId = topicId;
+    this.segmentSize = segmentSize;
+    this.weigher = weigher;
+    this.limits = new AtomicReference<>(limits);
+    this.metricsContext = metricsContext;
+    this.currentWeight = new AtomicLong();
+    this.needReduceWeight = new AtomicBoolean();
+    this.adding = new AtomicBoolean();
+    this.writeLock = new ReentrantLock();
+    this.index = new Index(MIN_INDEX_CAPACITY);
+  }
+
+  @Override
+  public void addAll(Iterator<MessageTable.Entry> entries) {
+    if (!adding.compareAndSet(false, true)) {
+      // This is to guard against bug, otherwise this shouldn't happen
+      throw new ConcurrentModificationException(
+        "The MessageCache.addAll method shouldn't be called concurrently by multiple threads.");
+    }
+
+    writeLock.lock();
+    try {
+      long newWeight = currentWeight.get();
+      int entriesAdded = 0;
+      while (entries.hasNext()) {
+        MessageTable.Entry entry = entries.next();
+        int weight = weigher.weight(entry);
+        newWeight = currentWeight.addAndGet(weight);
+        if (newWeight > limits.get().getHardLimit()) {
+          reduceWeight();
+          metricsContext.increment(METRICS_ADD_REDUCE_WEIGHT, 1L);
+          newWeight = currentWeight.get();
+        }
+
+        // Entries must be in strictly increasing order and larger than everything in the cache.
+        Index idx = index;
+        int size = idx.size;
+        if (size > 0 && idx.compare(size - 1, entry) >= 0) {
+          // Clear the cache to reset state. This is just for precaution, as this shouldn't happen,
+          // unless there is bug in the TMS system (from the caller side).
+          MessageTable.Entry largest = idx.getEntry(topicId, size - 1);
+          currentWeight.addAndGet(-1 * weight);
+          clear();
+          throw new IllegalArgumentException("Cache entry must be in strictly increasing order. " +
+                                               "Entry " + entry + " is smaller than or equal to " + largest);
+        }
+
+        append(entry, weight);
+        entriesAdded++;
+      }
+
+      metricsContext.increment(METRICS_ADD_REQUESTS, 1L);
+      metricsContext.increment(METRICS_ENTRIES_ADDED, entriesAdded);
+      metricsContext.gauge(METRICS_WEIGHT, newWeight);
+
+      if (newWeight > limits.get().getHardLimit()) {
+        reduceWeight();
+        metricsContext.increment(METRICS_ADD_REDUCE_WEIGHT, 1L);
+      } else if (newWeight > limits.get().getReduceTrigger()) {
+        needReduceWeight.compareAndSet(false, true);
+      }
+    } finally {
+      writeLock.unlock();
+      adding.set(false);
+    }
+  }
+
+  @Override
+  public Scanner<MessageTable.Entry> scan(MessageTable.Entry startEntry, boolean includeStart,
+                                          int limit, MessageFilter<MessageTable.Entry> filter) {
+    // No locking is needed. Everything referenced by the index snapshot is immutable for the fetcher.
+    Index idx = index;
+    int size = idx.size;
+
+    MessageTable.Entry firstInCache = size == 0 ? null : idx.getEntry(topicId, 0);
+    List<MessageTable.Entry> entries = new ArrayList<>();
+    for (int i = idx.search(startEntry, includeStart, size); i < size && entries.size() < limit; i++) {
+      MessageTable.Entry entry = idx.getEntry(topicId, i);
+      MessageFilter.Result result = filter.apply(entry);
+      if (result == MessageFilter.Result.ACCEPT) {
+        entries.add(entry);
+      } else if (result == MessageFilter.Result.HOLD) {
+        // Hold means not to scan more, so just break
+        break;
+      }
+    }
+
+    metricsContext.increment(METRICS_SCAN_REQUESTS, 1L);
+    return new OffHeapScanner(entries.iterator(), firstInCache);
+  }
+
+  @Override
+  public void updateEntries(MessageTable.Entry startEntry, MessageTable.Entry endEntry,
+                            EntryUpdater<MessageTable.Entry> updater) {
+    writeLock.lock();
+    try {
+      Index idx = index;
+      int size = idx.size;
+      for (int i = idx.search(startEntry, true, size); i < size && idx.compare(i, endEntry) <= 0; i++) {
+        CachingMessageTable.CacheMessageTableEntry entry = idx.getEntry(topicId, i);
+        try {
+          updater.updateEntry(entry);
+        } catch (RuntimeException e) {
+          clear();
+          throw e;
+        }
+
+        // The key is stored in the index, hence the update must not alter it.
+        if (idx.compare(i, entry) != 0) {
+          // This shouldn't happen, unless there is bug in the caller.
+          clear();
+          throw new IllegalStateException("Entry order should not be altered after update.");
+        }
+        if (entry.isRollback()) {
+          ByteBuffer segment = idx.segments[i];
+          int offset = idx.offsets[i];
+          segment.put(offset, (byte) (segment.get(offset) | FLAG_ROLLBACK));
+        }
+      }
+
+      // Volatile write to publish the in-place flag updates to fetchers
+      index = idx;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    writeLock.lock();
+    try {
+      int entriesRemoved = index.size;
+      index = new Index(MIN_INDEX_CAPACITY);
+      writeSegment = null;
+      currentWeight.set(0L);
+      metricsContext.increment(METRICS_ENTRIES_REMOVED, entriesRemoved);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public void resize(Limits limits) {
+    writeLock.lock();
+    try {
+      this.limits.set(limits);
+      reduceWeight();
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public Limits getLimits() {
+    return limits.get();
+  }
+
+  /**
+   * Returns the current cache weight.
+   */
+  @VisibleForTesting
+  long getWeight() {
+    return currentWeight.get();
+  }
+
+  /**
+   * Appends the given entry to the current write segment and publishes it in the index.
+   * Must be called with the write lock held.
+   */
+  private void append(MessageTable.Entry entry, int weight) {
+    byte[] payload = entry.getPayload();
+    int length = HEADER_SIZE + (payload == null ? 0 : payload.length);
+    if (writeSegment == null || writeSegment.remaining() < length) {
+      writeSegment = ByteBuffer.allocateDirect(Math.max(segmentSize, length));
+      metricsContext.increment(METRICS_SEGMENTS_ALLOCATED, 1L);
+    }
+
+    ByteBuffer segment = writeSegment;
+    int offset = segment.position();
+    segment.put(entry.isTransactional() ? FLAG_TRANSACTIONAL : 0)
+      .putLong(entry.getTransactionWritePointer())
+      .putInt(payload == null ? -1 : payload.length);
+    if (payload != null) {
+      segment.put(payload);
+    }
+
+    Index idx = index;
+    if (idx.size == idx.capacity()) {
+      idx = idx.copy(0, idx.size * 2);
+      index = idx;
+    }
+    idx.append(entry, weight, segment, offset);
+  }
+
+  /**
+   * Reduces the cache weight. Cached entries will be removed until the cache weight is smaller than the soft limit.
+   */
+  private void reduceWeight() {
+    int entriesRemoved = 0;
+    writeLock.lock();
+    try {
+      Index idx = index;
+      int size = idx.size;
+      long newWeight = currentWeight.get();
+      while (entriesRemoved < size) {
+        // If removing the next entry is smaller than the min weight, we are done with the reduce logic
+        if (newWeight - idx.weights[entriesRemoved] < limits.get().getMinRetain()) {
+          break;
+        }
+        newWeight = currentWeight.addAndGet(-1 * idx.weights[entriesRemoved]);
+        entriesRemoved++;
+      }
+      if (entriesRemoved > 0) {
+        // Publish a compacted index instead of modifying the one that might be used by fetchers
+        index = idx.copy(entriesRemoved, Math.max(MIN_INDEX_CAPACITY, (size - entriesRemoved) * 2));
+      }
+      if (entriesRemoved == size) {
+        writeSegment = null;
+      }
+    } finally {
+      writeLock.unlock();
+    }
+    metricsContext.increment(METRICS_ENTRIES_REMOVED, entriesRemoved);
+  }
+
+  /**
+   * A {@link Scanner} over entries copied from the cache.
+   */
+  private final class OffHeapScanner extends AbstractIterator<MessageTable.Entry>
+                                     implements Scanner<MessageTable.Entry> {
+
+    private final Iterator<MessageTable.Entry> iterator;
+    private final MessageTable.Entry firstInCache;
+    private boolean closed;
+
+    private OffHeapScanner(Iterator<MessageTable.Entry> iterator, @Nullable MessageTable.Entry firstInCache) {
+      this.iterator = iterator;
+      this.firstInCache = firstInCache;
+    }
+
+    @Override
+    protected MessageTable.Entry computeNext() {
+      if (!closed && iterator.hasNext()) {
+        return iterator.next();
+      }
+      close();
+      return endOfData();
+    }
+
+    @Nullable
+    @Override
+    public MessageTable.Entry getFirstInCache() {
+      return firstInCache;
+    }
+
+    @Override
+    public void close() {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      // Use compareAndSet to check if need to reduce weight. There will only be
+      // one winner to proceed with the reduce weight call.
+      if (needReduceWeight.compareAndSet(true, false)) {
+        reduceWeight();
+        metricsContext.increment(METRICS_SCAN_REDUCE_WEIGHT, 1L);
+      }
+    }
+  }
+
+  /**
+   * The index of the cached entries. Slots at or beyond {@link #size} are only written by the single writer,
+   * and slots below it are never modified.
+   */
+  private static final class Index {
+
+    private final int[] generations;
+    private final long[] publishTimestamps;
+    private final short[] sequenceIds;
+    private final int[] weights;
+    private final ByteBuffer[] segments;
+    private final int[] offsets;
+    private volatile int size;
+
+    private Index(int capacity) {
+      this.generations = new int[capacity];
+      this.publishTimestamps = new long[capacity];
+      this.sequenceIds = new short[capacity];
+      this.weights = new int[capacity];
+      this.segments = new ByteBuffer[capacity];
+      this.offsets = new int[capacity];
+    }
+
+    int capacity() {
+      return generations.length;
+    }
+
+    /**
+     * Creates a new {@link Index} with the given capacity that contains entries starting from the given position.
+     */
+    Index copy(int from, int capacity) {
+      Index idx = new Index(capacity);
+      int length = size - from;
+      System.arraycopy(generations, from, idx.generations, 0, length);
+      System.arraycopy(publishTimestamps, from, idx.publishTimestamps, 0, length);
+      System.arraycopy(sequenceIds, from, idx.sequenceIds, 0, length);
+      System.arraycopy(weights, from, idx.weights, 0, length);
+      System.arraycopy(segments, from, idx.segments, 0, length);
+      System.arraycopy(offsets, from, idx.offsets, 0, length);
+      idx.size = length;
+      return idx;
+    }
+
+    void append(MessageTable.Entry entry, int weight, ByteBuffer segment, int offset) {
+      int pos = size;
+      generations[pos] = entry.getGeneration();
+      publishTimestamps[pos] = entry.getPublishTimestamp();
+      sequenceIds[pos] = entry.getSequenceId();
+      weights[pos] = weight;
+      segments[pos] = segment;
+      offsets[pos] = offset;
+      // Volatile write to make the new entry visible to fetchers
+      size = pos + 1;
+    }
+
+    /**
+     * Compares the key at the given position with the key of the given entry, using the same ordering as
+     * {@link MessageTableEntryComparator}.
+     */
+    int compare(int pos, MessageTable.Entry entry) {
+      int cmp = Integer.compare(generations[pos], entry.getGeneration());
+      if (cmp != 0) {
+        return cmp;
+      }
+      cmp = Long.compare(publishTimestamps[pos], entry.getPublishTimestamp());
+      if (cmp != 0) {
+        return cmp;
+      }
+      return Integer.compare(sequenceIds[pos] & 0xFFFF, entry.getSequenceId() & 0xFFFF);
+    }
+
+    /**
+     * Returns the smallest position in {@code [0, size)} that is larger than (or equal to if {@code inclusive}
+     * is {@code true}) the given entry, or {@code size} if there is no such position.
+     */
+    int search(MessageTable.Entry entry, boolean inclusive, int size) {
+      int low = 0;
+      int high = size;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        int cmp = compare(mid, entry);
+        if (cmp < 0 || (cmp == 0 && !inclusive)) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+
+    /**
+     * Decodes the entry at the given position.
+     */
+    CachingMessageTable.CacheMessageTableEntry getEntry(TopicId topicId, int pos) {
+      ByteBuffer segment = segments[pos];
+      int offset = offsets[pos];
+      byte flags = segment.get(offset);
+      long writePointer = segment.getLong(offset + TX_WRITE_POINTER_OFFSET);
+      int length = segment.getInt(offset + PAYLOAD_LENGTH_OFFSET);
+
+      byte[] payload = null;
+      if (length >= 0) {
+        payload = new byte[length];
+        // Use a duplicate since the position of the segment is modified by the writer
+        ByteBuffer buffer = segment.duplicate();
+        buffer.position(offset + HEADER_SIZE);
+        buffer.get(payload);
+      }
+
+      return new CachingMessageTable.CacheMessageTableEntry(topicId, generations[pos],
+                                                            (flags & FLAG_TRANSACTIONAL) != 0, writePointer,
+                                                            payload, publishTimestamps[pos], sequenceIds[pos],
+                                                            (flags & FLAG_ROLLBACK) != 0);
+    }
+  }
+}
@@ -149,6 +149,7 @@ public final class HBaseMetadataTable implements MetadataTable {
         TopicMetadata oldMetadata = getMetadata(topicMetadata.getTopicId());
         TreeMap<String, String> newProperties = new TreeMap<>(topicMetadata.getProperties());
         newProperties.put(TopicMetadata.GENERATION_KEY, Integer.toString(oldMetadata.getGeneration()));
+        keepPartitions(oldMetadata, topicMetadata, newProperties);
 
         Put put = tableUtil.buildPut(rowKey)
           .add(columnFamily, COL, Bytes.toBytes(GSON.toJson(newProperties, MAP_TYPE)))
@@ -226,4 +227,25 @@ public final class HBaseMetadataTable implements MetadataTable {
   public synchronized void close() throws IOException {
     hTable.close();
   }
+
+  /**
+   * Keeps the number of partitions of the topic in the new properties, since data is stored by partition and
+   * changing it would make existing messages unreachable.
+   *
+   * @throws IllegalArgumentException if the new properties give a different number of partitions
+   */
+  private static void keepPartitions(TopicMetadata oldMetadata, TopicMetadata newMetadata,
+                                     Map<String, String> newProperties) {
+    if (newProperties.containsKey(TopicMetadata.PARTITIONS_KEY)
+      && newMetadata.getPartitions() != oldMetadata.getPartitions()) {
+      throw new IllegalArgumentException("The number of partitions of topic " + oldMetadata.getTopicId()
+                                           + " cannot be changed from " + oldMetadata.getPartitions());
+    }
+    String partitions = oldMetadata.getProperties().get(TopicMetadata.PARTITIONS_KEY);
+    if (partitions == null) {
+      newProperties.remove(TopicMetadata.PARTITIONS_KEY);
+    } else {
+      newProperties.put(TopicMetadata.PARTITIONS_KEY, partitions);
+    }
+  }
 }
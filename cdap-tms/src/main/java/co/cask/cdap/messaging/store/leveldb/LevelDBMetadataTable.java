@@ -122,6 +122,7 @@ final class LevelDBMetadataTable implements MetadataTable {
 
         TreeMap<String, String> newProperties = new TreeMap<>(topicMetadata.getProperties());
         newProperties.put(TopicMetadata.GENERATION_KEY, Integer.toString(oldMetadata.getGeneration()));
+        keepPartitions(oldMetadata, topicMetadata, newProperties);
         levelDB.put(key, Bytes.toBytes(GSON.toJson(newProperties, MAP_TYPE)), WRITE_OPTIONS);
       }
     } catch (DBException e) {
@@ -224,4 +225,25 @@ final class LevelDBMetadataTable implements MetadataTable {
   public void close() throws IOException {
     // no op
   }
+
+  /**
+   * Keeps the number of partitions of the topic in the new properties, since data is stored by partition and
+   * changing it would make existing messages unreachable.
+   *
+   * @throws IllegalArgumentException if the new properties give a different number of partitions
+   */
+  private static void keepPartitions(TopicMetadata oldMetadata, TopicMetadata newMetadata,
+                                     Map<String, String> newProperties) {
+    if (newProperties.containsKey(TopicMetadata.PARTITIONS_KEY)
+      && newMetadata.getPartitions() != oldMetadata.getPartitions()) {
+      throw new IllegalArgumentException("The number of partitions of topic " + oldMetadata.getTopicId()
+                                           + " cannot be changed from " + oldMetadata.getPartitions());
+    }
+    String partitions = oldMetadata.getProperties().get(TopicMetadata.PARTITIONS_KEY);
+    if (partitions == null) {
+      newProperties.remove(TopicMetadata.PARTITIONS_KEY);
+    } else {
+      newProperties.put(TopicMetadata.PARTITIONS_KEY, partitions);
+    }
+  }
 }
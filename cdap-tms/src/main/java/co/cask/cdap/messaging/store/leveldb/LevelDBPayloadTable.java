@@ -99,14 +99,14 @@ public class LevelDBPayloadTable extends AbstractPayloadTable {
   /**
    * Delete messages of a {@link TopicId} that has exceeded the TTL or if it belongs to an older generation
    *
-   * @param topicMetadata {@link TopicMetadata}
+   * @param topicMetadata {@link TopicMetadata} of the topic partition to prune
    * @param currentTime current timestamp
    * @throws IOException error occurred while trying to delete a row in LevelDB
    */
   public void pruneMessages(TopicMetadata topicMetadata, long currentTime) throws IOException {
     WriteBatch writeBatch = levelDB.createWriteBatch();
     long ttlInMs = TimeUnit.SECONDS.toMillis(topicMetadata.getTTL());
-    byte[] startRow = MessagingUtils.toDataKeyPrefix(topicMetadata.getTopicId(),
+    byte[] startRow = MessagingUtils.toDataKeyPrefix(topicMetadata.getTopicId(), topicMetadata.getPartition(),
                                                      Integer.parseInt(MessagingUtils.Constants.DEFAULT_GENERATION));
     byte[] stopRow = Bytes.stopKeyForPrefix(startRow);
 
@@ -126,8 +126,11 @@ public final class LevelDBTableFactory implements TableFactory {
       try (CloseableIterator<TopicMetadata> metadataIterator = metadataTable.scanTopics()) {
         while (metadataIterator.hasNext()) {
           TopicMetadata metadata = metadataIterator.next();
-          messageTable.pruneMessages(metadata, timeStamp);
-          payloadTable.pruneMessages(metadata, timeStamp);
+          for (int partition = 0; partition < metadata.getPartitions(); partition++) {
+            TopicMetadata partitionMetadata = metadata.forPartition(partition);
+            messageTable.pruneMessages(partitionMetadata, timeStamp);
+            payloadTable.pruneMessages(partitionMetadata, timeStamp);
+          }
         }
       } catch (IOException ex) {
         LOG.debug("Unable to perform data cleanup in TMS LevelDB tables", ex);
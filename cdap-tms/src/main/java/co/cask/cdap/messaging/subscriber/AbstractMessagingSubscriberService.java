@@ -33,6 +33,7 @@ import co.cask.cdap.common.service.AbstractRetryableScheduledService;
 import co.cask.cdap.common.service.RetryStrategy;
 import co.cask.cdap.common.utils.ImmutablePair;
 import co.cask.cdap.common.utils.TimeBoundIterator;
+import co.cask.cdap.messaging.context.PartitionedMessageFetcher;
 import co.cask.cdap.messaging.data.MessageId;
 import co.cask.cdap.proto.id.TopicId;
 import com.google.common.collect.AbstractIterator;
@@ -51,6 +52,8 @@ import javax.xml.ws.handler.MessageContext;
  * An abstract base class for implementing message consumption from TMS.
  * This service allows optional transactional fetch from TMS.
  * It always process messages and persisting consumer states in the same transaction.
+ * For partitioned topics, one instance of this service consumes from one partition. Multiple instances can be
+ * used to consume from different partitions in parallel, with each of them persisting its own message id.
  *
  * @param <T> the type that each message will be decoded to.
  */
@@ -60,6 +63,7 @@ public abstract class AbstractMessagingSubscriberService<T> extends AbstractRetr
   private static final Logger SAMPLING_LOG = Loggers.sampling(LOG, LogSamplers.limitRate(10000));
 
   private final TopicId topicId;
+  private final int partition;
   private final boolean transactionalFetch;
   private final int fetchSize;
   private final long emptyFetchDelayMillis;
@@ -86,8 +90,34 @@ public abstract class AbstractMessagingSubscriberService<T> extends AbstractRetr
                                                int txTimeoutSeconds, int maxTxTimeoutSeconds,
                                                long emptyFetchDelayMillis,
                                                RetryStrategy retryStrategy, MetricsContext metricsContext) {
+    this(topicId, 0, transactionalFetch, fetchSize, txTimeoutSeconds, maxTxTimeoutSeconds,
+         emptyFetchDelayMillis, retryStrategy, metricsContext);
+  }
+
+  /**
+   * Constructor for consuming from a specific partition of a topic.
+   *
+   * @param topicId the topic to consume from
+   * @param partition the partition of the topic to consume from
+   * @param transactionalFetch {@code true} to indicate fetching from TMS needs to be performed inside transaction
+   * @param fetchSize number of messages to fetch in each batch
+   * @param txTimeoutSeconds transaction timeout in seconds to use when processing messages
+   * @param maxTxTimeoutSeconds max transaction timeout in seconds to use, any tx timeout larger than this number
+   *                           is not allowed
+   * @param emptyFetchDelayMillis number of milliseconds to sleep after a fetch returns empty result
+   * @param retryStrategy the {@link RetryStrategy} to determine retry on failure
+   * @param metricsContext the {@link MetricsContext} for emitting metrics about the message consumption.
+   */
+  protected AbstractMessagingSubscriberService(TopicId topicId, int partition, boolean transactionalFetch,
+                                               int fetchSize, int txTimeoutSeconds, int maxTxTimeoutSeconds,
+                                               long emptyFetchDelayMillis,
+                                               RetryStrategy retryStrategy, MetricsContext metricsContext) {
     super(retryStrategy);
+    if (partition < 0) {
+      throw new IllegalArgumentException("Partition must be >= 0");
+    }
     this.topicId = topicId;
+    this.partition = partition;
     this.transactionalFetch = transactionalFetch;
     this.fetchSize = fetchSize;
     this.txTimeoutSeconds = txTimeoutSeconds;
@@ -103,6 +133,13 @@ public abstract class AbstractMessagingSubscriberService<T> extends AbstractRetr
     return topicId;
   }
 
+  /**
+   * Returns the partition of the topic that this service is fetching from.
+   */
+  protected final int getPartition() {
+    return partition;
+  }
+
   /**
    * Returns the {@link MessageContext} that this service used for interacting with TMS.
    */
@@ -115,6 +152,7 @@ public abstract class AbstractMessagingSubscriberService<T> extends AbstractRetr
 
   /**
    * Loads last persisted message id. This method will be called from a transaction.
+   * If the service is consuming from a partitioned topic, the message id should be persisted per partition.
    * The returned message id will be used as the starting message id (exclusive) for the first fetch.
    *
    * @param datasetContext the {@link DatasetContext} for getting dataset instances.
@@ -299,10 +337,8 @@ public abstract class AbstractMessagingSubscriberService<T> extends AbstractRetr
    */
   private List<Message> doFetchMessages(@Nullable String messageId) throws TopicNotFoundException, IOException {
     List<Message> messages = new ArrayList<>();
-    LOG.trace("Fetching from topic '{}' with messageId '{}'", messageId);
-    MessageFetcher messageFetcher = getMessagingContext().getMessageFetcher();
-    try (CloseableIterator<Message> iterator = messageFetcher.fetch(topicId.getNamespace(),
-                                                                    topicId.getTopic(), fetchSize, messageId)) {
+    LOG.trace("Fetching from topic '{}' partition {} with messageId '{}'", topicId, partition, messageId);
+    try (CloseableIterator<Message> iterator = fetch(getMessagingContext().getMessageFetcher(), messageId)) {
       while (iterator.hasNext() && state() == State.RUNNING) {
         messages.add(iterator.next());
       }
@@ -310,6 +346,22 @@ public abstract class AbstractMessagingSubscriberService<T> extends AbstractRetr
     return messages;
   }
 
+  /**
+   * Fetches messages from the topic partition using the given {@link MessageFetcher}.
+   */
+  private CloseableIterator<Message> fetch(MessageFetcher messageFetcher,
+                                           @Nullable String messageId) throws TopicNotFoundException, IOException {
+    if (partition == 0) {
+      return messageFetcher.fetch(topicId.getNamespace(), topicId.getTopic(), fetchSize, messageId);
+    }
+    if (!(messageFetcher instanceof PartitionedMessageFetcher)) {
+      throw new IllegalStateException("Fetching from partition " + partition + " of topic " + topicId
+                                        + " is not supported by " + messageFetcher);
+    }
+    return ((PartitionedMessageFetcher) messageFetcher).fetch(topicId.getNamespace(), topicId.getTopic(),
+                                                              partition, fetchSize, messageId);
+  }
+
   /**
    * Returns the publish time encoded in the given message id.
    *
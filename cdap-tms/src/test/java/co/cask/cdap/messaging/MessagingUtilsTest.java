@@ -16,6 +16,7 @@
 
 package co.cask.cdap.messaging;
 
+import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.proto.id.NamespaceId;
@@ -39,6 +40,31 @@ public class MessagingUtilsTest {
     Assert.assertEquals(id, topicId);
   }
 
+  @Test
+  public void testPartitionedKeyPrefix() throws Exception {
+    TopicId id = new TopicId("n1", "t1");
+
+    // Partition 0 has the same prefix as the non-partitioned one
+    byte[] prefix = MessagingUtils.toDataKeyPrefix(id, 0, 3);
+    Assert.assertArrayEquals(MessagingUtils.toDataKeyPrefix(id, 3), prefix);
+    Assert.assertEquals(id, MessagingUtils.toTopicId(prefix, 0, prefix.length - Bytes.SIZEOF_INT));
+    Assert.assertEquals(0, MessagingUtils.getPartition(prefix, 0, prefix.length - Bytes.SIZEOF_INT));
+
+    // Other partitions have the partition marker and id between the topic and the generation
+    prefix = MessagingUtils.toDataKeyPrefix(id, 5, 3);
+    Assert.assertEquals(MessagingUtils.toDataKeyPrefix(id, 3).length + MessagingUtils.Constants.PARTITION_SUFFIX_LENGTH,
+                        prefix.length);
+    Assert.assertEquals(id, MessagingUtils.toTopicId(prefix, 0, prefix.length - Bytes.SIZEOF_INT));
+    Assert.assertEquals(5, MessagingUtils.getPartition(prefix, 0, prefix.length - Bytes.SIZEOF_INT));
+    Assert.assertEquals(3, Bytes.toInt(prefix, prefix.length - Bytes.SIZEOF_INT));
+
+    // The prefix of a partition must not be a prefix of another partition, even if the generation of one partition
+    // has the same value as the id of the other partition
+    byte[] partition0 = MessagingUtils.toDataKeyPrefix(id, 0, 1);
+    byte[] partition1 = MessagingUtils.toDataKeyPrefix(id, 1, 1);
+    Assert.assertFalse(Bytes.startsWith(partition1, partition0));
+  }
+
   @Test
   public void testGenerations() throws Exception {
     Assert.assertTrue(MessagingUtils.isOlderGeneration(3, 5));
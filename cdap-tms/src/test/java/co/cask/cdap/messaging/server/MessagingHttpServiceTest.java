@@ -55,8 +55,10 @@ import org.junit.rules.TemporaryFolder;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -71,6 +73,7 @@ public class MessagingHttpServiceTest {
   private static CConfiguration cConf;
   private static MessagingHttpService httpService;
   private static MessagingService client;
+  private static MessagingService avroClient;
 
   @BeforeClass
   public static void init() throws IOException {
@@ -96,6 +99,7 @@ public class MessagingHttpServiceTest {
     httpService.startAndWait();
 
     client = new ClientMessagingService(injector.getInstance(DiscoveryServiceClient.class));
+    avroClient = new ClientMessagingService(injector.getInstance(DiscoveryServiceClient.class), false);
   }
 
   @AfterClass
@@ -440,6 +444,131 @@ public class MessagingHttpServiceTest {
     client.deleteTopic(topicId);
   }
 
+  @Test
+  public void testFetchFormats() throws Exception {
+    // This test is to verify the framed and the avro fetch responses give the same result
+    TopicId topicId = new NamespaceId("ns1").topic("testFetchFormats");
+
+    client.createTopic(new TopicMetadata(topicId));
+
+    // Publish messages of different sizes, including empty payload, to have messages span multiple chunks
+    int chunkSize = cConf.getInt(Constants.MessagingSystem.HTTP_SERVER_CONSUME_CHUNK_SIZE);
+    for (int i = 0; i < 10; i++) {
+      String payload = Strings.repeat(Integer.toString(i), i * chunkSize / 4);
+      client.publish(StoreRequestBuilder.of(topicId).addPayload(payload).build());
+    }
+
+    List<RawMessage> framedMessages = new ArrayList<>();
+    try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId).fetch()) {
+      Iterators.addAll(framedMessages, iterator);
+    }
+    List<RawMessage> avroMessages = new ArrayList<>();
+    try (CloseableIterator<RawMessage> iterator = avroClient.prepareFetch(topicId).fetch()) {
+      Iterators.addAll(avroMessages, iterator);
+    }
+
+    Assert.assertEquals(10, framedMessages.size());
+    Assert.assertEquals(10, avroMessages.size());
+    for (int i = 0; i < 10; i++) {
+      String payload = Strings.repeat(Integer.toString(i), i * chunkSize / 4);
+      Assert.assertArrayEquals(avroMessages.get(i).getId(), framedMessages.get(i).getId());
+      Assert.assertEquals(payload, Bytes.toString(framedMessages.get(i).getPayload()));
+      Assert.assertEquals(payload, Bytes.toString(avroMessages.get(i).getPayload()));
+    }
+
+    // Fetch with a limit and a start message
+    try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId)
+                                                        .setStartMessage(framedMessages.get(2).getId(), false)
+                                                        .setLimit(3)
+                                                        .fetch()) {
+      List<RawMessage> messages = new ArrayList<>();
+      Iterators.addAll(messages, iterator);
+      Assert.assertEquals(3, messages.size());
+      Assert.assertArrayEquals(framedMessages.get(3).getId(), messages.get(0).getId());
+    }
+
+    client.deleteTopic(topicId);
+  }
+
+  @Test
+  public void testPartitions() throws Exception {
+    TopicId topicId = new NamespaceId("ns1").topic("testPartitions");
+    client.createTopic(new TopicMetadata(topicId, TopicMetadata.PARTITIONS_KEY, 4));
+
+    // Publish messages with different partition keys
+    for (int i = 0; i < 10; i++) {
+      for (int key = 0; key < 8; key++) {
+        client.publish(StoreRequestBuilder.of(topicId).setPartitionKey("key" + key).addPayload(key + ":" + i).build());
+      }
+    }
+
+    // Messages of the same partition key should be in one partition, in publish order
+    Map<String, Integer> keyPartitions = new HashMap<>();
+    int total = 0;
+    for (int partition = 0; partition < 4; partition++) {
+      Map<String, Integer> nextIndex = new HashMap<>();
+      try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId).setPartition(partition).fetch()) {
+        while (iterator.hasNext()) {
+          String[] payload = Bytes.toString(iterator.next().getPayload()).split(":");
+          Integer previous = keyPartitions.put(payload[0], partition);
+          Assert.assertTrue(previous == null || previous == partition);
+
+          int expected = nextIndex.containsKey(payload[0]) ? nextIndex.get(payload[0]) : 0;
+          Assert.assertEquals(expected, Integer.parseInt(payload[1]));
+          nextIndex.put(payload[0], expected + 1);
+          total++;
+        }
+      }
+    }
+    Assert.assertEquals(8, keyPartitions.size());
+    Assert.assertEquals(80, total);
+
+    // Fetching from an invalid partition should fail
+    try {
+      client.prepareFetch(topicId).setPartition(4).fetch().close();
+      Assert.fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+
+    client.deleteTopic(topicId);
+  }
+
+  @Test
+  public void testUpdatePartitionedTopic() throws Exception {
+    TopicId topicId = new NamespaceId("ns1").topic("testUpdatePartitionedTopic");
+    client.createTopic(new TopicMetadata(topicId, TopicMetadata.PARTITIONS_KEY, 4));
+
+    // Updating the TTL should keep the number of partitions
+    client.updateTopic(new TopicMetadata(topicId, TopicMetadata.TTL_KEY, 100));
+    TopicMetadata metadata = client.getTopic(topicId);
+    Assert.assertEquals(100, metadata.getTTL());
+    Assert.assertEquals(4, metadata.getPartitions());
+
+    // Changing the number of partitions should fail
+    try {
+      client.updateTopic(new TopicMetadata(topicId, TopicMetadata.PARTITIONS_KEY, 2));
+      Assert.fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+    Assert.assertEquals(4, client.getTopic(topicId).getPartitions());
+
+    // Publish with a partition key of the last partition, and fetch it from that partition
+    String partitionKey = "key0";
+    for (int i = 1; metadata.getPartition(partitionKey) != 3; i++) {
+      partitionKey = "key" + i;
+    }
+    client.publish(StoreRequestBuilder.of(topicId).setPartitionKey(partitionKey).addPayload("data").build());
+    try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId).setPartition(3).fetch()) {
+      Assert.assertTrue(iterator.hasNext());
+      Assert.assertEquals("data", Bytes.toString(iterator.next().getPayload()));
+      Assert.assertFalse(iterator.hasNext());
+    }
+
+    client.deleteTopic(topicId);
+  }
+
   @Test
   public void testPayloadTable() throws Exception {
     // This test is to verify storing transaction messages to the payload table
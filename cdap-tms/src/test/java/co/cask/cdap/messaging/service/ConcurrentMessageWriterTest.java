@@ -271,7 +271,7 @@ public class ConcurrentMessageWriterTest {
   /**
    * A {@link StoreRequestWriter} that turns all payloads to {@link RawMessage} and stores it in a List.
    */
-  private static final class TestStoreRequestWriter extends StoreRequestWriter<TestEntry> {
+  static final class TestStoreRequestWriter extends StoreRequestWriter<TestEntry> {
 
     private final ListMultimap<TopicId, RawMessage> messages = ArrayListMultimap.create();
     private long writeDelayMillis;
@@ -324,7 +324,7 @@ public class ConcurrentMessageWriterTest {
   /**
    * An entry being by the {@link TestStoreRequestWriter}.
    */
-  private static final class TestEntry {
+  static final class TestEntry {
     private final TopicId topicId;
     private final boolean transactional;
     private final long transactionWritePointer;
@@ -371,7 +371,7 @@ public class ConcurrentMessageWriterTest {
   /**
    * A {@link StoreRequest} that takes a list of Strings as payload.
    */
-  private static final class TestStoreRequest extends StoreRequest {
+  static final class TestStoreRequest extends StoreRequest {
 
     private final List<String> payloads;
 
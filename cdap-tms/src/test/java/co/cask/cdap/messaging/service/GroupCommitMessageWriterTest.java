@@ -0,0 +1,292 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.messaging.service;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.metrics.MetricsCollector;
+import co.cask.cdap.api.metrics.NoopMetricsContext;
+import co.cask.cdap.common.utils.TimeProvider;
+import co.cask.cdap.messaging.RollbackDetail;
+import co.cask.cdap.messaging.TopicMetadata;
+import co.cask.cdap.messaging.data.RawMessage;
+import co.cask.cdap.proto.id.NamespaceId;
+import co.cask.cdap.proto.id.TopicId;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit-test for {@link GroupCommitMessageWriter}.
+ */
+public class GroupCommitMessageWriterTest {
+
+  private static final TopicId TOPIC_ID = NamespaceId.DEFAULT.topic("t");
+  private static final TopicMetadata METADATA = new TopicMetadata(TOPIC_ID, new HashMap<String, String>(), 1);
+
+  private static ExecutorService executor;
+
+  @BeforeClass
+  public static void init() {
+    executor = Executors.newCachedThreadPool();
+  }
+
+  @AfterClass
+  public static void finish() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testBasic() throws Exception {
+    ConcurrentMessageWriterTest.TestStoreRequestWriter testWriter =
+      new ConcurrentMessageWriterTest.TestStoreRequestWriter(new TimeProvider.IncrementalTimeProvider());
+    GroupCommitMessageWriter writer = new GroupCommitMessageWriter(testWriter, new NoopMetricsContext(),
+                                                                   executor, 10, 0L, 1024L);
+
+    Assert.assertNull(writer.persist(new ConcurrentMessageWriterTest.TestStoreRequest(
+      TOPIC_ID, Arrays.asList("1", "2", "3")), METADATA));
+
+    // Transactional publish should return the rollback detail
+    RollbackDetail rollbackDetail = writer.persist(new ConcurrentMessageWriterTest.TestStoreRequest(
+      TOPIC_ID, true, 10L, Arrays.asList("4", "5")), METADATA);
+    Assert.assertNotNull(rollbackDetail);
+    Assert.assertEquals(10L, rollbackDetail.getTransactionWritePointer());
+    Assert.assertEquals(rollbackDetail.getStartTimestamp(), rollbackDetail.getEndTimestamp());
+    Assert.assertEquals(0, rollbackDetail.getStartSequenceId());
+    Assert.assertEquals(1, rollbackDetail.getEndSequenceId());
+
+    List<String> payloads = new ArrayList<>();
+    for (RawMessage message : testWriter.getMessages().get(TOPIC_ID)) {
+      payloads.add(Bytes.toString(message.getPayload()));
+    }
+    Assert.assertEquals(Arrays.asList("1", "2", "3", "4", "5"), payloads);
+
+    writer.close();
+
+    // Publish after close should fail
+    try {
+      writer.persist(new ConcurrentMessageWriterTest.TestStoreRequest(TOPIC_ID, Collections.singletonList("6")),
+                     METADATA);
+      Assert.fail("Expected IOException");
+    } catch (IOException e) {
+      // Expected
+    }
+  }
+
+  @Test
+  public void testGroupCommit() throws Exception {
+    int requestCount = 100;
+    final AtomicInteger batches = new AtomicInteger();
+    ConcurrentMessageWriterTest.TestStoreRequestWriter testWriter =
+      new ConcurrentMessageWriterTest.TestStoreRequestWriter(new TimeProvider.IncrementalTimeProvider(), 10L);
+
+    // Use a linger time and large batch size so that requests published together are committed together
+    GroupCommitMessageWriter writer = new GroupCommitMessageWriter(testWriter, new MetricsCollector() {
+      @Override
+      public void increment(String metricName, long value) {
+        // no-op
+      }
+
+      @Override
+      public void gauge(String metricName, long value) {
+        if ("persist.batch.size".equals(metricName)) {
+          batches.incrementAndGet();
+        }
+      }
+    }, executor, requestCount, 100L, Long.MAX_VALUE);
+
+    List<ListenableFuture<RollbackDetail>> futures = new ArrayList<>();
+    for (int i = 0; i < requestCount; i++) {
+      futures.add(writer.persistAsync(new ConcurrentMessageWriterTest.TestStoreRequest(
+        TOPIC_ID, Collections.singletonList(Integer.toString(i))), METADATA));
+    }
+
+    // Closing the writer should commit all pending requests
+    writer.close();
+    for (ListenableFuture<RollbackDetail> future : futures) {
+      Assert.assertNull(future.get(10, TimeUnit.SECONDS));
+    }
+
+    // Messages should be written in the publish order, with fewer writes than requests
+    List<RawMessage> messages = testWriter.getMessages().get(TOPIC_ID);
+    Assert.assertEquals(requestCount, messages.size());
+    for (int i = 0; i < requestCount; i++) {
+      Assert.assertEquals(Integer.toString(i), Bytes.toString(messages.get(i).getPayload()));
+      if (i > 0) {
+        Assert.assertTrue(Bytes.compareTo(messages.get(i - 1).getId(), messages.get(i).getId()) < 0);
+      }
+    }
+    Assert.assertTrue(batches.get() < requestCount);
+  }
+
+  @Test
+  public void testMaxBatchSize() throws Exception {
+    final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<Integer>());
+    ConcurrentMessageWriterTest.TestStoreRequestWriter testWriter =
+      new ConcurrentMessageWriterTest.TestStoreRequestWriter(new TimeProvider.IncrementalTimeProvider());
+    GroupCommitMessageWriter writer = new GroupCommitMessageWriter(testWriter, new MetricsCollector() {
+      @Override
+      public void increment(String metricName, long value) {
+        // no-op
+      }
+
+      @Override
+      public void gauge(String metricName, long value) {
+        if ("persist.batch.size".equals(metricName)) {
+          batchSizes.add((int) value);
+        }
+      }
+    }, executor, 10, 0L, 4L);
+
+    // Each request has 2 bytes of payload, hence at most two requests are committed together
+    List<ListenableFuture<RollbackDetail>> futures = new ArrayList<>();
+    for (int i = 10; i < 20; i++) {
+      futures.add(writer.persistAsync(new ConcurrentMessageWriterTest.TestStoreRequest(
+        TOPIC_ID, Collections.singletonList(Integer.toString(i))), METADATA));
+    }
+    for (ListenableFuture<RollbackDetail> future : futures) {
+      future.get(10, TimeUnit.SECONDS);
+    }
+    writer.close();
+
+    Assert.assertEquals(10, testWriter.getMessages().get(TOPIC_ID).size());
+    for (int batchSize : batchSizes) {
+      Assert.assertTrue(batchSize <= 2);
+    }
+  }
+
+  @Test
+  public void testFailure() throws Exception {
+    GroupCommitMessageWriter writer = new GroupCommitMessageWriter(
+      new StoreRequestWriter<Object>(new TimeProvider.IncrementalTimeProvider(), false) {
+        @Override
+        Object getEntry(TopicMetadata metadata, boolean transactional, long transactionWritePointer,
+                        long writeTimestamp, short sequenceId, byte[] payload) {
+          return new Object();
+        }
+
+        @Override
+        void doWrite(Iterator<Object> entries) throws IOException {
+          throw new IOException("Write failure");
+        }
+
+        @Override
+        public void close() {
+          // no-op
+        }
+      }, new NoopMetricsContext(), executor, 10, 0L, 1024L);
+
+    ListenableFuture<RollbackDetail> future = writer.persistAsync(
+      new ConcurrentMessageWriterTest.TestStoreRequest(TOPIC_ID, Collections.singletonList("1")), METADATA);
+    try {
+      future.get(10, TimeUnit.SECONDS);
+      Assert.fail("Expected failure");
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof IOException);
+    }
+
+    try {
+      writer.persist(new ConcurrentMessageWriterTest.TestStoreRequest(TOPIC_ID, Collections.singletonList("2")),
+                     METADATA);
+      Assert.fail("Expected IOException");
+    } catch (IOException e) {
+      Assert.assertEquals("Write failure", e.getMessage());
+    }
+    writer.close();
+  }
+
+  @Test
+  public void testCloseWaitsForCommit() throws Exception {
+    final CountDownLatch writeStarted = new CountDownLatch(1);
+    final CountDownLatch writeAllowed = new CountDownLatch(1);
+    final AtomicInteger written = new AtomicInteger();
+    final GroupCommitMessageWriter writer = new GroupCommitMessageWriter(
+      new StoreRequestWriter<Object>(new TimeProvider.IncrementalTimeProvider(), false) {
+        @Override
+        Object getEntry(TopicMetadata metadata, boolean transactional, long transactionWritePointer,
+                        long writeTimestamp, short sequenceId, byte[] payload) {
+          return new Object();
+        }
+
+        @Override
+        void doWrite(Iterator<Object> entries) throws IOException {
+          writeStarted.countDown();
+          try {
+            writeAllowed.await();
+          } catch (InterruptedException e) {
+            throw new IOException(e);
+          }
+          while (entries.hasNext()) {
+            entries.next();
+            written.incrementAndGet();
+          }
+        }
+
+        @Override
+        public void close() {
+          // no-op
+        }
+      }, new NoopMetricsContext(), executor, 10, 0L, 1024L);
+
+    // Block the commit task in the write, and enqueue another request behind it
+    ListenableFuture<RollbackDetail> first = writer.persistAsync(
+      new ConcurrentMessageWriterTest.TestStoreRequest(TOPIC_ID, Collections.singletonList("1")), METADATA);
+    Assert.assertTrue(writeStarted.await(10, TimeUnit.SECONDS));
+    ListenableFuture<RollbackDetail> second = writer.persistAsync(
+      new ConcurrentMessageWriterTest.TestStoreRequest(TOPIC_ID, Collections.singletonList("2")), METADATA);
+
+    // Close should block until the running commit task is done
+    Future<Void> closeFuture = executor.submit(new Callable<Void>() {
+      @Override
+      public Void call() throws Exception {
+        writer.close();
+        return null;
+      }
+    });
+    try {
+      closeFuture.get(200, TimeUnit.MILLISECONDS);
+      Assert.fail("Expected close to wait for the running commit");
+    } catch (TimeoutException e) {
+      // Expected
+    }
+
+    // Once the write is done, close should commit the remaining request and return
+    writeAllowed.countDown();
+    closeFuture.get(10, TimeUnit.SECONDS);
+    first.get(10, TimeUnit.SECONDS);
+    second.get(10, TimeUnit.SECONDS);
+    Assert.assertEquals(2, written.get());
+  }
+}
@@ -242,6 +242,11 @@ public abstract class DataCleanupTest {
       return generation;
     }
 
+    @Override
+    public int getPartition() {
+      return 0;
+    }
+
     @Override
     public byte[] getPayload() {
       return Bytes.toBytes(payload);
@@ -290,6 +295,11 @@ public abstract class DataCleanupTest {
       return generation;
     }
 
+    @Override
+    public int getPartition() {
+      return 0;
+    }
+
     @Override
     public boolean isPayloadReference() {
       return false;
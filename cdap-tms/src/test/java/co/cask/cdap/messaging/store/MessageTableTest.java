@@ -129,6 +129,42 @@ public abstract class MessageTableTest {
     }
   }
 
+  @Test
+  public void testPartitions() throws Exception {
+    TopicId topicId = NamespaceId.DEFAULT.topic("partitions");
+    TopicMetadata metadata = new TopicMetadata(topicId, TopicMetadata.TTL_KEY, 10000,
+                                               TopicMetadata.GENERATION_KEY, GENERATION,
+                                               TopicMetadata.PARTITIONS_KEY, 2);
+    try (MessageTable table = getMessageTable();
+         MetadataTable metadataTable = getMetadataTable()) {
+      metadataTable.createTopic(metadata);
+
+      // Partition 1 and the generation share the same value, which must not make the partitions overlap
+      List<MessageTable.Entry> entryList = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+        for (int partition = 0; partition < 2; partition++) {
+          entryList.add(new TestMessageEntry(topicId, GENERATION, partition, i, 0, null,
+                                             Bytes.toBytes(partition + ":" + i)));
+        }
+      }
+      table.store(entryList.iterator());
+
+      for (int partition = 0; partition < 2; partition++) {
+        TopicMetadata partitionMetadata = metadata.forPartition(partition);
+        try (CloseableIterator<MessageTable.Entry> iterator = table.fetch(partitionMetadata, 0, 50, null)) {
+          List<String> payloads = new ArrayList<>();
+          while (iterator.hasNext()) {
+            MessageTable.Entry entry = iterator.next();
+            Assert.assertEquals(partition, entry.getPartition());
+            payloads.add(Bytes.toString(entry.getPayload()));
+          }
+          Assert.assertEquals(Arrays.asList(partition + ":0", partition + ":1", partition + ":2",
+                                            partition + ":3", partition + ":4"), payloads);
+        }
+      }
+    }
+  }
+
   @Test
   public void testNonTxAndTxConsumption() throws Exception {
     try (MessageTable table = getMessageTable();
@@ -390,10 +426,13 @@ public abstract class MessageTableTest {
     }
   }
 
-  // Private class for publishing messages
-  private static class TestMessageEntry implements MessageTable.Entry {
+  /**
+   * A {@link MessageTable.Entry} for publishing messages in tests.
+   */
+  protected static class TestMessageEntry implements MessageTable.Entry {
     private final TopicId topicId;
     private final int generation;
+    private final int partition;
     private final Long transactionWritePointer;
     private final byte[] payload;
     private final long publishTimestamp;
@@ -401,8 +440,14 @@ public abstract class MessageTableTest {
 
     TestMessageEntry(TopicId topicId, int generation, long publishTimestamp, int sequenceId,
                      @Nullable Long transactionWritePointer, @Nullable byte[] payload) {
+      this(topicId, generation, 0, publishTimestamp, sequenceId, transactionWritePointer, payload);
+    }
+
+    public TestMessageEntry(TopicId topicId, int generation, int partition, long publishTimestamp, int sequenceId,
+                     @Nullable Long transactionWritePointer, @Nullable byte[] payload) {
       this.topicId = topicId;
       this.generation = generation;
+      this.partition = partition;
       this.transactionWritePointer = transactionWritePointer;
       this.publishTimestamp = publishTimestamp;
       this.sequenceId = (short) sequenceId;
@@ -419,6 +464,11 @@ public abstract class MessageTableTest {
       return generation;
     }
 
+    @Override
+    public int getPartition() {
+      return partition;
+    }
+
     @Override
     public boolean isPayloadReference() {
       return payload == null;
@@ -264,6 +264,11 @@ public abstract class PayloadTableTest {
       return generation;
     }
 
+    @Override
+    public int getPartition() {
+      return 0;
+    }
+
     @Override
     public byte[] getPayload() {
       return payload;
@@ -51,7 +51,7 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 public class CachingMessageTableTest extends LevelDBMessageTableTest {
 
-  private static MessageTableCacheProvider cacheProvider;
+  protected static MessageTableCacheProvider cacheProvider;
 
   @BeforeClass
   public static void initCache() {
@@ -0,0 +1,172 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.messaging.store.cache;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.metrics.NoopMetricsContext;
+import co.cask.cdap.messaging.TopicMetadata;
+import co.cask.cdap.messaging.cache.MessageCache;
+import co.cask.cdap.messaging.store.MessageFilter;
+import co.cask.cdap.messaging.store.MessageTable;
+import co.cask.cdap.proto.id.NamespaceId;
+import co.cask.cdap.proto.id.TopicId;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Lists;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit test for {@link CachingMessageTable} using the {@link OffHeapMessageTableCache}.
+ */
+public class OffHeapCachingMessageTableTest extends CachingMessageTableTest {
+
+  private static final TopicMetadata METADATA = new TopicMetadata(NamespaceId.DEFAULT.topic("offheap"),
+                                                                  TopicMetadata.GENERATION_KEY, 1,
+                                                                  TopicMetadata.TTL_KEY, 86400);
+
+  @BeforeClass
+  public static void initOffHeapCache() {
+    final LoadingCache<TopicId, MessageCache<MessageTable.Entry>> caches = CacheBuilder
+      .newBuilder()
+      .build(new CacheLoader<TopicId, MessageCache<MessageTable.Entry>>() {
+        @Override
+        public MessageCache<MessageTable.Entry> load(TopicId key) throws Exception {
+          // Use a small segment size so that entries span multiple segments
+          return new OffHeapMessageTableCache(key, 128, new MessageTableEntryComparator(),
+                                              new MessageTableEntryWeigher(),
+                                              new MessageCache.Limits(500, 700, 1000), new NoopMetricsContext());
+        }
+      });
+
+    cacheProvider = new MessageTableCacheProvider() {
+      @Override
+      public MessageCache<MessageTable.Entry> getMessageCache(TopicId topicId) {
+        return caches.getUnchecked(topicId);
+      }
+
+      @Override
+      public void clear() {
+        for (MessageCache<MessageTable.Entry> cache : caches.asMap().values()) {
+          cache.clear();
+        }
+        caches.invalidateAll();
+      }
+    };
+  }
+
+  @Test
+  public void testReduceWeight() {
+    // Each entry has a weight of 50 (40 fixed + 10 bytes payload)
+    OffHeapMessageTableCache cache = createCache(new MessageCache.Limits(200, 300, 400));
+
+    cache.addAll(createEntries(0, 6).iterator());
+    Assert.assertEquals(300L, cache.getWeight());
+
+    // Go beyond the hard limit would trigger reducing the weight to the min retain
+    cache.addAll(createEntries(6, 3).iterator());
+    Assert.assertEquals(200L, cache.getWeight());
+
+    try (MessageCache.Scanner<MessageTable.Entry> scanner = scan(cache, 0L)) {
+      Assert.assertEquals(5L, scanner.getFirstInCache().getPublishTimestamp());
+      List<Long> timestamps = new ArrayList<>();
+      for (MessageTable.Entry entry : Lists.newArrayList(scanner)) {
+        timestamps.add(entry.getPublishTimestamp());
+        Assert.assertEquals("Payload" + String.format("%03d", entry.getPublishTimestamp()),
+                            Bytes.toString(entry.getPayload()));
+      }
+      Assert.assertEquals(Lists.newArrayList(5L, 6L, 7L, 8L), timestamps);
+    }
+
+    // Scan from the middle, exclusive
+    try (MessageCache.Scanner<MessageTable.Entry> scanner =
+           cache.scan(new CachingMessageTable.CacheMessageTableEntry(METADATA, 6L, (short) 0), false, 10,
+                      MessageFilter.<MessageTable.Entry>alwaysAccept())) {
+      Assert.assertEquals(2, Lists.newArrayList(scanner).size());
+    }
+
+    // Entries must be in increasing order. Violating it would clear the cache.
+    try {
+      cache.addAll(createEntries(3, 1).iterator());
+      Assert.fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+    Assert.assertEquals(0L, cache.getWeight());
+    try (MessageCache.Scanner<MessageTable.Entry> scanner = scan(cache, 0L)) {
+      Assert.assertNull(scanner.getFirstInCache());
+      Assert.assertFalse(scanner.hasNext());
+    }
+  }
+
+  @Test
+  public void testRollback() {
+    OffHeapMessageTableCache cache = createCache(new MessageCache.Limits(1000, 1500, 2000));
+    List<MessageTable.Entry> entries = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      entries.add(new CachingMessageTable.CacheMessageTableEntry(METADATA.getTopicId(), METADATA.getGeneration(),
+                                                                 true, 100L + i, Bytes.toBytes(i), i,
+                                                                 (short) 0, false));
+    }
+    cache.addAll(entries.iterator());
+
+    cache.updateEntries(new CachingMessageTable.CacheMessageTableEntry(METADATA, 1L, (short) 0),
+                        new CachingMessageTable.CacheMessageTableEntry(METADATA, 3L, (short) 0),
+                        new MessageCache.EntryUpdater<MessageTable.Entry>() {
+      @Override
+      public void updateEntry(MessageTable.Entry entry) {
+        ((CachingMessageTable.CacheMessageTableEntry) entry).rollback();
+      }
+    });
+
+    try (MessageCache.Scanner<MessageTable.Entry> scanner = scan(cache, 0L)) {
+      List<Boolean> rollbacks = new ArrayList<>();
+      for (MessageTable.Entry entry : Lists.newArrayList(scanner)) {
+        Assert.assertTrue(entry.isTransactional());
+        Assert.assertEquals(100L + entry.getPublishTimestamp(), entry.getTransactionWritePointer());
+        rollbacks.add(((CachingMessageTable.CacheMessageTableEntry) entry).isRollback());
+      }
+      Assert.assertEquals(Lists.newArrayList(false, true, true, true, false), rollbacks);
+    }
+  }
+
+  private OffHeapMessageTableCache createCache(MessageCache.Limits limits) {
+    return new OffHeapMessageTableCache(METADATA.getTopicId(), 64, new MessageTableEntryComparator(),
+                                        new MessageTableEntryWeigher(), limits, new NoopMetricsContext());
+  }
+
+  private MessageCache.Scanner<MessageTable.Entry> scan(OffHeapMessageTableCache cache, long startTime) {
+    return cache.scan(new CachingMessageTable.CacheMessageTableEntry(METADATA, startTime, (short) 0), true,
+                      Integer.MAX_VALUE, MessageFilter.<MessageTable.Entry>alwaysAccept());
+  }
+
+  private List<MessageTable.Entry> createEntries(int startTime, int count) {
+    List<MessageTable.Entry> entries = new ArrayList<>();
+    for (int i = startTime; i < startTime + count; i++) {
+      entries.add(new CachingMessageTable.CacheMessageTableEntry(METADATA.getTopicId(), METADATA.getGeneration(),
+                                                                 false, 0L,
+                                                                 Bytes.toBytes("Payload" + String.format("%03d", i)),
+                                                                 i, (short) 0, false));
+    }
+    return entries;
+  }
+}
@@ -16,17 +16,27 @@
 
 package co.cask.cdap.messaging.store.leveldb;
 
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.dataset.lib.CloseableIterator;
 import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.messaging.TopicMetadata;
 import co.cask.cdap.messaging.store.MessageTable;
 import co.cask.cdap.messaging.store.MessageTableTest;
 import co.cask.cdap.messaging.store.MetadataTable;
 import co.cask.cdap.messaging.store.TableFactory;
+import co.cask.cdap.proto.id.NamespaceId;
+import co.cask.cdap.proto.id.TopicId;
+import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
+import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Tests for {@link LevelDBMessageTable}.
@@ -46,6 +56,52 @@ public class LevelDBMessageTableTest extends MessageTableTest {
     tableFactory = new LevelDBTableFactory(cConf);
   }
 
+  @Test
+  public void testPrunePartitions() throws Exception {
+    TopicId topicId = NamespaceId.DEFAULT.topic("prunePartitions");
+    TopicMetadata metadata = new TopicMetadata(topicId, TopicMetadata.TTL_KEY, 1,
+                                               TopicMetadata.GENERATION_KEY, 1,
+                                               TopicMetadata.PARTITIONS_KEY, 2);
+    try (MessageTable table = getMessageTable();
+         MetadataTable metadataTable = getMetadataTable()) {
+      metadataTable.createTopic(metadata);
+
+      // Messages in partition 0 are expired, while messages in partition 1 are not
+      long now = System.currentTimeMillis();
+      List<MessageTable.Entry> entries = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+        entries.add(new TestMessageEntry(topicId, 1, 0, now - TimeUnit.HOURS.toMillis(1) + i, 0, null,
+                                         Bytes.toBytes("0:" + i)));
+        entries.add(new TestMessageEntry(topicId, 1, 1, now + i, 0, null, Bytes.toBytes("1:" + i)));
+      }
+      table.store(entries.iterator());
+
+      // Pruning partition 0 should remove all of its messages and leave partition 1 untouched
+      ((LevelDBMessageTable) table).pruneMessages(metadata.forPartition(0), now);
+      Assert.assertEquals(0, count(table, metadata.forPartition(0)));
+      Assert.assertEquals(5, count(table, metadata.forPartition(1)));
+
+      // Pruning partition 1 should not remove anything since the messages are not expired
+      ((LevelDBMessageTable) table).pruneMessages(metadata.forPartition(1), now);
+      Assert.assertEquals(5, count(table, metadata.forPartition(1)));
+
+      // After the messages expired, pruning partition 1 should remove them
+      ((LevelDBMessageTable) table).pruneMessages(metadata.forPartition(1), now + TimeUnit.HOURS.toMillis(1));
+      Assert.assertEquals(0, count(table, metadata.forPartition(1)));
+    }
+  }
+
+  private int count(MessageTable table, TopicMetadata metadata) throws IOException {
+    int count = 0;
+    try (CloseableIterator<MessageTable.Entry> iterator = table.fetch(metadata, 0, Integer.MAX_VALUE, null)) {
+      while (iterator.hasNext()) {
+        Assert.assertEquals(metadata.getPartition(), iterator.next().getPartition());
+        count++;
+      }
+    }
+    return count;
+  }
+
   @Override
   protected MessageTable getMessageTable() throws Exception {
     return tableFactory.createMessageTable("message");
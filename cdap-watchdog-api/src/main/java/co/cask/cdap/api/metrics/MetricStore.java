@@ -42,6 +42,15 @@ public interface MetricStore {
    */
   void add(Collection<? extends MetricValues> metricValues);
 
+  /**
+   * Writes all {@link MetricValues} that were added but are still buffered in memory to the underlying storage.
+   * Metrics added before this call are durable once this method returns. By default this is a no-op, for stores
+   * that write through on every add.
+   */
+  default void flush() {
+    // no-op
+  }
+
   /**
    * Queries metrics data.
    * @param query query to execute
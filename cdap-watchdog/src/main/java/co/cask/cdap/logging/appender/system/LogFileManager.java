@@ -19,6 +19,7 @@ package co.cask.cdap.logging.appender.system;
 import co.cask.cdap.common.io.Locations;
 import co.cask.cdap.common.io.Syncable;
 import co.cask.cdap.logging.meta.FileMetaDataWriter;
+import co.cask.cdap.logging.write.LogSegmentWriter;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.io.Closeables;
 import com.google.common.util.concurrent.Uninterruptibles;
@@ -49,6 +50,7 @@ final class LogFileManager implements Flushable, Syncable {
   private final String dirPermissions;
   private final String filePermissions;
   private final int syncIntervalBytes;
+  private final boolean segmentFormat;
   private final long maxLifetimeMillis;
   private final long maxFileSizeInBytes;
   private final Map<LogPathIdentifier, LogFileOutputStream> outputStreamMap;
@@ -56,13 +58,14 @@ final class LogFileManager implements Flushable, Syncable {
   private final FileMetaDataWriter fileMetaDataWriter;
 
   LogFileManager(String dirPermissions, String filePermissions,
-                 long maxFileLifetimeMs, long maxFileSizeInBytes, int syncIntervalBytes,
+                 long maxFileLifetimeMs, long maxFileSizeInBytes, int syncIntervalBytes, boolean segmentFormat,
                  FileMetaDataWriter fileMetaDataWriter, LocationFactory locationFactory) {
     this.dirPermissions = dirPermissions;
     this.filePermissions = filePermissions;
     this.maxLifetimeMillis = maxFileLifetimeMs;
     this.maxFileSizeInBytes = maxFileSizeInBytes;
     this.syncIntervalBytes = syncIntervalBytes;
+    this.segmentFormat = segmentFormat;
     this.fileMetaDataWriter = fileMetaDataWriter;
     this.logsDirectoryLocation = locationFactory.create("logs");
     this.outputStreamMap = new HashMap<>();
@@ -97,9 +100,9 @@ final class LogFileManager implements Flushable, Syncable {
       public void close() throws IOException {
         outputStreamMap.remove(identifier);
       }
-    });
+    }, segmentFormat);
     logFileOutputStream.flush();
-    LOG.info("Created Avro file at {}", location);
+    LOG.info("Created log file at {}", location);
 
     // we write meta data after creating output stream, as we want to avoid having meta data for zero-length avro file.
     // LogFileOutputStream creation writes the schema to the avro file. if meta data write fails,
@@ -224,7 +227,7 @@ final class LogFileManager implements Flushable, Syncable {
         .append(logPathIdentifier.getPathId2());
     ensureDirectoryCheck(contextLocation);
 
-    String fileName = String.format("%s.avro", currentTime);
+    String fileName = String.format("%s.%s", currentTime, segmentFormat ? LogSegmentWriter.FILE_EXTENSION : "avro");
     return new TimeStampLocation(contextLocation.append(fileName), currentTime);
   }
 
@@ -21,6 +21,8 @@ import co.cask.cdap.common.io.ByteBuffers;
 import co.cask.cdap.common.io.Syncable;
 import co.cask.cdap.logging.serialize.LoggingEvent;
 import co.cask.cdap.logging.serialize.LoggingEventSerializer;
+import co.cask.cdap.logging.write.LogFileIndex;
+import co.cask.cdap.logging.write.LogSegmentWriter;
 import com.google.common.io.Closeables;
 import org.apache.avro.Schema;
 import org.apache.avro.file.DataFileWriter;
@@ -39,6 +41,12 @@ import java.nio.ByteBuffer;
 /**
  * Represents output stream for a log file.
  *
+ * While writing, the start position and the event time range of each Avro block are recorded. When the file is
+ * closed, they are written as a {@link LogFileIndex} next to the file, so that readers can seek by time.
+ *
+ * If created for the log segment format, events are written with a {@link LogSegmentWriter} instead, which records
+ * the event time range in the header of each block, hence no index is written.
+ *
  * Since there is no way to check the state of the underlying file on an exception,
  * all methods of this class assume that the file state is bad on any exception and close the file.
  */
@@ -50,26 +58,50 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
   private final long createTime;
   private final Closeable closeable;
   private final LoggingEventSerializer serializer;
+  private final String filePermissions;
+  private final int syncIntervalBytes;
+  private final LogFileIndex.Builder indexBuilder;
 
   private OutputStream outputStream;
   private DataFileWriter<GenericRecord> dataFileWriter;
+  private LogSegmentWriter segmentWriter;
   private long fileSize;
 
+  // Start position, size and event time range of the current block
+  private long blockPosition;
+  private long blockBytes;
+  private int blockEvents;
+  private long blockMinTimestamp;
+  private long blockMaxTimestamp;
+
   LogFileOutputStream(Location location, String filePermissions,
                       int syncIntervalBytes, long createTime, Closeable closeable) throws IOException {
+    this(location, filePermissions, syncIntervalBytes, createTime, closeable, false);
+  }
+
+  LogFileOutputStream(Location location, String filePermissions, int syncIntervalBytes, long createTime,
+                      Closeable closeable, boolean segmentFormat) throws IOException {
     this.location = location;
     this.closeable = closeable;
     this.serializer = new LoggingEventSerializer();
+    this.filePermissions = filePermissions;
+    this.syncIntervalBytes = syncIntervalBytes;
+    this.indexBuilder = new LogFileIndex.Builder();
 
     Schema schema = serializer.getAvroSchema();
     try {
       this.outputStream =
         filePermissions.isEmpty() ? location.getOutputStream() : location.getOutputStream(filePermissions);
-      this.dataFileWriter = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>(schema));
-      this.dataFileWriter.create(schema, outputStream);
-      this.dataFileWriter.setSyncInterval(syncIntervalBytes);
       this.createTime = createTime;
       this.fileSize = 0;
+      if (segmentFormat) {
+        this.segmentWriter = new LogSegmentWriter(outputStream);
+      } else {
+        this.dataFileWriter = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>(schema));
+        this.dataFileWriter.create(schema, outputStream);
+        this.dataFileWriter.setSyncInterval(syncIntervalBytes);
+        this.blockPosition = dataFileWriter.sync();
+      }
     } catch (IOException e) {
       Closeables.closeQuietly(outputStream);
       Closeables.closeQuietly(dataFileWriter);
@@ -82,18 +114,42 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
   }
 
   void append(ILoggingEvent event) throws IOException {
-    // If the event is already a LoggingEvent, we don't need to re-encode.
-    if (event instanceof LoggingEvent) {
-      ByteBuffer encoded = ((LoggingEvent) event).getEncoded();
-      if (encoded != null) {
-        // TODO: CDAP-8735 Remove the copying after upgraded to Avro 1.7.4+
-        dataFileWriter.appendEncoded(ByteBuffers.copy(encoded));
-      } else {
-        dataFileWriter.append(((LoggingEvent) event).getRecord());
+    if (segmentWriter != null) {
+      segmentWriter.append(event instanceof LoggingEvent
+                             ? ((LoggingEvent) event).getRecord() : serializer.toGenericRecord(event));
+      if (segmentWriter.getBlockSize() >= syncIntervalBytes) {
+        segmentWriter.writeBlock();
       }
       return;
     }
-    dataFileWriter.append(serializer.toGenericRecord(event));
+
+    // If the event is already an encoded LoggingEvent, we don't need to re-encode.
+    // Events are always appended in encoded form to keep track of the block size.
+    ByteBuffer encoded = event instanceof LoggingEvent ? ((LoggingEvent) event).getEncoded() : null;
+    if (encoded != null) {
+      // TODO: CDAP-8735 Remove the copying after upgraded to Avro 1.7.4+
+      encoded = ByteBuffers.copy(encoded);
+    } else {
+      encoded = ByteBuffer.wrap(serializer.toBytes(event));
+    }
+    int size = encoded.remaining();
+    dataFileWriter.appendEncoded(encoded);
+
+    long timestamp = event.getTimeStamp();
+    if (blockEvents == 0) {
+      blockMinTimestamp = timestamp;
+      blockMaxTimestamp = timestamp;
+    } else {
+      blockMinTimestamp = Math.min(blockMinTimestamp, timestamp);
+      blockMaxTimestamp = Math.max(blockMaxTimestamp, timestamp);
+    }
+    blockEvents++;
+    blockBytes += size;
+
+    // The DataFileWriter ends the block once its size reaches the sync interval. Call sync() to get the position.
+    if (blockBytes >= syncIntervalBytes) {
+      endBlock();
+    }
   }
 
   /**
@@ -114,6 +170,12 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
 
   @Override
   public void flush() throws IOException {
+    if (segmentWriter != null) {
+      segmentWriter.flush();
+      fileSize = segmentWriter.getPosition();
+      return;
+    }
+    endBlock();
     fileSize = dataFileWriter.sync();
   }
 
@@ -131,9 +193,41 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
   public void close() throws IOException {
     LOG.trace("Closing file {}", location);
     try {
-      dataFileWriter.close();
+      if (segmentWriter != null) {
+        segmentWriter.close();
+      } else {
+        endBlock();
+        dataFileWriter.close();
+        writeIndex();
+      }
     } finally {
       closeable.close();
     }
   }
+
+  /**
+   * Ends the current block and records it in the index.
+   */
+  private void endBlock() throws IOException {
+    if (blockEvents == 0) {
+      return;
+    }
+    long nextPosition = dataFileWriter.sync();
+    indexBuilder.addBlock(blockPosition, blockMinTimestamp, blockMaxTimestamp);
+    blockPosition = nextPosition;
+    blockBytes = 0;
+    blockEvents = 0;
+  }
+
+  private void writeIndex() {
+    if (indexBuilder.isEmpty()) {
+      return;
+    }
+    // The index is optional for reading, hence failure to write it doesn't fail the close
+    try {
+      indexBuilder.write(location, filePermissions);
+    } catch (IOException e) {
+      LOG.warn("Failed to write index for log file {}", location, e);
+    }
+  }
 }
@@ -29,6 +29,7 @@ import co.cask.cdap.logging.meta.CheckpointManagerFactory;
 import co.cask.cdap.logging.pipeline.LogProcessorPipelineContext;
 import co.cask.cdap.logging.pipeline.kafka.KafkaLogProcessorPipeline;
 import co.cask.cdap.logging.pipeline.kafka.KafkaPipelineConfig;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Supplier;
 import com.google.common.collect.Iterables;
@@ -47,6 +48,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -79,34 +81,44 @@ public class DistributedLogFramework extends ResourceBalancerService {
 
   @Override
   protected Service createService(Set<Integer> partitions) {
-    Map<String, LogPipelineSpecification<AppenderContext>> specs = new LogPipelineLoader(cConf).load(contextProvider);
-    int pipelineCount = specs.size();
+    List<Set<Integer>> shards = createShards(partitions, cConf.getInt(Constants.Logging.PIPELINE_SHARDS));
 
-    // Create one KafkaLogProcessorPipeline per spec
+    // Create one KafkaLogProcessorPipeline per spec for each shard of partitions. Each shard loads its own set
+    // of specs, so that pipelines in different shards have their own logger context and appenders.
+    // Since partitions are not shared between shards, each pipeline owns the checkpoints of its partitions.
     final List<Service> pipelines = new ArrayList<>();
-    for (final LogPipelineSpecification<AppenderContext> pipelineSpec : specs.values()) {
-      final CConfiguration cConf = pipelineSpec.getConf();
-      final AppenderContext context = pipelineSpec.getContext();
-
-      long bufferSize = getBufferSize(pipelineCount, cConf, partitions.size());
-      final String topic = cConf.get(Constants.Logging.KAFKA_TOPIC);
-      final KafkaPipelineConfig config = new KafkaPipelineConfig(
-        topic, partitions, bufferSize,
-        cConf.getLong(Constants.Logging.PIPELINE_EVENT_DELAY_MS),
-        cConf.getInt(Constants.Logging.PIPELINE_KAFKA_FETCH_SIZE),
-        cConf.getLong(Constants.Logging.PIPELINE_CHECKPOINT_INTERVAL_MS)
-      );
-
-      RetryStrategy retryStrategy = RetryStrategies.fromConfiguration(cConf, "system.log.process.");
-      pipelines.add(new RetryOnStartFailureService(new Supplier<Service>() {
-        @Override
-        public Service get() {
-          return new KafkaLogProcessorPipeline(
-            new LogProcessorPipelineContext(cConf, context.getName(), context,
-                                            context.getMetricsContext(), context.getInstanceId()),
-            checkpointManagerFactory.create(topic, pipelineSpec.getCheckpointPrefix()), brokerService, config);
-        }
-      }, retryStrategy));
+    for (int shard = 0; shard < shards.size(); shard++) {
+      Set<Integer> shardPartitions = shards.get(shard);
+      Map<String, LogPipelineSpecification<AppenderContext>> specs =
+        new LogPipelineLoader(cConf).load(contextProvider);
+      int pipelineCount = specs.size();
+
+      for (final LogPipelineSpecification<AppenderContext> pipelineSpec : specs.values()) {
+        final CConfiguration cConf = pipelineSpec.getConf();
+        final AppenderContext context = pipelineSpec.getContext();
+        final String name = shards.size() == 1 ? context.getName() : context.getName() + "." + shard;
+
+        // The buffer is divided evenly between shards
+        long bufferSize = Math.max(1L, getBufferSize(pipelineCount, cConf, partitions.size()) / shards.size());
+        final String topic = cConf.get(Constants.Logging.KAFKA_TOPIC);
+        final KafkaPipelineConfig config = new KafkaPipelineConfig(
+          topic, shardPartitions, bufferSize,
+          cConf.getLong(Constants.Logging.PIPELINE_EVENT_DELAY_MS),
+          cConf.getInt(Constants.Logging.PIPELINE_KAFKA_FETCH_SIZE),
+          cConf.getLong(Constants.Logging.PIPELINE_CHECKPOINT_INTERVAL_MS)
+        );
+
+        RetryStrategy retryStrategy = RetryStrategies.fromConfiguration(cConf, "system.log.process.");
+        pipelines.add(new RetryOnStartFailureService(new Supplier<Service>() {
+          @Override
+          public Service get() {
+            return new KafkaLogProcessorPipeline(
+              new LogProcessorPipelineContext(cConf, name, context,
+                                              context.getMetricsContext(), context.getInstanceId()),
+              checkpointManagerFactory.create(topic, pipelineSpec.getCheckpointPrefix()), brokerService, config);
+          }
+        }, retryStrategy));
+      }
     }
 
     // Returns a Service that start/stop all pipelines.
@@ -125,6 +137,23 @@ public class DistributedLogFramework extends ResourceBalancerService {
     };
   }
 
+  /**
+   * Divides the given partitions into at most the given number of shards, with partitions assigned in round robin.
+   */
+  @VisibleForTesting
+  static List<Set<Integer>> createShards(Set<Integer> partitions, int maxShards) {
+    int numShards = Math.max(1, Math.min(maxShards, partitions.size()));
+    List<Set<Integer>> shards = new ArrayList<>(numShards);
+    for (int i = 0; i < numShards; i++) {
+      shards.add(new TreeSet<Integer>());
+    }
+    int i = 0;
+    for (int partition : new TreeSet<>(partitions)) {
+      shards.get(i++ % numShards).add(partition);
+    }
+    return shards;
+  }
+
   /**
    * Blocks and validates all the given futures completed successfully.
    */
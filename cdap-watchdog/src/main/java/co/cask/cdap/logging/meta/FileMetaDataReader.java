@@ -28,6 +28,7 @@ import co.cask.cdap.data2.dataset2.MultiThreadDatasetCache;
 import co.cask.cdap.data2.transaction.Transactions;
 import co.cask.cdap.logging.appender.system.LogPathIdentifier;
 import co.cask.cdap.logging.write.LogLocation;
+import co.cask.cdap.logging.write.LogSegmentWriter;
 import co.cask.cdap.proto.id.NamespaceId;
 import co.cask.cdap.security.impersonation.Impersonator;
 import com.google.common.annotations.VisibleForTesting;
@@ -174,12 +175,15 @@ public class FileMetaDataReader {
       while ((row = scanner.next()) != null) {
         // column value is the file location
         byte[] value = row.get(LoggingStoreTableUtil.META_TABLE_COLUMN_KEY);
-        files.add(new LogLocation(LogLocation.VERSION_1,
+        // we store path in new format
+        Location location = Locations.getLocationFromAbsolutePath(locationFactory, (Bytes.toString(value)));
+        // log segment files are identified by the file extension
+        String version = location.getName().endsWith("." + LogSegmentWriter.FILE_EXTENSION)
+          ? LogLocation.VERSION_2 : LogLocation.VERSION_1;
+        files.add(new LogLocation(version,
                                   Bytes.toLong(row.getRow(), prefixLength, Bytes.SIZEOF_LONG),
                                   Bytes.toLong(row.getRow(), prefixLength + Bytes.SIZEOF_LONG, Bytes.SIZEOF_LONG),
-                                  // we store path in new format
-                                  Locations.getLocationFromAbsolutePath(locationFactory, (Bytes.toString(value))),
-                                  logPathIdentifier.getNamespaceId(), impersonator));
+                                  location, logPathIdentifier.getNamespaceId(), impersonator));
 
       }
     }
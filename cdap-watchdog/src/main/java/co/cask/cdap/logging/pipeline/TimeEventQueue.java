@@ -18,60 +18,86 @@ package co.cask.cdap.logging.pipeline;
 
 import it.unimi.dsi.fastutil.ints.Int2ObjectArrayMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectRBTreeMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectSortedMap;
 
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.NoSuchElementException;
 import javax.annotation.concurrent.NotThreadSafe;
 
 /**
  * A queue for storing time based events with offsets association.
  *
+ * Events are grouped into buckets of {@link #BUCKET_MILLIS} milliseconds by the event timestamp. Each bucket keeps
+ * its events in parallel arrays sorted by timestamp, partition and offset, and offsets of each partition are kept in
+ * a sorted array. This avoids allocating tree nodes and wrapper objects for every event in the queue, which matters
+ * when the queue is buffering a large number of events.
+ *
+ * Adding events to the queue while iterating over it is not supported.
+ *
  * @param <Event> Type of event stored in the queue.
  * @param <Offset> Type of event offset associated with the event.
  */
 @NotThreadSafe
 public final class TimeEventQueue<Event, Offset extends Comparable<Offset>> implements Iterable<Event> {
 
-  private final SortedSet<TimeEvent<Event, Offset>> events;
-  private final Int2ObjectMap<SortedSet<Offset>> partitionOffsets;
+  private static final long BUCKET_MILLIS = 10L;
+  private static final int INITIAL_CAPACITY = 8;
+
+  private final Long2ObjectSortedMap<Bucket<Event, Offset>> buckets;
+  private final Int2ObjectMap<PartitionOffsets<Offset>> partitionOffsets;
+  private int size;
   private long totalSize;
 
   public TimeEventQueue(Iterable<Integer> partitions) {
-    this.events = new TreeSet<>();
+    this.buckets = new Long2ObjectRBTreeMap<>();
     this.partitionOffsets = new Int2ObjectArrayMap<>();
 
     for (int partition : partitions) {
-      partitionOffsets.put(partition, new TreeSet<Offset>());
+      partitionOffsets.put(partition, new PartitionOffsets<Offset>());
     }
   }
 
   public void add(Event event, long eventTimestamp, int eventSize, int partition, Offset offset) {
-    SortedSet<Offset> offsets = getOffsets(partition);
-    TimeEvent<Event, Offset> timeEvent = new TimeEvent<>(eventTimestamp, partition, offset, event, eventSize);
-    if (events.add(timeEvent)) {
-      if (!offsets.add(offset)) {
-        events.remove(timeEvent);
-        throw new IllegalArgumentException("Adding different event with the same offset "
-                                             + offset + ", " + event);
+    PartitionOffsets<Offset> offsets = getOffsets(partition);
+    long bucketKey = Math.floorDiv(eventTimestamp, BUCKET_MILLIS);
+    Bucket<Event, Offset> bucket = buckets.get(bucketKey);
+
+    if (!offsets.add(offset)) {
+      // Adding the same event again is ignored
+      if (bucket != null && bucket.contains(eventTimestamp, partition, offset)) {
+        return;
       }
+      throw new IllegalArgumentException("Adding different event with the same offset "
+                                           + offset + ", " + event);
+    }
 
-      totalSize += eventSize;
+    if (bucket == null) {
+      bucket = new Bucket<>();
+      buckets.put(bucketKey, bucket);
     }
+    bucket.add(eventTimestamp, partition, offset, event, eventSize);
+    size++;
+    totalSize += eventSize;
   }
 
   /**
    * Returns the event in the queue with the smallest timestamp.
    */
   public Event first() {
-    return events.first().getEvent();
+    if (buckets.isEmpty()) {
+      throw new NoSuchElementException();
+    }
+    Bucket<Event, Offset> bucket = buckets.get(buckets.firstLongKey());
+    return bucket.getEvent(bucket.nextIndex(0));
   }
 
   /**
    * Returns {@code true} if there is no event in the queue.
    */
   public boolean isEmpty() {
-    return events.isEmpty();
+    return size == 0;
   }
 
   /**
@@ -85,7 +111,7 @@ public final class TimeEventQueue<Event, Offset extends Comparable<Offset>> impl
    * Returns the number of events in the queue.
    */
   public int size() {
-    return events.size();
+    return size;
   }
 
   /**
@@ -99,7 +125,7 @@ public final class TimeEventQueue<Event, Offset extends Comparable<Offset>> impl
    * Returns the smallest offset stored for the given partition.
    */
   public Offset getSmallestOffset(int partition) {
-    SortedSet<Offset> offsets = getOffsets(partition);
+    PartitionOffsets<Offset> offsets = getOffsets(partition);
     if (offsets.isEmpty()) {
       throw new IllegalStateException("Queue is empty");
     }
@@ -108,53 +134,68 @@ public final class TimeEventQueue<Event, Offset extends Comparable<Offset>> impl
 
   @Override
   public EventIterator<Event, Offset> iterator() {
-    final Iterator<TimeEvent<Event, Offset>> iterator = events.iterator();
+    final Iterator<Bucket<Event, Offset>> bucketIterator = buckets.values().iterator();
     return new EventIterator<Event, Offset>() {
 
-      private TimeEvent<Event, Offset> currentEvent;
+      private Bucket<Event, Offset> bucket;
+      private int index = -1;
+      private boolean hasCurrent;
 
       @Override
       public boolean hasNext() {
-        return iterator.hasNext();
+        return (bucket != null && bucket.nextIndex(index + 1) < bucket.end) || bucketIterator.hasNext();
       }
 
       @Override
       public Event next() {
-        currentEvent = iterator.next();
-        return currentEvent.getEvent();
+        int nextIndex = bucket == null ? -1 : bucket.nextIndex(index + 1);
+        if (bucket == null || nextIndex >= bucket.end) {
+          // Buckets in the map are never empty
+          bucket = bucketIterator.next();
+          nextIndex = bucket.nextIndex(0);
+        }
+        index = nextIndex;
+        hasCurrent = true;
+        return bucket.getEvent(index);
       }
 
       @Override
       public void remove() {
-        if (currentEvent == null) {
-          throw new IllegalStateException("The next() method must be called first.");
+        checkCurrent();
+        partitionOffsets.get(bucket.partitions[index]).remove(bucket.getOffset(index));
+        size--;
+        totalSize -= bucket.eventSizes[index];
+        bucket.remove(index);
+        hasCurrent = false;
+
+        if (bucket.isEmpty()) {
+          bucketIterator.remove();
+          bucket = null;
         }
-        iterator.remove();
-        partitionOffsets.get(currentEvent.getPartition()).remove(currentEvent.getOffset());
-        totalSize -= currentEvent.getEventSize();
-        currentEvent = null;
       }
 
       @Override
       public Offset getOffset() {
-        if (currentEvent == null) {
-          throw new IllegalStateException("The next() method must be called first.");
-        }
-        return currentEvent.getOffset();
+        checkCurrent();
+        return bucket.getOffset(index);
       }
 
       @Override
       public int getPartition() {
-        if (currentEvent == null) {
+        checkCurrent();
+        return bucket.partitions[index];
+      }
+
+      private void checkCurrent() {
+        if (!hasCurrent) {
           throw new IllegalStateException("The next() method must be called first.");
         }
-        return currentEvent.getPartition();
       }
     };
   }
 
-  private SortedSet<Offset> getOffsets(int partition) {
-    SortedSet<Offset> offsets = partitionOffsets.get(partition);
+  private PartitionOffsets<Offset> getOffsets(int partition) {
+    PartitionOffsets<Offset> offsets = partitionOffsets.get(partition);
     if (offsets == null) {
       throw new IllegalArgumentException("Partition " + partition +
                                            " is not in allowed partitions " + partitionOffsets.keySet());
@@ -182,58 +223,261 @@ public final class TimeEventQueue<Event, Offset extends Comparable<Offset>> impl
   }
 
   /**
-   * This class represent an event stored in the event set.
+   * Events within a time bucket, stored in parallel arrays in the order of event time, then partition, then offset.
+   * Combination of them are guaranteed to be unique. Removed events leave a hole with a {@code null} offset in
+   * the arrays, which is compacted on the next insertion.
    */
-  private static final class TimeEvent<Event, Offset extends Comparable<Offset>>
-                        implements Comparable<TimeEvent<Event, Offset>> {
-    private final long eventTime;
-    private final int partition;
-    private final Offset offset;
-    private final Event event;
-    private final int eventSize;
+  private static final class Bucket<Event, Offset extends Comparable<Offset>> {
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private int[] partitions = new int[INITIAL_CAPACITY];
+    private Object[] offsets = new Object[INITIAL_CAPACITY];
+    private Object[] events = new Object[INITIAL_CAPACITY];
+    private int[] eventSizes = new int[INITIAL_CAPACITY];
+    private int end;
+    private int live;
+
+    void add(long timestamp, int partition, Offset offset, Event event, int eventSize) {
+      if (live < end || end == timestamps.length) {
+        compact();
+      }
+      int idx = end;
+      // Events mostly come in time order, hence check the last one first before searching
+      if (end > 0 && compare(end - 1, timestamp, partition, offset) > 0) {
+        idx = -(search(timestamp, partition, offset) + 1);
+        System.arraycopy(timestamps, idx, timestamps, idx + 1, end - idx);
+        System.arraycopy(partitions, idx, partitions, idx + 1, end - idx);
+        System.arraycopy(offsets, idx, offsets, idx + 1, end - idx);
+        System.arraycopy(events, idx, events, idx + 1, end - idx);
+        System.arraycopy(eventSizes, idx, eventSizes, idx + 1, end - idx);
+      }
+      timestamps[idx] = timestamp;
+      partitions[idx] = partition;
+      offsets[idx] = offset;
+      events[idx] = event;
+      eventSizes[idx] = eventSize;
+      end++;
+      live++;
+    }
+
+    boolean contains(long timestamp, int partition, Offset offset) {
+      if (live < end) {
+        compact();
+      }
+      return search(timestamp, partition, offset) >= 0;
+    }
 
-    TimeEvent(long eventTime, int partition, Offset offset, Event event, int eventSize) {
-      this.eventTime = eventTime;
-      this.partition = partition;
-      this.offset = offset;
-      this.event = event;
-      this.eventSize = eventSize;
+    /**
+     * Returns the index of the first event starting from the given index, or {@link #end} if there is none.
+     */
+    int nextIndex(int idx) {
+      while (idx < end && offsets[idx] == null) {
+        idx++;
+      }
+      return idx;
     }
 
-    long getEventTime() {
-      return eventTime;
+    @SuppressWarnings("unchecked")
+    Event getEvent(int idx) {
+      return (Event) events[idx];
     }
 
-    int getPartition() {
-      return partition;
+    @SuppressWarnings("unchecked")
+    Offset getOffset(int idx) {
+      return (Offset) offsets[idx];
     }
 
-    Offset getOffset() {
-      return offset;
+    void remove(int idx) {
+      offsets[idx] = null;
+      events[idx] = null;
+      live--;
     }
 
-    Event getEvent() {
-      return event;
+    boolean isEmpty() {
+      return live == 0;
     }
 
-    int getEventSize() {
-      return eventSize;
+    /**
+     * Removes holes left by removed events and grows the arrays if they are full.
+     */
+    private void compact() {
+      int size = 0;
+      for (int i = 0; i < end; i++) {
+        if (offsets[i] == null) {
+          continue;
+        }
+        if (i != size) {
+          timestamps[size] = timestamps[i];
+          partitions[size] = partitions[i];
+          offsets[size] = offsets[i];
+          events[size] = events[i];
+          eventSizes[size] = eventSizes[i];
+        }
+        size++;
+      }
+      Arrays.fill(offsets, size, end, null);
+      Arrays.fill(events, size, end, null);
+      end = size;
+
+      if (end == timestamps.length) {
+        int capacity = end * 2;
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        partitions = Arrays.copyOf(partitions, capacity);
+        offsets = Arrays.copyOf(offsets, capacity);
+        events = Arrays.copyOf(events, capacity);
+        eventSizes = Arrays.copyOf(eventSizes, capacity);
+      }
     }
 
-    @Override
-    public int compareTo(TimeEvent<Event, Offset> other) {
-      // Compare by event time, then by partition, then by offset
-      // Combination of them are guaranteed to be unique.
+    /**
+     * Binary searches for the given event key. Must be called only when there are no holes.
+     *
+     * @return index of the event if found, otherwise {@code -(insertion point) - 1}
+     */
+    private int search(long timestamp, int partition, Offset offset) {
+      int low = 0;
+      int high = end - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        int cmp = compare(mid, timestamp, partition, offset);
+        if (cmp < 0) {
+          low = mid + 1;
+        } else if (cmp > 0) {
+          high = mid - 1;
+        } else {
+          return mid;
+        }
+      }
+      return -(low + 1);
+    }
 
-      int cmp = Long.compare(eventTime, other.getEventTime());
+    private int compare(int idx, long timestamp, int partition, Offset offset) {
+      int cmp = Long.compare(timestamps[idx], timestamp);
       if (cmp != 0) {
         return cmp;
       }
-      cmp = Integer.compare(partition, other.getPartition());
+      cmp = Integer.compare(partitions[idx], partition);
       if (cmp != 0) {
         return cmp;
       }
-      return offset.compareTo(other.getOffset());
+      return getOffset(idx).compareTo(offset);
+    }
+  }
+
+  /**
+   * Sorted offsets of a partition. Offsets of a partition are mostly added in increasing order and removed roughly
+   * in the same order, hence the offsets are kept in a sorted array with a sliding head. Offsets removed from the
+   * middle are marked as removed until the head moves past them.
+   */
+  private static final class PartitionOffsets<Offset extends Comparable<Offset>> {
+    private Object[] offsets = new Object[INITIAL_CAPACITY];
+    private boolean[] removed = new boolean[INITIAL_CAPACITY];
+    private int head;
+    private int tail;
+    private int live;
+
+    /**
+     * Adds an offset.
+     *
+     * @return {@code true} if the offset is added, {@code false} if the offset already exists
+     */
+    boolean add(Offset offset) {
+      if (tail == offsets.length) {
+        compact();
+      }
+      int idx = tail;
+      if (head < tail && getOffset(tail - 1).compareTo(offset) >= 0) {
+        idx = search(offset);
+        if (idx >= 0) {
+          if (!removed[idx]) {
+            return false;
+          }
+          removed[idx] = false;
+          live++;
+          return true;
+        }
+        idx = -(idx + 1);
+        System.arraycopy(offsets, idx, offsets, idx + 1, tail - idx);
+        System.arraycopy(removed, idx, removed, idx + 1, tail - idx);
+      }
+      offsets[idx] = offset;
+      removed[idx] = false;
+      tail++;
+      live++;
+      return true;
+    }
+
+    void remove(Offset offset) {
+      int idx = search(offset);
+      if (idx < 0 || removed[idx]) {
+        throw new IllegalStateException("Offset " + offset + " does not exist");
+      }
+      removed[idx] = true;
+      live--;
+
+      while (head < tail && removed[head]) {
+        offsets[head] = null;
+        removed[head] = false;
+        head++;
+      }
+      if (head == tail) {
+        head = tail = 0;
+      }
+    }
+
+    Offset first() {
+      return getOffset(head);
+    }
+
+    boolean isEmpty() {
+      return live == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Offset getOffset(int idx) {
+      return (Offset) offsets[idx];
+    }
+
+    /**
+     * Removes offsets marked as removed and grows the array if it is full.
+     */
+    private void compact() {
+      int size = 0;
+      for (int i = head; i < tail; i++) {
+        if (!removed[i]) {
+          offsets[size++] = offsets[i];
+        }
+      }
+      Arrays.fill(offsets, size, tail, null);
+      Arrays.fill(removed, 0, tail, false);
+      head = 0;
+      tail = size;
+
+      if (tail == offsets.length) {
+        offsets = Arrays.copyOf(offsets, tail * 2);
+        removed = Arrays.copyOf(removed, tail * 2);
+      }
+    }
+
+    /**
+     * Binary searches for the given offset between the head and the tail.
+     *
+     * @return index of the offset if found, otherwise {@code -(insertion point) - 1}
+     */
+    private int search(Offset offset) {
+      int low = head;
+      int high = tail - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        int cmp = getOffset(mid).compareTo(offset);
+        if (cmp < 0) {
+          low = mid + 1;
+        } else if (cmp > 0) {
+          high = mid - 1;
+        } else {
+          return mid;
+        }
+      }
+      return -(low + 1);
     }
   }
 }
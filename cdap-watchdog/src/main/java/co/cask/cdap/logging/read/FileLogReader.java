@@ -18,6 +18,8 @@ package co.cask.cdap.logging.read;
 
 import co.cask.cdap.api.dataset.lib.AbstractCloseableIterator;
 import co.cask.cdap.api.dataset.lib.CloseableIterator;
+import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.common.logging.LoggingContext;
 import co.cask.cdap.logging.context.LoggingContextHelper;
 import co.cask.cdap.logging.filter.AndFilter;
@@ -28,16 +30,30 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.inject.Inject;
+import org.apache.twill.common.Threads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import javax.annotation.Nullable;
 
 /**
  * Reads log events from a file.
@@ -46,10 +62,15 @@ public class FileLogReader implements LogReader {
   private static final Logger LOG = LoggerFactory.getLogger(FileLogReader.class);
 
   private final FileMetaDataReader fileMetadataReader;
+  private final int maxReadThreads;
+  @Nullable
+  private final ExecutorService readExecutor;
 
   @Inject
-  public FileLogReader(FileMetaDataReader fileMetadataReader) {
+  public FileLogReader(FileMetaDataReader fileMetadataReader, CConfiguration cConf) {
     this.fileMetadataReader = fileMetadataReader;
+    this.maxReadThreads = Math.max(1, cConf.getInt(Constants.Logging.READ_MAX_THREADS));
+    this.readExecutor = maxReadThreads > 1 ? createReadExecutor(maxReadThreads) : null;
   }
 
   @Override
@@ -75,13 +96,21 @@ public class FileLogReader implements LogReader {
         return;
       }
 
-      for (LogLocation file : sortedFilesInRange) {
-        LOG.trace("Reading file {}", file);
-        file.readLog(logFilter, fromTimeMs, Long.MAX_VALUE, maxEvents - callback.getCount(), callback);
-        if (callback.getCount() >= maxEvents) {
-          break;
-        }
-      }
+      readFiles(sortedFilesInRange, () -> maxEvents - callback.getCount(),
+                (file, remaining) -> readLogNext(file, logFilter, fromTimeMs, remaining),
+                events -> {
+                  long prevTimestamp = -1L;
+                  for (LogEvent event : events) {
+                    // Files read in parallel may return more events than needed. Same as reading a single file,
+                    // stops after maxEvents, but not in the middle of events with the same timestamp.
+                    long timestamp = event.getLoggingEvent().getTimeStamp();
+                    if (callback.getCount() >= maxEvents && timestamp != prevTimestamp) {
+                      break;
+                    }
+                    callback.handle(event);
+                    prevTimestamp = timestamp;
+                  }
+                });
     } catch (Throwable e) {
       LOG.error("Got exception: ", e);
       throw  Throwables.propagate(e);
@@ -108,21 +137,21 @@ public class FileLogReader implements LogReader {
 
       LOG.trace("Using fromTimeMs={}, readRange={}", fromTimeMs, readRange);
       List<Collection<LogEvent>> logSegments = Lists.newLinkedList();
-      int count = 0;
-      for (LogLocation file : Lists.reverse(sortedFilesInRange)) {
-        try {
-          LOG.trace("Reading file {}", file);
-
-          Collection<LogEvent> events = file.readLogPrev(logFilter, fromTimeMs, maxEvents - count);
-          logSegments.add(events);
-          count += events.size();
-          if (count >= maxEvents) {
-            break;
-          }
-        } catch (IOException e) {
-          LOG.warn("Got exception reading log file {}", file, e);
-        }
-      }
+      AtomicInteger count = new AtomicInteger();
+      readFiles(Lists.reverse(sortedFilesInRange), () -> maxEvents - count.get(),
+                (file, remaining) -> readLogPrev(file, logFilter, fromTimeMs, remaining),
+                events -> {
+                  // Files read in parallel are all read with the same number of remaining events, so only keep
+                  // the most recent events of each file that are still needed
+                  int needed = maxEvents - count.get();
+                  Collection<LogEvent> segment = events;
+                  if (segment.size() > needed) {
+                    List<LogEvent> list = new ArrayList<>(events);
+                    segment = list.subList(list.size() - needed, list.size());
+                  }
+                  logSegments.add(segment);
+                  count.addAndGet(segment.size());
+                });
 
       for (LogEvent event : Iterables.concat(Lists.reverse(logSegments))) {
         callback.handle(event);
@@ -201,6 +230,96 @@ public class FileLogReader implements LogReader {
     }
   }
 
+  /**
+   * Reads log events from a file in the forward direction.
+   */
+  private Collection<LogEvent> readLogNext(LogLocation file, Filter logFilter, long fromTimeMs, int maxEvents) {
+    LOG.trace("Reading file {}", file);
+    List<LogEvent> events = new ArrayList<>();
+    try (CloseableIterator<LogEvent> iterator = file.readLog(logFilter, fromTimeMs, Long.MAX_VALUE, maxEvents)) {
+      Iterators.addAll(events, iterator);
+    }
+    return events;
+  }
+
+  /**
+   * Reads log events from a file in the backward direction.
+   */
+  private Collection<LogEvent> readLogPrev(LogLocation file, Filter logFilter, long fromTimeMs, int maxEvents) {
+    try {
+      LOG.trace("Reading file {}", file);
+      return file.readLogPrev(logFilter, fromTimeMs, maxEvents);
+    } catch (IOException e) {
+      LOG.warn("Got exception reading log file {}", file, e);
+      return Collections.emptyList();
+    }
+  }
+
+  /**
+   * Reads the given files in order until no more event is needed. Files are read in batches, with the files in each
+   * batch read in parallel. The batch size starts from one and doubles up to the maximum number of read threads,
+   * so that a read that only needs the first file doesn't read other files, while a read over a wide time range
+   * reads multiple files at the same time.
+   *
+   * @param files the files to read
+   * @param remaining supplies the number of events still needed
+   * @param reader reads events from a file, given the number of events still needed
+   * @param consumer consumes the events read, in the file order
+   */
+  private void readFiles(List<LogLocation> files, IntSupplier remaining, FileReader reader,
+                         Consumer<Collection<LogEvent>> consumer) throws InterruptedException {
+    int batchSize = 1;
+    int idx = 0;
+    while (idx < files.size() && remaining.getAsInt() > 0) {
+      int end = Math.min(files.size(), idx + batchSize);
+      int maxEvents = remaining.getAsInt();
+
+      // Read the first file of the batch in the current thread and the rest in the executor
+      List<Future<Collection<LogEvent>>> futures = new ArrayList<>();
+      for (LogLocation file : files.subList(idx + 1, end)) {
+        futures.add(readExecutor.submit(() -> reader.read(file, maxEvents)));
+      }
+      try {
+        consumer.accept(reader.read(files.get(idx), maxEvents));
+        for (Future<Collection<LogEvent>> future : futures) {
+          if (remaining.getAsInt() <= 0) {
+            break;
+          }
+          consumer.accept(future.get());
+        }
+      } catch (ExecutionException e) {
+        throw Throwables.propagate(e.getCause());
+      } finally {
+        // Let the unused reads finish by themselves, since interrupting a read may fail the underlying stream
+        for (Future<Collection<LogEvent>> future : futures) {
+          future.cancel(false);
+        }
+      }
+
+      idx = end;
+      batchSize = Math.min(batchSize * 2, maxReadThreads);
+    }
+  }
+
+  /**
+   * Creates an {@link ExecutorService} for reading log files in parallel.
+   */
+  private static ExecutorService createReadExecutor(int maxThreads) {
+    // Creates a executor that will shrink to 0 threads if left idle
+    // Uses daemon thread, hence no need to worry about shutdown
+    // When all threads are busy, use the caller thread to execute
+    return new ThreadPoolExecutor(0, maxThreads, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+                                  Threads.createDaemonThreadFactory("log-file-reader-%d"),
+                                  new ThreadPoolExecutor.CallerRunsPolicy());
+  }
+
+  /**
+   * Reads log events from a log file.
+   */
+  private interface FileReader {
+    Collection<LogEvent> read(LogLocation file, int maxEvents);
+  }
+
   /**
    * See {@link com.google.common.collect.Iterators#concat(Iterator)}. The difference is that the input types and return
    * type are CloseableIterator, which closes the inputs that it has opened.
@@ -222,12 +222,11 @@ public class KafkaLogReader implements LogReader {
   }
 
   private static class KafkaCallback implements co.cask.cdap.logging.kafka.Callback {
-    private final Filter logFilter;
+    private final Filter matchFilter;
     private final LoggingEventSerializer serializer;
     private final long stopOffset;
     private final int maxEvents;
     private final Callback callback;
-    private final long fromTimeMs;
 
     private LogOffset firstOffset;
     private LogOffset lastOffset;
@@ -236,29 +235,32 @@ public class KafkaLogReader implements LogReader {
 
     private KafkaCallback(Filter logFilter, LoggingEventSerializer serializer, long stopOffset, int maxEvents,
                           Callback callback, long fromTimeMs) {
-      this.logFilter = logFilter;
+      this.matchFilter = event -> event.getTimeStamp() > fromTimeMs && logFilter.match(event);
       this.serializer = serializer;
       this.stopOffset = stopOffset;
       this.maxEvents = maxEvents;
       this.callback = callback;
-      this.fromTimeMs = fromTimeMs;
     }
 
     @Override
     public void handle(long offset, ByteBuffer msgBuffer) {
       ++eventsRead;
       ILoggingEvent event = null;
+      long timestamp = 0L;
       try {
-        event = serializer.fromBytes(msgBuffer);
+        // Only fully decode the event if it is needed and matches the filter
+        if (offset < stopOffset && eventsMatched < maxEvents) {
+          event = serializer.fromBytes(msgBuffer, matchFilter);
+        }
+        timestamp = event == null ? serializer.decodeEventTimestamp(msgBuffer) : event.getTimeStamp();
       } catch (IOException e) {
         LOG.warn("Ignore logging event due to decode failure: {}", e.getMessage());
         LOG.debug("Ignore logging event stack trace", e);
       }
 
-      LogOffset logOffset = new LogOffset(offset, event == null ? 0L : event.getTimeStamp());
+      LogOffset logOffset = new LogOffset(offset, timestamp);
 
-      if (event != null && offset < stopOffset && eventsMatched < maxEvents && logFilter.match(event) &&
-        event.getTimeStamp() > fromTimeMs) {
+      if (event != null) {
         ++eventsMatched;
         callback.handle(new LogEvent(event, logOffset));
       }
@@ -0,0 +1,67 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.logging.serialize;
+
+import co.cask.cdap.logging.filter.Filter;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.Decoder;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A {@link DatumReader} for reading logging events from Avro files that evaluates a {@link Filter} before fully
+ * decoding an event. For events that match the filter, the full {@link GenericRecord} is returned. For events that
+ * don't match, the rest of the event after the fields needed by the filter is skipped without decoding, and the
+ * returned {@link GenericRecord} only has values for the decoded fields, which include at least the timestamp,
+ * level and MDC. Evaluating the same filter on the returned record always gives the same result.
+ *
+ * If the writer schema is not the same as {@link LogSchema.LoggingEvent#SCHEMA}, all events are fully decoded with
+ * schema resolution.
+ *
+ * This class is not thread safe.
+ */
+public final class FilteringDatumReader implements DatumReader<GenericRecord> {
+
+  private final Filter filter;
+  private final List<DatumReader<Object>> fieldReaders;
+  private DatumReader<GenericRecord> resolvingReader;
+
+  public FilteringDatumReader(Filter filter) {
+    this.filter = filter;
+    this.fieldReaders = PartialLoggingEvent.createFieldReaders();
+  }
+
+  @Override
+  public void setSchema(Schema schema) {
+    resolvingReader = LogSchema.LoggingEvent.SCHEMA.equals(schema)
+      ? null : new GenericDatumReader<GenericRecord>(schema, LogSchema.LoggingEvent.SCHEMA);
+  }
+
+  @Override
+  public GenericRecord read(GenericRecord reuse, Decoder in) throws IOException {
+    if (resolvingReader != null) {
+      return resolvingReader.read(reuse, in);
+    }
+    PartialLoggingEvent event = new PartialLoggingEvent(fieldReaders, in, null);
+    event.match(filter);
+    return event.getRecord();
+  }
+}
@@ -20,6 +20,7 @@ import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.logging.LoggingUtil;
+import co.cask.cdap.logging.filter.Filter;
 import com.google.common.base.Throwables;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericArray;
@@ -29,6 +30,7 @@ import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.avro.io.BinaryDecoder;
 import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumReader;
 import org.apache.avro.io.Decoder;
 import org.apache.avro.io.DecoderFactory;
 import org.apache.avro.io.EncoderFactory;
@@ -36,6 +38,8 @@ import org.apache.avro.io.EncoderFactory;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.List;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
 
 /**
@@ -46,6 +50,7 @@ import javax.annotation.concurrent.NotThreadSafe;
 public final class LoggingEventSerializer {
 
   private final GenericDatumReader<GenericRecord> datumReader = new GenericDatumReader<>(getAvroSchema());
+  private final List<DatumReader<Object>> fieldReaders = PartialLoggingEvent.createFieldReaders();
   private BinaryDecoder decoder;
 
   /**
@@ -83,6 +88,23 @@ public final class LoggingEventSerializer {
     return new LoggingEvent(toGenericRecord(buffer), buffer);
   }
 
+  /**
+   * Decodes the content of the given {@link ByteBuffer} into {@link ILoggingEvent} if the event matches the given
+   * {@link Filter}. Only the fields used by the filter, which are typically the timestamp, level and MDC, are
+   * decoded for evaluating the filter. The event is fully decoded only if it matches.
+   *
+   * @param buffer the buffer to decode
+   * @param filter the filter to evaluate on the event
+   * @return a new instance of {@link ILoggingEvent} decoded from the buffer or {@code null} if the event doesn't
+   *         match the filter
+   * @throws IOException if fail to decode
+   */
+  @Nullable
+  public ILoggingEvent fromBytes(ByteBuffer buffer, Filter filter) throws IOException {
+    PartialLoggingEvent event = new PartialLoggingEvent(fieldReaders, getDecoder(buffer), buffer);
+    return event.match(filter) ? event.getEvent() : null;
+  }
+
   /**
    * Decodes the timestamp of a {@link ILoggingEvent} encoded in the given {@link ByteBuffer} with the schema
    * returned by the {@link #getAvroSchema()} method.
@@ -171,7 +193,7 @@ public final class LoggingEventSerializer {
   /**
    * Skips data from the decoder based on the schema.
    */
-  private void skip(Schema schema, Decoder decoder) throws IOException {
+  static void skip(Schema schema, Decoder decoder) throws IOException {
     switch (schema.getType()) {
       case RECORD:
         for (Schema.Field f : schema.getFields()) {
@@ -197,7 +219,7 @@ public final class LoggingEventSerializer {
         }
         break;
       case UNION:
-        decoder.readIndex();
+        skip(schema.getTypes().get(decoder.readIndex()), decoder);
         break;
       case FIXED:
         decoder.skipFixed(schema.getFixedSize());
@@ -0,0 +1,246 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.logging.serialize;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.LoggerContextVO;
+import co.cask.cdap.logging.LoggingUtil;
+import co.cask.cdap.logging.filter.Filter;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.Decoder;
+import org.slf4j.Marker;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * An {@link ILoggingEvent} that decodes an Avro encoded logging event from a {@link Decoder} lazily, one field at a
+ * time in the schema order. It is used for evaluating a {@link Filter} over an encoded event. Filters look at the
+ * timestamp, level and MDC, which are the first fields in the {@link LogSchema.LoggingEvent#SCHEMA}, hence only
+ * those fields are decoded for events that don't match the filter.
+ *
+ * Decoding failures of the fields are thrown as {@link UncheckedIOException}.
+ */
+final class PartialLoggingEvent implements ILoggingEvent {
+
+  private static final Schema SCHEMA = LogSchema.LoggingEvent.SCHEMA;
+  private static final int TIMESTAMP_POS = SCHEMA.getField("timestamp").pos();
+  private static final int LEVEL_POS = SCHEMA.getField("level").pos();
+  private static final int MDC_POS = SCHEMA.getField("mdc").pos();
+
+  private final List<DatumReader<Object>> fieldReaders;
+  private final Decoder decoder;
+  private final GenericRecord record;
+  private final ByteBuffer encoded;
+  private int decodedFields;
+  private Map<String, String> mdc;
+  private LoggingEvent event;
+
+  /**
+   * Creates a {@link DatumReader} for each field of the logging event schema, to be used for constructing
+   * instances of this class. The readers are not thread safe.
+   */
+  static List<DatumReader<Object>> createFieldReaders() {
+    List<DatumReader<Object>> readers = new ArrayList<>();
+    for (Schema.Field field : SCHEMA.getFields()) {
+      readers.add(new GenericDatumReader<>(field.schema()));
+    }
+    return readers;
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param fieldReaders the readers created by {@link #createFieldReaders()}
+   * @param decoder the decoder positioned at the start of an encoded logging event
+   * @param encoded the buffer of the encoded event or {@code null} if it is not available
+   */
+  PartialLoggingEvent(List<DatumReader<Object>> fieldReaders, Decoder decoder, @Nullable ByteBuffer encoded) {
+    this.fieldReaders = fieldReaders;
+    this.decoder = decoder;
+    this.record = new GenericData.Record(SCHEMA);
+    this.encoded = encoded;
+  }
+
+  /**
+   * Returns the {@link GenericRecord} of the event, which only has values for the fields decoded so far.
+   */
+  GenericRecord getRecord() {
+    return record;
+  }
+
+  /**
+   * Decodes all the remaining fields and returns the full {@link GenericRecord} of the event.
+   */
+  GenericRecord decodeAll() throws IOException {
+    decodeTo(fieldReaders.size());
+    return record;
+  }
+
+  /**
+   * Skips all the remaining fields in the decoder.
+   */
+  void skipRemaining() throws IOException {
+    List<Schema.Field> fields = SCHEMA.getFields();
+    for (; decodedFields < fields.size(); decodedFields++) {
+      LoggingEventSerializer.skip(fields.get(decodedFields).schema(), decoder);
+    }
+  }
+
+  /**
+   * Evaluates the given filter on this event. The timestamp, level and MDC are always decoded. If the filter matches,
+   * the event is fully decoded, otherwise the rest of the event is skipped.
+   *
+   * @return {@code true} if the event matches the filter
+   */
+  boolean match(Filter filter) throws IOException {
+    decodeTo(Math.max(TIMESTAMP_POS, Math.max(LEVEL_POS, MDC_POS)) + 1);
+    boolean matched;
+    try {
+      matched = filter.match(this);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    if (matched) {
+      decodeAll();
+    } else {
+      skipRemaining();
+    }
+    return matched;
+  }
+
+  @Override
+  public String getThreadName() {
+    return getEvent().getThreadName();
+  }
+
+  @Override
+  public Level getLevel() {
+    return Level.toLevel((Integer) getField(LEVEL_POS));
+  }
+
+  @Override
+  public String getMessage() {
+    return getEvent().getMessage();
+  }
+
+  @Override
+  public Object[] getArgumentArray() {
+    return getEvent().getArgumentArray();
+  }
+
+  @Override
+  public String getFormattedMessage() {
+    return getEvent().getFormattedMessage();
+  }
+
+  @Override
+  public String getLoggerName() {
+    return getEvent().getLoggerName();
+  }
+
+  @Override
+  public LoggerContextVO getLoggerContextVO() {
+    return getEvent().getLoggerContextVO();
+  }
+
+  @Override
+  public IThrowableProxy getThrowableProxy() {
+    return getEvent().getThrowableProxy();
+  }
+
+  @Override
+  public StackTraceElement[] getCallerData() {
+    return getEvent().getCallerData();
+  }
+
+  @Override
+  public boolean hasCallerData() {
+    return getEvent().hasCallerData();
+  }
+
+  @Override
+  public Marker getMarker() {
+    return null;
+  }
+
+  @Override
+  public Map<String, String> getMDCPropertyMap() {
+    if (mdc == null) {
+      mdc = LoggingUtil.decodeMDC((Map<?, ?>) getField(MDC_POS));
+    }
+    return mdc;
+  }
+
+  @Override
+  public Map<String, String> getMdc() {
+    return getMDCPropertyMap();
+  }
+
+  @Override
+  public long getTimeStamp() {
+    return (Long) getField(TIMESTAMP_POS);
+  }
+
+  @Override
+  public void prepareForDeferredProcessing() {
+    getEvent().prepareForDeferredProcessing();
+  }
+
+  /**
+   * Returns the fully decoded {@link LoggingEvent}.
+   */
+  LoggingEvent getEvent() {
+    if (event == null) {
+      try {
+        event = new LoggingEvent(decodeAll(), encoded);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    return event;
+  }
+
+  private Object getField(int pos) {
+    try {
+      decodeTo(pos + 1);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return record.get(pos);
+  }
+
+  /**
+   * Decodes fields up to the given number of fields.
+   */
+  private void decodeTo(int numFields) throws IOException {
+    for (; decodedFields < numFields; decodedFields++) {
+      record.put(decodedFields, fieldReaders.get(decodedFields).read(null, decoder));
+    }
+  }
+}
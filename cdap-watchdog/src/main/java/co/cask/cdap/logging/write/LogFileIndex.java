@@ -0,0 +1,201 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.logging.write;
+
+import co.cask.cdap.common.io.Locations;
+import org.apache.twill.filesystem.Location;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+
+/**
+ * A time index of the Avro blocks in a log file. For each block, the index records the sync position where the block
+ * starts, together with the minimum and maximum timestamps of the events in the block. The index is written to a
+ * file next to the log file when the log file is closed, which allows readers to seek directly to the blocks that
+ * contain events of a given time range, instead of decoding the log file from the beginning.
+ *
+ * A log file without an index file, which is the case for files still being written and files written by
+ * older versions, has to be read without the index.
+ */
+public final class LogFileIndex {
+
+  private static final String SUFFIX = ".idx";
+  private static final int VERSION = 1;
+
+  private final long[] positions;
+  private final long[] minTimestamps;
+  private final long[] maxTimestamps;
+
+  private LogFileIndex(long[] positions, long[] minTimestamps, long[] maxTimestamps) {
+    this.positions = positions;
+    this.minTimestamps = minTimestamps;
+    this.maxTimestamps = maxTimestamps;
+  }
+
+  /**
+   * Returns the {@link Location} of the index file for the given log file.
+   */
+  public static Location getIndexLocation(Location logFile) throws IOException {
+    Location parent = Locations.getParent(logFile);
+    if (parent == null) {
+      throw new IOException("Log file " + logFile + " has no parent directory");
+    }
+    return parent.append(logFile.getName() + SUFFIX);
+  }
+
+  /**
+   * Reads the index of the given log file.
+   *
+   * @param logFile the log file
+   * @return the {@link LogFileIndex} or {@code null} if the log file doesn't have an index
+   * @throws IOException if failed to read the index file
+   */
+  @Nullable
+  public static LogFileIndex read(Location logFile) throws IOException {
+    Location indexLocation = getIndexLocation(logFile);
+    if (!indexLocation.exists()) {
+      return null;
+    }
+    try (DataInputStream is = new DataInputStream(new BufferedInputStream(indexLocation.getInputStream()))) {
+      int version = is.readInt();
+      if (version != VERSION) {
+        throw new IOException("Unsupported log file index version " + version + " in " + indexLocation);
+      }
+      int size = is.readInt();
+      long[] positions = new long[size];
+      long[] minTimestamps = new long[size];
+      long[] maxTimestamps = new long[size];
+      for (int i = 0; i < size; i++) {
+        positions[i] = is.readLong();
+        minTimestamps[i] = is.readLong();
+        maxTimestamps[i] = is.readLong();
+      }
+      return new LogFileIndex(positions, minTimestamps, maxTimestamps);
+    }
+  }
+
+  /**
+   * Returns the number of blocks in the index.
+   */
+  public int size() {
+    return positions.length;
+  }
+
+  /**
+   * Returns the sync position of the given block, which can be used to seek the Avro file reader.
+   */
+  public long getPosition(int block) {
+    return positions[block];
+  }
+
+  /**
+   * Returns the minimum event timestamp of the given block.
+   */
+  public long getMinTimestamp(int block) {
+    return minTimestamps[block];
+  }
+
+  /**
+   * Returns the maximum event timestamp of the given block.
+   */
+  public long getMaxTimestamp(int block) {
+    return maxTimestamps[block];
+  }
+
+  /**
+   * Returns the first block that may contain events with timestamp larger than or equal to the given timestamp,
+   * or {@link #size()} if there is no such block.
+   */
+  public int findFirstBlock(long timestamp) {
+    for (int i = 0; i < maxTimestamps.length; i++) {
+      if (maxTimestamps[i] >= timestamp) {
+        return i;
+      }
+    }
+    return maxTimestamps.length;
+  }
+
+  /**
+   * Builder for {@link LogFileIndex} used by the log file writer. Blocks must be added in the file order.
+   */
+  public static final class Builder {
+
+    private long[] positions = new long[16];
+    private long[] minTimestamps = new long[16];
+    private long[] maxTimestamps = new long[16];
+    private int size;
+
+    /**
+     * Adds a block to the index.
+     *
+     * @param position the sync position where the block starts
+     * @param minTimestamp the minimum event timestamp of the block
+     * @param maxTimestamp the maximum event timestamp of the block
+     */
+    public Builder addBlock(long position, long minTimestamp, long maxTimestamp) {
+      if (size == positions.length) {
+        positions = Arrays.copyOf(positions, size * 2);
+        minTimestamps = Arrays.copyOf(minTimestamps, size * 2);
+        maxTimestamps = Arrays.copyOf(maxTimestamps, size * 2);
+      }
+      positions[size] = position;
+      minTimestamps[size] = minTimestamp;
+      maxTimestamps[size] = maxTimestamp;
+      size++;
+      return this;
+    }
+
+    /**
+     * Returns {@code true} if no block has been added.
+     */
+    public boolean isEmpty() {
+      return size == 0;
+    }
+
+    /**
+     * Writes the index of the given log file.
+     *
+     * @param logFile the log file
+     * @param filePermissions the permissions of the index file, or an empty string to use the default permissions
+     * @throws IOException if failed to write the index file
+     */
+    public void write(Location logFile, String filePermissions) throws IOException {
+      Location indexLocation = getIndexLocation(logFile);
+      OutputStream os = filePermissions.isEmpty()
+        ? indexLocation.getOutputStream() : indexLocation.getOutputStream(filePermissions);
+      try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(os))) {
+        output.writeInt(VERSION);
+        output.writeInt(size);
+        for (int i = 0; i < size; i++) {
+          output.writeLong(positions[i]);
+          output.writeLong(minTimestamps[i]);
+          output.writeLong(maxTimestamps[i]);
+        }
+      } catch (IOException e) {
+        // Don't leave a partial index
+        Locations.deleteQuietly(indexLocation);
+        throw e;
+      }
+    }
+  }
+}
@@ -26,17 +26,17 @@ import co.cask.cdap.logging.filter.Filter;
 import co.cask.cdap.logging.read.Callback;
 import co.cask.cdap.logging.read.LogEvent;
 import co.cask.cdap.logging.read.LogOffset;
-import co.cask.cdap.logging.serialize.LogSchema;
+import co.cask.cdap.logging.serialize.FilteringDatumReader;
 import co.cask.cdap.logging.serialize.LoggingEvent;
 import co.cask.cdap.proto.id.NamespaceId;
 import co.cask.cdap.security.impersonation.Impersonator;
 import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import org.apache.avro.file.DataFileReader;
 import org.apache.avro.file.SeekableInput;
-import org.apache.avro.generic.GenericDatumReader;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.twill.filesystem.Location;
 import org.slf4j.Logger;
@@ -50,6 +50,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.concurrent.Callable;
+import javax.annotation.Nullable;
 
 /**
  * LogLocation representing a log file and methods to read the file's contents.
@@ -63,6 +64,8 @@ public class LogLocation {
   public static final String VERSION_0 = "V0";
   // new version
   public static final String VERSION_1 = "V1";
+  // new version with log segment files written by LogSegmentWriter
+  public static final String VERSION_2 = "V2";
   private final String frameworkVersion;
   private final long eventTimeMs;
   private final long fileCreationTimeMs;
@@ -82,7 +85,7 @@ public class LogLocation {
 
   /**
    * get logging framework version
-   * @return version string, currently V0 or V1
+   * @return version string, currently V0, V1 or V2
    */
   public String getFrameworkVersion() {
     return frameworkVersion;
@@ -121,6 +124,9 @@ public class LogLocation {
    * @return closeable iterator of log events
    */
   public CloseableIterator<LogEvent> readLog(Filter logFilter, long fromTimeMs, long toTimeMs, int maxEvents) {
+    if (VERSION_2.equals(frameworkVersion)) {
+      return new LogSegmentEventIterator(logFilter, fromTimeMs, toTimeMs, maxEvents);
+    }
     return new LogEventIterator(logFilter, fromTimeMs, toTimeMs, maxEvents);
   }
 
@@ -150,10 +156,19 @@ public class LogLocation {
    */
   @SuppressWarnings("WeakerAccess")
   public Collection<LogEvent> readLogPrev(Filter logFilter, long fromTimeMs, final int maxEvents) throws IOException {
+    if (VERSION_2.equals(frameworkVersion)) {
+      return readLogSegmentPrev(logFilter, fromTimeMs, maxEvents);
+    }
+
+    LogFileIndex index = readIndex();
+    if (index != null) {
+      return readLogPrev(index, logFilter, fromTimeMs, maxEvents);
+    }
+
     Deque<Collection<LogEvent>> logSegments = new LinkedList<>();
     int count = 0;
     try {
-      try (DataFileReader<GenericRecord> dataFileReader = createReader()) {
+      try (DataFileReader<GenericRecord> dataFileReader = createReader(createPrevFilter(logFilter, fromTimeMs))) {
 
         if (!dataFileReader.hasNext()) {
           return ImmutableList.of();
@@ -202,10 +217,127 @@ public class LogLocation {
       READ_FAILURE_LOG.warn("Got exception while reading log file {}", location, e);
     }
 
+    return getLastEvents(logSegments, count, maxEvents);
+  }
+
+  /**
+   * Reads the previous log events by seeking directly to the blocks recorded in the given {@link LogFileIndex},
+   * starting from the last block.
+   */
+  private Collection<LogEvent> readLogPrev(LogFileIndex index, Filter logFilter, long fromTimeMs, int maxEvents) {
+    Deque<Collection<LogEvent>> logSegments = new LinkedList<>();
+    int count = 0;
+    try (DataFileReader<GenericRecord> dataFileReader = createReader(createPrevFilter(logFilter, fromTimeMs))) {
+      for (int block = index.size() - 1; block >= 0 && count < maxEvents; block--) {
+        // Blocks with all events after fromTimeMs can be skipped without decoding
+        if (index.getMinTimestamp(block) > fromTimeMs) {
+          continue;
+        }
+        dataFileReader.seek(index.getPosition(block));
+        long endPosition = block + 1 < index.size() ? index.getPosition(block + 1) : -1;
+        List<LogEvent> logSegment = readToEndSyncPosition(dataFileReader, logFilter, fromTimeMs, endPosition);
+        if (!logSegment.isEmpty()) {
+          logSegments.addFirst(logSegment);
+          count = count + logSegment.size();
+        }
+        LOG.trace("Read log events {} from block {} at position {}", count, block, index.getPosition(block));
+      }
+    } catch (IOException e) {
+      READ_FAILURE_LOG.warn("Got exception while reading log file {}", location, e);
+    }
+
+    return getLastEvents(logSegments, count, maxEvents);
+  }
+
+  /**
+   * Reads the previous log events from a log segment file, starting from the last block and stopping once there are
+   * maxEvents events. Blocks with all events after fromTimeMs are skipped without decompression.
+   */
+  private Collection<LogEvent> readLogSegmentPrev(Filter logFilter, long fromTimeMs, int maxEvents) {
+    Deque<Collection<LogEvent>> logSegments = new LinkedList<>();
+    int count = 0;
+    try (LogSegmentReader reader = new LogSegmentReader(Locations.newInputSupplier(location).getInput(),
+                                                        location.length())) {
+      while (count < maxEvents && reader.previousBlock(Long.MIN_VALUE, fromTimeMs)) {
+        List<LogEvent> logSegment = readLogSegmentBlock(reader, logFilter, fromTimeMs);
+        if (!logSegment.isEmpty()) {
+          logSegments.addFirst(logSegment);
+          count = count + logSegment.size();
+        }
+      }
+      return getLastEvents(logSegments, count, maxEvents);
+    } catch (IOException e) {
+      // The file may end with a partial block if it is still being written, in which case read from the start
+      LOG.trace("Failed to read log file {} backward. Reading from the start.", location, e);
+    }
+
+    logSegments.clear();
+    count = 0;
+    try (LogSegmentReader reader = new LogSegmentReader(location.getInputStream())) {
+      while (reader.nextBlock(Long.MIN_VALUE, fromTimeMs)) {
+        List<LogEvent> logSegment = readLogSegmentBlock(reader, logFilter, fromTimeMs);
+        if (!logSegment.isEmpty()) {
+          logSegments.addLast(logSegment);
+          count = count + logSegment.size();
+        }
+        // Only keep the segments needed for the last maxEvents events
+        while (!logSegments.isEmpty() && count - logSegments.getFirst().size() >= maxEvents) {
+          count = count - logSegments.removeFirst().size();
+        }
+      }
+    } catch (IOException e) {
+      READ_FAILURE_LOG.warn("Got exception while reading log file {}", location, e);
+    }
+    return getLastEvents(logSegments, count, maxEvents);
+  }
+
+  /**
+   * Reads the log events of the current block of the given {@link LogSegmentReader} that are at or before fromTimeMs.
+   */
+  private List<LogEvent> readLogSegmentBlock(LogSegmentReader reader, Filter logFilter,
+                                             long fromTimeMs) throws IOException {
+    List<LogEvent> logSegment = new ArrayList<>();
+    while (reader.nextEvent()) {
+      long timestamp = reader.getTimestamp();
+      if (timestamp > fromTimeMs) {
+        continue;
+      }
+      ILoggingEvent loggingEvent = reader.getEvent();
+      if (logFilter.match(loggingEvent)) {
+        loggingEvent.prepareForDeferredProcessing();
+        logSegment.add(new LogEvent(loggingEvent, new LogOffset(LogOffset.INVALID_KAFKA_OFFSET, timestamp)));
+      }
+    }
+    return logSegment;
+  }
+
+  /**
+   * Returns the last maxEvents events from the given log segments.
+   */
+  private Collection<LogEvent> getLastEvents(Deque<Collection<LogEvent>> logSegments, int count, int maxEvents) {
     int skip = count >= maxEvents ? count - maxEvents : 0;
     return Lists.newArrayList(Iterables.skip(Iterables.concat(logSegments), skip));
   }
 
+  /**
+   * Reads the {@link LogFileIndex} of this log file.
+   *
+   * @return the index or {@code null} if the file doesn't have a readable index
+   */
+  @Nullable
+  private LogFileIndex readIndex() {
+    // Index is only written for files of the current version
+    if (!VERSION_1.equals(frameworkVersion)) {
+      return null;
+    }
+    try {
+      return LogFileIndex.read(location);
+    } catch (IOException e) {
+      READ_FAILURE_LOG.warn("Failed to read index of log file {}. Reading without index.", location, e);
+      return null;
+    }
+  }
+
   /**
    *  Read current block in Avro file from current block sync marker to next block sync marker
    */
@@ -218,7 +350,6 @@ public class LogLocation {
     // or read until endSyncPosition has been reached
     while (dataFileReader.hasNext() && (endSyncPosition == -1 || (currentSyncPosition < endSyncPosition))) {
       ILoggingEvent loggingEvent = new LoggingEvent(dataFileReader.next());
-      loggingEvent.prepareForDeferredProcessing();
 
       // Stop when reached fromTimeMs
       if (loggingEvent.getTimeStamp() > fromTimeMs) {
@@ -226,6 +357,7 @@ public class LogLocation {
       }
 
       if (logFilter.match(loggingEvent)) {
+        loggingEvent.prepareForDeferredProcessing();
         logSegment.add(new LogEvent(loggingEvent,
                                     new LogOffset(LogOffset.INVALID_KAFKA_OFFSET, loggingEvent.getTimeStamp())));
       }
@@ -275,11 +407,21 @@ public class LogLocation {
       this.maxEvents = maxEvents;
 
       try {
-        dataFileReader = createReader();
-        if (dataFileReader.hasNext()) {
+        dataFileReader = createReader(
+          event -> event.getTimeStamp() >= fromTimeMs && logFilter.match(event));
+        LogFileIndex index = readIndex();
+        if (index != null) {
+          // Seek to the first block that has events at or after fromTimeMs
+          int block = index.findFirstBlock(fromTimeMs);
+          if (block < index.size()) {
+            dataFileReader.seek(index.getPosition(block));
+          } else {
+            dataFileReader.sync(location.length());
+          }
+          LOG.trace("Seek to block {} of {} using index", block, index.size());
+        } else if (dataFileReader.hasNext()) {
           datum = dataFileReader.next();
           loggingEvent = new LoggingEvent(datum);
-          loggingEvent.prepareForDeferredProcessing();
 
           long prevPrevSyncPos = 0;
           long prevSyncPos = 0;
@@ -293,7 +435,6 @@ public class LogLocation {
             dataFileReader.sync(curPos);
             if (dataFileReader.hasNext()) {
               loggingEvent = new LoggingEvent(dataFileReader.next(datum));
-              loggingEvent.prepareForDeferredProcessing();
             }
           }
 
@@ -317,9 +458,9 @@ public class LogLocation {
         // read events from file
         while (next == null && dataFileReader.hasNext()) {
           loggingEvent = new LoggingEvent(dataFileReader.next(datum));
-          loggingEvent.prepareForDeferredProcessing();
 
           if (loggingEvent.getTimeStamp() >= fromTimeMs && logFilter.match(loggingEvent)) {
+            loggingEvent.prepareForDeferredProcessing();
             ++count;
             if ((count > maxEvents || loggingEvent.getTimeStamp() >= toTimeMs)
               && loggingEvent.getTimeStamp() != prevTimestamp) {
@@ -371,10 +512,100 @@ public class LogLocation {
     }
   }
 
-  private DataFileReader<GenericRecord> createReader() throws IOException {
+  /**
+   * A {@link CloseableIterator} of {@link LogEvent} over a log segment file, with the same semantics as the
+   * {@link LogEventIterator}.
+   */
+  private final class LogSegmentEventIterator extends AbstractIterator<LogEvent>
+                                              implements CloseableIterator<LogEvent> {
+
+    private final Filter logFilter;
+    private final long fromTimeMs;
+    private final long toTimeMs;
+    private final long maxEvents;
+
+    private LogSegmentReader reader;
+    private int count = 0;
+    private long prevTimestamp = -1;
+
+    LogSegmentEventIterator(Filter logFilter, long fromTimeMs, long toTimeMs, long maxEvents) {
+      this.logFilter = logFilter;
+      this.fromTimeMs = fromTimeMs;
+      this.toTimeMs = toTimeMs;
+      this.maxEvents = maxEvents;
+
+      try {
+        reader = new LogSegmentReader(location.getInputStream());
+      } catch (Exception e) {
+        // we want to ignore invalid or missing log files
+        LOG.error("Got exception while reading log file {}", location.getName(), e);
+      }
+    }
+
+    @Override
+    protected LogEvent computeNext() {
+      if (reader == null) {
+        return endOfData();
+      }
+      try {
+        while (true) {
+          // Blocks with all events before fromTimeMs are skipped without decompression
+          while (!reader.nextEvent()) {
+            if (!reader.nextBlock(fromTimeMs, Long.MAX_VALUE)) {
+              return endOfData();
+            }
+          }
+
+          long timestamp = reader.getTimestamp();
+          if (timestamp >= fromTimeMs) {
+            ILoggingEvent loggingEvent = reader.getEvent();
+            if (logFilter.match(loggingEvent)) {
+              loggingEvent.prepareForDeferredProcessing();
+              ++count;
+              if ((count > maxEvents || timestamp >= toTimeMs) && timestamp != prevTimestamp) {
+                return endOfData();
+              }
+              prevTimestamp = timestamp;
+              return new LogEvent(loggingEvent, new LogOffset(LogOffset.INVALID_KAFKA_OFFSET, timestamp));
+            }
+          }
+          prevTimestamp = timestamp;
+        }
+      } catch (Exception e) {
+        // We want to ignore invalid log files. No more events will be read from this file.
+        READ_FAILURE_LOG.error("Got exception while reading log file {}", location.getName(), e);
+        return endOfData();
+      }
+    }
+
+    @Override
+    public void close() {
+      try {
+        if (reader != null) {
+          reader.close();
+        }
+      } catch (IOException e) {
+        LOG.error("Got exception while closing log file {}", location.getName(), e);
+      }
+    }
+  }
+
+  /**
+   * Creates a reader of the log file. Events that don't match the given filter are not fully decoded.
+   *
+   * @see FilteringDatumReader
+   */
+  private DataFileReader<GenericRecord> createReader(Filter filter) throws IOException {
     boolean shouldImpersonate = this.getFrameworkVersion().equals(VERSION_0);
     return new DataFileReader<>(new LocationSeekableInput(location, namespaceId, impersonator, shouldImpersonate),
-                                new GenericDatumReader<GenericRecord>(LogSchema.LoggingEvent.SCHEMA));
+                                new FilteringDatumReader(filter));
+  }
+
+  /**
+   * Creates the {@link Filter} for the {@link FilteringDatumReader} for reading previous events.
+   */
+  private Filter createPrevFilter(Filter logFilter, long fromTimeMs) {
+    return event -> event.getTimeStamp() <= fromTimeMs && logFilter.match(event);
   }
 
   /**
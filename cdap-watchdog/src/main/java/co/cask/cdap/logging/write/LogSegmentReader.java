@@ -0,0 +1,316 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.logging.write;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import co.cask.cdap.common.io.SeekableInputStream;
+import co.cask.cdap.logging.serialize.LoggingEvent;
+import com.google.common.io.ByteStreams;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DecoderFactory;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import javax.annotation.Nullable;
+
+/**
+ * Reads logging events from a log segment file written by {@link LogSegmentWriter}. Blocks that don't overlap with
+ * the requested time range are skipped without decompression, and the remaining fields of an event are only decoded
+ * when the event is requested through {@link #getEvent()}. Blocks are read forward with {@link #nextBlock}, or
+ * backward from the end of the file with {@link #previousBlock} if the reader is created with a
+ * {@link SeekableInputStream}.
+ *
+ * This class is not thread safe.
+ */
+final class LogSegmentReader implements Closeable {
+
+  private final DataInputStream input;
+  private final GenericDatumReader<GenericRecord> restReader;
+  @Nullable
+  private final SeekableInputStream seekableInput;
+
+  // Start position of the current block when reading backward
+  private long blockStart;
+
+  private String[] dictionary;
+  private BinaryDecoder timestamps;
+  private BinaryDecoder levels;
+  private BinaryDecoder loggerNames;
+  private BinaryDecoder threadNames;
+  private BinaryDecoder mdcs;
+  private BinaryDecoder rest;
+  private BinaryDecoder restEventDecoder;
+  private int blockEvents;
+  private int eventsRead;
+
+  // Fields of the current event
+  private long timestamp;
+  private int level;
+  private String loggerName;
+  private String threadName;
+  private Map<String, String> mdc;
+  private ByteBuffer restEvent;
+
+  /**
+   * Creates a reader for reading the blocks forward from the start of the file.
+   */
+  LogSegmentReader(InputStream inputStream) throws IOException {
+    this(new DataInputStream(new BufferedInputStream(inputStream)), null, -1L);
+  }
+
+  /**
+   * Creates a reader for reading the blocks backward from the given file length.
+   */
+  LogSegmentReader(SeekableInputStream inputStream, long length) throws IOException {
+    this(new DataInputStream(inputStream), inputStream, length);
+  }
+
+  private LogSegmentReader(DataInputStream input, @Nullable SeekableInputStream seekableInput,
+                           long length) throws IOException {
+    this.input = input;
+    this.restReader = new GenericDatumReader<>(LogSegmentWriter.SCHEMA);
+    this.seekableInput = seekableInput;
+    this.blockStart = length;
+
+    byte[] magic = new byte[LogSegmentWriter.MAGIC.length];
+    try {
+      input.readFully(magic);
+    } catch (IOException e) {
+      input.close();
+      throw e;
+    }
+    if (!Arrays.equals(magic, LogSegmentWriter.MAGIC)) {
+      input.close();
+      throw new IOException("Not a log segment file");
+    }
+  }
+
+  /**
+   * Moves to the next block that may contain events with timestamps in the given range. Blocks outside of the
+   * range are skipped.
+   *
+   * @return {@code true} if there is such a block, or {@code false} if the end of the file is reached
+   */
+  boolean nextBlock(long fromTimeMs, long toTimeMs) throws IOException {
+    blockEvents = 0;
+    eventsRead = 0;
+
+    while (true) {
+      int events;
+      long minTimestamp;
+      long maxTimestamp;
+      int size;
+      int compressedSize;
+      try {
+        events = input.readInt();
+        minTimestamp = input.readLong();
+        maxTimestamp = input.readLong();
+        size = input.readInt();
+        compressedSize = input.readInt();
+      } catch (EOFException e) {
+        // End of file, or a partial block of a file that is still being written
+        return false;
+      }
+
+      if (maxTimestamp < fromTimeMs || minTimestamp > toTimeMs) {
+        try {
+          ByteStreams.skipFully(input, compressedSize + LogSegmentWriter.BLOCK_TRAILER_SIZE);
+        } catch (EOFException e) {
+          return false;
+        }
+        continue;
+      }
+
+      byte[] compressed = new byte[compressedSize];
+      try {
+        input.readFully(compressed);
+        input.readInt();
+      } catch (EOFException e) {
+        return false;
+      }
+      readBlock(events, compressed, size);
+      return true;
+    }
+  }
+
+  /**
+   * Moves to the previous block that may contain events with timestamps in the given range, starting from the
+   * end of the file. Blocks outside of the range are skipped.
+   *
+   * @return {@code true} if there is such a block, or {@code false} if the start of the file is reached
+   * @throws IOException if failed to read, or if the file doesn't end with a complete block, which can happen for
+   *                     a file that is still being written
+   */
+  boolean previousBlock(long fromTimeMs, long toTimeMs) throws IOException {
+    if (seekableInput == null) {
+      throw new IllegalStateException("Reading backward requires a seekable input");
+    }
+    blockEvents = 0;
+    eventsRead = 0;
+
+    while (blockStart > LogSegmentWriter.MAGIC.length) {
+      long trailerStart = blockStart - LogSegmentWriter.BLOCK_TRAILER_SIZE;
+      if (trailerStart < LogSegmentWriter.MAGIC.length + LogSegmentWriter.BLOCK_HEADER_SIZE) {
+        throw new IOException("Incomplete log segment block at position " + LogSegmentWriter.MAGIC.length);
+      }
+      seekableInput.seek(trailerStart);
+      int blockSize = input.readInt();
+      long start = trailerStart - blockSize;
+      if (blockSize < LogSegmentWriter.BLOCK_HEADER_SIZE || start < LogSegmentWriter.MAGIC.length) {
+        throw new IOException("Invalid log segment block trailer at position " + trailerStart);
+      }
+
+      seekableInput.seek(start);
+      int events = input.readInt();
+      long minTimestamp = input.readLong();
+      long maxTimestamp = input.readLong();
+      int size = input.readInt();
+      int compressedSize = input.readInt();
+      if (LogSegmentWriter.BLOCK_HEADER_SIZE + compressedSize != blockSize || minTimestamp > maxTimestamp) {
+        throw new IOException("Invalid log segment block header at position " + start);
+      }
+      blockStart = start;
+
+      if (maxTimestamp < fromTimeMs || minTimestamp > toTimeMs) {
+        continue;
+      }
+
+      byte[] compressed = new byte[compressedSize];
+      input.readFully(compressed);
+      readBlock(events, compressed, size);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Moves to the next event in the current block.
+   *
+   * @return {@code true} if there is a next event, or {@code false} if the end of the block is reached
+   */
+  boolean nextEvent() throws IOException {
+    if (eventsRead >= blockEvents) {
+      return false;
+    }
+    eventsRead++;
+
+    timestamp += timestamps.readLong();
+    level = levels.readInt();
+    loggerName = getString(loggerNames.readInt());
+    threadName = getString(threadNames.readInt());
+
+    int mdcSize = mdcs.readInt();
+    if (mdcSize < 0) {
+      mdc = null;
+    } else {
+      mdc = new HashMap<>(mdcSize);
+      for (int i = 0; i < mdcSize; i++) {
+        mdc.put(getString(mdcs.readInt()), getString(mdcs.readInt()));
+      }
+    }
+    restEvent = rest.readBytes(restEvent);
+    return true;
+  }
+
+  /**
+   * Returns the timestamp of the current event.
+   */
+  long getTimestamp() {
+    return timestamp;
+  }
+
+  /**
+   * Decodes and returns the current event.
+   */
+  ILoggingEvent getEvent() throws IOException {
+    restEventDecoder = DecoderFactory.get().binaryDecoder(restEvent.array(),
+                                                          restEvent.arrayOffset() + restEvent.position(),
+                                                          restEvent.remaining(), restEventDecoder);
+    GenericRecord record = restReader.read(null, restEventDecoder);
+    record.put(LogSegmentWriter.TIMESTAMP_POS, timestamp);
+    record.put(LogSegmentWriter.LEVEL_POS, level);
+    record.put(LogSegmentWriter.LOGGER_NAME_POS, loggerName);
+    record.put(LogSegmentWriter.THREAD_NAME_POS, threadName);
+    record.put(LogSegmentWriter.MDC_POS, mdc);
+    return new LoggingEvent(record);
+  }
+
+  @Override
+  public void close() throws IOException {
+    input.close();
+  }
+
+  private void readBlock(int events, byte[] compressed, int size) throws IOException {
+    byte[] data = new byte[size];
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(compressed);
+      int length = 0;
+      while (length < size && !inflater.finished()) {
+        int n = inflater.inflate(data, length, size - length);
+        if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        length += n;
+      }
+      if (length != size) {
+        throw new IOException("Corrupted log segment block. Expected " + size + " bytes but got " + length);
+      }
+    } catch (DataFormatException e) {
+      throw new IOException("Corrupted log segment block", e);
+    } finally {
+      inflater.end();
+    }
+
+    BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(data, null);
+    dictionary = new String[decoder.readInt()];
+    for (int i = 0; i < dictionary.length; i++) {
+      dictionary[i] = decoder.readString(null).toString();
+    }
+    timestamps = createColumnDecoder(decoder, timestamps);
+    levels = createColumnDecoder(decoder, levels);
+    loggerNames = createColumnDecoder(decoder, loggerNames);
+    threadNames = createColumnDecoder(decoder, threadNames);
+    mdcs = createColumnDecoder(decoder, mdcs);
+    rest = createColumnDecoder(decoder, rest);
+
+    blockEvents = events;
+    timestamp = 0L;
+  }
+
+  private BinaryDecoder createColumnDecoder(BinaryDecoder decoder, BinaryDecoder reuse) throws IOException {
+    ByteBuffer column = decoder.readBytes(null);
+    return DecoderFactory.get().binaryDecoder(column.array(), column.arrayOffset() + column.position(),
+                                              column.remaining(), reuse);
+  }
+
+  private String getString(int index) {
+    return index == 0 ? null : dictionary[index - 1];
+  }
+}
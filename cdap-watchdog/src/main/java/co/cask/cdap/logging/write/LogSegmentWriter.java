@@ -0,0 +1,269 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.logging.write;
+
+import co.cask.cdap.logging.serialize.LogSchema;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes logging events to a log segment file, which stores events in blocks of columns instead of rows of
+ * fully serialized events.
+ *
+ * The file starts with the {@link #MAGIC} bytes, followed by blocks. Each block has an uncompressed header of the
+ * number of events, the minimum and maximum event timestamps, the uncompressed and compressed sizes of the block
+ * data, followed by the block data compressed with deflate, and a trailer of the total size of the block header
+ * and data, which allows reading the blocks backward from the end of the file. The block data contains a dictionary
+ * of strings, followed by the columns, each as Avro bytes:
+ *
+ * <ul>
+ *   <li>timestamp: delta from the previous event in the block</li>
+ *   <li>level: the level int value</li>
+ *   <li>loggerName and threadName: index into the dictionary</li>
+ *   <li>mdc: number of entries, followed by dictionary indices of the key and value of each entry</li>
+ *   <li>rest: the Avro encoded {@link LogSchema.LoggingEvent#SCHEMA} record of the event, with the fields above
+ *   cleared</li>
+ * </ul>
+ *
+ * Dictionary index {@code 0} represents {@code null}. Blocks are only written as a whole, hence readers of a file
+ * that is still being written may only see a partial block at the end of the file.
+ *
+ * This class is not thread safe.
+ */
+public final class LogSegmentWriter implements Closeable, Flushable {
+
+  public static final String FILE_EXTENSION = "seg";
+
+  static final byte[] MAGIC = { 'C', 'L', 'S', 1 };
+  // Number of events, min and max timestamps, uncompressed and compressed sizes
+  static final int BLOCK_HEADER_SIZE = 4 + 8 + 8 + 4 + 4;
+  // Size of the block header and data
+  static final int BLOCK_TRAILER_SIZE = 4;
+  static final Schema SCHEMA = LogSchema.LoggingEvent.SCHEMA;
+  static final int TIMESTAMP_POS = SCHEMA.getField("timestamp").pos();
+  static final int LEVEL_POS = SCHEMA.getField("level").pos();
+  static final int MDC_POS = SCHEMA.getField("mdc").pos();
+  static final int THREAD_NAME_POS = SCHEMA.getField("threadName").pos();
+  static final int LOGGER_NAME_POS = SCHEMA.getField("loggerName").pos();
+
+  private final DataOutputStream output;
+  private final GenericDatumWriter<GenericRecord> restWriter;
+  private final Map<String, Integer> dictionary;
+  private final List<String> dictionaryValues;
+  private final Column timestamps;
+  private final Column levels;
+  private final Column loggerNames;
+  private final Column threadNames;
+  private final Column mdcs;
+  private final Column rest;
+  private final ByteArrayOutputStream restEvent;
+  private final BinaryEncoder restEventEncoder;
+
+  private long position;
+  private int blockEvents;
+  private long blockMinTimestamp;
+  private long blockMaxTimestamp;
+  private long prevTimestamp;
+
+  public LogSegmentWriter(OutputStream outputStream) throws IOException {
+    this.output = new DataOutputStream(outputStream);
+    this.restWriter = new GenericDatumWriter<>(SCHEMA);
+    this.dictionary = new HashMap<>();
+    this.dictionaryValues = new ArrayList<>();
+    this.timestamps = new Column();
+    this.levels = new Column();
+    this.loggerNames = new Column();
+    this.threadNames = new Column();
+    this.mdcs = new Column();
+    this.rest = new Column();
+    this.restEvent = new ByteArrayOutputStream();
+    this.restEventEncoder = EncoderFactory.get().directBinaryEncoder(restEvent, null);
+
+    output.write(MAGIC);
+    position = MAGIC.length;
+  }
+
+  /**
+   * Appends a logging event to the current block.
+   *
+   * @param record the logging event record with the {@link LogSchema.LoggingEvent#SCHEMA}. It is not modified.
+   */
+  public void append(GenericRecord record) throws IOException {
+    long timestamp = (Long) record.get(TIMESTAMP_POS);
+    if (blockEvents == 0) {
+      blockMinTimestamp = timestamp;
+      blockMaxTimestamp = timestamp;
+    } else {
+      blockMinTimestamp = Math.min(blockMinTimestamp, timestamp);
+      blockMaxTimestamp = Math.max(blockMaxTimestamp, timestamp);
+    }
+
+    timestamps.encoder.writeLong(timestamp - prevTimestamp);
+    prevTimestamp = timestamp;
+    levels.encoder.writeInt((Integer) record.get(LEVEL_POS));
+    loggerNames.encoder.writeInt(getIndex(record.get(LOGGER_NAME_POS)));
+    threadNames.encoder.writeInt(getIndex(record.get(THREAD_NAME_POS)));
+
+    Map<?, ?> mdc = (Map<?, ?>) record.get(MDC_POS);
+    if (mdc == null) {
+      mdcs.encoder.writeInt(-1);
+    } else {
+      mdcs.encoder.writeInt(mdc.size());
+      for (Map.Entry<?, ?> entry : mdc.entrySet()) {
+        mdcs.encoder.writeInt(getIndex(entry.getKey()));
+        mdcs.encoder.writeInt(getIndex(entry.getValue()));
+      }
+    }
+
+    // Encode the remaining fields with a copy of the record that has the columnar fields cleared
+    GenericRecord restRecord = new GenericData.Record(SCHEMA);
+    for (Schema.Field field : SCHEMA.getFields()) {
+      restRecord.put(field.pos(), record.get(field.pos()));
+    }
+    restRecord.put(TIMESTAMP_POS, 0L);
+    restRecord.put(LEVEL_POS, 0);
+    restRecord.put(MDC_POS, null);
+    restRecord.put(THREAD_NAME_POS, null);
+    restRecord.put(LOGGER_NAME_POS, null);
+
+    restEvent.reset();
+    restWriter.write(restRecord, restEventEncoder);
+    rest.encoder.writeBytes(restEvent.toByteArray());
+
+    blockEvents++;
+  }
+
+  /**
+   * Returns the number of bytes buffered for the current block before compression.
+   */
+  public long getBlockSize() {
+    return timestamps.size() + levels.size() + loggerNames.size() + threadNames.size() + mdcs.size() + rest.size();
+  }
+
+  /**
+   * Returns the number of bytes written to the output.
+   */
+  public long getPosition() {
+    return position;
+  }
+
+  /**
+   * Writes the current block to the output if it is not empty.
+   */
+  public void writeBlock() throws IOException {
+    if (blockEvents == 0) {
+      return;
+    }
+
+    ByteArrayOutputStream data = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().directBinaryEncoder(data, null);
+    encoder.writeInt(dictionaryValues.size());
+    for (String value : dictionaryValues) {
+      encoder.writeString(value);
+    }
+    for (Column column : new Column[] { timestamps, levels, loggerNames, threadNames, mdcs, rest }) {
+      encoder.writeBytes(column.data.toByteArray());
+      column.data.reset();
+    }
+
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    Deflater deflater = new Deflater();
+    try (DeflaterOutputStream deflaterOutput = new DeflaterOutputStream(compressed, deflater)) {
+      data.writeTo(deflaterOutput);
+    } finally {
+      deflater.end();
+    }
+
+    output.writeInt(blockEvents);
+    output.writeLong(blockMinTimestamp);
+    output.writeLong(blockMaxTimestamp);
+    output.writeInt(data.size());
+    output.writeInt(compressed.size());
+    compressed.writeTo(output);
+    output.writeInt(BLOCK_HEADER_SIZE + compressed.size());
+    position += BLOCK_HEADER_SIZE + compressed.size() + BLOCK_TRAILER_SIZE;
+
+    dictionary.clear();
+    dictionaryValues.clear();
+    blockEvents = 0;
+    prevTimestamp = 0L;
+  }
+
+  /**
+   * Writes the current block and flushes the output.
+   */
+  @Override
+  public void flush() throws IOException {
+    writeBlock();
+    output.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      output.close();
+    }
+  }
+
+  /**
+   * Returns the dictionary index of the given value, which is {@code 0} for {@code null}.
+   */
+  private int getIndex(Object value) {
+    if (value == null) {
+      return 0;
+    }
+    String str = value.toString();
+    Integer index = dictionary.get(str);
+    if (index == null) {
+      dictionaryValues.add(str);
+      index = dictionaryValues.size();
+      dictionary.put(str, index);
+    }
+    return index;
+  }
+
+  /**
+   * A column buffered in memory.
+   */
+  private static final class Column {
+    private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+    private final BinaryEncoder encoder = EncoderFactory.get().directBinaryEncoder(data, null);
+
+    int size() {
+      return data.size();
+    }
+  }
+}
@@ -72,6 +72,7 @@ public final class LocalMetricsCollectionService extends AggregatedMetricsCollec
     while (metrics.hasNext()) {
       metricStore.add(metrics.next());
     }
+    metricStore.flush();
   }
 
   @Override
@@ -103,7 +103,9 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
   private final boolean skipMigration;
   private final DatasetFramework datasetFramework;
   private final String metricsPrefixForDelayMetrics;
+  private final long rollupFlushIntervalMillis;
   private long metricsProcessedCount;
+  private long lastRollupFlushTime;
 
   private MetricsConsumerMetaTable metaTable;
   private ScheduledExecutorService metricsTableDeleterExecutor;
@@ -171,6 +173,7 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
     this.processMetricName = String.format("metrics.%s.process.count", instanceId);
     this.datasetFramework = datasetFramework;
     this.skipMigration = skipMigration;
+    this.rollupFlushIntervalMillis = cConf.getLong(Constants.Metrics.ROLLUP_FLUSH_INTERVAL_MS);
   }
 
   private MetricsConsumerMetaTable getMetaTable() {
@@ -277,7 +280,7 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
 
     // Persist metricsFromAllTopics and messageId's after all ProcessMetricsThread's complete.
     // No need to make a copy of metricsFromAllTopics and topicProcessMetaMap because no thread is writing to them
-    persistMetricsAndTopicProcessMeta(metricsFromAllTopics, topicProcessMetaMap);
+    persistMetricsAndTopicProcessMeta(metricsFromAllTopics, topicProcessMetaMap, true);
   }
 
   @Override
@@ -308,13 +311,25 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
    * @param metricValues a deque of {@link MetricValues}
    * @param topicProcessMetaMap a map with each key {@link TopicIdMetaKey} representing a topic
    *                            and {@link TopicProcessMeta} which has info on messageId and processing stats
+   * @param forceFlush if {@code true}, always flush the metric store and persist the messageId's; otherwise only
+   *                   do so if the rollup flush interval has passed since the last flush
    */
   private void persistMetricsAndTopicProcessMeta(Deque<MetricValues> metricValues,
-                                                 Map<TopicIdMetaKey, TopicProcessMeta> topicProcessMetaMap) {
+                                                 Map<TopicIdMetaKey, TopicProcessMeta> topicProcessMetaMap,
+                                                 boolean forceFlush) {
     try {
       if (!metricValues.isEmpty()) {
         persistMetrics(metricValues, topicProcessMetaMap);
       }
+      // The metric store may buffer metrics in memory for rollup. The messageId's can only be persisted after
+      // the metric store is flushed, otherwise buffered metrics would be lost if the processor fails before flushing.
+      // Skipping the persisting of messageId's is fine, since the messageId's in the next call are always newer.
+      long now = System.currentTimeMillis();
+      if (!forceFlush && now - lastRollupFlushTime < rollupFlushIntervalMillis) {
+        return;
+      }
+      metricStore.flush();
+      lastRollupFlushTime = now;
       persistTopicProcessMeta(topicProcessMetaMap);
     } catch (Exception e) {
       LOG.warn("Failed to persist metrics.", e);
@@ -519,7 +534,7 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
           iterator.remove();
         }
         // Persist the copy of metrics and MessageId's
-        persistMetricsAndTopicProcessMeta(metricsCopy, topicProcessMetaMapCopy);
+        persistMetricsAndTopicProcessMeta(metricsCopy, topicProcessMetaMapCopy, false);
       } catch (Exception e) {
         LOG.warn("Failed to persist metrics. Will be retried in next iteration.", e);
       } finally {
@@ -0,0 +1,348 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.metrics.query;
+
+import co.cask.cdap.api.dataset.lib.cube.AggregationFunction;
+import co.cask.cdap.api.dataset.lib.cube.TimeValue;
+import co.cask.cdap.api.metrics.MetricDataQuery;
+import co.cask.cdap.api.metrics.MetricDeleteQuery;
+import co.cask.cdap.api.metrics.MetricSearchQuery;
+import co.cask.cdap.api.metrics.MetricStore;
+import co.cask.cdap.api.metrics.MetricTimeSeries;
+import co.cask.cdap.api.metrics.MetricValues;
+import co.cask.cdap.api.metrics.MetricsCollector;
+import co.cask.cdap.api.metrics.MetricsContext;
+import co.cask.cdap.api.metrics.MetricsProcessorStatus;
+import co.cask.cdap.api.metrics.NoopMetricsContext;
+import co.cask.cdap.api.metrics.TagValue;
+import co.cask.cdap.common.utils.ImmutablePair;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link MetricStore} that caches the results of {@link MetricDataQuery} on top of another {@link MetricStore}.
+ * <p>
+ * Results are cached per query, with the query normalized to exclude the time range and the limit. Only closed time
+ * buckets are cached, which are the buckets that end before the current time minus a delay, hence are not expected
+ * to receive more metrics. A query that starts within the cached time range is answered from the cache, and only
+ * the time range after the cached one is scanned from the underlying {@link MetricStore}. The scanned buckets that
+ * are closed are then appended to the cache.
+ * <p>
+ * Queries for aggregated values and queries with interpolation are not cached. The cache is invalidated by deletes
+ * done through this {@link MetricStore}. Since metrics can also be deleted from other processes, a cached time range
+ * is rebuilt once it becomes older than the expiration time.
+ */
+final class CachingMetricStore implements MetricStore {
+
+  private final MetricStore delegate;
+  private final long closeDelaySeconds;
+  private final long expireSeconds;
+  private final Cache<CacheKey, CacheEntry> cache;
+  private volatile MetricsCollector metricsCollector;
+
+  /**
+   * Constructor.
+   *
+   * @param delegate the {@link MetricStore} for executing queries
+   * @param maxPoints maximum number of time values to cache
+   * @param closeDelaySeconds number of seconds after the end of a time bucket before it is considered closed
+   * @param expireSeconds number of seconds before a cached time range is rebuilt
+   */
+  CachingMetricStore(MetricStore delegate, long maxPoints, long closeDelaySeconds, long expireSeconds) {
+    this.delegate = delegate;
+    this.closeDelaySeconds = closeDelaySeconds;
+    this.expireSeconds = expireSeconds;
+    this.cache = CacheBuilder.newBuilder()
+      .maximumWeight(maxPoints)
+      .weigher(new Weigher<CacheKey, CacheEntry>() {
+        @Override
+        public int weigh(CacheKey key, CacheEntry entry) {
+          return entry.size;
+        }
+      })
+      .expireAfterAccess(expireSeconds, TimeUnit.SECONDS)
+      .build();
+    this.metricsCollector = new NoopMetricsContext();
+  }
+
+  /**
+   * Sets the {@link MetricsCollector} for emitting cache hit and miss counts.
+   */
+  void setMetricsCollector(MetricsCollector metricsCollector) {
+    this.metricsCollector = metricsCollector;
+  }
+
+  @Override
+  public Collection<MetricTimeSeries> query(MetricDataQuery query) {
+    return query(query, TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
+  }
+
+  @VisibleForTesting
+  Collection<MetricTimeSeries> query(MetricDataQuery query, long now) {
+    int resolution = query.getResolution();
+    if (resolution == Integer.MAX_VALUE || query.getInterpolator() != null) {
+      // Aggregated values are never closed, and interpolation depends on values outside of the cached time range
+      return delegate.query(query);
+    }
+
+    CacheKey key = new CacheKey(query);
+    CacheEntry entry = cache.getIfPresent(key);
+    if (entry != null && (entry.startTs > query.getStartTs() || entry.endTs <= query.getStartTs()
+      || now - entry.createTime >= expireSeconds)) {
+      entry = null;
+    }
+
+    Map<ImmutablePair<String, Map<String, String>>, List<TimeValue>> result = new LinkedHashMap<>();
+    long scanStartTs;
+    if (entry == null) {
+      metricsCollector.increment("query.cache.miss", 1L);
+      scanStartTs = query.getStartTs();
+    } else {
+      metricsCollector.increment("query.cache.hit", 1L);
+      entry.copyTo(result, query.getStartTs(), query.getEndTs());
+      scanStartTs = entry.endTs;
+    }
+
+    if (scanStartTs <= query.getEndTs()) {
+      // Scan without limit, since the limit is applied to the merged result
+      Collection<MetricTimeSeries> scanned = delegate.query(
+        new MetricDataQuery(scanStartTs, query.getEndTs(), resolution, Integer.MAX_VALUE, query.getMetrics(),
+                            query.getSliceByTags(), query.getGroupByTags(), null));
+      for (MetricTimeSeries series : scanned) {
+        ImmutablePair<String, Map<String, String>> seriesKey = new ImmutablePair<>(series.getMetricName(),
+                                                                                   series.getTagValues());
+        List<TimeValue> timeValues = result.get(seriesKey);
+        if (timeValues == null) {
+          timeValues = new ArrayList<>();
+          result.put(seriesKey, timeValues);
+        }
+        timeValues.addAll(series.getTimeValues());
+      }
+
+      // Cache all the closed buckets up to the end of the query
+      long closedTs = (now - closeDelaySeconds) / resolution * resolution;
+      long endTs = Math.min(closedTs, query.getEndTs() + 1);
+      if (endTs > scanStartTs) {
+        long startTs = entry == null ? query.getStartTs() : entry.startTs;
+        long createTime = entry == null ? now : entry.createTime;
+        cache.put(key, new CacheEntry(startTs, endTs, createTime, entry, scanned));
+      }
+    }
+
+    List<MetricTimeSeries> timeSeries = new ArrayList<>(result.size());
+    for (Map.Entry<ImmutablePair<String, Map<String, String>>, List<TimeValue>> entryResult : result.entrySet()) {
+      List<TimeValue> timeValues = entryResult.getValue();
+      if (timeValues.isEmpty()) {
+        continue;
+      }
+      // Same as the Cube, at least one value is returned for each time series
+      int limit = Math.min(timeValues.size(), Math.max(1, query.getLimit()));
+      timeSeries.add(new MetricTimeSeries(entryResult.getKey().getFirst(), entryResult.getKey().getSecond(),
+                                          new ArrayList<>(timeValues.subList(0, limit))));
+    }
+    return timeSeries;
+  }
+
+  @Override
+  public void setMetricsContext(MetricsContext metricsContext) {
+    delegate.setMetricsContext(metricsContext);
+  }
+
+  @Override
+  public void add(MetricValues metricValues) {
+    delegate.add(metricValues);
+  }
+
+  @Override
+  public void add(Collection<? extends MetricValues> metricValues) {
+    delegate.add(metricValues);
+  }
+
+  @Override
+  public void flush() {
+    delegate.flush();
+  }
+
+  @Override
+  public void deleteBefore(long timestamp) {
+    try {
+      delegate.deleteBefore(timestamp);
+    } finally {
+      cache.invalidateAll();
+    }
+  }
+
+  @Override
+  public void deleteTTLExpired() {
+    try {
+      delegate.deleteTTLExpired();
+    } finally {
+      cache.invalidateAll();
+    }
+  }
+
+  @Override
+  public void delete(MetricDeleteQuery query) {
+    try {
+      delegate.delete(query);
+    } finally {
+      cache.invalidateAll();
+    }
+  }
+
+  @Override
+  public void deleteAll() {
+    try {
+      delegate.deleteAll();
+    } finally {
+      cache.invalidateAll();
+    }
+  }
+
+  @Override
+  public Collection<TagValue> findNextAvailableTags(MetricSearchQuery query) {
+    return delegate.findNextAvailableTags(query);
+  }
+
+  @Override
+  public Collection<String> findMetricNames(MetricSearchQuery query) {
+    return delegate.findMetricNames(query);
+  }
+
+  @Override
+  public Map<String, MetricsProcessorStatus> getMetricsProcessorStats() throws Exception {
+    return delegate.getMetricsProcessorStats();
+  }
+
+  /**
+   * The cache key of a {@link MetricDataQuery}, which excludes the time range, the limit and the interpolator.
+   */
+  private static final class CacheKey {
+    private final int resolution;
+    private final Map<String, AggregationFunction> metrics;
+    private final Map<String, String> sliceByTags;
+    private final List<String> groupByTags;
+
+    CacheKey(MetricDataQuery query) {
+      this.resolution = query.getResolution();
+      // Copy to make sure the key doesn't change and has value based equality
+      this.metrics = new HashMap<>(query.getMetrics());
+      this.sliceByTags = new HashMap<>(query.getSliceByTags());
+      this.groupByTags = new ArrayList<>(query.getGroupByTags());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      CacheKey other = (CacheKey) o;
+      return resolution == other.resolution
+        && metrics.equals(other.metrics)
+        && sliceByTags.equals(other.sliceByTags)
+        && groupByTags.equals(other.groupByTags);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(resolution, metrics, sliceByTags, groupByTags);
+    }
+  }
+
+  /**
+   * The cached time values of all time series of a query, for the time range of {@code [startTs, endTs)}.
+   * This class is immutable.
+   */
+  private static final class CacheEntry {
+    private final long startTs;
+    private final long endTs;
+    private final long createTime;
+    private final Map<ImmutablePair<String, Map<String, String>>, List<TimeValue>> series;
+    private final int size;
+
+    /**
+     * Creates a new entry by appending the scanned time values that are before the given end time to the given
+     * existing entry.
+     */
+    CacheEntry(long startTs, long endTs, long createTime,
+               @Nullable CacheEntry existing, Collection<MetricTimeSeries> scanned) {
+      this.startTs = startTs;
+      this.endTs = endTs;
+      this.createTime = createTime;
+      this.series = new HashMap<>();
+
+      int size = 0;
+      if (existing != null) {
+        for (Map.Entry<ImmutablePair<String, Map<String, String>>, List<TimeValue>> entry
+          : existing.series.entrySet()) {
+          series.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+          size += entry.getValue().size();
+        }
+      }
+      for (MetricTimeSeries timeSeries : scanned) {
+        ImmutablePair<String, Map<String, String>> key = new ImmutablePair<>(timeSeries.getMetricName(),
+                                                                             timeSeries.getTagValues());
+        List<TimeValue> timeValues = series.get(key);
+        if (timeValues == null) {
+          timeValues = new ArrayList<>();
+          series.put(key, timeValues);
+        }
+        for (TimeValue timeValue : timeSeries.getTimeValues()) {
+          if (timeValue.getTimestamp() >= endTs) {
+            break;
+          }
+          timeValues.add(timeValue);
+          size++;
+        }
+      }
+      this.size = size;
+    }
+
+    /**
+     * Copies the time values in the time range of {@code [startTs, endTs]} to the given map.
+     */
+    void copyTo(Map<ImmutablePair<String, Map<String, String>>, List<TimeValue>> result, long startTs, long endTs) {
+      for (Map.Entry<ImmutablePair<String, Map<String, String>>, List<TimeValue>> entry : series.entrySet()) {
+        List<TimeValue> timeValues = new ArrayList<>();
+        for (TimeValue timeValue : entry.getValue()) {
+          if (timeValue.getTimestamp() > endTs) {
+            break;
+          }
+          if (timeValue.getTimestamp() >= startTs) {
+            timeValues.add(timeValue);
+          }
+        }
+        result.put(entry.getKey(), timeValues);
+      }
+    }
+  }
+}
@@ -24,12 +24,15 @@ import co.cask.cdap.api.metrics.MetricDataQuery;
 import co.cask.cdap.api.metrics.MetricSearchQuery;
 import co.cask.cdap.api.metrics.MetricStore;
 import co.cask.cdap.api.metrics.MetricTimeSeries;
+import co.cask.cdap.api.metrics.MetricsCollectionService;
 import co.cask.cdap.api.metrics.TagValue;
+import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.common.utils.TimeMathParser;
 import co.cask.cdap.proto.MetricQueryRequest;
 import co.cask.cdap.proto.MetricQueryResult;
 import co.cask.cdap.proto.MetricTagValue;
+import co.cask.cdap.proto.id.NamespaceId;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Predicates;
@@ -72,6 +75,8 @@ public class MetricsQueryHelper {
   private static final String ANY_TAG_VALUE = "*";
 
   private final MetricStore metricStore;
+  @Nullable
+  private final CachingMetricStore cachingMetricStore;
 
   private static final Map<String, String> tagNameToHuman;
   private static final Map<String, String> humanToTagName;
@@ -125,8 +130,29 @@ public class MetricsQueryHelper {
   }
 
   @Inject
-  public MetricsQueryHelper(MetricStore metricStore) {
-    this.metricStore = metricStore;
+  public MetricsQueryHelper(MetricStore metricStore, CConfiguration cConf) {
+    long cacheMaxPoints = cConf.getLong(Constants.Metrics.QUERY_CACHE_MAX_POINTS);
+    if (cacheMaxPoints > 0) {
+      this.cachingMetricStore = new CachingMetricStore(
+        metricStore, cacheMaxPoints, cConf.getLong(Constants.Metrics.QUERY_CACHE_CLOSE_DELAY_SECONDS),
+        cConf.getLong(Constants.Metrics.QUERY_CACHE_EXPIRE_SECONDS));
+      this.metricStore = cachingMetricStore;
+    } else {
+      this.cachingMetricStore = null;
+      this.metricStore = metricStore;
+    }
+  }
+
+  /**
+   * Setter method for the optional binding on the {@link MetricsCollectionService} for emitting query cache metrics.
+   */
+  @Inject(optional = true)
+  public void setMetricsCollectionService(MetricsCollectionService metricsCollectionService) {
+    if (cachingMetricStore != null) {
+      cachingMetricStore.setMetricsCollector(metricsCollectionService.getContext(
+        ImmutableMap.of(Constants.Metrics.Tag.NAMESPACE, NamespaceId.SYSTEM.getNamespace(),
+                        Constants.Metrics.Tag.COMPONENT, Constants.Service.METRICS)));
+    }
   }
 
   public List<MetricTagValue> searchTags(List<String> tags) {
@@ -16,7 +16,6 @@
 
 package co.cask.cdap.metrics.store;
 
-import co.cask.cdap.api.dataset.lib.cube.Cube;
 import co.cask.cdap.api.dataset.lib.cube.CubeDeleteQuery;
 import co.cask.cdap.api.dataset.lib.cube.CubeExploreQuery;
 import co.cask.cdap.api.dataset.lib.cube.CubeFact;
@@ -60,6 +59,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.inject.Inject;
+import org.apache.twill.common.Threads;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -68,6 +68,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
@@ -96,7 +99,7 @@ public class DefaultMetricStore implements MetricStore {
                     new AggregationAlias(ImmutableMap.of(Constants.Metrics.Tag.RUN_ID,
                                                          Constants.Metrics.Tag.WORKFLOW_RUN_ID)));
 
-  private final Supplier<Cube> cube;
+  private final Supplier<DefaultCube> cube;
   private final Supplier<MetricsConsumerMetaTable> metaTableSupplier;
   private MetricsContext metricsContext;
   private final List<TopicId> metricsTopics;
@@ -239,18 +242,27 @@ public class DefaultMetricStore implements MetricStore {
     long hourRetentionSecs = cConf.getLong(Constants.Metrics.RETENTION_SECONDS + Constants.Metrics.HOUR_RESOLUTION +
                                              Constants.Metrics.RETENTION_SECONDS_SUFFIX);
     this.resolutionTTLMap = ImmutableMap.of(1, secRetentionSecs, 60, minRetentionSecs, 3600, hourRetentionSecs);
+    int rollupMaxCells = cConf.getInt(Constants.Metrics.ROLLUP_MAX_CELLS);
+    long rollupFlushIntervalMillis = cConf.getLong(Constants.Metrics.ROLLUP_FLUSH_INTERVAL_MS);
+    int queryParallelism = cConf.getInt(Constants.Metrics.QUERY_SCAN_PARALLELISM);
+    ExecutorService queryExecutor = queryParallelism > 1
+      ? createQueryExecutor(cConf.getInt(Constants.Metrics.QUERY_SCAN_MAX_THREADS)) : null;
     FactTableSupplier factTableSupplier = new FactTableSupplier() {
       @Override
       public FactTable get(int resolution, int ignoredRollTime) {
         // roll time will be taken from configuration todo: clean this up
-        return dsFactory.getOrCreateFactTable(resolution);
+        FactTable factTable = dsFactory.getOrCreateFactTable(resolution);
+        // Metrics tables are not transactional, hence writes can be coalesced in memory across calls to add
+        factTable.setRollup(rollupMaxCells, rollupFlushIntervalMillis);
+        return factTable;
       }
     };
-    this.cube = Suppliers.memoize(new Supplier<Cube>() {
+    this.cube = Suppliers.memoize(new Supplier<DefaultCube>() {
       @Override
-      public Cube get() {
+      public DefaultCube get() {
         DefaultCube cube = new DefaultCube(resolutions, factTableSupplier, AGGREGATIONS, AGGREGATIONS_ALIAS_DIMENSIONS);
         cube.setMetricsCollector(metricsContext);
+        cube.setQueryExecutor(queryExecutor, queryParallelism);
         return cube;
       }
     });
@@ -264,6 +276,18 @@ public class DefaultMetricStore implements MetricStore {
     }
   }
 
+  /**
+   * Creates an {@link ExecutorService} for executing the scans of metrics queries in parallel.
+   */
+  private static ExecutorService createQueryExecutor(int maxThreads) {
+    // Creates a executor that will shrink to 0 threads if left idle
+    // Uses daemon thread, hence no need to worry about shutdown
+    // When all threads are busy, use the caller thread to execute
+    return new ThreadPoolExecutor(0, maxThreads, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+                                  Threads.createDaemonThreadFactory("metrics-query-scanner-%d"),
+                                  new ThreadPoolExecutor.CallerRunsPolicy());
+  }
+
   @Override
   public void setMetricsContext(MetricsContext metricsContext) {
     this.metricsContext = metricsContext;
@@ -295,6 +319,11 @@ public class DefaultMetricStore implements MetricStore {
     cube.get().add(facts);
   }
 
+  @Override
+  public void flush() {
+    cube.get().flush();
+  }
+
   @Override
   public Collection<MetricTimeSeries> query(MetricDataQuery query) {
     Collection<TimeSeries> cubeResult = cube.get().query(buildCubeQuery(query));
@@ -35,12 +35,15 @@ import co.cask.cdap.data.runtime.DataSetsModules;
 import co.cask.cdap.data.runtime.SystemDatasetRuntimeModule;
 import co.cask.cdap.data2.dataset2.DatasetFramework;
 import co.cask.cdap.logging.LoggingConfiguration;
+import co.cask.cdap.logging.appender.LoggingTester;
 import co.cask.cdap.logging.context.FlowletLoggingContext;
 import co.cask.cdap.logging.filter.Filter;
 import co.cask.cdap.logging.framework.LocalAppenderContext;
 import co.cask.cdap.logging.guice.LoggingModules;
 import co.cask.cdap.logging.meta.FileMetaDataReader;
+import co.cask.cdap.logging.read.FileLogReader;
 import co.cask.cdap.logging.read.LogEvent;
+import co.cask.cdap.logging.read.ReadRange;
 import co.cask.cdap.logging.write.LogLocation;
 import co.cask.cdap.security.auth.context.AuthenticationContextModules;
 import co.cask.cdap.security.authorization.AuthorizationEnforcementModule;
@@ -49,6 +52,7 @@ import co.cask.cdap.security.impersonation.DefaultOwnerAdmin;
 import co.cask.cdap.security.impersonation.OwnerAdmin;
 import co.cask.cdap.security.impersonation.UGIProvider;
 import co.cask.cdap.security.impersonation.UnsupportedUGIProvider;
+import com.google.common.base.Strings;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
@@ -321,6 +325,70 @@ public class CDAPLogAppenderTest {
     }
   }
 
+  @Test
+  public void testReadPrevFromParallelFiles() throws Exception {
+    FileMetaDataReader fileMetaDataReader = injector.getInstance(FileMetaDataReader.class);
+    CDAPLogAppender cdapLogAppender = new CDAPLogAppender();
+    AppenderContext context = new LocalAppenderContext(injector.getInstance(DatasetFramework.class),
+                                                       injector.getInstance(TransactionSystemClient.class),
+                                                       injector.getInstance(LocationFactory.class),
+                                                       new NoOpMetricsCollectionService());
+    context.start();
+
+    cdapLogAppender.setSyncIntervalBytes(1024 * 1024);
+    cdapLogAppender.setMaxFileLifetimeMs(TimeUnit.DAYS.toMillis(1));
+    cdapLogAppender.setMaxFileSizeInBytes(8000);
+    cdapLogAppender.setDirPermissions("750");
+    cdapLogAppender.setFilePermissions("640");
+    cdapLogAppender.setFileRetentionDurationDays(1);
+    cdapLogAppender.setLogCleanupIntervalMins(10);
+    cdapLogAppender.setFileCleanupTransactionTimeout(30);
+    cdapLogAppender.setContext(context);
+    cdapLogAppender.start();
+
+    Map<String, String> properties = new HashMap<>();
+    properties.put(NamespaceLoggingContext.TAG_NAMESPACE_ID, "testReadPrev");
+    properties.put(ApplicationLoggingContext.TAG_APPLICATION_ID, "testApp");
+    properties.put(FlowletLoggingContext.TAG_FLOW_ID, "testFlow");
+    properties.put(FlowletLoggingContext.TAG_FLOWLET_ID, "testFlowlet");
+
+    // Write 6 files with 5 events each. The file size is only updated on sync, and the file size limit is more than
+    // the file header but less than 5 events, so the first append after a sync rotates to a new file.
+    long timestamp = System.currentTimeMillis();
+    Logger logger = (Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+    String padding = Strings.repeat("x", 2000);
+    for (int i = 0; i < 30; i++) {
+      LoggingEvent event = getLoggingEvent("co.cask.Test", logger, Level.ERROR, "test message " + i + padding,
+                                           properties);
+      event.setTimeStamp(timestamp + i);
+      cdapLogAppender.doAppend(event);
+      if (i % 5 == 4) {
+        cdapLogAppender.sync();
+      }
+    }
+    cdapLogAppender.stop();
+    context.stop();
+
+    Assert.assertEquals(6, fileMetaDataReader.listFiles(cdapLogAppender.getLoggingPath(properties),
+                                                        0, Long.MAX_VALUE).size());
+
+    // Read with multiple threads. After the last file, the next two files are read in parallel,
+    // and both have more events than the 7 that are still needed.
+    CConfiguration cConf = CConfiguration.create();
+    cConf.setInt(Constants.Logging.READ_MAX_THREADS, 4);
+    FileLogReader logReader = new FileLogReader(fileMetaDataReader, cConf);
+    LoggingTester.LogCallback callback = new LoggingTester.LogCallback();
+    logReader.getLogPrev(new FlowletLoggingContext("testReadPrev", "testApp", "testFlow", "testFlowlet", null, null),
+                         ReadRange.LATEST, 12, Filter.EMPTY_FILTER, callback);
+
+    List<LogEvent> events = callback.getEvents();
+    Assert.assertEquals(12, events.size());
+    for (int i = 0; i < events.size(); i++) {
+      Assert.assertEquals("test message " + (18 + i) + padding,
+                          events.get(i).getLoggingEvent().getFormattedMessage());
+    }
+  }
+
   private void assertLogEventDetails(LoggingEvent expectedLoggingEvent, LogLocation logLocation) throws IOException {
     Assert.assertEquals(LogLocation.VERSION_1, logLocation.getFrameworkVersion());
     Assert.assertTrue(logLocation.getLocation().exists());
@@ -0,0 +1,194 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.logging.appender.system;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import co.cask.cdap.api.dataset.lib.CloseableIterator;
+import co.cask.cdap.logging.filter.Filter;
+import co.cask.cdap.logging.read.LogEvent;
+import co.cask.cdap.logging.write.LogFileIndex;
+import co.cask.cdap.logging.write.LogLocation;
+import co.cask.cdap.logging.write.LogSegmentWriter;
+import com.google.common.io.ByteStreams;
+import org.apache.twill.filesystem.LocalLocationFactory;
+import org.apache.twill.filesystem.Location;
+import org.apache.twill.filesystem.LocationFactory;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit test for {@link LogFileOutputStream}.
+ */
+public class LogFileOutputStreamTest {
+
+  @ClassRule
+  public static final TemporaryFolder TMP_FOLDER = new TemporaryFolder();
+
+  @Test
+  public void testIndex() throws Exception {
+    LocationFactory locationFactory = new LocalLocationFactory(TMP_FOLDER.newFolder());
+    Location logsDir = locationFactory.create("logs");
+    Assert.assertTrue(logsDir.mkdirs());
+    Location location = logsDir.append("1000.avro");
+    Closeable noop = () -> { };
+
+    // Write events with a small sync interval so that there are many blocks
+    Logger logger = (Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+    try (LogFileOutputStream outputStream = new LogFileOutputStream(location, "", 1024, 1000L, noop)) {
+      for (int i = 0; i < 1000; i++) {
+        LoggingEvent event = new LoggingEvent("co.cask.Test", logger, Level.INFO, "Message " + i, null, null);
+        event.setTimeStamp(1000L + i);
+        outputStream.append(event);
+        if (i % 100 == 0) {
+          outputStream.flush();
+        }
+      }
+    }
+
+    LogFileIndex index = LogFileIndex.read(location);
+    Assert.assertNotNull(index);
+    Assert.assertTrue(index.size() > 1);
+    for (int i = 1; i < index.size(); i++) {
+      Assert.assertTrue(index.getPosition(i) > index.getPosition(i - 1));
+      Assert.assertEquals(index.getMaxTimestamp(i - 1) + 1, index.getMinTimestamp(i));
+    }
+    Assert.assertEquals(1000L, index.getMinTimestamp(0));
+    Assert.assertEquals(1999L, index.getMaxTimestamp(index.size() - 1));
+
+    // Copy the log file without the index, and reading from both files should give the same result
+    Location noIndexLocation = logsDir.append("2000.avro");
+    try (InputStream is = location.getInputStream(); OutputStream os = noIndexLocation.getOutputStream()) {
+      ByteStreams.copy(is, os);
+    }
+    Assert.assertNull(LogFileIndex.read(noIndexLocation));
+
+    LogLocation indexed = new LogLocation(LogLocation.VERSION_1, 1000L, 1000L, location, "default", null);
+    LogLocation notIndexed = new LogLocation(LogLocation.VERSION_1, 1000L, 1000L, noIndexLocation, "default", null);
+
+    for (long fromTimeMs : new long[] { 0L, 1000L, 1234L, 1500L, 1999L, 3000L }) {
+      Assert.assertEquals(readLog(notIndexed, fromTimeMs, 1800L, 100), readLog(indexed, fromTimeMs, 1800L, 100));
+      Assert.assertEquals(getMessages(notIndexed.readLogPrev(Filter.EMPTY_FILTER, fromTimeMs, 150)),
+                          getMessages(indexed.readLogPrev(Filter.EMPTY_FILTER, fromTimeMs, 150)));
+    }
+
+    List<String> messages = getMessages(indexed.readLogPrev(Filter.EMPTY_FILTER, 1500L, 3));
+    Assert.assertEquals(3, messages.size());
+    Assert.assertEquals("Message 498", messages.get(0));
+    Assert.assertEquals("Message 500", messages.get(2));
+  }
+
+  @Test
+  public void testSegmentFormat() throws Exception {
+    LocationFactory locationFactory = new LocalLocationFactory(TMP_FOLDER.newFolder());
+    Location logsDir = locationFactory.create("logs");
+    Assert.assertTrue(logsDir.mkdirs());
+    Location avroLocation = logsDir.append("1000.avro");
+    Location segmentLocation = logsDir.append("1000." + LogSegmentWriter.FILE_EXTENSION);
+    Closeable noop = () -> { };
+
+    // Write the same events in both formats, with a small sync interval so that there are many blocks
+    Logger logger = (Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+    try (LogFileOutputStream avroOutput = new LogFileOutputStream(avroLocation, "", 1024, 1000L, noop);
+         LogFileOutputStream segmentOutput = new LogFileOutputStream(segmentLocation, "", 1024, 1000L, noop, true)) {
+      for (int i = 0; i < 1000; i++) {
+        LoggingEvent event = new LoggingEvent("co.cask.Test" + (i % 3), logger,
+                                              i % 2 == 0 ? Level.INFO : Level.WARN, "Message " + i, null, null);
+        event.setTimeStamp(1000L + i);
+        event.setThreadName("thread-" + (i % 5));
+        event.setMDCPropertyMap(Collections.singletonMap("key", "value" + (i % 7)));
+        avroOutput.append(event);
+        segmentOutput.append(event);
+        if (i % 100 == 0) {
+          avroOutput.flush();
+          segmentOutput.flush();
+        }
+      }
+    }
+
+    Assert.assertTrue(segmentLocation.length() < avroLocation.length());
+
+    LogLocation avro = new LogLocation(LogLocation.VERSION_1, 1000L, 1000L, avroLocation, "default", null);
+    LogLocation segment = new LogLocation(LogLocation.VERSION_2, 1000L, 1000L, segmentLocation, "default", null);
+
+    for (long fromTimeMs : new long[] { 0L, 1000L, 1234L, 1500L, 1999L, 3000L }) {
+      Assert.assertEquals(readLog(avro, fromTimeMs, 1800L, 100), readLog(segment, fromTimeMs, 1800L, 100));
+      Assert.assertEquals(getMessages(avro.readLogPrev(Filter.EMPTY_FILTER, fromTimeMs, 150)),
+                          getMessages(segment.readLogPrev(Filter.EMPTY_FILTER, fromTimeMs, 150)));
+    }
+
+    // All the fields should be the same
+    List<LogEvent> avroEvents = new ArrayList<>(avro.readLogPrev(Filter.EMPTY_FILTER, 1500L, 10));
+    List<LogEvent> segmentEvents = new ArrayList<>(segment.readLogPrev(Filter.EMPTY_FILTER, 1500L, 10));
+    Assert.assertEquals(avroEvents.size(), segmentEvents.size());
+    for (int i = 0; i < avroEvents.size(); i++) {
+      ILoggingEvent expected = avroEvents.get(i).getLoggingEvent();
+      ILoggingEvent actual = segmentEvents.get(i).getLoggingEvent();
+      Assert.assertEquals(expected.getTimeStamp(), actual.getTimeStamp());
+      Assert.assertEquals(expected.getLevel(), actual.getLevel());
+      Assert.assertEquals(expected.getLoggerName(), actual.getLoggerName());
+      Assert.assertEquals(expected.getThreadName(), actual.getThreadName());
+      Assert.assertEquals(expected.getMDCPropertyMap(), actual.getMDCPropertyMap());
+      Assert.assertEquals(expected.getFormattedMessage(), actual.getFormattedMessage());
+    }
+
+    // A file that ends with a partial block, as when it is still being written, can't be read backward
+    // and is read from the start instead
+    Location partialLocation = logsDir.append("2000." + LogSegmentWriter.FILE_EXTENSION);
+    try (InputStream is = segmentLocation.getInputStream(); OutputStream os = partialLocation.getOutputStream()) {
+      byte[] content = ByteStreams.toByteArray(is);
+      os.write(content, 0, content.length - 10);
+    }
+    LogLocation partial = new LogLocation(LogLocation.VERSION_2, 2000L, 2000L, partialLocation, "default", null);
+    List<String> messages = readLog(partial, 0L, 3000L, 1000);
+    Assert.assertTrue(messages.size() > 150 && messages.size() < 1000);
+    Assert.assertEquals(messages.subList(messages.size() - 150, messages.size()),
+                        getMessages(partial.readLogPrev(Filter.EMPTY_FILTER, 3000L, 150)));
+  }
+
+  private List<String> readLog(LogLocation logLocation, long fromTimeMs, long toTimeMs, int maxEvents) {
+    List<LogEvent> events = new ArrayList<>();
+    try (CloseableIterator<LogEvent> iterator = logLocation.readLog(Filter.EMPTY_FILTER, fromTimeMs,
+                                                                    toTimeMs, maxEvents)) {
+      while (iterator.hasNext()) {
+        events.add(iterator.next());
+      }
+    }
+    return getMessages(events);
+  }
+
+  private List<String> getMessages(Collection<LogEvent> events) {
+    List<String> messages = new ArrayList<>();
+    for (LogEvent event : events) {
+      messages.add(event.getLoggingEvent().getFormattedMessage());
+    }
+    return messages;
+  }
+}
@@ -58,6 +58,7 @@ import co.cask.cdap.security.impersonation.DefaultOwnerAdmin;
 import co.cask.cdap.security.impersonation.OwnerAdmin;
 import co.cask.cdap.security.impersonation.UGIProvider;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
@@ -193,6 +194,18 @@ public class DistributedLogFrameworkTest {
     Assert.assertEquals(msgCount, checkpoint.getNextOffset());
   }
 
+  @Test
+  public void testCreateShards() {
+    Assert.assertEquals(ImmutableList.of(ImmutableSet.of()),
+                        DistributedLogFramework.createShards(ImmutableSet.of(), 4));
+    Assert.assertEquals(ImmutableList.of(ImmutableSet.of(1, 2, 3)),
+                        DistributedLogFramework.createShards(ImmutableSet.of(3, 1, 2), 1));
+    Assert.assertEquals(ImmutableList.of(ImmutableSet.of(0, 2, 4), ImmutableSet.of(1, 3)),
+                        DistributedLogFramework.createShards(ImmutableSet.of(0, 1, 2, 3, 4), 2));
+    Assert.assertEquals(ImmutableList.of(ImmutableSet.of(5), ImmutableSet.of(7)),
+                        DistributedLogFramework.createShards(ImmutableSet.of(5, 7), 4));
+  }
+
   private Injector createInjector() throws IOException {
     CConfiguration cConf = CConfiguration.copy(KAFKA_TESTER.getCConf());
     cConf.set(Constants.CFG_LOCAL_DATA_DIR, TEMP_FOLDER.newFolder().getAbsolutePath());
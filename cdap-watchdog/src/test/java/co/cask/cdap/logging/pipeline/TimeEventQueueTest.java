@@ -26,6 +26,7 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.Random;
 
 /**
  * Unit-test for {@link TimeEventQueue}.
@@ -143,6 +144,94 @@ public class TimeEventQueueTest {
     Assert.assertTrue(eventQueue.isEmpty());
   }
 
+  @Test
+  public void testDuplicateEvent() {
+    TimeEventQueue<String, Integer> eventQueue = new TimeEventQueue<>(Collections.singleton(1));
+    eventQueue.add("m1", 1L, 10, 1, 0);
+
+    // Adding the same event again is ignored
+    eventQueue.add("m1", 1L, 10, 1, 0);
+    Assert.assertEquals(1, eventQueue.size());
+    Assert.assertEquals(10, eventQueue.getEventSize());
+
+    // Adding a different event with the same offset fails
+    try {
+      eventQueue.add("m2", 2L, 10, 1, 0);
+      Assert.fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    Assert.assertEquals(1, eventQueue.size());
+  }
+
+  @Test
+  public void testRandomOrder() {
+    // Compare the queue with a sorted list for events added and removed in random order
+    TimeEventQueue<String, Integer> eventQueue = new TimeEventQueue<>(ImmutableSet.of(0, 1, 2));
+    List<long[]> expected = new ArrayList<>();
+    Random random = new Random();
+    int offset = 0;
+
+    for (int round = 0; round < 20; round++) {
+      for (int i = 0; i < 500; i++) {
+        int partition = random.nextInt(3);
+        long timestamp = round * 100 + random.nextInt(300);
+        // Offsets are mostly increasing, with some going backward
+        int eventOffset = random.nextInt(10) == 0 ? -offset : offset;
+        offset++;
+        eventQueue.add(timestamp + ":" + partition + ":" + eventOffset, timestamp, 1, partition, eventOffset);
+        expected.add(new long[] { timestamp, partition, eventOffset });
+      }
+      Collections.sort(expected, new Comparator<long[]>() {
+        @Override
+        public int compare(long[] o1, long[] o2) {
+          for (int i = 0; i < o1.length; i++) {
+            int cmp = Long.compare(o1[i], o2[i]);
+            if (cmp != 0) {
+              return cmp;
+            }
+          }
+          return 0;
+        }
+      });
+      Assert.assertEquals(expected.size(), eventQueue.size());
+      Assert.assertEquals(expected.size(), eventQueue.getEventSize());
+      Assert.assertEquals(expected.get(0)[0] + ":" + expected.get(0)[1] + ":" + expected.get(0)[2],
+                          eventQueue.first());
+
+      // Remove some events from the head and some randomly
+      Iterator<long[]> expectedItor = expected.iterator();
+      TimeEventQueue.EventIterator<String, Integer> iterator = eventQueue.iterator();
+      int count = 0;
+      while (iterator.hasNext()) {
+        long[] entry = expectedItor.next();
+        Assert.assertEquals(entry[0] + ":" + entry[1] + ":" + entry[2], iterator.next());
+        Assert.assertEquals(entry[1], iterator.getPartition());
+        Assert.assertEquals(entry[2], iterator.getOffset().longValue());
+        if (count++ < 300 || random.nextInt(4) == 0) {
+          iterator.remove();
+          expectedItor.remove();
+        }
+      }
+      Assert.assertFalse(expectedItor.hasNext());
+
+      // Validate the smallest offsets
+      for (int partition = 0; partition < 3; partition++) {
+        long smallest = Long.MAX_VALUE;
+        for (long[] entry : expected) {
+          if (entry[1] == partition) {
+            smallest = Math.min(smallest, entry[2]);
+          }
+        }
+        if (smallest == Long.MAX_VALUE) {
+          Assert.assertTrue(eventQueue.isEmpty(partition));
+        } else {
+          Assert.assertEquals(smallest, eventQueue.getSmallestOffset(partition).longValue());
+        }
+      }
+    }
+  }
+
   @Test (expected = IllegalArgumentException.class)
   public void testInvalidPartition() {
     TimeEventQueue<String, Integer> eventQueue = new TimeEventQueue<>(Collections.singleton(1));
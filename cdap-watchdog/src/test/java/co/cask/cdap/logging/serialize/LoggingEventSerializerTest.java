@@ -182,6 +182,36 @@ public class LoggingEventSerializerTest {
     Assert.assertEquals(timestamp, serializer.decodeEventTimestamp(ByteBuffer.wrap(bytes)));
   }
 
+  @Test
+  public void testFilterDecode() throws Exception {
+    LoggingEventSerializer serializer = new LoggingEventSerializer();
+    ch.qos.logback.classic.spi.LoggingEvent iLoggingEvent = new ch.qos.logback.classic.spi.LoggingEvent();
+    iLoggingEvent.setThreadName("thread-1");
+    iLoggingEvent.setLevel(Level.WARN);
+    iLoggingEvent.setMessage("Log message {}");
+    iLoggingEvent.setArgumentArray(new Object[] { "arg" });
+    iLoggingEvent.setLoggerName("test.logger");
+    iLoggingEvent.setTimeStamp(1234567890L);
+    iLoggingEvent.getMDCPropertyMap().put("key", "value");
+
+    ILoggingEvent event = new LogMessage(iLoggingEvent, LoggingContextAccessor.getLoggingContext());
+    byte[] bytes = serializer.toBytes(event);
+
+    // Filters on the timestamp, level and MDC
+    Assert.assertNull(serializer.fromBytes(ByteBuffer.wrap(bytes), e -> e.getTimeStamp() > 1234567890L));
+    Assert.assertNull(serializer.fromBytes(ByteBuffer.wrap(bytes), e -> e.getLevel().isGreaterOrEqual(Level.ERROR)));
+    Assert.assertNull(serializer.fromBytes(ByteBuffer.wrap(bytes), e -> "x".equals(e.getMDCPropertyMap().get("key"))));
+
+    ILoggingEvent actualEvent = serializer.fromBytes(ByteBuffer.wrap(bytes),
+                                                     e -> "value".equals(e.getMDCPropertyMap().get("key")));
+    assertLoggingEventEquals(iLoggingEvent, actualEvent);
+
+    // Filter on a field that is not decoded upfront
+    Assert.assertNull(serializer.fromBytes(ByteBuffer.wrap(bytes), e -> "other".equals(e.getLoggerName())));
+    actualEvent = serializer.fromBytes(ByteBuffer.wrap(bytes), e -> "test.logger".equals(e.getLoggerName()));
+    assertLoggingEventEquals(iLoggingEvent, actualEvent);
+  }
+
   static void assertLoggingEventEquals(ILoggingEvent expected, ILoggingEvent actual) {
     expected.getMDCPropertyMap().putAll(
       ImmutableMap.of(".namespaceId", "TEST_ACCT_ID1", ".applicationId", "TEST_APP_ID1", ".runId", "RUN1",
@@ -0,0 +1,213 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.metrics.query;
+
+import co.cask.cdap.api.dataset.lib.cube.AggregationFunction;
+import co.cask.cdap.api.dataset.lib.cube.TimeValue;
+import co.cask.cdap.api.metrics.MetricDataQuery;
+import co.cask.cdap.api.metrics.MetricDeleteQuery;
+import co.cask.cdap.api.metrics.MetricSearchQuery;
+import co.cask.cdap.api.metrics.MetricStore;
+import co.cask.cdap.api.metrics.MetricTimeSeries;
+import co.cask.cdap.api.metrics.MetricValues;
+import co.cask.cdap.api.metrics.MetricsContext;
+import co.cask.cdap.api.metrics.MetricsProcessorStatus;
+import co.cask.cdap.api.metrics.TagValue;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Unit test for {@link CachingMetricStore}.
+ */
+public class CachingMetricStoreTest {
+
+  @Test
+  public void testCache() {
+    TestMetricStore store = new TestMetricStore();
+    for (long ts = 0; ts < 100; ts++) {
+      store.add("a", ts, ts);
+    }
+    for (long ts = 90; ts < 100; ts++) {
+      store.add("b", ts, 2 * ts);
+    }
+
+    // Buckets that end 10 seconds before the current time are closed
+    CachingMetricStore cachingStore = new CachingMetricStore(store, 1000, 10, 600);
+
+    // First query is a miss and scans the full range. Buckets before 90 are cached.
+    MetricDataQuery query = createQuery(0, 99, 1, Integer.MAX_VALUE);
+    assertQuery(store, cachingStore, query, 100, 0L, 99L);
+
+    // New data arrives and the time window moves forward. Only the range after the cached one should be scanned.
+    for (long ts = 100; ts < 105; ts++) {
+      store.add("a", ts, ts);
+      store.add("b", ts, 2 * ts);
+    }
+    assertQuery(store, cachingStore, createQuery(5, 104, 1, Integer.MAX_VALUE), 105, 90L, 104L);
+
+    // Query with a limit
+    assertQuery(store, cachingStore, createQuery(5, 104, 1, 3), 105, 95L, 104L);
+
+    // Query within the cached range shouldn't scan
+    assertQuery(store, cachingStore, createQuery(10, 20, 1, Integer.MAX_VALUE), 105);
+
+    // Query with a different resolution is cached separately
+    assertQuery(store, cachingStore, createQuery(0, 20, 60, Integer.MAX_VALUE), 105, 0L, 20L);
+
+    // Aggregated query is never cached
+    query = createQuery(0, 0, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    assertQuery(store, cachingStore, query, 105, 0L, 0L);
+    assertQuery(store, cachingStore, query, 105, 0L, 0L);
+
+    // Delete should invalidate the cache
+    cachingStore.delete(new MetricDeleteQuery(0, 10, Collections.singleton("m"), Collections.emptyMap(),
+                                              Collections.emptyList()));
+    query = createQuery(10, 20, 1, Integer.MAX_VALUE);
+    assertQuery(store, cachingStore, query, 105, 10L, 20L);
+    assertQuery(store, cachingStore, query, 105);
+
+    // Expired entry should be rebuilt
+    assertQuery(store, cachingStore, query, 705, 10L, 20L);
+  }
+
+  /**
+   * Queries the {@link CachingMetricStore} and asserts the result is the same as querying the underlying store
+   * directly, and that the caching store scanned the given time ranges.
+   */
+  private void assertQuery(TestMetricStore store, CachingMetricStore cachingStore,
+                           MetricDataQuery query, long now, Long... expectedRanges) {
+    Collection<MetricTimeSeries> actual = cachingStore.query(query, now);
+    Assert.assertEquals(Arrays.asList(expectedRanges), store.takeScannedRanges());
+
+    Collection<MetricTimeSeries> expected = store.query(query);
+    store.takeScannedRanges();
+    Assert.assertEquals(expected.size(), actual.size());
+    Assert.assertEquals(new HashSet<>(expected), new HashSet<>(actual));
+  }
+
+  private MetricDataQuery createQuery(long startTs, long endTs, int resolution, int limit) {
+    return new MetricDataQuery(startTs, endTs, resolution, limit, ImmutableMap.of("m", AggregationFunction.SUM),
+                               Collections.emptyMap(), ImmutableList.of("app"), null);
+  }
+
+  /**
+   * A {@link MetricStore} that stores values of the metric "m" for the tag "app" in memory, and records the time
+   * ranges of queries.
+   */
+  private static final class TestMetricStore implements MetricStore {
+
+    private final Map<String, TreeMap<Long, Long>> values = new TreeMap<>();
+    private final List<Long> scannedRanges = new ArrayList<>();
+
+    void add(String app, long ts, long value) {
+      values.computeIfAbsent(app, k -> new TreeMap<>()).put(ts, value);
+    }
+
+    /**
+     * Returns the start and end time of all queries since the last call and clears them.
+     */
+    List<Long> takeScannedRanges() {
+      List<Long> ranges = new ArrayList<>(scannedRanges);
+      scannedRanges.clear();
+      return ranges;
+    }
+
+    @Override
+    public Collection<MetricTimeSeries> query(MetricDataQuery query) {
+      scannedRanges.add(query.getStartTs());
+      scannedRanges.add(query.getEndTs());
+
+      List<MetricTimeSeries> result = new ArrayList<>();
+      for (Map.Entry<String, TreeMap<Long, Long>> entry : values.entrySet()) {
+        List<TimeValue> timeValues = new ArrayList<>();
+        Map<Long, Long> range = query.getResolution() == Integer.MAX_VALUE
+          ? entry.getValue() : entry.getValue().subMap(query.getStartTs(), true, query.getEndTs(), true);
+        for (Map.Entry<Long, Long> value : range.entrySet()) {
+          timeValues.add(new TimeValue(value.getKey(), value.getValue()));
+          if (timeValues.size() >= query.getLimit()) {
+            break;
+          }
+        }
+        if (!timeValues.isEmpty()) {
+          result.add(new MetricTimeSeries("m", ImmutableMap.of("app", entry.getKey()), timeValues));
+        }
+      }
+      return result;
+    }
+
+    @Override
+    public void setMetricsContext(MetricsContext metricsContext) {
+      // no-op
+    }
+
+    @Override
+    public void add(MetricValues metricValues) {
+      // no-op
+    }
+
+    @Override
+    public void add(Collection<? extends MetricValues> metricValues) {
+      // no-op
+    }
+
+    @Override
+    public void deleteBefore(long timestamp) {
+      // no-op
+    }
+
+    @Override
+    public void deleteTTLExpired() {
+      // no-op
+    }
+
+    @Override
+    public void delete(MetricDeleteQuery query) {
+      // no-op
+    }
+
+    @Override
+    public void deleteAll() {
+      // no-op
+    }
+
+    @Override
+    public Collection<TagValue> findNextAvailableTags(MetricSearchQuery query) {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public Collection<String> findMetricNames(MetricSearchQuery query) {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public Map<String, MetricsProcessorStatus> getMetricsProcessorStats() {
+      return Collections.emptyMap();
+    }
+  }
+}